@@ -0,0 +1,83 @@
+package net.originmobi.pdv.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ch.vorburger.mariaDB4j.DB;
+import ch.vorburger.mariaDB4j.DBConfigurationBuilder;
+import net.originmobi.pdv.PdvApplication;
+
+/*
+ * Banco MariaDB embarcado com as migrações do Flyway e a aplicação Spring
+ * iniciada sem o servidor web. O H2 não foi usado porque as migrações e as
+ * consultas nativas dependem de triggers e da sintaxe do MySQL.
+ *
+ * Cada valor de "linhas" roda em um fork próprio, com um banco novo populado
+ * pela MassaDeDados.
+ */
+@State(Scope.Benchmark)
+public class AmbienteBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	private int linhas;
+
+	private DB banco;
+	private ConfigurableApplicationContext contexto;
+	private MassaDeDados massa;
+
+	@Setup(Level.Trial)
+	public void sobe() throws Exception {
+		DBConfigurationBuilder configuracao = DBConfigurationBuilder.newBuilder();
+		configuracao.setPort(0);
+
+		banco = DB.newEmbeddedDB(configuracao.build());
+		banco.start();
+		banco.createDB("pdv");
+
+		// os serviços pegam o usuário logado pelo SecurityContext, que precisa ser
+		// visto pelas threads do JMH
+		SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken("gerente", null, AuthorityUtils.NO_AUTHORITIES));
+
+		contexto = new SpringApplicationBuilder(PdvApplication.class).web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=" + banco.getConfiguration().getURL("pdv")
+						+ "?useSSL=false&rewriteBatchedStatements=true",
+						"--spring.datasource.username=root", "--spring.datasource.password=",
+						"--logging.level.org.hibernate.SQL=warn", "--spring.main.banner-mode=off");
+
+		massa = new MassaDeDados(contexto.getBean(JdbcTemplate.class));
+		massa.popula(linhas);
+	}
+
+	@TearDown(Level.Trial)
+	public void desce() throws Exception {
+		if (contexto != null)
+			contexto.close();
+
+		if (banco != null)
+			banco.stop();
+
+		SecurityContextHolder.clearContext();
+	}
+
+	public <T> T bean(Class<T> tipo) {
+		return contexto.getBean(tipo);
+	}
+
+	public MassaDeDados massa() {
+		return massa;
+	}
+
+}
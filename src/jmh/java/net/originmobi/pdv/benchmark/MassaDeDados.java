@@ -0,0 +1,192 @@
+package net.originmobi.pdv.benchmark;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+/*
+ * Popula o banco do benchmark a partir dos dados iniciais da migração V2. O
+ * histórico de vendas, recebimentos e movimentações de estoque tem o número de
+ * linhas informado e os produtos um décimo dele, gerados com a tabela
+ * seq_1_to_N do MariaDB em um único insert por tabela.
+ *
+ * Os métodos de preparo criam o registro consumido por uma invocação do
+ * benchmark e não entram na medição.
+ */
+public class MassaDeDados {
+
+	public static final double VALOR_PRODUTO = 10.0;
+	public static final int QTD_POR_ITEM = 2;
+
+	private static final long PESSOA = 1L;
+	private static final long USUARIO = 1L;
+
+	private final JdbcTemplate jdbc;
+
+	private long titulo;
+	private long empresa;
+	private long primeiroProduto;
+	private int qtdProdutos;
+	private long ultimaVenda;
+
+	MassaDeDados(JdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+	}
+
+	void popula(int linhas) {
+		qtdProdutos = Math.max(100, linhas / 10);
+
+		cadastrosBase();
+		produtos();
+		historico(linhas);
+	}
+
+	private void cadastrosBase() {
+		long parametro = insere("insert into empresa_parametros (serie_nfe, tipo_ambiente_codigo, p_credsn) values (1, 2, 0)");
+
+		empresa = insere("insert into empresa (nome, nome_fantasia, cnpj, ie, regime_tributario_codigo, parametro_codigo, "
+				+ "endereco_codigo) values ('Empresa Benchmark', 'Benchmark', '00.000.000/0001-91', '000000000', 1, ?, 2)",
+				parametro);
+
+		long tributacao = insere("insert into tributacao (descricao, subs_tributaria, data_cadastro, empresa_codigo) "
+				+ "values ('Benchmark', 0, curdate(), ?)", empresa);
+
+		// regra de saída para Rondônia, estado da cidade do cliente cadastrado na V2
+		jdbc.update("insert into tributacao_regra (tributacao_codigo, uf, pis, cofins, cst_pis, cst_cofins, aliq_ipi, "
+				+ "aliq_icms, tipo, cst_csosn_codigo, cfop_codigo, cst_ipi_codigo, data_cadastro) "
+				+ "select ?, '1', 0, 0, (select min(codigo) from cst), (select min(codigo) from cst), 0, 0, 'SAIDA', "
+				+ "(select codigo from cst_csosn where cst_csosn = '102'), (select codigo from cfop where cfop = '5102'), "
+				+ "(select codigo from cst_ipi where cst = '99'), curdate()", tributacao);
+
+		titulo = insere("insert into titulo (descricao, tipo_codigo) values ('Dinheiro', 1)");
+
+		jdbc.update("insert into caixa (descricao, valor_abertura, valor_total, valor_entrada, valor_saida, tipo, "
+				+ "usuario_codigo, data_cadastro) values ('Caixa benchmark', 0, 0, 0, 0, 'CAIXA', ?, curdate())", USUARIO);
+	}
+
+	private void produtos() {
+		jdbc.update("insert into produto (descricao, valor_custo, valor_venda, valor_balanca, balanca, ativo, "
+				+ "fornecedor_codigo, grupo_codigo, unidade, subtributaria, categoria_codigo, ncm, vendavel, "
+				+ "controla_estoque, tributacao_codigo, bc_icms_codigo, data_cadastro) "
+				+ "select concat('Produto benchmark ', seq), 5, ?, 0, 0, 'ATIVO', 1, 1, 'UN', 0, 1, '22021000', 'SIM', "
+				+ "'SIM', (select max(codigo) from tributacao), "
+				+ "(select min(codigo) from mod_bc_icms where tipo = 3 and sub_tributaria = 0), curdate() "
+				+ "from seq_1_to_" + qtdProdutos, VALOR_PRODUTO);
+
+		primeiroProduto = jdbc.queryForObject(
+				"select min(codigo) from produto where descricao like 'Produto benchmark %'", Long.class);
+
+		// o trigger da tabela produto cria o estoque inicial, aqui ele é aumentado para
+		// que nenhuma venda do benchmark fique sem saldo
+		jdbc.update("update produto_estoque set qtd = 1000000000 where produto_codigo >= ?", primeiroProduto);
+	}
+
+	private void historico(int linhas) {
+		jdbc.update("insert into venda (observacao, valor_produtos, valor_desconto, valor_acrescimo, valor_total, "
+				+ "situacao, pessoa_codigo, usuario_codigo, data_finalizado, data_cadastro) "
+				+ "select 'Histórico', ?, 0, 0, ?, 'FECHADA', ?, ?, now() - interval seq minute, "
+				+ "now() - interval seq minute from seq_1_to_" + linhas,
+				VALOR_PRODUTO * QTD_POR_ITEM, VALOR_PRODUTO * QTD_POR_ITEM, PESSOA, USUARIO);
+
+		ultimaVenda = jdbc.queryForObject("select max(codigo) from venda", Long.class);
+
+		jdbc.update("insert into venda_produtos (produto_codigo, venda_codigo, qtd, valor_unitario, data_cadastro) "
+				+ "select ? + mod(codigo, ?), codigo, ?, ?, data_cadastro from venda",
+				primeiroProduto, qtdProdutos, QTD_POR_ITEM, VALOR_PRODUTO);
+
+		jdbc.update("insert into estoque_movimentacao (produto_codigo, tipo, qtd, origem_operacao, data_movimentacao) "
+				+ "select produto_codigo, 'SAIDA', qtd, concat('Venda ', venda_codigo), data_cadastro from venda_produtos");
+
+		jdbc.update("insert into receber (observacao, valor_total, pessoa_codigo, data_cadastro, venda_codigo) "
+				+ "select concat('Recebimento referente a venda ', codigo), valor_total, pessoa_codigo, data_cadastro, "
+				+ "codigo from venda");
+
+		jdbc.update("insert into parcela (valor_total, valor_desconto, valor_acrescimo, valor_recebido, valor_restante, "
+				+ "data_cadastro, data_alteracao, data_vencimento, data_pagamento, receber_codigo, quitado, sequencia) "
+				+ "select valor_total, 0, 0, valor_total, 0, data_cadastro, data_cadastro, data_cadastro, data_cadastro, "
+				+ "codigo, 1, 1 from receber");
+	}
+
+	/*
+	 * Venda em aberto do cliente da V2 com a quantidade de itens informada,
+	 * retorna o código da venda
+	 */
+	public Long vendaAberta(int itens) {
+		Long venda = insere("insert into venda (observacao, valor_produtos, situacao, pessoa_codigo, usuario_codigo) "
+				+ "values ('Benchmark', ?, 'ABERTA', ?, ?)", totalVenda(itens), PESSOA, USUARIO);
+
+		for (int i = 0; i < itens; i++)
+			jdbc.update("insert into venda_produtos (produto_codigo, venda_codigo, qtd, valor_unitario) "
+					+ "values (?, ?, ?, ?)", produtoQualquer(), venda, QTD_POR_ITEM, VALOR_PRODUTO);
+
+		return venda;
+	}
+
+	public double totalVenda(int itens) {
+		return itens * QTD_POR_ITEM * VALOR_PRODUTO;
+	}
+
+	/*
+	 * Recebimento em aberto com uma parcela, retorna o código do recebimento
+	 */
+	public Long recebimentoAberto(double valor) {
+		long venda = 1 + ThreadLocalRandom.current().nextLong(ultimaVenda);
+
+		Long receber = insere("insert into receber (observacao, valor_total, pessoa_codigo, data_cadastro, venda_codigo) "
+				+ "values ('Benchmark', ?, ?, now(), ?)", valor, PESSOA, venda);
+
+		Long parcela = insere("insert into parcela (valor_total, valor_desconto, valor_acrescimo, valor_recebido, "
+				+ "valor_restante, data_cadastro, data_alteracao, data_vencimento, receber_codigo, quitado, sequencia) "
+				+ "values (?, 0, 0, 0, ?, now(), now(), now(), ?, 0, 1)", valor, valor, receber);
+
+		Long recebimento = insere("insert into recebimento (valor_total, pessoa_codigo, data_cadastro) "
+				+ "values (?, ?, now())", valor, PESSOA);
+
+		jdbc.update("insert into recebimento_parcelas (recebimento_cod, parcela_cod) values (?, ?)", recebimento,
+				parcela);
+
+		return recebimento;
+	}
+
+	/*
+	 * Nota fiscal de saída sem itens para o cliente da V2, retorna o código da
+	 * nota
+	 */
+	public Long notaFiscal() {
+		Long totais = insere("insert into nota_fiscal_totais (v_bc, v_icms, v_st, v_prod, v_frete, v_seg, v_desc, "
+				+ "v_ii, v_ipi, v_pis, v_cofins, v_outros, v_nf) values (0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0)");
+
+		return insere("insert into nota_fiscal (numero, modelo, tipo, natureza_operacao, serie, emissor_codigo, "
+				+ "destinatario_codigo, data_cadastro, tipo_emissao, totais_codigo, verProc, frete_tipo_codigo, "
+				+ "finalidade_codigo, tipo_ambiente) "
+				+ "select coalesce(max(numero), 0) + 1, 55, 'SAIDA', 'Venda', 1, ?, ?, curdate(), 1, ?, 'benchmark', "
+				+ "(select codigo from frete_tipo where tipo = 9), 1, 2 from nota_fiscal",
+				empresa, PESSOA, totais);
+	}
+
+	public long produtoQualquer() {
+		return primeiroProduto + ThreadLocalRandom.current().nextInt(qtdProdutos);
+	}
+
+	public long titulo() {
+		return titulo;
+	}
+
+	private Long insere(String sql, Object... parametros) {
+		KeyHolder chave = new GeneratedKeyHolder();
+
+		jdbc.update(conexao -> {
+			PreparedStatement ps = conexao.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			for (int i = 0; i < parametros.length; i++)
+				ps.setObject(i + 1, parametros[i]);
+			return ps;
+		}, chave);
+
+		return chave.getKey().longValue();
+	}
+
+}
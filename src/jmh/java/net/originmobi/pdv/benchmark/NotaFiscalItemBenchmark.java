@@ -0,0 +1,50 @@
+package net.originmobi.pdv.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.originmobi.pdv.enumerado.notafiscal.NotaFiscalTipo;
+import net.originmobi.pdv.service.notafiscal.NotaFiscalItemService;
+
+/*
+ * Inclusão de um item em uma nota de saída, com o cálculo dos impostos e a
+ * atualização dos totais da nota
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class NotaFiscalItemBenchmark {
+
+	@State(Scope.Thread)
+	public static class NotaAberta {
+
+		Long nota;
+		Long produto;
+
+		@Setup(Level.Invocation)
+		public void prepara(AmbienteBenchmark ambiente) {
+			nota = ambiente.massa().notaFiscal();
+			produto = ambiente.massa().produtoQualquer();
+		}
+
+	}
+
+	@Benchmark
+	public String insere(AmbienteBenchmark ambiente, NotaAberta aberta) {
+		return ambiente.bean(NotaFiscalItemService.class).insere(aberta.produto, aberta.nota, 1, NotaFiscalTipo.SAIDA);
+	}
+
+}
@@ -0,0 +1,50 @@
+package net.originmobi.pdv.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.originmobi.pdv.service.RecebimentoService;
+
+/*
+ * Recebimento integral de uma parcela no dinheiro, com o lançamento no caixa
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class RecebimentoBenchmark {
+
+	private static final double VALOR = 20.0;
+
+	@State(Scope.Thread)
+	public static class RecebimentoAberto {
+
+		Long recebimento;
+		Long titulo;
+
+		@Setup(Level.Invocation)
+		public void prepara(AmbienteBenchmark ambiente) {
+			recebimento = ambiente.massa().recebimentoAberto(VALOR);
+			titulo = ambiente.massa().titulo();
+		}
+
+	}
+
+	@Benchmark
+	public String receber(AmbienteBenchmark ambiente, RecebimentoAberto aberto) {
+		return ambiente.bean(RecebimentoService.class).receber(aberto.recebimento, VALOR, 0.0, 0.0, aberto.titulo);
+	}
+
+}
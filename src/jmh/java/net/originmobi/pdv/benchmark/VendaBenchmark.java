@@ -0,0 +1,69 @@
+package net.originmobi.pdv.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.originmobi.pdv.enumerado.EntradaSaida;
+import net.originmobi.pdv.service.ProdutoService;
+import net.originmobi.pdv.service.VendaService;
+
+/*
+ * Fechamento de uma venda à vista no dinheiro e a baixa de estoque feita por
+ * ele, medidas separadamente
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class VendaBenchmark {
+
+	private static final int ITENS = 5;
+	private static final Long PAGAMENTO_A_VISTA = 1L;
+
+	/*
+	 * Cada invocação consome uma venda aberta nova, a preparação leva alguns
+	 * inserts e fica fora da medição
+	 */
+	@State(Scope.Thread)
+	public static class VendaAberta {
+
+		Long venda;
+		String[] valores;
+		String[] titulos;
+
+		@Setup(Level.Invocation)
+		public void prepara(AmbienteBenchmark ambiente) {
+			MassaDeDados massa = ambiente.massa();
+
+			venda = massa.vendaAberta(ITENS);
+			valores = new String[] { String.valueOf(massa.totalVenda(ITENS)) };
+			titulos = new String[] { String.valueOf(massa.titulo()) };
+		}
+
+	}
+
+	@Benchmark
+	public String fechaVenda(AmbienteBenchmark ambiente, VendaAberta aberta) {
+		return ambiente.bean(VendaService.class).fechaVenda(aberta.venda, PAGAMENTO_A_VISTA, 0.0, 0.0, 0.0,
+				aberta.valores, aberta.titulos);
+	}
+
+	@Benchmark
+	public Long movimentaEstoque(AmbienteBenchmark ambiente, VendaAberta aberta) {
+		ambiente.bean(ProdutoService.class).movimentaEstoque(aberta.venda, EntradaSaida.SAIDA);
+		return aberta.venda;
+	}
+
+}
@@ -1,5 +1,6 @@
 package net.originmobi.pdv.controller;
 
+import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,7 @@ import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import net.originmobi.pdv.dto.ExtratoCaixaDTO;
 import net.originmobi.pdv.enumerado.caixa.CaixaTipo;
 import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
 import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
@@ -28,8 +30,8 @@ import net.originmobi.pdv.model.CaixaLancamento;
 import net.originmobi.pdv.model.Usuario;
 import net.originmobi.pdv.service.CaixaLancamentoService;
 import net.originmobi.pdv.service.CaixaService;
-import net.originmobi.pdv.service.UsuarioService;
-import net.originmobi.pdv.singleton.Aplicacao;
+import net.originmobi.pdv.service.UsuarioAtualService;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Controller
 @RequestMapping("/caixa")
@@ -48,7 +50,7 @@ public class CaixaController {
 	private CaixaLancamentoService lancamentos;
 
 	@Autowired
-	private UsuarioService usuarios;
+	private UsuarioAtualService usuarioAtual;
 
 	@GetMapping("/form")
 	public ModelAndView form() {
@@ -94,14 +96,34 @@ public class CaixaController {
 
 	@SuppressWarnings("deprecation")
 	@GetMapping("/gerenciar/{codigo}")
-	public ModelAndView gerenciar(@PathVariable("codigo") Caixa caixa) {
+	public ModelAndView gerenciar(@PathVariable("codigo") Caixa caixa,
+			@RequestParam(value = "apos", required = false) Long apos,
+			@RequestParam(value = "lancamento", required = false) Long aposLancamento,
+			@RequestParam(value = "saldo", required = false) Long saldo) {
 		ModelAndView mv = new ModelAndView(CAIXA_GERENCIAR);
 		mv.addObject("caixa", caixa);
 		mv.addObject("lancamento", new CaixaLancamento());
-		mv.addObject("lancamentos", lancamentos.lancamentosDoCaixa(caixa));
+		mv.addObject("extrato", extrato(caixa, apos, aposLancamento, saldo));
 		return mv;
 	}
 
+	/*
+	 * Próximas páginas do extrato, a partir do cursor retornado na página
+	 * anterior
+	 */
+	@GetMapping("/extrato/{codigo}")
+	public @ResponseBody ExtratoCaixaDTO extratoCaixa(@PathVariable("codigo") Caixa caixa,
+			@RequestParam(value = "apos", required = false) Long apos,
+			@RequestParam(value = "lancamento", required = false) Long aposLancamento,
+			@RequestParam(value = "saldo", required = false) Long saldo) {
+		return extrato(caixa, apos, aposLancamento, saldo);
+	}
+
+	private ExtratoCaixaDTO extrato(Caixa caixa, Long apos, Long aposLancamento, Long saldo) {
+		return lancamentos.extrato(caixa, apos == null ? null : new Timestamp(apos), aposLancamento,
+				saldo == null ? null : Dinheiro.deCentavos(saldo));
+	}
+
 	@RequestMapping(value = "/lancamento/suprimento", method = RequestMethod.POST)
 	public @ResponseBody String fazSuprimento(@RequestParam Map<String, String> request) {
 		Double valor = Double.valueOf(request.get("valor").replace(",", "."));
@@ -112,15 +134,14 @@ public class CaixaController {
 
 		try {
 			Optional<Caixa> caixa = caixas.busca(codCaixa);
-			Aplicacao aplicacao = Aplicacao.getInstancia();
-			Usuario usuario = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+			Usuario usuario = usuarioAtual.usuario();
 
 			CaixaLancamento lancamento = new CaixaLancamento(observacao, valor, TipoLancamento.SUPRIMENTO,
 					EstiloLancamento.ENTRADA, caixa.get(), usuario);
 
 			retorno = lancamentos.lancamento(lancamento);
 		} catch (Exception e) {
-			e.getStackTrace();
+			retorno = e.getMessage();
 		}
 
 		return retorno;
@@ -136,14 +157,13 @@ public class CaixaController {
 
 		try {
 			Optional<Caixa> caixa = caixas.busca(codCaixa);
-			Aplicacao aplicacao = Aplicacao.getInstancia();
-			Usuario usuario = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+			Usuario usuario = usuarioAtual.usuario();
 
 			CaixaLancamento lancamento = new CaixaLancamento(observacao, valor, TipoLancamento.SANGRIA,
 					EstiloLancamento.SAIDA, caixa.get(), usuario);
 			retorno = lancamentos.lancamento(lancamento);
 		} catch (Exception e) {
-			e.getStackTrace();
+			retorno = e.getMessage();
 		}
 
 		return retorno;
@@ -166,8 +186,7 @@ public class CaixaController {
 	
 	@ModelAttribute("usuarioAtual")
 	public String usuarioAtual() {
-		Aplicacao aplicacao = Aplicacao.getInstancia();
-		return aplicacao.getUsuarioAtual();
+		return usuarioAtual.username();
 	}
 
 	@ModelAttribute("caixatipo")
@@ -5,10 +5,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.servlet.ModelAndView;
 
-import net.originmobi.pdv.service.PagarParcelaService;
-import net.originmobi.pdv.service.ReceberService;
-import net.originmobi.pdv.service.VendaService;
-import net.originmobi.pdv.service.notafiscal.NotaFiscalService;
+import net.originmobi.pdv.service.DashboardService;
 
 @Controller
 public class HomeController {
@@ -16,24 +13,15 @@ public class HomeController {
 	private static final String DASHBOARD_DASHBOARD = "dashboard/dashboard";
 
 	@Autowired
-	private VendaService vendas;
-
-	@Autowired
-	private ReceberService receberServ;
-
-	@Autowired
-	private PagarParcelaService pagarServ;
-
-	@Autowired
-	private NotaFiscalService notas;
+	private DashboardService dashboard;
 
 	@GetMapping({ "", "/" })
 	public ModelAndView home() {
 		ModelAndView mv = new ModelAndView(DASHBOARD_DASHBOARD);
-		mv.addObject("pedidosAberto", vendas.qtdAbertos());
-		mv.addObject("total_a_receber", receberServ.total_a_receber());
-		mv.addObject("total_a_pagar", pagarServ.totalParagarAberto());
-		mv.addObject("total_notas_emitidas", notas.totalNotaFiscalEmitidas());
+		mv.addObject("pedidosAberto", dashboard.qtdVendasAbertas());
+		mv.addObject("total_a_receber", dashboard.totalAReceber());
+		mv.addObject("total_a_pagar", dashboard.totalAPagar());
+		mv.addObject("total_notas_emitidas", dashboard.qtdNotasEmitidas());
 
 		return mv;
 	}
@@ -0,0 +1,28 @@
+package net.originmobi.pdv.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import net.originmobi.pdv.service.IndiceBuscaService;
+
+@Controller
+@RequestMapping("/busca")
+public class IndiceBuscaController {
+
+	@Autowired
+	private IndiceBuscaService indice;
+
+	/*
+	 * Refaz o índice de busca de produtos, pessoas e fornecedores a partir do
+	 * banco, as buscas seguem usando o índice atual até o fim
+	 */
+	@PostMapping("/reconstroi")
+	public @ResponseBody String reconstroi() {
+		return indice.reconstroiEmSegundoPlano() ? "Reconstrução do índice de busca iniciada"
+				: "O índice de busca já está sendo reconstruído";
+	}
+
+}
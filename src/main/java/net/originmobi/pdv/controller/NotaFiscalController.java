@@ -1,15 +1,22 @@
 package net.originmobi.pdv.controller;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -25,6 +32,8 @@ import net.originmobi.pdv.model.Pessoa;
 import net.originmobi.pdv.model.Produto;
 import net.originmobi.pdv.service.PessoaService;
 import net.originmobi.pdv.service.ProdutoService;
+import net.originmobi.pdv.service.notafiscal.EmissaoLote;
+import net.originmobi.pdv.service.notafiscal.EmissaoLoteService;
 import net.originmobi.pdv.service.notafiscal.FreteTipoService;
 import net.originmobi.pdv.service.notafiscal.NotaFiscalItemService;
 import net.originmobi.pdv.service.notafiscal.NotaFiscalService;
@@ -52,6 +61,9 @@ public class NotaFiscalController {
 	@Autowired
 	private FreteTipoService fretes;
 
+	@Autowired
+	private EmissaoLoteService emissaoLote;
+
 	@GetMapping("/form")
 	public ModelAndView form() {
 		ModelAndView mv = new ModelAndView(NOTAFISCAL_FORM);
@@ -101,6 +113,30 @@ public class NotaFiscalController {
 		return "ok";
 	}
 	
+	@PostMapping("/lote")
+	public @ResponseBody String emitirLote(@RequestParam("notas") List<Long> codigos) {
+		return emissaoLote.envia(codigos).getId();
+	}
+
+	@GetMapping("/lote/{id}")
+	public @ResponseBody EmissaoLote lote(@PathVariable("id") String id) {
+		return emissaoLote.busca(id).orElseThrow(() -> new RuntimeException("Lote de emissão não encontrado"));
+	}
+	
+	@GetMapping("/xml/{chave}")
+	public ResponseEntity<byte[]> xml(@PathVariable("chave") String chave) {
+		return notasFiscais.buscaXml(chave)
+				.map(xml -> ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).body(xml))
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+	}
+
+	@GetMapping("/xml/mes/{aamm}")
+	public void exportaXml(@PathVariable("aamm") String aamm, HttpServletResponse response) throws IOException {
+		response.setContentType("application/zip");
+		response.setHeader("Content-Disposition", "attachment; filename=\"nfe_" + aamm + ".zip\"");
+		notasFiscais.exportaXmlMes(aamm, response.getOutputStream());
+	}
+	
 	@GetMapping
 	public ModelAndView lista() {
 		System.out.println("veio aqui");
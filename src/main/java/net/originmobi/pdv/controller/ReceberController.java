@@ -17,10 +17,13 @@ import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import net.originmobi.pdv.dto.AgingClienteDTO;
 import net.originmobi.pdv.filter.ClienteFilter;
 import net.originmobi.pdv.model.Parcela;
 import net.originmobi.pdv.model.Pessoa;
 import net.originmobi.pdv.model.Receber;
+import net.originmobi.pdv.service.AgingReceberService;
+import net.originmobi.pdv.service.ExposicaoClienteService;
 import net.originmobi.pdv.service.ParcelaService;
 import net.originmobi.pdv.service.PessoaService;
 import net.originmobi.pdv.service.RecebimentoService;
@@ -43,6 +46,12 @@ public class ReceberController {
 	@Autowired
 	private RecebimentoService recebimentos;
 
+	@Autowired
+	private ExposicaoClienteService exposicao;
+
+	@Autowired
+	private AgingReceberService aging;
+
 	@SuppressWarnings("deprecation")
 	@GetMapping("/form")
 	public ModelAndView form() {
@@ -62,10 +71,22 @@ public class ReceberController {
 		List<Parcela> pagina = parcelas.lista(filter);
 		mv.addObject("parcelas", pagina);
 		mv.addObject("totalReceber", parcelas.totalReceberCliente(filter));
+		mv.addObject("exposicao", exposicao.exposicao(filter.getCodigo()));
+		mv.addObject("aging", aging.busca(filter.getCodigo()));
 
 		return mv;
 	}
 
+	/*
+	 * Clientes com parcelas vencidas na última foto do contas a receber, para a
+	 * cobrança
+	 */
+	@GetMapping("/cobranca")
+	public @ResponseBody List<AgingClienteDTO> cobranca(
+			@RequestParam(value = "pagina", defaultValue = "0") int pagina) {
+		return aging.cobranca(pagina);
+	}
+
 	@RequestMapping(value = "/parcelaReceber", method = RequestMethod.POST)
 	public @ResponseBody String receber(@RequestParam Map<String, String> request) {
 		Long parcela = Long.decode(request.get("receber"));
@@ -5,19 +5,22 @@ import java.util.Map;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import net.originmobi.pdv.relatorios.GerarRelatorio;
+import net.originmobi.pdv.relatorios.RelatorioService;
 
 @Controller
 @RequestMapping("/relatorio")
 public class RelatorioController {
+
+	@Autowired
+	private RelatorioService relatorio;
 	
 	@GetMapping
 	public String relatorio(HttpServletResponse response) {
-		GerarRelatorio relatorio = new GerarRelatorio();
 		Map<String, Object> parametros = new HashMap<>();
 		parametros.put("codvenda", 1);
 		
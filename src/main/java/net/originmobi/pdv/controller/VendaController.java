@@ -23,16 +23,16 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import net.originmobi.pdv.dto.ProdutoCatalogoDTO;
 import net.originmobi.pdv.enumerado.VendaSituacao;
 import net.originmobi.pdv.filter.VendaFilter;
 import net.originmobi.pdv.model.PagamentoTipo;
 import net.originmobi.pdv.model.Pessoa;
-import net.originmobi.pdv.model.Produto;
 import net.originmobi.pdv.model.Titulo;
 import net.originmobi.pdv.model.Venda;
 import net.originmobi.pdv.service.PagamentoTipoService;
 import net.originmobi.pdv.service.PessoaService;
-import net.originmobi.pdv.service.ProdutoService;
+import net.originmobi.pdv.service.ProdutoCatalogoService;
 import net.originmobi.pdv.service.VendaProdutoService;
 import net.originmobi.pdv.service.VendaService;
 
@@ -51,7 +51,7 @@ public class VendaController {
 	private PessoaService pessoas;
 
 	@Autowired
-	private ProdutoService produtos;
+	private ProdutoCatalogoService catalogo;
 
 	@Autowired
 	private VendaProdutoService vendaProdutos;
@@ -110,6 +110,10 @@ public class VendaController {
 	@GetMapping("{codigo}")
 	public ModelAndView buscaVenda(@PathVariable("codigo") Venda venda) {
 		ModelAndView mv = new ModelAndView(VENDA_FORM);
+
+		if (venda.isAberta())
+			venda.setValor_produtos(vendas.totalProdutos(venda.getCodigo()));
+
 		mv.addObject("venda", venda);
 		mv.addObject("produtosVenda", vendaProdutos.listaProdutosVenda(venda));
 		return mv;
@@ -120,11 +124,12 @@ public class VendaController {
 		Long codVen = Long.decode(request.get("codigoVen"));
 		Long codPro = Long.decode(request.get("codigoPro"));
 		Double vlBalanca = Double.valueOf(request.get("valorBalanca"));
+		String qtd = request.get("qtd");
 
 		String mensagem = "";
 
 		try {
-			mensagem = vendas.addProduto(codVen, codPro, vlBalanca);
+			mensagem = vendas.addProduto(codVen, codPro, vlBalanca, qtd == null || qtd.isEmpty() ? 1 : Integer.parseInt(qtd));
 		} catch (Exception e) {
 			e.getStackTrace();
 		}
@@ -165,6 +170,11 @@ public class VendaController {
 		return vendas.fechaVenda(venda, pagamentotipo, vlprodutos, vldesconto, vlacrescimo, vlParcelas, titulos);
 	}
 
+	@RequestMapping(value = "/produtos", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public @ResponseBody List<ProdutoCatalogoDTO> produtos(@RequestParam(value = "descricao", required = false) String descricao) {
+		return catalogo.pesquisa(descricao);
+	}
+
 	@RequestMapping(value = "/titulos", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
 	public @ResponseBody List<Titulo> titulos() {
 		return titulos.lista();
@@ -180,16 +190,6 @@ public class VendaController {
 		return Arrays.asList(VendaSituacao.values());
 	}
 
-	@ModelAttribute("produtos")
-	public List<Produto> produtos() {
-		return produtos.listar();
-	}
-	
-	@ModelAttribute("produtosVendaveis")
-	public List<Produto> produtosVendaveis() {
-		return produtos.listaProdutosVendaveis();
-	}
-
 	@ModelAttribute("formaPagamento")
 	public List<PagamentoTipo> pagamentoTipo() {
 		return pagamentoTipos.listar();
@@ -0,0 +1,43 @@
+package net.originmobi.pdv.controller;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import net.originmobi.pdv.service.VendaExportacaoService;
+
+@Controller
+@RequestMapping("/venda/exportar")
+public class VendaExportacaoController {
+
+	@Autowired
+	private VendaExportacaoService exportacao;
+
+	@GetMapping
+	public void exportar(@RequestParam("inicio") @DateTimeFormat(iso = ISO.DATE) LocalDate inicio,
+			@RequestParam("fim") @DateTimeFormat(iso = ISO.DATE) LocalDate fim,
+			@RequestParam(value = "formato", defaultValue = "csv") String formato, HttpServletResponse response)
+			throws IOException {
+		String arquivo = "vendas_" + inicio + "_" + fim;
+
+		if ("xlsx".equalsIgnoreCase(formato)) {
+			response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+			response.setHeader("Content-Disposition", "attachment; filename=\"" + arquivo + ".xlsx\"");
+			exportacao.exportaXlsx(inicio, fim, response.getOutputStream());
+		} else {
+			response.setContentType("text/csv; charset=UTF-8");
+			response.setHeader("Content-Disposition", "attachment; filename=\"" + arquivo + ".csv\"");
+			exportacao.exportaCsv(inicio, fim, response.getOutputStream());
+		}
+	}
+
+}
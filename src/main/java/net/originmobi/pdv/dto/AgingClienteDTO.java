@@ -0,0 +1,101 @@
+package net.originmobi.pdv.dto;
+
+import java.sql.Date;
+
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+/*
+ * Contas a receber de um cliente na data de referência da foto diária: o
+ * valor a vencer, o vencido por faixa de atraso e a multa e os juros do que
+ * está vencido
+ */
+public class AgingClienteDTO {
+
+	private final Long pessoa;
+	private final String nome;
+	private final Date referencia;
+	private final Dinheiro valorAVencer;
+	private final Dinheiro vencido30;
+	private final Dinheiro vencido60;
+	private final Dinheiro vencido90;
+	private final Dinheiro vencidoMais90;
+	private final Dinheiro multa;
+	private final Dinheiro juros;
+	private final int parcelasVencidas;
+	private final int maiorAtraso;
+
+	public AgingClienteDTO(Long pessoa, String nome, Date referencia, Dinheiro valorAVencer, Dinheiro vencido30,
+			Dinheiro vencido60, Dinheiro vencido90, Dinheiro vencidoMais90, Dinheiro multa, Dinheiro juros,
+			int parcelasVencidas, int maiorAtraso) {
+		this.pessoa = pessoa;
+		this.nome = nome;
+		this.referencia = referencia;
+		this.valorAVencer = valorAVencer;
+		this.vencido30 = vencido30;
+		this.vencido60 = vencido60;
+		this.vencido90 = vencido90;
+		this.vencidoMais90 = vencidoMais90;
+		this.multa = multa;
+		this.juros = juros;
+		this.parcelasVencidas = parcelasVencidas;
+		this.maiorAtraso = maiorAtraso;
+	}
+
+	public Long getPessoa() {
+		return pessoa;
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	public Date getReferencia() {
+		return referencia;
+	}
+
+	public Dinheiro getValorAVencer() {
+		return valorAVencer;
+	}
+
+	public Dinheiro getVencido30() {
+		return vencido30;
+	}
+
+	public Dinheiro getVencido60() {
+		return vencido60;
+	}
+
+	public Dinheiro getVencido90() {
+		return vencido90;
+	}
+
+	public Dinheiro getVencidoMais90() {
+		return vencidoMais90;
+	}
+
+	public Dinheiro getMulta() {
+		return multa;
+	}
+
+	public Dinheiro getJuros() {
+		return juros;
+	}
+
+	public int getParcelasVencidas() {
+		return parcelasVencidas;
+	}
+
+	public int getMaiorAtraso() {
+		return maiorAtraso;
+	}
+
+	public Dinheiro getVencido() {
+		return vencido30.mais(vencido60).mais(vencido90).mais(vencidoMais90);
+	}
+
+	/* vencido com multa e juros, o valor a cobrar do cliente na referência */
+	public Dinheiro getVencidoAtualizado() {
+		return getVencido().mais(multa).mais(juros);
+	}
+
+}
@@ -0,0 +1,41 @@
+package net.originmobi.pdv.dto;
+
+/*
+ * Representa um produto da venda com a quantidade vendida e o saldo atual do
+ * estoque, carregados de uma só vez para a movimentação de estoque.
+ */
+public class EstoqueVendaDTO {
+
+	private Long codprod;
+	private int qtd;
+	private boolean controlaEstoque;
+	private int saldo;
+
+	public EstoqueVendaDTO(Long codprod, int qtd, boolean controlaEstoque, int saldo) {
+		this.codprod = codprod;
+		this.qtd = qtd;
+		this.controlaEstoque = controlaEstoque;
+		this.saldo = saldo;
+	}
+
+	public Long getCodprod() {
+		return codprod;
+	}
+
+	public int getQtd() {
+		return qtd;
+	}
+
+	public boolean isControlaEstoque() {
+		return controlaEstoque;
+	}
+
+	public int getSaldo() {
+		return saldo;
+	}
+
+	public boolean temSaldo() {
+		return qtd <= saldo;
+	}
+
+}
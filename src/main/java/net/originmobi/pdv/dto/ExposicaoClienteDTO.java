@@ -0,0 +1,47 @@
+package net.originmobi.pdv.dto;
+
+import java.sql.Date;
+
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+/*
+ * Posição do cliente no contas a receber: o que está em aberto, quanto disso
+ * já venceu, quantas parcelas e o vencimento mais antigo entre elas
+ */
+public class ExposicaoClienteDTO {
+
+	public static final ExposicaoClienteDTO VAZIA = new ExposicaoClienteDTO(Dinheiro.ZERO, Dinheiro.ZERO, 0, null);
+
+	private final Dinheiro aberto;
+	private final Dinheiro vencido;
+	private final int parcelasAbertas;
+	private final Date vencimentoAntigo;
+
+	public ExposicaoClienteDTO(Dinheiro aberto, Dinheiro vencido, int parcelasAbertas, Date vencimentoAntigo) {
+		this.aberto = aberto;
+		this.vencido = vencido;
+		this.parcelasAbertas = parcelasAbertas;
+		this.vencimentoAntigo = vencimentoAntigo;
+	}
+
+	public Dinheiro getAberto() {
+		return aberto;
+	}
+
+	public Dinheiro getVencido() {
+		return vencido;
+	}
+
+	public int getParcelasAbertas() {
+		return parcelasAbertas;
+	}
+
+	public Date getVencimentoAntigo() {
+		return vencimentoAntigo;
+	}
+
+	public boolean isPossuiVencido() {
+		return vencido.isPositivo();
+	}
+
+}
@@ -0,0 +1,70 @@
+package net.originmobi.pdv.dto;
+
+import java.util.List;
+
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+/*
+ * Uma página do extrato do caixa. A página seguinte começa depois do último
+ * lançamento desta, pela data e pelo código dele, e continua o saldo a partir
+ * do saldo final desta página.
+ */
+public class ExtratoCaixaDTO {
+
+	private final Long caixa;
+	private final List<ExtratoLancamentoDTO> lancamentos;
+	private final List<ResumoCaixaDTO> resumo;
+	private final Dinheiro saldoAnterior;
+	private final boolean possuiProxima;
+
+	public ExtratoCaixaDTO(Long caixa, List<ExtratoLancamentoDTO> lancamentos, List<ResumoCaixaDTO> resumo,
+			Dinheiro saldoAnterior, boolean possuiProxima) {
+		this.caixa = caixa;
+		this.lancamentos = lancamentos;
+		this.resumo = resumo;
+		this.saldoAnterior = saldoAnterior;
+		this.possuiProxima = possuiProxima;
+	}
+
+	public Long getCaixa() {
+		return caixa;
+	}
+
+	public List<ExtratoLancamentoDTO> getLancamentos() {
+		return lancamentos;
+	}
+
+	public List<ResumoCaixaDTO> getResumo() {
+		return resumo;
+	}
+
+	public Dinheiro getSaldoAnterior() {
+		return saldoAnterior;
+	}
+
+	public Dinheiro getSaldoFinal() {
+		return lancamentos.isEmpty() ? saldoAnterior : lancamentos.get(lancamentos.size() - 1).getSaldo();
+	}
+
+	public boolean isPossuiProxima() {
+		return possuiProxima;
+	}
+
+	/* cursor da próxima página, nulos quando esta é a última */
+	public Long getProximaData() {
+		return possuiProxima ? ultimo().getData_cadastro().getTime() : null;
+	}
+
+	public Long getProximoLancamento() {
+		return possuiProxima ? ultimo().getCodigo() : null;
+	}
+
+	public Long getProximoSaldo() {
+		return possuiProxima ? getSaldoFinal().getCentavos() : null;
+	}
+
+	private ExtratoLancamentoDTO ultimo() {
+		return lancamentos.get(lancamentos.size() - 1);
+	}
+
+}
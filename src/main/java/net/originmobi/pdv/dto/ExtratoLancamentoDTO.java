@@ -0,0 +1,69 @@
+package net.originmobi.pdv.dto;
+
+import java.sql.Timestamp;
+
+import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
+import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+/*
+ * Linha do extrato do caixa, só as colunas do lançamento usadas na tela e o
+ * saldo do caixa depois dele
+ */
+public class ExtratoLancamentoDTO {
+
+	private final Long codigo;
+	private final String observacao;
+	private final Dinheiro valor;
+	private final TipoLancamento tipo;
+	private final EstiloLancamento estilo;
+	private final Timestamp data_cadastro;
+	private Dinheiro saldo;
+
+	public ExtratoLancamentoDTO(Long codigo, String observacao, Double valor, TipoLancamento tipo,
+			EstiloLancamento estilo, Timestamp data_cadastro) {
+		this.codigo = codigo;
+		this.observacao = observacao;
+		this.valor = Dinheiro.de(valor);
+		this.tipo = tipo;
+		this.estilo = estilo;
+		this.data_cadastro = data_cadastro;
+	}
+
+	public Long getCodigo() {
+		return codigo;
+	}
+
+	public String getObservacao() {
+		return observacao;
+	}
+
+	public Dinheiro getValor() {
+		return valor;
+	}
+
+	public TipoLancamento getTipo() {
+		return tipo;
+	}
+
+	public EstiloLancamento getEstilo() {
+		return estilo;
+	}
+
+	public Timestamp getData_cadastro() {
+		return data_cadastro;
+	}
+
+	public Dinheiro getSaldo() {
+		return saldo;
+	}
+
+	public void setSaldo(Dinheiro saldo) {
+		this.saldo = saldo;
+	}
+
+	public boolean isEntrada() {
+		return EstiloLancamento.ENTRADA.equals(estilo);
+	}
+
+}
@@ -0,0 +1,39 @@
+package net.originmobi.pdv.dto;
+
+import net.originmobi.pdv.enumerado.produto.ProdutoBalanca;
+
+/*
+ * Dados mínimos de um produto vendável usados na tela de venda, evita carregar a
+ * entidade Produto com todos os seus relacionamentos
+ */
+public class ProdutoCatalogoDTO {
+
+	private final Long codigo;
+	private final String descricao;
+	private final Double valor_venda;
+	private final ProdutoBalanca balanca;
+
+	public ProdutoCatalogoDTO(Long codigo, String descricao, Double valor_venda, ProdutoBalanca balanca) {
+		this.codigo = codigo;
+		this.descricao = descricao;
+		this.valor_venda = valor_venda;
+		this.balanca = balanca;
+	}
+
+	public Long getCodigo() {
+		return codigo;
+	}
+
+	public String getDescricao() {
+		return descricao;
+	}
+
+	public Double getValor_venda() {
+		return valor_venda;
+	}
+
+	public ProdutoBalanca getBalanca() {
+		return balanca;
+	}
+
+}
@@ -0,0 +1,45 @@
+package net.originmobi.pdv.dto;
+
+import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
+import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+/*
+ * Quantidade e soma dos lançamentos de um caixa de um tipo e estilo, as saídas
+ * com valor negativo
+ */
+public class ResumoCaixaDTO {
+
+	private final TipoLancamento tipo;
+	private final EstiloLancamento estilo;
+	private final long quantidade;
+	private final Dinheiro valor;
+
+	public ResumoCaixaDTO(TipoLancamento tipo, EstiloLancamento estilo, long quantidade, Dinheiro valor) {
+		this.tipo = tipo;
+		this.estilo = estilo;
+		this.quantidade = quantidade;
+		this.valor = valor;
+	}
+
+	public TipoLancamento getTipo() {
+		return tipo;
+	}
+
+	public EstiloLancamento getEstilo() {
+		return estilo;
+	}
+
+	public long getQuantidade() {
+		return quantidade;
+	}
+
+	public Dinheiro getValor() {
+		return valor;
+	}
+
+	public boolean isEntrada() {
+		return EstiloLancamento.ENTRADA.equals(estilo);
+	}
+
+}
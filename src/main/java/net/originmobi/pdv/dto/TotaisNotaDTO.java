@@ -0,0 +1,74 @@
+package net.originmobi.pdv.dto;
+
+import net.originmobi.pdv.model.NotaFiscalItem;
+import net.originmobi.pdv.model.NotaFiscalItemImposto;
+
+/*
+ * Valores que compõem os totais da nota: a soma de todos os itens, quando
+ * calculada pelo banco, ou os valores de um único item, para atualizar os totais
+ * pela diferença.
+ */
+public class TotaisNotaDTO {
+
+	public static final TotaisNotaDTO ZERO = new TotaisNotaDTO(0.0, 0.0, 0.0, 0.0, 0.0);
+
+	private final double produtos;
+	private final double icms;
+	private final double pis;
+	private final double cofins;
+	private final double ipi;
+
+	public TotaisNotaDTO(Double produtos, Double icms, Double pis, Double cofins, Double ipi) {
+		this.produtos = valor(produtos);
+		this.icms = valor(icms);
+		this.pis = valor(pis);
+		this.cofins = valor(cofins);
+		this.ipi = valor(ipi);
+	}
+
+	public static TotaisNotaDTO doItem(NotaFiscalItem item) {
+		NotaFiscalItemImposto imposto = item.getImpostos();
+
+		if (imposto == null)
+			return new TotaisNotaDTO(item.getVlTotal(), null, null, null, null);
+
+		return new TotaisNotaDTO(item.getVlTotal(), imposto.getV_icms(), imposto.getV_pis(), imposto.getV_cofins(),
+				imposto.getV_ipi());
+	}
+
+	/* diferença entre estes valores e os anteriores */
+	public TotaisNotaDTO menos(TotaisNotaDTO anterior) {
+		return new TotaisNotaDTO(produtos - anterior.produtos, icms - anterior.icms, pis - anterior.pis,
+				cofins - anterior.cofins, ipi - anterior.ipi);
+	}
+
+	public double getProdutos() {
+		return produtos;
+	}
+
+	public double getIcms() {
+		return icms;
+	}
+
+	public double getPis() {
+		return pis;
+	}
+
+	public double getCofins() {
+		return cofins;
+	}
+
+	public double getIpi() {
+		return ipi;
+	}
+
+	/* o total da nota é a soma dos produtos mais o IPI */
+	public double getNota() {
+		return produtos + ipi;
+	}
+
+	private static double valor(Double valor) {
+		return valor != null ? valor : 0.0;
+	}
+
+}
@@ -0,0 +1,6 @@
+package net.originmobi.pdv.enumerado.notafiscal;
+
+public enum EmissaoSituacao {
+	PENDENTE, GERADA, ASSINADA, EMITIDA, ERRO;
+
+}
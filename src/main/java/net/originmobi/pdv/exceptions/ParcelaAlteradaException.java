@@ -0,0 +1,13 @@
+package net.originmobi.pdv.exceptions;
+
+/*
+ * A parcela mudou no banco depois de lida, por outro usuário ao mesmo tempo
+ */
+public class ParcelaAlteradaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ParcelaAlteradaException(Long parcela) {
+        super("A parcela " + parcela + " foi alterada por outro usuário, atualize e tente novamente");
+    }
+}
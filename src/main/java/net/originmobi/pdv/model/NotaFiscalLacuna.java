@@ -0,0 +1,85 @@
+package net.originmobi.pdv.model;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+/*
+ * Número de nota reservado para uma série que não chegou a ser usado e precisa
+ * ser inutilizado
+ */
+@Entity
+@Table(name = "nota_fiscal_lacuna")
+public class NotaFiscalLacuna implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long codigo;
+	private int serie;
+	private Long numero;
+	private String motivo;
+
+	@DateTimeFormat(pattern = "dd/MM/yyyy")
+	private Timestamp data_cadastro;
+
+	public NotaFiscalLacuna() {
+		super();
+	}
+
+	public NotaFiscalLacuna(int serie, Long numero, String motivo, Timestamp data_cadastro) {
+		this.serie = serie;
+		this.numero = numero;
+		this.motivo = motivo;
+		this.data_cadastro = data_cadastro;
+	}
+
+	public Long getCodigo() {
+		return codigo;
+	}
+
+	public void setCodigo(Long codigo) {
+		this.codigo = codigo;
+	}
+
+	public int getSerie() {
+		return serie;
+	}
+
+	public void setSerie(int serie) {
+		this.serie = serie;
+	}
+
+	public Long getNumero() {
+		return numero;
+	}
+
+	public void setNumero(Long numero) {
+		this.numero = numero;
+	}
+
+	public String getMotivo() {
+		return motivo;
+	}
+
+	public void setMotivo(String motivo) {
+		this.motivo = motivo;
+	}
+
+	public Timestamp getData_cadastro() {
+		return data_cadastro;
+	}
+
+	public void setData_cadastro(Timestamp data_cadastro) {
+		this.data_cadastro = data_cadastro;
+	}
+
+}
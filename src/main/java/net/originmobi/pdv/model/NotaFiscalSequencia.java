@@ -0,0 +1,39 @@
+package net.originmobi.pdv.model;
+
+import java.io.Serializable;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "nota_fiscal_sequencia")
+public class NotaFiscalSequencia implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	private Integer serie;
+	private Long proximo;
+
+	public NotaFiscalSequencia() {
+		super();
+	}
+
+	public Integer getSerie() {
+		return serie;
+	}
+
+	public void setSerie(Integer serie) {
+		this.serie = serie;
+	}
+
+	public Long getProximo() {
+		return proximo;
+	}
+
+	public void setProximo(Long proximo) {
+		this.proximo = proximo;
+	}
+
+}
@@ -38,6 +38,12 @@ public class VendaProduto implements Serializable {
 	@NumberFormat(pattern = "#,##0.00")
 	private Double valor_balanca;
 
+	private int qtd = 1;
+
+	@Column(name = "valor_unitario")
+	@NumberFormat(pattern = "#,##0.00")
+	private Double valor_unitario;
+
 	public VendaProduto() {
 	}
 
@@ -48,6 +54,12 @@ public class VendaProduto implements Serializable {
 		this.venda = venda;
 	}
 
+	public VendaProduto(Long produto, Long venda, Double valor_balanca, int qtd, Double valor_unitario) {
+		this(produto, venda, valor_balanca);
+		this.qtd = qtd;
+		this.valor_unitario = valor_unitario;
+	}
+
 	public Long getCodigo() {
 		return codigo;
 	}
@@ -80,4 +92,20 @@ public class VendaProduto implements Serializable {
 		this.valor_balanca = valor_balanca;
 	}
 
+	public int getQtd() {
+		return qtd;
+	}
+
+	public void setQtd(int qtd) {
+		this.qtd = qtd;
+	}
+
+	public Double getValor_unitario() {
+		return valor_unitario;
+	}
+
+	public void setValor_unitario(Double valor_unitario) {
+		this.valor_unitario = valor_unitario;
+	}
+
 }
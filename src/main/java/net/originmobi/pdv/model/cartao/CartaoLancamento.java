@@ -17,6 +17,7 @@ import org.springframework.format.annotation.NumberFormat;
 
 import net.originmobi.pdv.enumerado.cartao.CartaoSituacao;
 import net.originmobi.pdv.enumerado.cartao.CartaoTipo;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Entity
 public class CartaoLancamento implements Serializable {
@@ -27,33 +28,28 @@ public class CartaoLancamento implements Serializable {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long codigo;
 
-	@NumberFormat(pattern = "#,##0.00")
 	@Column(name = "vl_parcela")
-	private Double vlParcela;
+	private Dinheiro vlParcela;
 
 	@NumberFormat(pattern = "#,##0.00")
 	@Column(name = "taxa")
 	private Double taxa;
 
-	@NumberFormat(pattern = "#,##0.00")
 	@Column(name = "vl_taxa")
-	private Double vlTaxa;
+	private Dinheiro vlTaxa;
 
-	@NumberFormat(pattern = "#,##0.00")
 	@Column(name = "vl_liq_parcela")
-	private Double vlLiqParcela;
+	private Dinheiro vlLiqParcela;
 
 	@NumberFormat(pattern = "#,##0.00")
 	@Column(name = "taxa_antecipacao")
 	private Double taxaAntecipacao;
 
-	@NumberFormat(pattern = "#,##0.00")
 	@Column(name = "vl_taxa_antecipacao")
-	private Double vlTaxaAntecipacao;
+	private Dinheiro vlTaxaAntecipacao;
 
-	@NumberFormat(pattern = "#,##0.00")
 	@Column(name = "vl_liq_antecipacao")
-	private Double vlLiqAntecipacao;
+	private Dinheiro vlLiqAntecipacao;
 
 	@ManyToOne
 	private MaquinaCartao maquina_cartao;
@@ -75,9 +71,9 @@ public class CartaoLancamento implements Serializable {
 		super();
 	}
 
-	public CartaoLancamento(Double vlParcela, Double taxa, Double vlTaxa, Double vlLiqParcela, Double taxaAntecipacao,
-			Double vlTaxaAntecipacao, Double vlLiqAntecipacao, MaquinaCartao maquina_cartao, CartaoTipo tipo,
-			CartaoSituacao situacao, Date data_recebimento, Date data_cadastro) {
+	public CartaoLancamento(Dinheiro vlParcela, Double taxa, Dinheiro vlTaxa, Dinheiro vlLiqParcela,
+			Double taxaAntecipacao, Dinheiro vlTaxaAntecipacao, Dinheiro vlLiqAntecipacao, MaquinaCartao maquina_cartao,
+			CartaoTipo tipo, CartaoSituacao situacao, Date data_recebimento, Date data_cadastro) {
 		super();
 		this.vlParcela = vlParcela;
 		this.taxa = taxa;
@@ -109,11 +105,11 @@ public class CartaoLancamento implements Serializable {
 		this.codigo = codigo;
 	}
 
-	public Double getVlParcela() {
+	public Dinheiro getVlParcela() {
 		return vlParcela;
 	}
 
-	public void setVlParcela(Double vlParcela) {
+	public void setVlParcela(Dinheiro vlParcela) {
 		this.vlParcela = vlParcela;
 	}
 
@@ -125,19 +121,19 @@ public class CartaoLancamento implements Serializable {
 		this.taxa = taxa;
 	}
 
-	public Double getVlTaxa() {
+	public Dinheiro getVlTaxa() {
 		return vlTaxa;
 	}
 
-	public void setVlTaxa(Double vlTaxa) {
+	public void setVlTaxa(Dinheiro vlTaxa) {
 		this.vlTaxa = vlTaxa;
 	}
 
-	public Double getVlLiqParcela() {
+	public Dinheiro getVlLiqParcela() {
 		return vlLiqParcela;
 	}
 
-	public void setVlLiqParcela(Double vlLiqParcela) {
+	public void setVlLiqParcela(Dinheiro vlLiqParcela) {
 		this.vlLiqParcela = vlLiqParcela;
 	}
 
@@ -149,19 +145,19 @@ public class CartaoLancamento implements Serializable {
 		this.taxaAntecipacao = taxaAntecipacao;
 	}
 
-	public Double getVlTaxaAntecipacao() {
+	public Dinheiro getVlTaxaAntecipacao() {
 		return vlTaxaAntecipacao;
 	}
 
-	public void setVlTaxaAntecipacao(Double vlTaxaAntecipacao) {
+	public void setVlTaxaAntecipacao(Dinheiro vlTaxaAntecipacao) {
 		this.vlTaxaAntecipacao = vlTaxaAntecipacao;
 	}
 
-	public Double getVlLiqAntecipacao() {
+	public Dinheiro getVlLiqAntecipacao() {
 		return vlLiqAntecipacao;
 	}
 
-	public void setVlLiqAntecipacao(Double vlLiqAntecipacao) {
+	public void setVlLiqAntecipacao(Dinheiro vlLiqAntecipacao) {
 		this.vlLiqAntecipacao = vlLiqAntecipacao;
 	}
 
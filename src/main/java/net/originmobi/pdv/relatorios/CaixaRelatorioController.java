@@ -3,28 +3,33 @@ package net.originmobi.pdv.relatorios;
 import java.util.HashMap;
 import java.util.Map;
 
-import javax.servlet.http.HttpServletResponse;
-
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
+
+import net.originmobi.pdv.model.Caixa;
+import net.originmobi.pdv.service.CaixaService;
 
 @Controller
 @RequestMapping("/caixa/relatorio")
 public class CaixaRelatorioController {
 	
-	private GerarRelatorio relatorio;
+	@Autowired
+	private RelatorioFilaService fila;
+
+	@Autowired
+	private CaixaService caixas;
 	
 	@GetMapping("/caixa/{codigo}")
-	public @ResponseBody String caixa(@PathVariable("codigo") Integer codigo, HttpServletResponse response) {
+	public String caixa(@PathVariable("codigo") Integer codigo) {
 		Map<String, Object> parametros = new HashMap<>();
 		parametros.put("codcaixa", codigo);
 
-		relatorio = new GerarRelatorio();
-		relatorio.gerar("caixa.jrxml", response, parametros);
+		boolean fechado = caixas.busca(codigo.longValue()).map(Caixa::getData_fechamento).isPresent();
+		RelatorioJob job = fila.envia("caixa.jrxml", parametros, fechado);
 		
-		return "ok";
+		return "redirect:/relatorio/job/" + job.getId();
 	}
 }
@@ -0,0 +1,204 @@
+package net.originmobi.pdv.relatorios;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/*
+ * Fila de geração de relatórios fora das threads do Tomcat. Os relatórios rodam
+ * em um pool próprio de tamanho fixo e cada tipo de relatório tem um limite de
+ * execuções simultâneas, os pedidos acima do limite aguardam na fila do tipo.
+ *
+ * O PDF de um caixa fechado ou de uma venda fechada não muda mais, por isso fica
+ * guardado em um cache limitado pelo tamanho total dos arquivos.
+ */
+@Service
+public class RelatorioFilaService {
+
+	private static final long TEMPO_RETENCAO = TimeUnit.MINUTES.toMillis(10);
+
+	private static final Map<String, Integer> LIMITES = new HashMap<>();
+
+	static {
+		LIMITES.put("caixa.jrxml", 2);
+		LIMITES.put("comanda.jrxml", 2);
+		LIMITES.put("controle.jrxml", 1);
+	}
+
+	@Autowired
+	private RelatorioService relatorios;
+
+	@Value("${pdv.relatorio.threads:4}")
+	private int threads = 4;
+
+	@Value("${pdv.relatorio.fila:100}")
+	private int limiteFila = 100;
+
+	@Value("${pdv.relatorio.cache-mb:32}")
+	private int cacheMb = 32;
+
+	private ExecutorService executor;
+	private CachePdf cache;
+
+	private final Map<String, RelatorioJob> jobs = new ConcurrentHashMap<>();
+	private final Map<String, Fila> filas = new ConcurrentHashMap<>();
+	private final AtomicInteger naFila = new AtomicInteger();
+
+	@PostConstruct
+	public void inicia() {
+		AtomicInteger sequencia = new AtomicInteger();
+
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+				tarefa -> {
+					Thread thread = new Thread(tarefa, "relatorio-" + sequencia.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		cache = new CachePdf(cacheMb * 1024L * 1024L);
+	}
+
+	@PreDestroy
+	public void encerra() {
+		executor.shutdownNow();
+	}
+
+	/*
+	 * Coloca o relatório na fila e retorna o pedido, definitivo indica que a
+	 * entidade do relatório está fechada e o PDF pode ser reaproveitado
+	 */
+	public RelatorioJob envia(String relatorio, Map<String, Object> parametros, boolean definitivo) {
+		String chave = definitivo ? relatorio + new TreeMap<>(parametros) : null;
+		RelatorioJob job = new RelatorioJob(UUID.randomUUID().toString(), relatorio, parametros, chave);
+
+		byte[] pdf = chave != null ? cache.busca(chave) : null;
+		if (pdf != null) {
+			job.conclui(pdf);
+			jobs.put(job.getId(), job);
+			return job;
+		}
+
+		if (naFila.incrementAndGet() > limiteFila) {
+			naFila.decrementAndGet();
+			throw new RuntimeException("Existem muitos relatórios na fila, tente novamente em instantes");
+		}
+
+		jobs.put(job.getId(), job);
+
+		Fila fila = filas.computeIfAbsent(relatorio, r -> new Fila(LIMITES.getOrDefault(r, 1)));
+		synchronized (fila) {
+			fila.pendentes.add(job);
+		}
+
+		despacha(fila);
+		return job;
+	}
+
+	public Optional<RelatorioJob> busca(String id) {
+		return Optional.ofNullable(jobs.get(id));
+	}
+
+	@Scheduled(fixedDelay = 60000)
+	public void removeFinalizados() {
+		long limite = System.currentTimeMillis() - TEMPO_RETENCAO;
+		jobs.values().removeIf(job -> job.finalizadoAntesDe(limite));
+	}
+
+	private void despacha(Fila fila) {
+		synchronized (fila) {
+			while (fila.executando < fila.limite && !fila.pendentes.isEmpty()) {
+				RelatorioJob job = fila.pendentes.poll();
+				fila.executando++;
+				executor.execute(() -> executa(fila, job));
+			}
+		}
+	}
+
+	private void executa(Fila fila, RelatorioJob job) {
+		try {
+			job.executando();
+			byte[] pdf = relatorios.gera(job.getRelatorio(), job.getParametros());
+
+			if (job.getChaveCache() != null)
+				cache.guarda(job.getChaveCache(), pdf);
+
+			job.conclui(pdf);
+		} catch (Exception e) {
+			job.falha(e.getMessage());
+		} finally {
+			naFila.decrementAndGet();
+
+			synchronized (fila) {
+				fila.executando--;
+			}
+
+			despacha(fila);
+		}
+	}
+
+	private static final class Fila {
+
+		private final int limite;
+		private final Queue<RelatorioJob> pendentes = new ArrayDeque<>();
+		private int executando;
+
+		Fila(int limite) {
+			this.limite = limite;
+		}
+
+	}
+
+	/*
+	 * Mantém os PDFs usados mais recentemente até o tamanho máximo em bytes
+	 */
+	static final class CachePdf {
+
+		private final long limite;
+		private final LinkedHashMap<String, byte[]> pdfs = new LinkedHashMap<>(16, 0.75f, true);
+		private long tamanho;
+
+		CachePdf(long limite) {
+			this.limite = limite;
+		}
+
+		synchronized byte[] busca(String chave) {
+			return pdfs.get(chave);
+		}
+
+		synchronized void guarda(String chave, byte[] pdf) {
+			if (pdf.length > limite)
+				return;
+
+			byte[] anterior = pdfs.put(chave, pdf);
+			tamanho += pdf.length - (anterior != null ? anterior.length : 0);
+
+			Iterator<byte[]> antigos = pdfs.values().iterator();
+			while (tamanho > limite && antigos.hasNext()) {
+				tamanho -= antigos.next().length;
+				antigos.remove();
+			}
+		}
+
+	}
+
+}
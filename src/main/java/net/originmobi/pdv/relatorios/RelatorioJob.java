@@ -0,0 +1,83 @@
+package net.originmobi.pdv.relatorios;
+
+import java.util.Collections;
+import java.util.Map;
+
+import net.originmobi.pdv.enumerado.RelatorioSituacao;
+
+/*
+ * Pedido de geração de um relatório na fila, consultado pela tela até que o PDF
+ * fique pronto
+ */
+public class RelatorioJob {
+
+	private final String id;
+	private final String relatorio;
+	private final Map<String, Object> parametros;
+	private final String chaveCache;
+
+	private volatile RelatorioSituacao situacao = RelatorioSituacao.PENDENTE;
+	private volatile byte[] pdf;
+	private volatile String mensagem;
+	private volatile long finalizadoEm;
+
+	public RelatorioJob(String id, String relatorio, Map<String, Object> parametros, String chaveCache) {
+		this.id = id;
+		this.relatorio = relatorio;
+		this.parametros = Collections.unmodifiableMap(parametros);
+		this.chaveCache = chaveCache;
+	}
+
+	void executando() {
+		situacao = RelatorioSituacao.EXECUTANDO;
+	}
+
+	void conclui(byte[] pdf) {
+		this.pdf = pdf;
+		this.finalizadoEm = System.currentTimeMillis();
+		this.situacao = RelatorioSituacao.CONCLUIDO;
+	}
+
+	void falha(String mensagem) {
+		this.mensagem = mensagem;
+		this.finalizadoEm = System.currentTimeMillis();
+		this.situacao = RelatorioSituacao.ERRO;
+	}
+
+	boolean finalizadoAntesDe(long limite) {
+		return finalizadoEm > 0 && finalizadoEm < limite;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getRelatorio() {
+		return relatorio;
+	}
+
+	public Map<String, Object> getParametros() {
+		return parametros;
+	}
+
+	public String getChaveCache() {
+		return chaveCache;
+	}
+
+	public RelatorioSituacao getSituacao() {
+		return situacao;
+	}
+
+	public byte[] getPdf() {
+		return pdf;
+	}
+
+	public String getMensagem() {
+		return mensagem;
+	}
+
+	public boolean isConcluido() {
+		return situacao == RelatorioSituacao.CONCLUIDO;
+	}
+
+}
@@ -0,0 +1,59 @@
+package net.originmobi.pdv.relatorios;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+@Controller
+@RequestMapping("/relatorio/job")
+public class RelatorioJobController {
+
+	private static final String AGUARDE = "relatorio/aguarde";
+
+	@Autowired
+	private RelatorioFilaService fila;
+
+	@GetMapping("/{id}")
+	public String aguarde(@PathVariable("id") String id, Model model) {
+		Optional<RelatorioJob> job = fila.busca(id);
+
+		if (job.map(RelatorioJob::isConcluido).orElse(false))
+			return "redirect:/relatorio/job/" + id + "/pdf";
+
+		model.addAttribute("id", id);
+		model.addAttribute("encontrado", job.isPresent());
+		return AGUARDE;
+	}
+
+	@GetMapping("/{id}/situacao")
+	public @ResponseBody Map<String, String> situacao(@PathVariable("id") String id) {
+		Map<String, String> situacao = new HashMap<>();
+		Optional<RelatorioJob> job = fila.busca(id);
+
+		situacao.put("situacao", job.map(j -> j.getSituacao().toString()).orElse("NAO_ENCONTRADO"));
+		situacao.put("mensagem", job.map(RelatorioJob::getMensagem).orElse("Relatório não encontrado"));
+		return situacao;
+	}
+
+	@GetMapping("/{id}/pdf")
+	public ResponseEntity<byte[]> pdf(@PathVariable("id") String id) {
+		Optional<RelatorioJob> job = fila.busca(id).filter(RelatorioJob::isConcluido);
+
+		if (!job.isPresent())
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_PDF).body(job.get().getPdf());
+	}
+
+}
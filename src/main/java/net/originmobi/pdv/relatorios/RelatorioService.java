@@ -0,0 +1,108 @@
+package net.originmobi.pdv.relatorios;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+
+/*
+ * Os relatórios são compilados uma única vez, na subida da aplicação, e
+ * preenchidos com uma conexão do pool do Spring. Quando existir o arquivo
+ * .jasper já compilado ao lado do .jrxml ele é carregado no lugar da compilação.
+ */
+@Service
+public class RelatorioService {
+
+	private static final String PASTA = "relatorios/";
+
+	static final String[] RELATORIOS = { "caixa.jrxml", "comanda.jrxml", "controle.jrxml" };
+
+	@Autowired
+	private DataSource dataSource;
+
+	private final Map<String, JasperReport> compilados = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void compila() {
+		for (String relatorio : RELATORIOS)
+			relatorio(relatorio);
+	}
+
+	public void gerar(String relatorio, HttpServletResponse resposta, Map<String, Object> parametros) {
+		JasperPrint print = preenche(relatorio, parametros);
+
+		resposta.setContentType("application/pdf");
+
+		try {
+			OutputStream saida = resposta.getOutputStream();
+			JasperExportManager.exportReportToPdfStream(print, saida);
+			saida.flush();
+		} catch (Exception e) {
+			throw new RuntimeException("Erro ao enviar o relatório " + relatorio + ", chame o suporte", e);
+		}
+	}
+
+	public byte[] gera(String relatorio, Map<String, Object> parametros) {
+		JasperPrint print = preenche(relatorio, parametros);
+
+		try {
+			return JasperExportManager.exportReportToPdf(print);
+		} catch (JRException e) {
+			throw new RuntimeException("Erro ao gerar o relatório " + relatorio + ", chame o suporte", e);
+		}
+	}
+
+	private JasperPrint preenche(String relatorio, Map<String, Object> parametros) {
+		try (Connection conexao = dataSource.getConnection()) {
+			return JasperFillManager.fillReport(relatorio(relatorio), new HashMap<>(parametros), conexao);
+		} catch (Exception e) {
+			throw new RuntimeException("Erro ao gerar o relatório " + relatorio + ", chame o suporte", e);
+		}
+	}
+
+	JasperReport relatorio(String relatorio) {
+		return compilados.computeIfAbsent(relatorio, this::carrega);
+	}
+
+	private JasperReport carrega(String relatorio) {
+		ClassPathResource jasper = new ClassPathResource(PASTA + relatorio.replace(".jrxml", ".jasper"));
+		ClassPathResource jrxml = new ClassPathResource(PASTA + relatorio);
+
+		try {
+			if (jasper.exists()) {
+				try (InputStream entrada = jasper.getInputStream()) {
+					return (JasperReport) JRLoader.loadObject(entrada);
+				}
+			}
+
+			if (!jrxml.exists())
+				throw new RuntimeException("Relatório " + relatorio + " não encontrado");
+
+			try (InputStream entrada = jrxml.getInputStream()) {
+				return JasperCompileManager.compileReport(entrada);
+			}
+		} catch (JRException | IOException e) {
+			throw new RuntimeException("Erro ao compilar o relatório " + relatorio, e);
+		}
+	}
+
+}
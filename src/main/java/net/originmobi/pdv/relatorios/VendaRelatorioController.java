@@ -3,37 +3,40 @@ package net.originmobi.pdv.relatorios;
 import java.util.HashMap;
 import java.util.Map;
 
-import javax.servlet.http.HttpServletResponse;
-
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
+
+import net.originmobi.pdv.service.VendaService;
 
 @Controller
 @RequestMapping("/venda/relatorio")
 public class VendaRelatorioController {
 	
-	GerarRelatorio relatorio;
+	@Autowired
+	private RelatorioFilaService fila;
 
-	@GetMapping("/controle/{codigo}")
-	public void controle(@PathVariable("codigo") Integer codigo, HttpServletResponse response) {
-		Map<String, Object> parametros = new HashMap<>();
-		parametros.put("codvenda", codigo);
+	@Autowired
+	private VendaService vendas;
 
-		relatorio = new GerarRelatorio();
-		relatorio.gerar("controle.jrxml", response, parametros);
+	@GetMapping("/controle/{codigo}")
+	public String controle(@PathVariable("codigo") Integer codigo) {
+		return envia("controle.jrxml", codigo);
 	}
 	
 	@GetMapping("/comanda/{codigo}")
-	public @ResponseBody String comanda(@PathVariable("codigo") Integer codigo, HttpServletResponse response) {
+	public String comanda(@PathVariable("codigo") Integer codigo) {
+		return envia("comanda.jrxml", codigo);
+	} 
+
+	private String envia(String relatorio, Integer codigo) {
 		Map<String, Object> parametros = new HashMap<>();
 		parametros.put("codvenda", codigo);
-		
-		relatorio = new GerarRelatorio();
-		relatorio.gerar("comanda.jrxml", response, parametros);
-		
-		return "ok";
-	} 
+
+		RelatorioJob job = fila.envia(relatorio, parametros, vendas.vendaIsFechada(codigo.longValue()));
+
+		return "redirect:/relatorio/job/" + job.getId();
+	}
 }
@@ -1,14 +1,26 @@
 package net.originmobi.pdv.repository;
 
+import java.sql.Timestamp;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-import net.originmobi.pdv.model.Caixa;
+import net.originmobi.pdv.dto.ExtratoLancamentoDTO;
 import net.originmobi.pdv.model.CaixaLancamento;
 
 public interface CaixaLancamentoRepository extends JpaRepository<CaixaLancamento, Long> {
 
-	public List<CaixaLancamento> findByCaixaEquals(Caixa caixa);
+	/*
+	 * Lançamentos do caixa depois do lançamento (data, codigo), na ordem do
+	 * extrato. Percorre o índice idx_caixa_lancamento_extrato a partir do
+	 * cursor, sem contar nem pular as páginas anteriores
+	 */
+	@Query("select new net.originmobi.pdv.dto.ExtratoLancamentoDTO(l.codigo, l.observacao, l.valor, l.tipo, l.estilo, l.data_cadastro) "
+			+ "from CaixaLancamento l where l.caixa.codigo = ?1 "
+			+ "and (l.data_cadastro > ?2 or (l.data_cadastro = ?2 and l.codigo > ?3)) "
+			+ "order by l.data_cadastro, l.codigo")
+	public List<ExtratoLancamentoDTO> extrato(Long caixa, Timestamp data, Long codigo, Pageable pageable);
 
 }
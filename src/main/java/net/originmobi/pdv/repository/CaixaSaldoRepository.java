@@ -0,0 +1,63 @@
+package net.originmobi.pdv.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Acesso JDBC usado pelo livro caixa, soma os lançamentos de um caixa e grava
+ * o saldo e o resumo de vários caixas em lote
+ */
+@Repository
+public class CaixaSaldoRepository {
+
+	private static final String RESUMO_LANCAMENTOS = "select cl.tipo, cl.estilo, count(*), coalesce(sum(cl.valor), 0) "
+			+ "from caixa_lancamento cl where cl.caixa_codigo = ? group by cl.tipo, cl.estilo";
+
+	private static final String RESUMO_GRAVADO = "select cr.tipo, cr.estilo, cr.quantidade, cr.valor "
+			+ "from caixa_resumo cr where cr.caixa_codigo = ? and cr.quantidade > 0";
+
+	private static final String ATUALIZA_SALDO = "update caixa set valor_total = ?, valor_entrada = ?, valor_saida = ? "
+			+ "where codigo = ?";
+
+	private static final String ATUALIZA_RESUMO = "insert into caixa_resumo (caixa_codigo, tipo, estilo, quantidade, valor) "
+			+ "values (?, ?, ?, ?, ?) on duplicate key update quantidade = values(quantidade), valor = values(valor)";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	/*
+	 * Cada linha retorna o tipo, o estilo, a quantidade e a soma dos lançamentos
+	 * do caixa, as saídas com valor negativo
+	 */
+	public List<Object[]> resumoLancamentos(Long caixa) {
+		return jdbc.query(RESUMO_LANCAMENTOS, (rs, i) -> new Object[] { rs.getString(1), rs.getString(2),
+				rs.getLong(3), rs.getDouble(4) }, caixa);
+	}
+
+	/*
+	 * Mesmas colunas de resumoLancamentos, lidas da tabela de resumo
+	 */
+	public List<Object[]> resumoGravado(Long caixa) {
+		return jdbc.query(RESUMO_GRAVADO, (rs, i) -> new Object[] { rs.getString(1), rs.getString(2),
+				rs.getLong(3), rs.getDouble(4) }, caixa);
+	}
+
+	/*
+	 * Cada linha traz o total, as entradas, as saídas e o código do caixa
+	 */
+	public void atualizaSaldos(List<Object[]> saldos) {
+		jdbc.batchUpdate(ATUALIZA_SALDO, saldos);
+	}
+
+	/*
+	 * Cada linha traz o código do caixa, o tipo, o estilo, a quantidade e o
+	 * valor
+	 */
+	public void atualizaResumos(List<Object[]> resumos) {
+		jdbc.batchUpdate(ATUALIZA_RESUMO, resumos);
+	}
+
+}
@@ -0,0 +1,60 @@
+package net.originmobi.pdv.repository;
+
+import java.sql.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import net.originmobi.pdv.dto.EstoqueVendaDTO;
+import net.originmobi.pdv.enumerado.produto.ProdutoControleEstoque;
+
+/*
+ * Movimentação de estoque em lote. Carrega os produtos da venda com o saldo em
+ * uma única consulta e grava baixas e movimentações com batch JDBC.
+ */
+@Repository
+public class EstoqueRepository {
+
+	private static final String SALDOS_DA_VENDA = "select vp.produto_codigo, sum(vp.qtd), p.controla_estoque, "
+			+ "coalesce(pe.qtd, 0) from venda_produtos vp join produto p on p.codigo = vp.produto_codigo "
+			+ "left join produto_estoque pe on pe.produto_codigo = vp.produto_codigo where vp.venda_codigo = ? "
+			+ "group by vp.produto_codigo, p.controla_estoque, pe.qtd";
+
+	private static final String BAIXA_ESTOQUE = "update produto_estoque set qtd = qtd - ? where produto_codigo = ? and qtd >= ?";
+
+	private static final String INSERE_MOVIMENTACAO = "insert into estoque_movimentacao (produto_codigo, tipo, qtd, origem_operacao, "
+			+ "data_movimentacao) values (?, ?, ?, ?, ?)";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	public List<EstoqueVendaDTO> saldosDaVenda(Long codvenda) {
+		return jdbc.query(SALDOS_DA_VENDA, (rs, i) -> new EstoqueVendaDTO(rs.getLong(1), rs.getInt(2),
+				ProdutoControleEstoque.SIM.toString().equals(rs.getString(3)), rs.getInt(4)), codvenda);
+	}
+
+	/*
+	 * Retorna a quantidade de linhas afetadas por produto, um valor zero indica
+	 * que o saldo mudou entre a leitura e a baixa
+	 */
+	public int[] baixaEstoque(List<EstoqueVendaDTO> itens) {
+		return jdbc.batchUpdate(BAIXA_ESTOQUE, itens, itens.size(), (ps, item) -> {
+			ps.setInt(1, item.getQtd());
+			ps.setLong(2, item.getCodprod());
+			ps.setInt(3, item.getQtd());
+		})[0];
+	}
+
+	public void registraMovimentacoes(List<EstoqueVendaDTO> itens, String tipo, String origem, Date data) {
+		jdbc.batchUpdate(INSERE_MOVIMENTACAO, itens, itens.size(), (ps, item) -> {
+			ps.setLong(1, item.getCodprod());
+			ps.setString(2, tipo);
+			ps.setInt(3, item.getQtd());
+			ps.setString(4, origem);
+			ps.setDate(5, data);
+		});
+	}
+
+}
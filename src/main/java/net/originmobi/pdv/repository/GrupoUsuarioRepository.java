@@ -17,6 +17,9 @@ public interface GrupoUsuarioRepository extends JpaRepository<GrupoUsuario, Long
 
 	public GrupoUsuario findByCodigoIn(Long codigo);
 
+	@Query("select g.codigo from GrupoUsuario g join g.usuario u where u.codigo = ?1")
+	public List<Long> codigosDoUsuario(Long codigoUsuario);
+
 	@Transactional
 	@Modifying
 	@Query("update GrupoUsuario set nome = :nome, descricao = :descricao where codigo = :codigo")
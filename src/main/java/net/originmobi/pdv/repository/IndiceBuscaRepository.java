@@ -0,0 +1,60 @@
+package net.originmobi.pdv.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Leitura JDBC dos cadastros para a reconstrução do índice de busca. As linhas
+ * são lidas em streaming, o índice é montado sem carregar as entidades.
+ */
+@Repository
+public class IndiceBuscaRepository {
+
+	private static final String PRODUTOS = "select p.codigo, p.descricao, null, p.ncm from produto p";
+
+	private static final String PESSOAS = "select p.codigo, p.nome, p.apelido, p.cpfcnpj from pessoa p";
+
+	private static final String FORNECEDORES = "select f.codigo, f.nome, null, null from fornecedor f";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	/*
+	 * Recebe cada cadastro com o nome, um texto complementar e um documento,
+	 * os dois últimos podem ser null
+	 */
+	public interface LeitorCadastro {
+
+		void cadastro(long codigo, String nome, String complemento, String documento);
+
+	}
+
+	/* descrição e NCM */
+	public void produtos(LeitorCadastro leitor) {
+		percorre(PRODUTOS, leitor);
+	}
+
+	/* nome, apelido e CPF/CNPJ */
+	public void pessoas(LeitorCadastro leitor) {
+		percorre(PESSOAS, leitor);
+	}
+
+	public void fornecedores(LeitorCadastro leitor) {
+		percorre(FORNECEDORES, leitor);
+	}
+
+	private void percorre(String sql, LeitorCadastro leitor) {
+		jdbc.query(con -> {
+			PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			return ps;
+		}, rs -> {
+			leitor.cadastro(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+		});
+	}
+
+}
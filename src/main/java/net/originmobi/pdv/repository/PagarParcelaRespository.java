@@ -2,6 +2,7 @@ package net.originmobi.pdv.repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -29,11 +30,14 @@ public interface PagarParcelaRespository extends JpaRepository<PagarParcela, Lon
 	@Query("select p from PagarParcela p where p.quitado = 0 order by p.data_vencimento")
 	Page<PagarParcela> listaOrdenada(Pageable pageable);
 
-	@Query(value = "select * from parcela_pagar pp, pagar p, fornecedor f where p.codigo = pp.pagar_codigo and f.codigo = p.fornecedor_codigo "
-			+ "and f.nome like %:nome% order by pp.quitado", nativeQuery = true)
-	Page<PagarParcela> listaOrdenada(@Param("nome") String nome, Pageable pageable);
+	@Query("select pp from PagarParcela pp where pp.pagar.fornecedor.codigo in :fornecedores order by pp.quitado")
+	Page<PagarParcela> listaPorFornecedores(@Param("fornecedores") List<Long> fornecedores, Pageable pageable);
 
 	@Query(value = "select coalesce(format(sum(pp.valor_restante), 2, 'de_DE'), '0,00') from pagar p, parcela_pagar pp where pp.pagar_codigo = p.codigo "
 			+ "and pp.quitado = 0", nativeQuery = true)
 	String valorDespesasAbertas();
+
+	@Query(value = "select coalesce(sum(pp.valor_restante), 0) from pagar p, parcela_pagar pp where pp.pagar_codigo = p.codigo "
+			+ "and pp.quitado = 0", nativeQuery = true)
+	Double valorAPagar();
 }
@@ -0,0 +1,32 @@
+package net.originmobi.pdv.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Acesso JDBC usado no recebimento, grava a baixa de várias parcelas em lote
+ */
+@Repository
+public class ParcelaBaixaRepository {
+
+	// só baixa a parcela se ela continua como foi lida, assim dois recebimentos
+	// da mesma parcela ao mesmo tempo não recebem o mesmo valor
+	private static final String BAIXA = "update parcela set valor_desconto = ?, valor_acrescimo = ?, valor_recebido = ?, "
+			+ "valor_restante = ?, quitado = ?, data_pagamento = ? where codigo = ? and quitado = 0 and valor_restante = ?";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	/*
+	 * Cada linha traz o desconto, o acréscimo, o recebido, o restante, se foi
+	 * quitada, a data do pagamento, o código da parcela e o restante lido
+	 * antes da baixa. Retorna as linhas alteradas por parcela.
+	 */
+	public int[] baixa(List<Object[]> baixas) {
+		return jdbc.batchUpdate(BAIXA, baixas);
+	}
+
+}
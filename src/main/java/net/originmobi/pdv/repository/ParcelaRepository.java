@@ -41,13 +41,12 @@ public interface ParcelaRepository extends JpaRepository<Parcela, Long> {
 	@Query(value = "select * from parcela p, receber r, pessoa pes where r.codigo = p.receber_codigo and  pes.codigo = r.pessoa_codigo "
 			+ "and pes.codigo = :codigo and p.quitado = :quitado order by p.codigo", nativeQuery = true)
 	public List<Parcela> buscaReceberDaPessoaCodigo(@Param("codigo") Long codpessoa, @Param("quitado") Boolean quitado);
-	
-	@Query(value = "select coalesce(format(sum(p.valor_restante), 2, 'de_DE'), format(0, 2, 'de_DE')) from parcela p, receber r, pessoa pes where r.codigo = p.receber_codigo and  pes.codigo = r.pessoa_codigo "
-			+ "and pes.codigo = :codigo and p.quitado = :quitado order by p.codigo", nativeQuery = true)
-	public String somaTotaAReceberPessoaCodigo(@Param("codigo") Long codpessoa, @Param("quitado") Boolean quitado);
 
 	@Query("select p from Parcela p where p.quitado = ?1")
 	public Page<Parcela> findByParcelasOrdenadas(int quitado, Pageable pageable);
 
 	Parcela findByCodigoEquals(Long codigo);
+
+	@Query("select p from Parcela p join fetch p.receber r join fetch r.pessoa where p.codigo in ?1")
+	List<Parcela> buscaComPessoa(List<Long> codigos);
 }
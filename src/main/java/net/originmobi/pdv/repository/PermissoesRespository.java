@@ -15,4 +15,8 @@ public interface PermissoesRespository extends JpaRepository<Permissoes, Long> {
 	@Query(value = "select * from permissoes p, permissoes_grupo_usuario pgu where pgu.permissoes_codigo = p.codigo "
 			+ "and pgu.grupo_usuario_codigo = ?1 order by pgu.permissoes_codigo", nativeQuery = true)
 	List<Permissoes> listaPermissoesDoGrupo(Long codigo);
+
+	/* pares [código do grupo, nome da permissão] de todos os grupos */
+	@Query("select g.codigo, p.nome from GrupoUsuario g join g.permissoes p")
+	List<Object[]> permissoesPorGrupo();
 }
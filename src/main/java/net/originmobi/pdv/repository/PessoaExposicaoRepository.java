@@ -0,0 +1,89 @@
+package net.originmobi.pdv.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Acesso JDBC à posição dos clientes no contas a receber. As variações são
+ * somadas na própria linha do cliente, dentro da transação que altera as
+ * parcelas.
+ */
+@Repository
+public class PessoaExposicaoRepository {
+
+	private static final String BUSCA = "select e.valor_aberto, e.valor_vencido, e.qtd_abertas, e.vencimento_antigo "
+			+ "from pessoa_exposicao e where e.pessoa_codigo = ?";
+
+	private static final String CRIA = "insert ignore into pessoa_exposicao (pessoa_codigo) values (?)";
+
+	private static final String TRAVA = "select e.valor_aberto from pessoa_exposicao e where e.pessoa_codigo = ? for update";
+
+	private static final String MOVIMENTA = "insert into pessoa_exposicao (pessoa_codigo, valor_aberto, valor_vencido, qtd_abertas, vencimento_antigo) "
+			+ "values (?, ?, ?, ?, ?) on duplicate key update "
+			+ "valor_aberto = round(valor_aberto + values(valor_aberto), 2), "
+			+ "valor_vencido = round(valor_vencido + values(valor_vencido), 2), "
+			+ "qtd_abertas = qtd_abertas + values(qtd_abertas), "
+			+ "vencimento_antigo = case when values(vencimento_antigo) is null then vencimento_antigo "
+			+ "when vencimento_antigo is null or values(vencimento_antigo) < vencimento_antigo then values(vencimento_antigo) "
+			+ "else vencimento_antigo end";
+
+	private static final String PARCELAS_ABERTAS = "select min(p.data_vencimento) from parcela p "
+			+ "join receber r on r.codigo = p.receber_codigo where r.pessoa_codigo = e.pessoa_codigo and p.quitado = 0";
+
+	private static final String RECALCULA_VENCIMENTO = "update pessoa_exposicao e set e.vencimento_antigo = ("
+			+ PARCELAS_ABERTAS + ") where e.pessoa_codigo = ?";
+
+	private static final String RECALCULA_VENCIDOS = "update pessoa_exposicao e set e.valor_vencido = coalesce(("
+			+ "select round(sum(p.valor_restante), 2) from parcela p join receber r on r.codigo = p.receber_codigo "
+			+ "where r.pessoa_codigo = e.pessoa_codigo and p.quitado = 0 and p.data_vencimento < curdate()), 0) "
+			+ "where e.vencimento_antigo < curdate() or e.valor_vencido <> 0";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	/*
+	 * Retorna o valor em aberto, o valor vencido, a quantidade de parcelas em
+	 * aberto e o vencimento mais antigo, ou null se o cliente nunca comprou a
+	 * prazo
+	 */
+	public Object[] busca(Long pessoa) {
+		List<Object[]> linhas = jdbc.query(BUSCA, (rs, i) -> new Object[] { rs.getDouble(1), rs.getDouble(2),
+				rs.getInt(3), rs.getDate(4) }, pessoa);
+
+		return linhas.isEmpty() ? null : linhas.get(0);
+	}
+
+	/*
+	 * Retorna o valor em aberto do cliente e trava a linha até o fim da
+	 * transação, criando a linha zerada se o cliente nunca comprou a prazo.
+	 * Outra transação que travar o mesmo cliente espera esta terminar e lê o
+	 * valor já com as parcelas gravadas por ela.
+	 */
+	public double travaAberto(Long pessoa) {
+		jdbc.update(CRIA, pessoa);
+		return jdbc.queryForObject(TRAVA, Double.class, pessoa);
+	}
+
+	/*
+	 * Cada linha traz o código do cliente e as variações do valor em aberto, do
+	 * valor vencido e da quantidade de parcelas, e o vencimento de uma parcela
+	 * nova ou null
+	 */
+	public void movimenta(List<Object[]> variacoes) {
+		jdbc.batchUpdate(MOVIMENTA, variacoes);
+	}
+
+	/* para os clientes que quitaram a parcela mais antiga */
+	public void recalculaVencimentoAntigo(List<Object[]> pessoas) {
+		jdbc.batchUpdate(RECALCULA_VENCIMENTO, pessoas);
+	}
+
+	/* só os clientes com parcelas vencidas ou que tinham valor vencido */
+	public int recalculaVencidos() {
+		return jdbc.update(RECALCULA_VENCIDOS);
+	}
+
+}
@@ -11,28 +11,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import net.originmobi.pdv.dto.ProdutoCatalogoDTO;
 import net.originmobi.pdv.model.Produto;
 
-public interface ProdutoRepository extends JpaRepository<Produto, Long> {
+public interface ProdutoRepository extends JpaRepository<Produto, Long>, ProdutoRepositoryCustom {
 
 	public Page<Produto> findByDescricaoContaining(String descricao, Pageable pageable);
 
 	public Produto findByCodigoIn(Long codigo);
 
-	@Transactional
-	@Modifying
-	@Query(value = "insert into produto (fornecedor_codigo, categoria_codigo, grupo_codigo, balanca, descricao, valor_custo, valor_venda, "
-			+ "data_validade, controla_estoque, ativo, unidade, subtributaria, data_cadastro, ncm, cest, tributacao_codigo, bc_icms_codigo, vendavel) "
-			+ "values (:codforne, :categoria, :grupo, :balanca, :descricao, :vlcusto, :vlvenda, :validade, :controleEstoque, :ativo, :unidade, "
-			+ ":subtribu, :dataCadastro, :ncm, :cest, :tributacao, :modbc, :vendavel)", nativeQuery = true)
-	public void insere(@Param("codforne") Long codforne, @Param("categoria") Long codcategoria,
-			@Param("grupo") Long codgrupo, @Param("balanca") int balanca, @Param("descricao") String descricao,
-			@Param("vlcusto") Double valorCusto, @Param("vlvenda") Double valorVenda,
-			@Param("validade") Date dataValidade, @Param("controleEstoque") String controleEstoque,
-			@Param("ativo") String situacao, @Param("unidade") String unitario, @Param("subtribu") int subtribu,
-			@Param("dataCadastro") java.sql.Date cadastro, @Param("ncm") String ncm, @Param("cest") String cest,
-			@Param("tributacao") Long tributacao, @Param("modbc") Long modbc, @Param("vendavel") String vendavel);
-
 	@Transactional
 	@Modifying
 	@Query(value = "update produto set fornecedor_codigo = :fornecedor, categoria_codigo = :categoria, grupo_codigo = :grupo, balanca = :balanca, "
@@ -55,10 +42,19 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 	public void movimentaEstoque(@Param("codprod") Long codprod, @Param("tipo") String tipo, @Param("qtd") int qtd,
 			@Param("origem") String origem, @Param("data_movimentacao") java.sql.Date data_movimentacao);
 
+	@Transactional
+	@Modifying
+	@Query(value = "update produto_estoque set qtd = qtd - :qtd where produto_codigo = :codprod and qtd >= :qtd", nativeQuery = true)
+	public int baixaEstoque(@Param("codprod") Long codprod, @Param("qtd") int qtd);
+
 	@Query(value = "select pe.qtd from produto p, produto_estoque pe where pe.produto_codigo = p.codigo and p.codigo = :codprod", nativeQuery = true)
 	public int saldoEstoque(@Param("codprod") Long codprod);
 
 	@Query("select p from Produto p where p.vendavel = 'SIM'")
 	public List<Produto> produtosVendaveis();
 
+	@Query("select new net.originmobi.pdv.dto.ProdutoCatalogoDTO(p.codigo, p.descricao, p.valor_venda, p.balanca) "
+			+ "from Produto p where p.vendavel = 'SIM' order by p.codigo")
+	public List<ProdutoCatalogoDTO> catalogoVendaveis();
+
 }
@@ -0,0 +1,17 @@
+package net.originmobi.pdv.repository;
+
+import java.util.Date;
+
+/*
+ * Operações do ProdutoRepository feitas com JDBC, implementadas em
+ * ProdutoRepositoryImpl
+ */
+public interface ProdutoRepositoryCustom {
+
+	/* retorna o código gerado para o produto */
+	public Long insere(Long codforne, Long codcategoria, Long codgrupo, int balanca, String descricao,
+			Double valorCusto, Double valorVenda, Date dataValidade, String controleEstoque, String situacao,
+			String unitario, int subtribu, java.sql.Date cadastro, String ncm, String cest, Long tributacao,
+			Long modbc, String vendavel);
+
+}
@@ -0,0 +1,46 @@
+package net.originmobi.pdv.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+/*
+ * O insert do produto é feito com JDBC para devolver o código gerado pelo
+ * banco, a query nativa do Spring Data não retorna a chave
+ */
+public class ProdutoRepositoryImpl implements ProdutoRepositoryCustom {
+
+	private static final String INSERE = "insert into produto (fornecedor_codigo, categoria_codigo, grupo_codigo, balanca, "
+			+ "descricao, valor_custo, valor_venda, data_validade, controla_estoque, ativo, unidade, subtributaria, "
+			+ "data_cadastro, ncm, cest, tributacao_codigo, bc_icms_codigo, vendavel) "
+			+ "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Override
+	public Long insere(Long codforne, Long codcategoria, Long codgrupo, int balanca, String descricao,
+			Double valorCusto, Double valorVenda, Date dataValidade, String controleEstoque, String situacao,
+			String unitario, int subtribu, java.sql.Date cadastro, String ncm, String cest, Long tributacao,
+			Long modbc, String vendavel) {
+		Object[] valores = { codforne, codcategoria, codgrupo, balanca, descricao, valorCusto, valorVenda,
+				dataValidade == null ? null : new java.sql.Date(dataValidade.getTime()), controleEstoque, situacao,
+				unitario, subtribu, cadastro, ncm, cest, tributacao, modbc, vendavel };
+
+		KeyHolder chave = new GeneratedKeyHolder();
+		jdbc.update(con -> {
+			PreparedStatement ps = con.prepareStatement(INSERE, Statement.RETURN_GENERATED_KEYS);
+			for (int i = 0; i < valores.length; i++)
+				ps.setObject(i + 1, valores[i]);
+			return ps;
+		}, chave);
+
+		return chave.getKey().longValue();
+	}
+
+}
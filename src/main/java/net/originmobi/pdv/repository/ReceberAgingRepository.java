@@ -0,0 +1,136 @@
+package net.originmobi.pdv.repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Acesso JDBC à foto diária do contas a receber. As parcelas em aberto são
+ * lidas em streaming, na ordem dos clientes, sem carregar a tabela inteira na
+ * memória, e o resultado de cada cliente é gravado em lote.
+ *
+ * As linhas de cada foto levam a sua data de referência, e a consulta usa a
+ * data mais recente registrada em receber_aging_referencia, que só recebe a
+ * data depois que a foto foi gravada por inteiro.
+ */
+@Repository
+public class ReceberAgingRepository {
+
+	private static final String PARCELAS_ABERTAS = "select r.pessoa_codigo, p.valor_restante, p.data_vencimento "
+			+ "from receber r join parcela p on p.receber_codigo = r.codigo "
+			+ "where p.quitado = 0 and r.pessoa_codigo is not null order by r.pessoa_codigo";
+
+	private static final String GRAVA = "insert into receber_aging (pessoa_codigo, data_referencia, valor_a_vencer, "
+			+ "vencido_30, vencido_60, vencido_90, vencido_mais_90, valor_multa, valor_juros, qtd_vencidas, maior_atraso) "
+			+ "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String CONCLUI = "insert into receber_aging_referencia (data_referencia, data_conclusao) "
+			+ "values (?, now())";
+
+	private static final String CONCLUIDA = "select count(*) from receber_aging_referencia where data_referencia = ?";
+
+	// nunca alcança uma foto concluída, que pode estar sendo consultada
+	private static final String DESCARTA_INCOMPLETA = "delete from receber_aging where data_referencia = ? "
+			+ "and not exists (select 1 from receber_aging_referencia f where f.data_referencia = ?)";
+
+	private static final String REMOVE_REFERENCIAS_ANTERIORES = "delete from receber_aging_referencia "
+			+ "where data_referencia < ?";
+
+	private static final String REMOVE_ANTERIORES = "delete from receber_aging where data_referencia < ?";
+
+	private static final String ULTIMA = "(select max(f.data_referencia) from receber_aging_referencia f)";
+
+	private static final String COLUNAS = "select a.pessoa_codigo, p.nome, a.data_referencia, a.valor_a_vencer, "
+			+ "a.vencido_30, a.vencido_60, a.vencido_90, a.vencido_mais_90, a.valor_multa, a.valor_juros, "
+			+ "a.qtd_vencidas, a.maior_atraso from receber_aging a join pessoa p on p.codigo = a.pessoa_codigo ";
+
+	private static final String BUSCA = COLUNAS + "where a.data_referencia = " + ULTIMA + " and a.pessoa_codigo = ?";
+
+	private static final String COBRANCA = COLUNAS + "where a.data_referencia = " + ULTIMA
+			+ " and a.qtd_vencidas > 0 order by a.maior_atraso desc, a.pessoa_codigo limit ? offset ?";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	/*
+	 * Recebe cada parcela em aberto, as de um mesmo cliente em sequência
+	 */
+	public interface LeitorParcela {
+
+		void parcela(long pessoa, double restante, Date vencimento);
+
+	}
+
+	/*
+	 * O fetch size Integer.MIN_VALUE faz o driver do MySQL entregar as linhas
+	 * conforme chegam, em vez de montar o resultado inteiro antes
+	 */
+	public void parcelasAbertas(LeitorParcela leitor) {
+		jdbc.query(con -> {
+			PreparedStatement ps = con.prepareStatement(PARCELAS_ABERTAS, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			return ps;
+		}, rs -> {
+			leitor.parcela(rs.getLong(1), rs.getDouble(2), rs.getDate(3));
+		});
+	}
+
+	/*
+	 * Cada linha traz o código do cliente, a data de referência, o valor a
+	 * vencer, o vencido até 30, 60, 90 e acima de 90 dias, a multa, os juros, a
+	 * quantidade de parcelas vencidas e o maior atraso em dias
+	 */
+	public void grava(List<Object[]> linhas) {
+		jdbc.batchUpdate(GRAVA, linhas);
+	}
+
+	/* a foto da data passa a ser a consultada */
+	public void conclui(Date referencia) {
+		jdbc.update(CONCLUI, referencia);
+	}
+
+	public boolean concluida(Date referencia) {
+		return jdbc.queryForObject(CONCLUIDA, Integer.class, referencia) > 0;
+	}
+
+	/*
+	 * Apaga as linhas gravadas na data por uma foto que não foi concluída
+	 */
+	public int descartaIncompleta(Date referencia) {
+		return jdbc.update(DESCARTA_INCOMPLETA, referencia, referencia);
+	}
+
+	/* fotos anteriores à data de referência, já substituídas por ela */
+	public int removeAnteriores(Date referencia) {
+		jdbc.update(REMOVE_REFERENCIAS_ANTERIORES, referencia);
+		return jdbc.update(REMOVE_ANTERIORES, referencia);
+	}
+
+	/*
+	 * Cada linha traz o código e o nome do cliente seguidos das colunas de
+	 * grava, ou null se o cliente não está na última foto concluída
+	 */
+	public Object[] busca(Long pessoa) {
+		List<Object[]> linhas = jdbc.query(BUSCA, (rs, i) -> linha(rs), pessoa);
+		return linhas.isEmpty() ? null : linhas.get(0);
+	}
+
+	/* clientes com parcelas vencidas, os maiores atrasos primeiro */
+	public List<Object[]> cobranca(int inicio, int quantidade) {
+		return jdbc.query(COBRANCA, (rs, i) -> linha(rs), quantidade, inicio);
+	}
+
+	private Object[] linha(ResultSet rs) throws SQLException {
+		return new Object[] { rs.getLong(1), rs.getString(2), rs.getDate(3), rs.getDouble(4), rs.getDouble(5),
+				rs.getDouble(6), rs.getDouble(7), rs.getDouble(8), rs.getDouble(9), rs.getDouble(10), rs.getInt(11),
+				rs.getInt(12) };
+	}
+
+}
@@ -10,6 +10,7 @@ import net.originmobi.pdv.model.RecebimentoParcela;
 
 public interface RecebimentoParcelaRepository extends JpaRepository<RecebimentoParcela, Long> {
 
-	@Query("select p from RecebimentoParcela rp, Parcela p where p.codigo = rp.parcela and rp.recebimento = ?1")
+	@Query("select p from Parcela p join fetch p.receber r join fetch r.pessoa, RecebimentoParcela rp "
+			+ "where p.codigo = rp.parcela and rp.recebimento = ?1 order by p.data_vencimento, p.codigo")
 	List<Parcela> parcelasDoRecebimento(Long recebimento);
 }
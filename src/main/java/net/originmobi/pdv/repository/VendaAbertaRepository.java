@@ -0,0 +1,52 @@
+package net.originmobi.pdv.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Acesso JDBC usado pelos totais das vendas em aberto, carrega os itens de uma
+ * venda e grava o valor_produtos de várias vendas em lote
+ */
+@Repository
+public class VendaAbertaRepository {
+
+	private static final String ITENS_DA_VENDA = "select vp.codigo, vp.produto_codigo, vp.qtd, coalesce(vp.valor_unitario, "
+			+ "case when vp.valor_balanca > 0 then vp.valor_balanca else p.valor_venda end), vp.valor_balanca "
+			+ "from venda_produtos vp join produto p on p.codigo = vp.produto_codigo where vp.venda_codigo = ?";
+
+	// a gravação periódica não alcança a venda já fechada, cujo total final é gravado no fechamento
+	private static final String ATUALIZA_VALOR_PRODUTOS = "update venda set valor_produtos = ? where codigo = ? "
+			+ "and situacao = 'ABERTA'";
+
+	private static final String ENCERRA = "update venda set valor_produtos = ? where codigo = ?";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	/*
+	 * Cada linha retorna o código do item, o código do produto, a quantidade, o
+	 * valor unitário e se o item é de balança
+	 */
+	public List<Object[]> itensDaVenda(Long codvenda) {
+		return jdbc.query(ITENS_DA_VENDA, (rs, i) -> new Object[] { rs.getLong(1), rs.getLong(2), rs.getInt(3),
+				rs.getDouble(4), rs.getDouble(5) > 0 }, codvenda);
+	}
+
+	public void atualizaValorProdutos(Map<Long, Double> totais) {
+		List<Object[]> valores = new ArrayList<>(totais.size());
+		totais.forEach((codvenda, total) -> valores.add(new Object[] { total, codvenda }));
+
+		jdbc.batchUpdate(ATUALIZA_VALOR_PRODUTOS, valores);
+	}
+
+	/* total final da venda que está sendo fechada */
+	public void encerra(Long codvenda, Double total) {
+		jdbc.update(ENCERRA, total, codvenda);
+	}
+
+}
@@ -0,0 +1,45 @@
+package net.originmobi.pdv.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/*
+ * Percorre os itens das vendas de um período com um cursor somente para frente.
+ * Com o fetch size Integer.MIN_VALUE o driver do MySQL entrega as linhas uma a
+ * uma, sem carregar o resultado inteiro na memória.
+ */
+@Repository
+public class VendaExportacaoRepository {
+
+	private static final String ITENS_DO_PERIODO = "select v.codigo, v.data_cadastro, v.data_finalizado, v.situacao, "
+			+ "pe.nome, pt.descricao, v.valor_produtos, v.valor_desconto, v.valor_acrescimo, v.valor_total, "
+			+ "vp.produto_codigo, p.descricao, vp.qtd, vp.valor_unitario, round(vp.valor_unitario * vp.qtd, 2) "
+			+ "from venda v "
+			+ "join venda_produtos vp on vp.venda_codigo = v.codigo "
+			+ "join produto p on p.codigo = vp.produto_codigo "
+			+ "left join pessoa pe on pe.codigo = v.pessoa_codigo "
+			+ "left join pagamento_tipo_venda ptv on ptv.ven_codigo = v.codigo "
+			+ "left join pagamento_tipo pt on pt.codigo = ptv.pag_tipo_codigo "
+			+ "where v.data_cadastro >= ? and v.data_cadastro < ? order by v.codigo, vp.codigo";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	public void itensDoPeriodo(Timestamp inicio, Timestamp fim, RowCallbackHandler linha) {
+		jdbc.query(conexao -> {
+			PreparedStatement ps = conexao.prepareStatement(ITENS_DO_PERIODO, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			ps.setTimestamp(1, inicio);
+			ps.setTimestamp(2, fim);
+			return ps;
+		}, linha);
+	}
+
+}
@@ -20,7 +20,8 @@ public interface VendaProdutosRepository extends JpaRepository<VendaProduto, Lon
 	 * ao mexer na ordem do dados, tem que alterar na tela tabProdutos.html da
 	 * venda
 	 */
-	@Query(value = "select p.codigo as cod_prod, p.descricao, p.valor_venda, vp.codigo, p.balanca, vp.valor_balanca from produto p, venda_produtos vp "
+	@Query(value = "select p.codigo as cod_prod, p.descricao, p.valor_venda, vp.codigo, p.balanca, vp.valor_balanca, vp.qtd, "
+			+ "round(vp.valor_unitario * vp.qtd, 2) from produto p, venda_produtos vp "
 			+ "where p.codigo = vp.produto_codigo and vp.venda_codigo = ?1", nativeQuery = true)
 	public List<Object> findByProdutosDaVenda(Long codigoVen);
 
@@ -35,7 +36,12 @@ public interface VendaProdutosRepository extends JpaRepository<VendaProduto, Lon
 	@Query("delete from VendaProduto where codigo = :codigo")
 	public void removeProduto(@Param("codigo") Long codigo);
 
-	@Query(value = "select produto_codigo, count(produto_codigo) from venda_produtos where venda_codigo = ?1 "
+	@Transactional
+	@Modifying
+	@Query("update VendaProduto set qtd = qtd + :qtd where codigo = :codigo")
+	public void incrementaQtd(@Param("codigo") Long codigo, @Param("qtd") int qtd);
+
+	@Query(value = "select produto_codigo, sum(qtd) from venda_produtos where venda_codigo = ?1 "
 			+ "group by produto_codigo", nativeQuery = true)
 	public List<Object[]> buscaQtdProduto(Long codvenda);
 
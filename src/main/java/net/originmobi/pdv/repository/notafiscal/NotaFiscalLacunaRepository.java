@@ -0,0 +1,13 @@
+package net.originmobi.pdv.repository.notafiscal;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import net.originmobi.pdv.model.NotaFiscalLacuna;
+
+public interface NotaFiscalLacunaRepository extends JpaRepository<NotaFiscalLacuna, Long> {
+
+	List<NotaFiscalLacuna> findBySerieOrderByNumero(int serie);
+
+}
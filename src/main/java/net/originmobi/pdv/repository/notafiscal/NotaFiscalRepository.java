@@ -1,6 +1,8 @@
 package net.originmobi.pdv.repository.notafiscal;
 
 import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
 
 import javax.transaction.Transactional;
 
@@ -27,9 +29,14 @@ public interface NotaFiscalRepository extends JpaRepository<NotaFiscal, Long> {
 	@Query("select n.totais from NotaFiscal n where n.codigo = ?1")
 	NotaFiscalTotais buscaTotaisDaNota(Long codigo);
 
-	@Query(value = "select coalesce(max(numero),0) + 1 from nota_fiscal where serie = ?1", nativeQuery = true)
-	Long buscaUltimaNota(int serie);
-	
+	@Query("select distinct n from NotaFiscal n left join fetch n.itens where n.codigo in ?1")
+	List<NotaFiscal> buscaComItens(Collection<Long> codigos);
+
+	@Transactional
+	@Modifying
+	@Query("update NotaFiscal n set n.chave_acesso = ?2 where n.codigo = ?1")
+	int atualizaChave(Long codigo, String chave);
+
 	@Query(value = "select count(*) from nota_fiscal", nativeQuery = true)
 	int totalNotaFiscalEmitidas();
 
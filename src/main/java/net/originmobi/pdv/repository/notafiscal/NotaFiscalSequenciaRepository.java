@@ -0,0 +1,26 @@
+package net.originmobi.pdv.repository.notafiscal;
+
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import net.originmobi.pdv.model.NotaFiscalSequencia;
+
+public interface NotaFiscalSequenciaRepository extends JpaRepository<NotaFiscalSequencia, Integer> {
+
+	/* a primeira reserva de uma série continua a numeração das notas já cadastradas */
+	@Modifying
+	@Query(value = "insert ignore into nota_fiscal_sequencia (serie, proximo) "
+			+ "select ?1, coalesce(max(numero), 0) + 1 from nota_fiscal where serie = ?1", nativeQuery = true)
+	int criaSeNaoExistir(int serie);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select s from NotaFiscalSequencia s where s.serie = ?1")
+	Optional<NotaFiscalSequencia> bloqueia(int serie);
+
+}
@@ -1,17 +1,28 @@
 package net.originmobi.pdv.repository.notafiscal;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import net.originmobi.pdv.dto.TotaisNotaDTO;
 import net.originmobi.pdv.model.NotaFiscalTotais;
 
 public interface NotaFiscalTotaisRepository extends JpaRepository<NotaFiscalTotais, Long> {
 
-	@Query(value = "select coalesce(sum(nfi.vl_total), 0) total, coalesce(sum(nfii.v_icms), 0) icms, coalesce(sum(nfii.v_pis), 0) pis, "
-			+ "coalesce(sum(nfii.v_cofins), 0) cofins, coalesce(sum(nfii.v_ipi), 0) ipi "
-			+ "from	nota_fiscal_item nfi, nota_fiscal_item_imposto nfii "
-			+ "where nfii.codigo = nfi.imposto_codigo "
-			+ "and nfi.nota_fiscal_codigo = ?1", nativeQuery = true)
-	String calcula(Long codNota);
+	@Query("select new net.originmobi.pdv.dto.TotaisNotaDTO(coalesce(sum(i.vlTotal), 0.0), coalesce(sum(im.v_icms), 0.0), "
+			+ "coalesce(sum(im.v_pis), 0.0), coalesce(sum(im.v_cofins), 0.0), coalesce(sum(im.v_ipi), 0.0)) "
+			+ "from NotaFiscalItem i join i.impostos im where i.notaFiscal.codigo = ?1")
+	TotaisNotaDTO calcula(Long codNota);
+
+	/*
+	 * Soma a diferença de um item direto no banco, duas alterações na mesma nota
+	 * não perdem o valor uma da outra
+	 */
+	@Modifying
+	@Query("update NotaFiscalTotais t set t.v_prod = coalesce(t.v_prod, 0) + ?2, t.v_bc = coalesce(t.v_bc, 0) + ?2, "
+			+ "t.v_icms = coalesce(t.v_icms, 0) + ?3, t.v_pis = coalesce(t.v_pis, 0) + ?4, "
+			+ "t.v_cofins = coalesce(t.v_cofins, 0) + ?5, t.v_ipi = coalesce(t.v_ipi, 0) + ?6, "
+			+ "t.v_nf = coalesce(t.v_nf, 0) + ?2 + ?6 where t.codigo = ?1")
+	int soma(Long codigo, double produtos, double icms, double pis, double cofins, double ipi);
 
 }
@@ -1,22 +1,19 @@
 package net.originmobi.pdv.security;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
 import net.originmobi.pdv.model.GrupoUsuario;
-import net.originmobi.pdv.model.Permissoes;
 import net.originmobi.pdv.model.Usuario;
 import net.originmobi.pdv.repository.GrupoUsuarioRepository;
-import net.originmobi.pdv.repository.PermissoesRespository;
 import net.originmobi.pdv.repository.UsuarioRepository;
 
 @Component
@@ -29,11 +26,11 @@ public class LoginUserDatailsService implements UserDetailsService {
 	private GrupoUsuarioRepository grupos;
 
 	@Autowired
-	private PermissoesRespository permissoes;
+	private PermissaoMatriz permissoes;
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-		Usuario usuario = usuarios.findByUserContaining(username);
+		Usuario usuario = usuarios.findByUserEquals(username);
 
 		if (usuario == null)
 			throw new UsernameNotFoundException("Usuário não encontrado!");
@@ -43,20 +40,11 @@ public class LoginUserDatailsService implements UserDetailsService {
 	}
 
 	public Collection<? extends GrantedAuthority> authorities(Usuario usuario) {
-		return authorities(grupos.findByUsuarioIn(usuario));
+		return permissoes.autoridades(grupos.codigosDoUsuario(usuario.getCodigo()));
 	}
 
 	public Collection<? extends GrantedAuthority> authorities(List<GrupoUsuario> grupos) {
-		Collection<GrantedAuthority> auths = new ArrayList<>();
-
-		for (GrupoUsuario grupo : grupos) {
-			List<Permissoes> lista = permissoes.findByGrupoUsuarioIn(grupo);
-
-			for (Permissoes permissao : lista) {
-				auths.add(new SimpleGrantedAuthority("ROLE_" + permissao.getNome()));
-			}
-		}
-		return auths;
+		return permissoes.autoridades(grupos.stream().map(GrupoUsuario::getCodigo).collect(Collectors.toList()));
 	}
 
 }
@@ -0,0 +1,72 @@
+package net.originmobi.pdv.security;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import net.originmobi.pdv.repository.PermissoesRespository;
+
+/*
+ * Permissões de cada grupo de usuário mantidas em memória. A matriz inteira é
+ * carregada com uma única consulta no primeiro login e recarregada sempre que as
+ * permissões de um grupo mudam, assim o login não consulta as permissões de cada
+ * grupo do usuário.
+ */
+@Component
+public class PermissaoMatriz {
+
+	@Autowired
+	private PermissoesRespository permissoes;
+
+	private volatile Map<Long, Set<GrantedAuthority>> matriz;
+
+	public Set<GrantedAuthority> autoridades(Long codigoGrupo) {
+		return matriz().getOrDefault(codigoGrupo, Collections.emptySet());
+	}
+
+	public Set<GrantedAuthority> autoridades(Collection<Long> codigosGrupos) {
+		Map<Long, Set<GrantedAuthority>> atual = matriz();
+		Set<GrantedAuthority> auths = new LinkedHashSet<>();
+
+		for (Long grupo : codigosGrupos)
+			auths.addAll(atual.getOrDefault(grupo, Collections.emptySet()));
+
+		return auths;
+	}
+
+	public synchronized void recarrega() {
+		Map<Long, Set<GrantedAuthority>> grupos = new HashMap<>();
+
+		for (Object[] linha : permissoes.permissoesPorGrupo()) {
+			Long grupo = ((Number) linha[0]).longValue();
+			grupos.computeIfAbsent(grupo, g -> new LinkedHashSet<>())
+					.add(new SimpleGrantedAuthority("ROLE_" + linha[1]));
+		}
+
+		grupos.replaceAll((grupo, auths) -> Collections.unmodifiableSet(auths));
+		matriz = Collections.unmodifiableMap(grupos);
+	}
+
+	private Map<Long, Set<GrantedAuthority>> matriz() {
+		Map<Long, Set<GrantedAuthority>> atual = matriz;
+
+		if (atual == null) {
+			synchronized (this) {
+				if (matriz == null)
+					recarrega();
+				atual = matriz;
+			}
+		}
+
+		return atual;
+	}
+
+}
@@ -37,6 +37,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter{
 			
 			.antMatchers("/venda/status/ABERTA").hasRole("VISUALIZAR_PEDIDO_ABERTO")
 			.antMatchers("/venda/status/FECHADA").hasRole("VISUALIZAR_PEDIDO_FECHADO")
+			.antMatchers("/venda/exportar").hasRole("VISUALIZAR_PEDIDO_FECHADO")
 			.antMatchers("/venda/form").hasRole("ABRIR_PEDIDO")
 			.antMatchers("/venda/fechar/").hasRole("GERAR_VENDA")
 			.antMatchers("/venda/addproduto/").hasRole("INSERIR_PRODUTO_VENDA")
@@ -60,6 +61,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter{
 			.antMatchers("/regras").hasRole("EDITAR_REGRA_TRIBUTACAO")
 			.antMatchers("/notafiscal").hasRole("VISUALIZA_NOTAFISCAL")
 			.antMatchers("/empresa").hasRole("EDITAR_PARAMETROS")
+			.antMatchers("/busca/reconstroi").hasRole("EDITAR_PARAMETROS")
 			.antMatchers("/banco").hasRole("LISTAR_BANCO")
 			.antMatchers("/maquinacartao").hasRole("EDITAR_CARTAO")
 			.antMatchers("/titulos").hasRole("EDITAR_TITULO") 
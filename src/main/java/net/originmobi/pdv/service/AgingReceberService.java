@@ -0,0 +1,348 @@
+package net.originmobi.pdv.service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import net.originmobi.pdv.dto.AgingClienteDTO;
+import net.originmobi.pdv.repository.ReceberAgingRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+/*
+ * Foto diária do contas a receber por cliente, em receber_aging. Uma vez por
+ * noite as parcelas em aberto são lidas em streaming, na ordem dos clientes, e
+ * separadas em blocos de clientes inteiros. Cada bloco é calculado e gravado
+ * por uma tarefa do pool, enquanto a leitura segue, e o número de blocos em
+ * andamento é limitado para a leitura não acumular parcelas na memória.
+ *
+ * A foto é gravada com a data de referência ao lado das anteriores e só passa
+ * a ser consultada quando todos os blocos foram gravados. Se algum falhar, as
+ * linhas já gravadas da data são apagadas e a foto anterior continua valendo.
+ * Uma data já concluída não é refeita, a foto dela segue em uso.
+ *
+ * O vencido é separado em faixas de atraso: até 30, de 31 a 60, de 61 a 90 e
+ * acima de 90 dias. Passada a carência, cada parcela vencida tem a multa sobre
+ * o valor restante e os juros simples de cada dia de atraso.
+ */
+@Service
+public class AgingReceberService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AgingReceberService.class);
+
+	private static final int[] LIMITE_FAIXAS = { 30, 60, 90 };
+
+	@Autowired
+	private ReceberAgingRepository repository;
+
+	// percentual cobrado uma vez sobre o valor vencido
+	@Value("${pdv.receber.multa:2}")
+	private double multa = 2;
+
+	// percentual ao mês, proporcional aos dias de atraso
+	@Value("${pdv.receber.juros-mes:1}")
+	private double jurosMes = 1;
+
+	// dias de atraso sem multa e juros
+	@Value("${pdv.receber.carencia:0}")
+	private int carencia = 0;
+
+	/* 0 usa a quantidade de núcleos da máquina */
+	@Value("${pdv.receber.aging.threads:0}")
+	private int threads = 0;
+
+	// clientes de cada tarefa, também o tamanho do lote gravado por ela
+	@Value("${pdv.receber.aging.clientes-por-tarefa:500}")
+	private int clientesPorTarefa = 500;
+
+	@Value("${pdv.receber.aging.em-andamento:16}")
+	private int limiteEmAndamento = 16;
+
+	@Value("${pdv.receber.cobranca-tamanho:50}")
+	private int tamanhoCobranca = 50;
+
+	private ForkJoinPool pool;
+
+	private final AtomicBoolean executando = new AtomicBoolean();
+
+	@PostConstruct
+	public void inicia() {
+		int nucleos = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+		pool = new ForkJoinPool(nucleos, p -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			thread.setName("receber-aging-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+
+	@PreDestroy
+	public void encerra() {
+		pool.shutdownNow();
+	}
+
+	@Scheduled(cron = "${pdv.receber.aging-cron:0 30 0 * * *}")
+	public void atualiza() {
+		atualiza(LocalDate.now());
+	}
+
+	/*
+	 * Grava a foto na data de referência e retorna a quantidade de clientes
+	 * gravados, ou -1 se a rotina já estava em execução ou a foto da data já
+	 * foi concluída
+	 */
+	public int atualiza(LocalDate referencia) {
+		if (!executando.compareAndSet(false, true))
+			return -1;
+
+		try {
+			long inicio = System.currentTimeMillis();
+			Date data = Date.valueOf(referencia);
+
+			// já gravada, por uma execução anterior ou por outro servidor
+			if (repository.concluida(data))
+				return -1;
+
+			// sobra de uma execução da mesma data que falhou
+			repository.descartaIncompleta(data);
+
+			Execucao execucao = new Execucao(referencia);
+			try {
+				repository.parcelasAbertas(execucao::parcela);
+				execucao.conclui();
+			} catch (RuntimeException | Error e) {
+				// espera os blocos que ainda estão gravando antes de apagar o que foi gravado
+				execucao.aguarda();
+				repository.descartaIncompleta(data);
+				throw e;
+			}
+
+			// só depois de gravar todos, a foto da data substitui as anteriores
+			repository.conclui(data);
+			repository.removeAnteriores(data);
+
+			logger.info("Aging do contas a receber: {} clientes, {} parcelas em {} ms", execucao.clientes,
+					execucao.parcelas, System.currentTimeMillis() - inicio);
+
+			return execucao.clientes;
+		} finally {
+			executando.set(false);
+		}
+	}
+
+	/* null se o cliente não tinha parcelas em aberto na última foto */
+	public AgingClienteDTO busca(Long pessoa) {
+		Object[] linha = pessoa == null ? null : repository.busca(pessoa);
+		return linha == null ? null : dto(linha);
+	}
+
+	/* clientes com parcelas vencidas, os maiores atrasos primeiro */
+	public List<AgingClienteDTO> cobranca(int pagina) {
+		return repository.cobranca(Math.max(pagina, 0) * tamanhoCobranca, tamanhoCobranca).stream().map(this::dto)
+				.collect(Collectors.toList());
+	}
+
+	private AgingClienteDTO dto(Object[] linha) {
+		return new AgingClienteDTO((Long) linha[0], (String) linha[1], (Date) linha[2], Dinheiro.de((Double) linha[3]),
+				Dinheiro.de((Double) linha[4]), Dinheiro.de((Double) linha[5]), Dinheiro.de((Double) linha[6]),
+				Dinheiro.de((Double) linha[7]), Dinheiro.de((Double) linha[8]), Dinheiro.de((Double) linha[9]),
+				(Integer) linha[10], (Integer) linha[11]);
+	}
+
+	/*
+	 * Calcula as posições dos clientes do bloco e grava todas em um lote
+	 */
+	private void processa(List<Aberta> bloco, LocalDate referencia) {
+		long hoje = referencia.toEpochDay();
+		Date data = Date.valueOf(referencia);
+
+		List<Object[]> linhas = new ArrayList<>(clientesPorTarefa);
+		Posicao posicao = null;
+
+		for (Aberta aberta : bloco) {
+			if (posicao == null || posicao.pessoa != aberta.pessoa) {
+				if (posicao != null)
+					linhas.add(posicao.linha(data));
+
+				posicao = new Posicao(aberta.pessoa);
+			}
+
+			posicao.soma(aberta.restante, aberta.vencimento == null ? 0 : hoje - aberta.vencimento);
+		}
+
+		if (posicao != null)
+			linhas.add(posicao.linha(data));
+
+		repository.grava(linhas);
+	}
+
+	/*
+	 * Leitura das parcelas de uma execução, entrega ao pool um bloco a cada
+	 * clientesPorTarefa clientes
+	 */
+	private final class Execucao {
+
+		private final LocalDate referencia;
+		private final Semaphore emAndamento = new Semaphore(limiteEmAndamento);
+		private final List<ForkJoinTask<?>> tarefas = new ArrayList<>();
+
+		private List<Aberta> bloco = new ArrayList<>();
+		private volatile boolean falhou;
+		private Long ultimaPessoa;
+		private int clientesNoBloco;
+		private int clientes;
+		private long parcelas;
+
+		Execucao(LocalDate referencia) {
+			this.referencia = referencia;
+		}
+
+		void parcela(long pessoa, double restante, Date vencimento) {
+			if (ultimaPessoa == null || ultimaPessoa != pessoa) {
+				// o bloco fecha entre dois clientes, nunca no meio das parcelas de um
+				if (clientesNoBloco == clientesPorTarefa)
+					envia();
+
+				ultimaPessoa = pessoa;
+				clientesNoBloco++;
+				clientes++;
+			}
+
+			bloco.add(new Aberta(pessoa, Dinheiro.de(restante).getCentavos(),
+					vencimento == null ? null : vencimento.toLocalDate().toEpochDay()));
+			parcelas++;
+		}
+
+		void conclui() {
+			if (!bloco.isEmpty())
+				envia();
+
+			Throwable falha = aguarda();
+			if (falha instanceof RuntimeException)
+				throw (RuntimeException) falha;
+			if (falha instanceof Error)
+				throw (Error) falha;
+		}
+
+		/*
+		 * Espera todas as tarefas enviadas, mesmo depois da falha de uma delas, e
+		 * retorna a primeira falha
+		 */
+		Throwable aguarda() {
+			Throwable falha = null;
+
+			for (ForkJoinTask<?> tarefa : tarefas) {
+				try {
+					tarefa.join();
+				} catch (RuntimeException | Error e) {
+					if (falha == null)
+						falha = e;
+				}
+			}
+
+			return falha;
+		}
+
+		private void envia() {
+			List<Aberta> enviado = bloco;
+			bloco = new ArrayList<>();
+			clientesNoBloco = 0;
+
+			emAndamento.acquireUninterruptibly();
+			tarefas.add(pool.submit(() -> {
+				try {
+					// depois de uma falha a foto será descartada, não adianta gravar os outros blocos
+					if (!falhou)
+						processa(enviado, referencia);
+				} catch (RuntimeException | Error e) {
+					falhou = true;
+					throw e;
+				} finally {
+					emAndamento.release();
+				}
+			}));
+		}
+
+	}
+
+	private static final class Aberta {
+
+		private final long pessoa;
+		private final long restante;
+		// dia do vencimento contado de 1970-01-01
+		private final Long vencimento;
+
+		Aberta(long pessoa, long restante, Long vencimento) {
+			this.pessoa = pessoa;
+			this.restante = restante;
+			this.vencimento = vencimento;
+		}
+
+	}
+
+	/*
+	 * Soma das parcelas de um cliente, em centavos
+	 */
+	private final class Posicao {
+
+		private final long pessoa;
+		private long aVencer;
+		private final long[] faixas = new long[LIMITE_FAIXAS.length + 1];
+		private long valorMulta;
+		private long valorJuros;
+		private int vencidas;
+		private long maiorAtraso;
+
+		Posicao(long pessoa) {
+			this.pessoa = pessoa;
+		}
+
+		void soma(long restante, long atraso) {
+			if (atraso <= 0) {
+				aVencer += restante;
+				return;
+			}
+
+			int faixa = 0;
+			while (faixa < LIMITE_FAIXAS.length && atraso > LIMITE_FAIXAS[faixa])
+				faixa++;
+
+			faixas[faixa] += restante;
+			vencidas++;
+			maiorAtraso = Math.max(maiorAtraso, atraso);
+
+			if (atraso > carencia) {
+				Dinheiro valor = Dinheiro.deCentavos(restante);
+				valorMulta += valor.percentual(multa).getCentavos();
+				valorJuros += valor.percentual(jurosMes * atraso / 30.0).getCentavos();
+			}
+		}
+
+		Object[] linha(Date referencia) {
+			return new Object[] { pessoa, referencia, valor(aVencer), valor(faixas[0]), valor(faixas[1]),
+					valor(faixas[2]), valor(faixas[3]), valor(valorMulta), valor(valorJuros), vencidas, (int) maiorAtraso };
+		}
+
+		private double valor(long centavos) {
+			return Dinheiro.deCentavos(centavos).valor();
+		}
+
+	}
+
+}
@@ -2,18 +2,23 @@ package net.originmobi.pdv.service;
 
 import java.sql.Timestamp;
 import java.util.List;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import net.originmobi.pdv.dto.ExtratoCaixaDTO;
+import net.originmobi.pdv.dto.ExtratoLancamentoDTO;
+import net.originmobi.pdv.dto.ResumoCaixaDTO;
 import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
 import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
 import net.originmobi.pdv.model.Caixa;
 import net.originmobi.pdv.model.CaixaLancamento;
 import net.originmobi.pdv.repository.CaixaLancamentoRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Service
 public class CaixaLancamentoService {
@@ -22,7 +27,13 @@ public class CaixaLancamentoService {
 	private CaixaLancamentoRepository caixaLancamento;
 
 	@Autowired
-	UsuarioService usuarios;
+	private UsuarioAtualService usuarioAtual;
+
+	@Autowired
+	private LivroCaixa livro;
+
+	@Value("${pdv.caixa.extrato-tamanho:50}")
+	private int tamanhoPagina = 50;
 
 	private Timestamp dataHoraAtual;
 
@@ -36,21 +47,14 @@ public class CaixaLancamentoService {
 		try {
 			lancamento.setData_cadastro(dataHoraAtual);
 
+			if (lancamento.getUsuario() == null)
+				lancamento.setUsuario(usuarioAtual.usuario());
+
 			if (!lancamento.getCaixa().isPresent()
 					&& lancamento.getCaixa().map(Caixa::getData_fechamento).isPresent()) {
 				throw new RuntimeException("Nenhum caixa aberto");
 			}
 
-			// se for realizar uma saida de caixa, verifica se tem saldo
-			// suficiente para isso
-			if (lancamento.getEstilo().equals(EstiloLancamento.SAIDA)) {
-				Optional<Double> vlTotalCaixa = lancamento.getCaixa().map(Caixa::getValor_total);
-				
-				if (lancamento.getValor() > vlTotalCaixa.get()) {
-					return "Saldo insuficiente para realizar esta operação";
-				}
-			}
-
 			// se for do tipo SAIDA, converte o valor que vier para negativo
 			if (lancamento.getEstilo().equals(EstiloLancamento.SAIDA) && lancamento.getValor() > 0) {
 				Double valorNegativo = (lancamento.getValor() * -1);
@@ -75,17 +79,53 @@ public class CaixaLancamentoService {
 			throw new RuntimeException();
 		}
 
+		// se for realizar uma saida de caixa, verifica se tem saldo suficiente
+		// para isso, a conferência e o débito no saldo em memória são atômicos e
+		// a falta de saldo interrompe a operação de quem chamou
+		LivroCaixa.Movimento movimento = livro.movimenta(lancamento.getCaixa().map(Caixa::getCodigo).orElse(null),
+				lancamento.getTipo(), lancamento.getEstilo(), Dinheiro.de(lancamento.getValor()));
+
+		if (movimento == null)
+			throw new RuntimeException("Saldo insuficiente para realizar esta operação");
+
 		try {
 			caixaLancamento.save(lancamento);
 		} catch (Exception e) {
-			e.getMessage();
+			movimento.desfaz();
 			throw new RuntimeException("Erro ao realizar lançamento, chame o suporte");
 		}
 
 		return "Lançamento realizado com sucesso";
 	}
 
-	public List<CaixaLancamento> lancamentosDoCaixa(Caixa caixa) {
-		return caixaLancamento.findByCaixaEquals(caixa);
+	/*
+	 * Página do extrato do caixa com os lançamentos depois do lançamento
+	 * (apos, aposLancamento) e o saldo após cada um, partindo do saldo da
+	 * página anterior. Sem cursor retorna a primeira página. O resumo por tipo
+	 * vem do livro caixa, sem somar os lançamentos.
+	 */
+	public ExtratoCaixaDTO extrato(Caixa caixa, Timestamp apos, Long aposLancamento, Dinheiro saldoAnterior) {
+		boolean primeira = apos == null || aposLancamento == null;
+		Dinheiro saldo = primeira || saldoAnterior == null ? Dinheiro.ZERO : saldoAnterior;
+
+		// um a mais para saber se existe a próxima página
+		List<ExtratoLancamentoDTO> lancamentos = caixaLancamento.extrato(caixa.getCodigo(),
+				primeira ? new Timestamp(0) : apos, primeira ? 0L : aposLancamento,
+				PageRequest.of(0, tamanhoPagina + 1));
+
+		boolean possuiProxima = lancamentos.size() > tamanhoPagina;
+		if (possuiProxima)
+			lancamentos = lancamentos.subList(0, tamanhoPagina);
+
+		Dinheiro anterior = saldo;
+		for (ExtratoLancamentoDTO lancamento : lancamentos) {
+			saldo = saldo.mais(lancamento.getValor());
+			lancamento.setSaldo(saldo);
+		}
+
+		List<ResumoCaixaDTO> resumo = caixa.getData_fechamento() == null ? livro.resumo(caixa.getCodigo())
+				: livro.resumoGravado(caixa.getCodigo());
+
+		return new ExtratoCaixaDTO(caixa.getCodigo(), lancamentos, resumo, anterior, possuiProxima);
 	}
 }
@@ -23,7 +23,6 @@ import net.originmobi.pdv.model.Caixa;
 import net.originmobi.pdv.model.CaixaLancamento;
 import net.originmobi.pdv.model.Usuario;
 import net.originmobi.pdv.repository.CaixaRepository;
-import net.originmobi.pdv.singleton.Aplicacao;
 
 @Service
 public class CaixaService {
@@ -36,16 +35,21 @@ public class CaixaService {
     @Autowired
     private UsuarioService usuarios;
 
+    @Autowired
+    private UsuarioAtualService usuarioAtual;
+
     @Autowired
     private CaixaLancamentoService lancamentos;
 
+    @Autowired
+    private LivroCaixa livro;
+
     @Transactional(readOnly = false, propagation = Propagation.REQUIRED)
     public Long cadastro(Caixa caixa) {
         
         validarAbertura(caixa);
 
-        Aplicacao aplicacao = Aplicacao.getInstancia();
-        Usuario usuarioLogado = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+        Usuario usuarioLogado = usuarioAtual.usuario();
 
         Double vlabertura = caixa.getValor_abertura() == null ? 0.0 : caixa.getValor_abertura();
         caixa.setValor_abertura(vlabertura);
@@ -123,8 +127,7 @@ public class CaixaService {
     }
 
     public String fechaCaixa(Long idCaixa, String senha) {
-        Aplicacao aplicacao = Aplicacao.getInstancia();
-        Usuario usuarioLogado = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+        Usuario usuarioLogado = usuarioAtual.usuario();
         BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
 
         if (senha == null || senha.isEmpty()) {
@@ -146,10 +149,14 @@ public class CaixaService {
             throw new IllegalStateException("Caixa já está fechado");
         }
 
-        Double valorTotal = caixaAtual.getValor_total() == null ? 0.0 : caixaAtual.getValor_total();
+        // o saldo em memória é gravado e prevalece sobre o que foi lido do caixa
+        LivroCaixa.Posicao posicao = livro.fecha(idCaixa);
 
         caixaAtual.setData_fechamento(new Timestamp(System.currentTimeMillis()));
-        caixaAtual.setValor_fechamento(valorTotal);
+        caixaAtual.setValor_total(posicao.getTotal().valor());
+        caixaAtual.setValor_entrada(posicao.getEntradas().valor());
+        caixaAtual.setValor_saida(posicao.getSaidas().valor());
+        caixaAtual.setValor_fechamento(posicao.getTotal().valor());
 
         try {
             caixas.save(caixaAtual);
@@ -0,0 +1,125 @@
+package net.originmobi.pdv.service;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.originmobi.pdv.repository.PagarParcelaRespository;
+import net.originmobi.pdv.repository.ReceberRepository;
+import net.originmobi.pdv.repository.VendaRepository;
+import net.originmobi.pdv.repository.notafiscal.NotaFiscalRepository;
+
+/*
+ * Indicadores do dashboard mantidos em memória. São carregados do banco na
+ * subida, atualizados pelos serviços que os alteram, sempre depois do commit da
+ * transação, e conferidos com o banco periodicamente para corrigir qualquer
+ * diferença, como alterações feitas direto no banco.
+ *
+ * Os valores em dinheiro ficam em centavos para que as somas não acumulem erro.
+ */
+@Service
+public class DashboardService {
+
+	@Autowired
+	private VendaRepository vendas;
+
+	@Autowired
+	private ReceberRepository receber;
+
+	@Autowired
+	private PagarParcelaRespository pagar;
+
+	@Autowired
+	private NotaFiscalRepository notas;
+
+	private final AtomicInteger vendasAbertas = new AtomicInteger();
+	private final AtomicLong centavosAReceber = new AtomicLong();
+	private final AtomicLong centavosAPagar = new AtomicLong();
+	private final AtomicInteger notasEmitidas = new AtomicInteger();
+
+	@PostConstruct
+	@Scheduled(fixedDelayString = "${pdv.dashboard.reconciliacao-ms:600000}", initialDelayString = "${pdv.dashboard.reconciliacao-ms:600000}")
+	public void reconcilia() {
+		vendasAbertas.set(vendas.qtdVendasEmAberto());
+		centavosAReceber.set(centavos(receber.valorAReceber()));
+		centavosAPagar.set(centavos(pagar.valorAPagar()));
+		notasEmitidas.set(notas.totalNotaFiscalEmitidas());
+	}
+
+	public int qtdVendasAbertas() {
+		return vendasAbertas.get();
+	}
+
+	public String totalAReceber() {
+		return formata(centavosAReceber.get());
+	}
+
+	public String totalAPagar() {
+		return formata(centavosAPagar.get());
+	}
+
+	public int qtdNotasEmitidas() {
+		return notasEmitidas.get();
+	}
+
+	public void vendaAberta() {
+		aposCommit(vendasAbertas::incrementAndGet);
+	}
+
+	public void vendaFechada() {
+		aposCommit(vendasAbertas::decrementAndGet);
+	}
+
+	/*
+	 * Variação do valor restante das parcelas a receber em aberto, positiva ao
+	 * gerar parcelas e negativa ao recebê-las
+	 */
+	public void aReceber(Double variacao) {
+		long centavos = centavos(variacao);
+		aposCommit(() -> centavosAReceber.addAndGet(centavos));
+	}
+
+	public void aPagar(Double variacao) {
+		long centavos = centavos(variacao);
+		aposCommit(() -> centavosAPagar.addAndGet(centavos));
+	}
+
+	public void notaEmitida() {
+		aposCommit(notasEmitidas::incrementAndGet);
+	}
+
+	private void aposCommit(Runnable atualizacao) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			atualizacao.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				atualizacao.run();
+			}
+		});
+	}
+
+	private static long centavos(Double valor) {
+		return valor == null ? 0 : Math.round(valor * 100);
+	}
+
+	private static String formata(long centavos) {
+		NumberFormat formato = NumberFormat.getNumberInstance(new Locale("de", "DE"));
+		formato.setMinimumFractionDigits(2);
+		formato.setMaximumFractionDigits(2);
+		return formato.format(centavos / 100.0);
+	}
+
+}
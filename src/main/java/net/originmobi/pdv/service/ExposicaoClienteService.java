@@ -0,0 +1,163 @@
+package net.originmobi.pdv.service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import net.originmobi.pdv.dto.ExposicaoClienteDTO;
+import net.originmobi.pdv.model.Parcela;
+import net.originmobi.pdv.model.Receber;
+import net.originmobi.pdv.repository.PessoaExposicaoRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+/*
+ * Posição de cada cliente no contas a receber, mantida em pessoa_exposicao.
+ * Cada parcela gerada ou recebida soma a sua variação na linha do cliente, na
+ * mesma transação da parcela, assim a tela do cliente e a conferência do limite
+ * de crédito leem uma única linha.
+ *
+ * O valor vencido muda também com a passagem do dia, por isso é recalculado
+ * uma vez por dia, só para os clientes com parcelas vencidas.
+ */
+@Service
+public class ExposicaoClienteService {
+
+	@Autowired
+	private PessoaExposicaoRepository repository;
+
+	// limite do valor em aberto de cada cliente, zero para não conferir
+	@Value("${pdv.receber.limite-credito:0}")
+	private double limiteCredito = 0;
+
+	public ExposicaoClienteDTO exposicao(Long pessoa) {
+		Object[] linha = pessoa == null ? null : repository.busca(pessoa);
+
+		if (linha == null)
+			return ExposicaoClienteDTO.VAZIA;
+
+		return new ExposicaoClienteDTO(Dinheiro.de((Double) linha[0]),
+				Dinheiro.de((Double) linha[1]).positivoOuZero(), (Integer) linha[2], (Date) linha[3]);
+	}
+
+	/*
+	 * Confere se o cliente pode comprar o valor a prazo sem passar do limite de
+	 * crédito. Deve ser chamado na transação que grava as parcelas: a linha do
+	 * cliente fica travada até o fim dela, assim duas vendas ao mesmo tempo não
+	 * passam as duas pelo mesmo saldo disponível.
+	 */
+	public void verificaLimite(Long pessoa, Dinheiro credito) {
+		if (limiteCredito <= 0 || pessoa == null || !credito.isPositivo())
+			return;
+
+		Dinheiro limite = Dinheiro.de(limiteCredito);
+		Dinheiro aberto = Dinheiro.de(repository.travaAberto(pessoa));
+
+		if (aberto.mais(credito).maiorQue(limite))
+			throw new RuntimeException("Limite de crédito do cliente excedido, disponível R$ "
+					+ limite.menos(aberto).positivoOuZero().formata());
+	}
+
+	/*
+	 * Soma as variações das parcelas por cliente e grava todas em um lote
+	 */
+	public void registra(List<Movimento> movimentos) {
+		Map<Long, Movimento> porPessoa = new LinkedHashMap<>();
+
+		for (Movimento movimento : movimentos) {
+			if (movimento.pessoa != null)
+				porPessoa.merge(movimento.pessoa, movimento, Movimento::soma);
+		}
+
+		if (porPessoa.isEmpty())
+			return;
+
+		List<Object[]> linhas = new ArrayList<>(porPessoa.size());
+		List<Object[]> recalcular = new ArrayList<>();
+
+		porPessoa.forEach((pessoa, movimento) -> {
+			linhas.add(new Object[] { pessoa, movimento.aberto.valor(), movimento.vencido.valor(), movimento.parcelas,
+					movimento.vencimento });
+
+			if (movimento.quitada)
+				recalcular.add(new Object[] { pessoa });
+		});
+
+		repository.movimenta(linhas);
+
+		if (!recalcular.isEmpty())
+			repository.recalculaVencimentoAntigo(recalcular);
+	}
+
+	@PostConstruct
+	@Scheduled(cron = "${pdv.receber.vencidos-cron:0 5 0 * * *}")
+	public void atualizaVencidos() {
+		repository.recalculaVencidos();
+	}
+
+	/*
+	 * Variação da posição de um cliente por uma ou mais parcelas
+	 */
+	public static final class Movimento {
+
+		private final Long pessoa;
+		private final Dinheiro aberto;
+		private final Dinheiro vencido;
+		private final int parcelas;
+		// menor vencimento das parcelas geradas, null nas baixas
+		private final Date vencimento;
+		private final boolean quitada;
+
+		private Movimento(Long pessoa, Dinheiro aberto, Dinheiro vencido, int parcelas, Date vencimento,
+				boolean quitada) {
+			this.pessoa = pessoa;
+			this.aberto = aberto;
+			this.vencido = vencido;
+			this.parcelas = parcelas;
+			this.vencimento = vencimento;
+			this.quitada = quitada;
+		}
+
+		public static Movimento geracao(Receber receber, Dinheiro valor, Date vencimento) {
+			return new Movimento(pessoa(receber), valor, vencido(vencimento) ? valor : Dinheiro.ZERO, 1, vencimento,
+					false);
+		}
+
+		/* variacao é a mudança no valor restante da parcela, negativa no recebimento */
+		public static Movimento baixa(Parcela parcela, Dinheiro variacao, boolean quitada) {
+			return new Movimento(pessoa(parcela.getReceber()), variacao,
+					vencido(parcela.getData_vencimento()) ? variacao : Dinheiro.ZERO, quitada ? -1 : 0, null, quitada);
+		}
+
+		Movimento soma(Movimento outro) {
+			Date menor = vencimento == null || (outro.vencimento != null && outro.vencimento.before(vencimento))
+					? outro.vencimento
+					: vencimento;
+
+			return new Movimento(pessoa, aberto.mais(outro.aberto), vencido.mais(outro.vencido),
+					parcelas + outro.parcelas, menor, quitada || outro.quitada);
+		}
+
+		private static Long pessoa(Receber receber) {
+			return receber == null || receber.getPessoa() == null ? null : receber.getPessoa().getCodigo();
+		}
+
+		/* vencida antes de hoje, como o data_vencimento < curdate() do recálculo */
+		private static boolean vencido(java.util.Date vencimento) {
+			return vencimento != null && vencimento.getTime() < LocalDate.now().atStartOfDay(ZoneId.systemDefault())
+					.toInstant().toEpochMilli();
+		}
+
+	}
+
+}
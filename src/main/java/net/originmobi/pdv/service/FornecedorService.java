@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import net.originmobi.pdv.filter.FornecedorFilter;
 import net.originmobi.pdv.model.Fornecedor;
 import net.originmobi.pdv.repository.FornecedorRepository;
+import net.originmobi.pdv.service.IndiceBuscaService.Tipo;
 
 @Service
 public class FornecedorService {
@@ -18,6 +19,9 @@ public class FornecedorService {
 	@Autowired
 	private FornecedorRepository fornecedores;
 
+	@Autowired
+	private IndiceBuscaService indice;
+
 	LocalDate dataAtual = LocalDate.now();
 
 	public String cadastrar(Fornecedor fornecedor) {
@@ -44,12 +48,14 @@ public class FornecedorService {
 			dadosFornecedor.setObservacao(fornecedor.getObservacao());
 
 			fornecedores.save(dadosFornecedor);
+			indice.fornecedor(dadosFornecedor.getCodigo(), dadosFornecedor.getNome());
 		} else {
 
 			if (fornecedores.findByCnpjIn(fornecedor.getCnpj()) == null) {
 				fornecedor.setCnpj(cnpj);
 				fornecedor.setData_cadastro(Date.valueOf(dataAtual));
 				fornecedores.save(fornecedor);
+				indice.fornecedor(fornecedor.getCodigo(), fornecedor.getNome());
 			} else {
 				return "CNPJ já cadastrado";
 			}
@@ -63,8 +69,11 @@ public class FornecedorService {
 	}
 
 	public List<Fornecedor> busca(FornecedorFilter filter) {
-		String nome = filter.getNome() == null ? "%" : filter.getNome();
-		return fornecedores.findByNomeContaining(nome);
+		if (filter.getNome() == null || filter.getNome().trim().isEmpty())
+			return fornecedores.findByNomeContaining("%");
+
+		List<Long> codigos = indice.busca(Tipo.FORNECEDOR, filter.getNome());
+		return IndiceBuscaService.naOrdem(codigos, fornecedores.findAllById(codigos), Fornecedor::getCodigo);
 	}
 
 	public Optional<Fornecedor> busca(Long codigo) {
@@ -9,6 +9,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import net.originmobi.pdv.model.GrupoUsuario;
 import net.originmobi.pdv.model.Usuario;
 import net.originmobi.pdv.repository.GrupoUsuarioRepository;
+import net.originmobi.pdv.security.PermissaoMatriz;
 
 @Service
 public class GrupoUsuarioService {
@@ -16,6 +17,9 @@ public class GrupoUsuarioService {
 	@Autowired
 	private GrupoUsuarioRepository grupousuarios;
 
+	@Autowired
+	private PermissaoMatriz permissoes;
+
 	public List<GrupoUsuario> buscaGrupos(Usuario usuario) {
 		return grupousuarios.findByUsuarioIn(usuario);
 	}
@@ -56,6 +60,7 @@ public class GrupoUsuarioService {
 
 		try {
 			grupousuarios.deleteById(codigo);
+			permissoes.recarrega();
 		} catch (Exception e) {
 			System.out.println(e);
 		}
@@ -77,6 +82,8 @@ public class GrupoUsuarioService {
 			throw new RuntimeException("Erro ao tentar adicionar permissão, chame o suporte");
 		}
 
+		permissoes.recarrega();
+
 		return "Permissao adicionada com sucesso";
 	}
 
@@ -86,6 +93,8 @@ public class GrupoUsuarioService {
 		} catch (Exception e) {
 			throw new RuntimeException("Erro ao tentar remover permissão, chame o suporte");
 		}
+
+		permissoes.recarrega();
 		return "Permissão removida com sucesso";
 	}
 
@@ -0,0 +1,454 @@
+package net.originmobi.pdv.service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.originmobi.pdv.repository.IndiceBuscaRepository;
+
+/*
+ * Índice de busca por texto dos produtos, pessoas e fornecedores, gravado em
+ * disco com o Lucene. O texto é indexado sem acentos e em minúsculas, e a busca
+ * aceita o começo das palavras e pequenos erros de digitação, com os resultados
+ * mais próximos primeiro. CPF/CNPJ e NCM são buscados só pelos dígitos.
+ *
+ * Os cadastros entram no índice depois do commit da transação que os grava. A
+ * reconstrução relê todos os cadastros e só no fim remove os documentos que não
+ * foram regravados, então as buscas nunca veem o índice pela metade.
+ */
+@Service
+public class IndiceBuscaService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IndiceBuscaService.class);
+
+	private static final String ID = "id";
+	private static final String TIPO = "tipo";
+	private static final String CODIGO = "codigo";
+	private static final String GERACAO = "geracao";
+	private static final String NOME = "nome";
+	private static final String COMPLEMENTO = "complemento";
+	private static final String DOCUMENTO = "documento";
+
+	// dígitos mínimos para buscar por CPF/CNPJ ou NCM
+	private static final int MINIMO_DIGITOS = 3;
+
+	public enum Tipo {
+		PRODUTO, PESSOA, FORNECEDOR
+	}
+
+	@Autowired
+	private IndiceBuscaRepository repository;
+
+	@Value("${pdv.busca.pasta:indice-busca}")
+	private String pasta = "indice-busca";
+
+	// resultados lidos do índice de cada vez nas buscas sem paginação
+	@Value("${pdv.busca.pagina:1000}")
+	private int tamanhoPagina = 1000;
+
+	private final Analyzer analisador = new Analisador();
+
+	private IndexWriter writer;
+	private SearcherManager gerenciador;
+	private ExecutorService reconstrucao;
+
+	private final AtomicBoolean reconstruindo = new AtomicBoolean();
+
+	// documentos de uma geração anterior à última reconstrução são removidos no fim dela
+	private volatile String geracao = UUID.randomUUID().toString();
+
+	@PostConstruct
+	public void inicia() throws IOException {
+		IndexWriterConfig configuracao = new IndexWriterConfig(analisador);
+		configuracao.setOpenMode(OpenMode.CREATE_OR_APPEND);
+
+		writer = new IndexWriter(FSDirectory.open(Paths.get(pasta)), configuracao);
+		gerenciador = new SearcherManager(writer, null);
+
+		reconstrucao = Executors.newSingleThreadExecutor(tarefa -> {
+			Thread thread = new Thread(tarefa, "indice-busca");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void encerra() throws IOException {
+		reconstrucao.shutdownNow();
+		gerenciador.close();
+		writer.close();
+	}
+
+	/* a primeira subida monta o índice a partir do banco */
+	@EventListener(ApplicationReadyEvent.class)
+	public void reconstroiSeVazio() {
+		if (writer.getDocStats().numDocs == 0)
+			reconstroiEmSegundoPlano();
+	}
+
+	public void produto(Long codigo, String descricao, String ncm) {
+		aposCommit(Tipo.PRODUTO, codigo, descricao, null, ncm);
+	}
+
+	public void pessoa(Long codigo, String nome, String apelido, String cpfcnpj) {
+		aposCommit(Tipo.PESSOA, codigo, nome, apelido, cpfcnpj);
+	}
+
+	public void fornecedor(Long codigo, String nome) {
+		aposCommit(Tipo.FORNECEDOR, codigo, nome, null, null);
+	}
+
+	/*
+	 * Códigos de todos os cadastros encontrados, os mais próximos do texto
+	 * primeiro, para as telas que listam sem paginação. O índice é percorrido
+	 * em páginas, cada uma continua depois do último resultado da anterior.
+	 */
+	public List<Long> busca(Tipo tipo, String texto) {
+		Query consulta = consulta(tipo, texto);
+		if (consulta == null)
+			return Collections.emptyList();
+
+		try {
+			IndexSearcher searcher = gerenciador.acquire();
+
+			try {
+				List<Long> codigos = new ArrayList<>();
+				ScoreDoc ultimo = null;
+
+				while (true) {
+					ScoreDoc[] pagina = searcher.searchAfter(ultimo, consulta, tamanhoPagina).scoreDocs;
+					for (ScoreDoc encontrado : pagina)
+						codigos.add(codigo(searcher, encontrado));
+
+					if (pagina.length < tamanhoPagina)
+						return codigos;
+
+					ultimo = pagina[pagina.length - 1];
+				}
+			} finally {
+				gerenciador.release(searcher);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Erro ao consultar o índice de busca, chame o suporte", e);
+		}
+	}
+
+	/*
+	 * Códigos dos cadastros encontrados, os mais próximos do texto primeiro
+	 */
+	public Page<Long> busca(Tipo tipo, String texto, Pageable pageable) {
+		int inicio = (int) pageable.getOffset();
+		Query consulta = consulta(tipo, texto);
+
+		if (consulta == null || pageable.getPageSize() <= 0)
+			return new PageImpl<>(Collections.emptyList(), pageable, 0);
+
+		try {
+			IndexSearcher searcher = gerenciador.acquire();
+
+			try {
+				TopDocs encontrados = searcher.search(consulta, inicio + pageable.getPageSize());
+
+				List<Long> codigos = new ArrayList<>(pageable.getPageSize());
+				for (int i = inicio; i < encontrados.scoreDocs.length; i++) {
+					ScoreDoc encontrado = encontrados.scoreDocs[i];
+					codigos.add(codigo(searcher, encontrado));
+				}
+
+				// acima de mil resultados a contagem da busca é aproximada
+				long total = encontrados.totalHits.relation == TotalHits.Relation.EQUAL_TO
+						? encontrados.totalHits.value
+						: searcher.count(consulta);
+
+				return new PageImpl<>(codigos, pageable, total);
+			} finally {
+				gerenciador.release(searcher);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Erro ao consultar o índice de busca, chame o suporte", e);
+		}
+	}
+
+	private long codigo(IndexSearcher searcher, ScoreDoc encontrado) throws IOException {
+		return searcher.doc(encontrado.doc).getField(CODIGO).numericValue().longValue();
+	}
+
+	/*
+	 * Coloca os cadastros lidos do banco na ordem dos códigos da busca, os que
+	 * não existem mais ficam de fora
+	 */
+	public static <T> List<T> naOrdem(List<Long> codigos, Iterable<T> cadastros, Function<T, Long> codigo) {
+		Map<Long, T> porCodigo = StreamSupport.stream(cadastros.spliterator(), false)
+				.collect(Collectors.toMap(codigo, cadastro -> cadastro));
+
+		return codigos.stream().map(porCodigo::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
+	/*
+	 * Inicia a reconstrução, retorna false se já havia uma em andamento
+	 */
+	public boolean reconstroiEmSegundoPlano() {
+		if (!reconstruindo.compareAndSet(false, true))
+			return false;
+
+		reconstrucao.execute(() -> {
+			try {
+				reconstroi();
+			} catch (Exception e) {
+				logger.error("Erro ao reconstruir o índice de busca", e);
+			} finally {
+				reconstruindo.set(false);
+			}
+		});
+
+		return true;
+	}
+
+	/*
+	 * Regrava todos os cadastros e retorna a quantidade indexada
+	 */
+	public synchronized int reconstroi() throws IOException {
+		long inicio = System.currentTimeMillis();
+		String atual = UUID.randomUUID().toString();
+		geracao = atual;
+
+		AtomicInteger indexados = new AtomicInteger();
+		repository.produtos(leitor(Tipo.PRODUTO, atual, indexados));
+		repository.pessoas(leitor(Tipo.PESSOA, atual, indexados));
+		repository.fornecedores(leitor(Tipo.FORNECEDOR, atual, indexados));
+
+		BooleanQuery.Builder anteriores = new BooleanQuery.Builder();
+		anteriores.add(new MatchAllDocsQuery(), Occur.MUST);
+		anteriores.add(new TermQuery(new Term(GERACAO, atual)), Occur.MUST_NOT);
+		writer.deleteDocuments(anteriores.build());
+
+		writer.commit();
+		gerenciador.maybeRefreshBlocking();
+
+		logger.info("Índice de busca reconstruído: {} cadastros em {} ms", indexados.get(),
+				System.currentTimeMillis() - inicio);
+
+		return indexados.get();
+	}
+
+	private IndiceBuscaRepository.LeitorCadastro leitor(Tipo tipo, String geracao, AtomicInteger indexados) {
+		return (codigo, nome, complemento, documento) -> {
+			try {
+				writer.updateDocument(id(tipo, codigo), documento(tipo, codigo, nome, complemento, documento, geracao));
+				indexados.incrementAndGet();
+			} catch (IOException e) {
+				throw new RuntimeException("Erro ao reconstruir o índice de busca, chame o suporte", e);
+			}
+		};
+	}
+
+	private void aposCommit(Tipo tipo, Long codigo, String nome, String complemento, String documento) {
+		if (codigo == null)
+			return;
+
+		Runnable atualizacao = () -> grava(tipo, codigo, nome, complemento, documento);
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			atualizacao.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				atualizacao.run();
+			}
+		});
+	}
+
+	private void grava(Tipo tipo, Long codigo, String nome, String complemento, String documento) {
+		try {
+			writer.updateDocument(id(tipo, codigo), documento(tipo, codigo, nome, complemento, documento, geracao));
+			writer.commit();
+			gerenciador.maybeRefreshBlocking();
+		} catch (IOException e) {
+			// o cadastro já foi gravado, a busca volta a encontrá-lo na próxima reconstrução
+			logger.error("Erro ao atualizar o índice de busca, cadastro {} {}", tipo, codigo, e);
+		}
+	}
+
+	private Term id(Tipo tipo, long codigo) {
+		return new Term(ID, tipo.name() + ":" + codigo);
+	}
+
+	private Document documento(Tipo tipo, long codigo, String nome, String complemento, String documento,
+			String geracao) {
+		Document doc = new Document();
+		doc.add(new StringField(ID, tipo.name() + ":" + codigo, Store.NO));
+		doc.add(new StringField(TIPO, tipo.name(), Store.NO));
+		doc.add(new StringField(GERACAO, geracao, Store.NO));
+		doc.add(new StoredField(CODIGO, codigo));
+
+		if (nome != null)
+			doc.add(new TextField(NOME, nome, Store.NO));
+
+		if (complemento != null)
+			doc.add(new TextField(COMPLEMENTO, complemento, Store.NO));
+
+		String digitos = documento == null ? "" : documento.replaceAll("\\D", "");
+		if (!digitos.isEmpty())
+			doc.add(new StringField(DOCUMENTO, digitos, Store.NO));
+
+		return doc;
+	}
+
+	/*
+	 * Todas as palavras do texto precisam aparecer no nome ou no complemento,
+	 * inteiras, como começo de palavra ou com erro de digitação, nessa ordem de
+	 * relevância. Com dígitos suficientes o texto também é buscado como começo do
+	 * documento. Retorna null se não houver o que buscar.
+	 */
+	private Query consulta(Tipo tipo, String texto) {
+		if (texto == null)
+			return null;
+
+		List<String> termos = termos(texto);
+		String digitos = texto.replaceAll("\\D", "");
+
+		BooleanQuery.Builder alternativas = new BooleanQuery.Builder();
+		boolean vazia = true;
+
+		if (!termos.isEmpty()) {
+			BooleanQuery.Builder palavras = new BooleanQuery.Builder();
+			for (String termo : termos)
+				palavras.add(palavra(termo), Occur.MUST);
+
+			alternativas.add(palavras.build(), Occur.SHOULD);
+			vazia = false;
+		}
+
+		if (digitos.length() >= MINIMO_DIGITOS) {
+			alternativas.add(new BoostQuery(new PrefixQuery(new Term(DOCUMENTO, digitos)), 4f), Occur.SHOULD);
+			vazia = false;
+		}
+
+		if (vazia)
+			return null;
+
+		BooleanQuery.Builder consulta = new BooleanQuery.Builder();
+		consulta.add(new TermQuery(new Term(TIPO, tipo.name())), Occur.FILTER);
+		consulta.add(alternativas.build(), Occur.MUST);
+		return consulta.build();
+	}
+
+	private Query palavra(String termo) {
+		BooleanQuery.Builder palavra = new BooleanQuery.Builder();
+
+		for (String campo : new String[] { NOME, COMPLEMENTO }) {
+			float peso = NOME.equals(campo) ? 2f : 1f;
+			Term term = new Term(campo, termo);
+
+			palavra.add(new BoostQuery(new TermQuery(term), 4f * peso), Occur.SHOULD);
+			palavra.add(new BoostQuery(new PrefixQuery(term), 2f * peso), Occur.SHOULD);
+
+			// palavras curtas demais trariam resultados sem relação com o texto
+			if (termo.length() >= 4)
+				palavra.add(new BoostQuery(new FuzzyQuery(term, termo.length() >= 7 ? 2 : 1, 1), peso),
+						Occur.SHOULD);
+		}
+
+		return palavra.build();
+	}
+
+	private List<String> termos(String texto) {
+		List<String> termos = new ArrayList<>();
+
+		try (TokenStream fluxo = analisador.tokenStream(NOME, texto)) {
+			CharTermAttribute termo = fluxo.addAttribute(CharTermAttribute.class);
+			fluxo.reset();
+
+			while (fluxo.incrementToken())
+				termos.add(termo.toString());
+
+			fluxo.end();
+		} catch (IOException e) {
+			throw new RuntimeException("Erro ao consultar o índice de busca, chame o suporte", e);
+		}
+
+		return termos;
+	}
+
+	/*
+	 * Separa as palavras, passa para minúsculas e remove os acentos, o mesmo
+	 * tratamento no cadastro e na busca
+	 */
+	private static final class Analisador extends Analyzer {
+
+		@Override
+		protected TokenStreamComponents createComponents(String campo) {
+			Tokenizer tokenizer = new StandardTokenizer();
+			return new TokenStreamComponents(tokenizer, new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer)));
+		}
+
+		@Override
+		protected TokenStream normalize(String campo, TokenStream entrada) {
+			return new ASCIIFoldingFilter(new LowerCaseFilter(entrada));
+		}
+
+	}
+
+}
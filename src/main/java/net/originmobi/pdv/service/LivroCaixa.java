@@ -0,0 +1,354 @@
+package net.originmobi.pdv.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.originmobi.pdv.dto.ResumoCaixaDTO;
+import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
+import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
+import net.originmobi.pdv.repository.CaixaSaldoRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+/*
+ * Saldo de cada caixa, cofre e banco mantido em memória. Os lançamentos
+ * continuam gravados em caixa_lancamento, mas o saldo deixa de ser atualizado
+ * por trigger na linha do caixa, o que fazia todos os terminais que lançam no
+ * mesmo cofre ou banco esperarem uns pelos outros.
+ *
+ * O total é movimentado com compareAndSet, assim a conferência do saldo de uma
+ * saída e o débito acontecem juntos. Entradas e saídas, usadas só na gravação,
+ * ficam em LongAdder. O saldo é gravado em caixa periodicamente, em lote, e no
+ * fechamento do caixa. Um caixa que não está em memória é carregado somando os
+ * seus lançamentos, que são a referência caso a aplicação pare sem gravar.
+ *
+ * Junto com o saldo fica a quantidade e a soma dos lançamentos por tipo e
+ * estilo, o resumo do extrato, gravado em caixa_resumo na mesma gravação.
+ */
+@Service
+public class LivroCaixa {
+
+	@Autowired
+	private CaixaSaldoRepository repository;
+
+	private final Map<Long, Saldo> saldos = new ConcurrentHashMap<>();
+
+	/*
+	 * Movimenta o caixa, o valor de uma saída vem negativo. Retorna null quando
+	 * a saída é maior que o saldo. Se houver uma transação ativa o movimento é
+	 * desfeito caso ela não seja confirmada.
+	 */
+	public Movimento movimenta(Long caixa, TipoLancamento tipo, EstiloLancamento estilo, Dinheiro valor) {
+		Saldo saldo = carrega(caixa);
+		boolean saida = EstiloLancamento.SAIDA.equals(estilo);
+		long centavos = saida && valor.isPositivo() ? -valor.getCentavos() : valor.getCentavos();
+
+		if (saida) {
+			if (!saldo.debita(centavos))
+				return null;
+		} else {
+			saldo.credita(centavos);
+		}
+
+		int indice = Saldo.indice(tipo, estilo);
+		saldo.resume(indice, 1, centavos);
+
+		Movimento movimento = new Movimento(saldo, estilo, indice, centavos);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != TransactionSynchronization.STATUS_COMMITTED)
+						movimento.desfaz();
+				}
+			});
+		}
+
+		return movimento;
+	}
+
+	public Dinheiro saldo(Long caixa) {
+		return Dinheiro.deCentavos(carrega(caixa).total.get());
+	}
+
+	/*
+	 * Quantidade e soma dos lançamentos do caixa por tipo e estilo, só os que
+	 * tiveram lançamento
+	 */
+	public List<ResumoCaixaDTO> resumo(Long caixa) {
+		return carrega(caixa).resumo();
+	}
+
+	/*
+	 * Resumo de um caixa já fechado, lido de caixa_resumo sem trazer o caixa
+	 * para a memória. Caixas fechados antes da tabela existir são somados dos
+	 * lançamentos.
+	 */
+	public List<ResumoCaixaDTO> resumoGravado(Long caixa) {
+		List<Object[]> linhas = repository.resumoGravado(caixa);
+		if (linhas.isEmpty())
+			linhas = repository.resumoLancamentos(caixa);
+
+		List<ResumoCaixaDTO> resumo = new ArrayList<>(linhas.size());
+		for (Object[] linha : linhas)
+			resumo.add(new ResumoCaixaDTO(TipoLancamento.valueOf((String) linha[0]),
+					EstiloLancamento.valueOf((String) linha[1]), ((Number) linha[2]).longValue(),
+					Dinheiro.de(((Number) linha[3]).doubleValue())));
+
+		return resumo;
+	}
+
+	/*
+	 * Grava o saldo do caixa que está sendo fechado e retorna os valores
+	 * gravados. O caixa sai da memória na próxima gravação periódica.
+	 */
+	public Posicao fecha(Long caixa) {
+		Saldo saldo = carrega(caixa);
+		saldo.fechado = true;
+		saldo.marcaGravado();
+
+		Posicao posicao = saldo.posicao();
+		List<Object[]> linha = new ArrayList<>(1);
+		linha.add(posicao.linha(caixa));
+		repository.atualizaSaldos(linha);
+		repository.atualizaResumos(saldo.linhasResumo(caixa));
+
+		return posicao;
+	}
+
+	@Scheduled(fixedDelayString = "${pdv.caixa.gravacao-saldos-ms:5000}")
+	public void gravaSaldos() {
+		List<Object[]> linhas = new ArrayList<>();
+		List<Object[]> resumos = new ArrayList<>();
+
+		saldos.forEach((caixa, saldo) -> {
+			if (saldo.marcaGravado()) {
+				linhas.add(saldo.posicao().linha(caixa));
+				resumos.addAll(saldo.linhasResumo(caixa));
+			}
+		});
+
+		if (!linhas.isEmpty()) {
+			repository.atualizaSaldos(linhas);
+			repository.atualizaResumos(resumos);
+		}
+
+		saldos.entrySet().removeIf(e -> e.getValue().fechado && !e.getValue().alterado.get());
+	}
+
+	@PreDestroy
+	public void encerra() {
+		gravaSaldos();
+	}
+
+	private Saldo carrega(Long caixa) {
+		if (caixa == null)
+			throw new RuntimeException("Nenhum caixa aberto");
+
+		return saldos.computeIfAbsent(caixa, codigo -> {
+			Saldo saldo = new Saldo();
+			for (Object[] linha : repository.resumoLancamentos(codigo))
+				saldo.carrega(TipoLancamento.valueOf((String) linha[0]), EstiloLancamento.valueOf((String) linha[1]),
+						((Number) linha[2]).longValue(), Dinheiro.de(((Number) linha[3]).doubleValue()).getCentavos());
+
+			return saldo;
+		});
+	}
+
+	/*
+	 * Movimento já aplicado ao saldo, desfeito no máximo uma vez
+	 */
+	public static final class Movimento {
+
+		private final Saldo saldo;
+		private final EstiloLancamento estilo;
+		private final int indice;
+		private final long centavos;
+		private final AtomicBoolean desfeito = new AtomicBoolean();
+
+		private Movimento(Saldo saldo, EstiloLancamento estilo, int indice, long centavos) {
+			this.saldo = saldo;
+			this.estilo = estilo;
+			this.indice = indice;
+			this.centavos = centavos;
+		}
+
+		public void desfaz() {
+			if (!desfeito.compareAndSet(false, true))
+				return;
+
+			if (EstiloLancamento.SAIDA.equals(estilo))
+				saldo.estornaDebito(centavos);
+			else
+				saldo.credita(-centavos);
+
+			saldo.resume(indice, -1, -centavos);
+		}
+
+	}
+
+	/*
+	 * Valores do caixa em um momento, as saídas em valor positivo
+	 */
+	public static final class Posicao {
+
+		private final Dinheiro total;
+		private final Dinheiro entradas;
+		private final Dinheiro saidas;
+
+		Posicao(Dinheiro total, Dinheiro entradas, Dinheiro saidas) {
+			this.total = total;
+			this.entradas = entradas;
+			this.saidas = saidas;
+		}
+
+		public Dinheiro getTotal() {
+			return total;
+		}
+
+		public Dinheiro getEntradas() {
+			return entradas;
+		}
+
+		public Dinheiro getSaidas() {
+			return saidas;
+		}
+
+		Object[] linha(Long caixa) {
+			return new Object[] { total.valor(), entradas.valor(), saidas.valor(), caixa };
+		}
+
+	}
+
+	private static final class Saldo {
+
+		private static final TipoLancamento[] TIPOS = TipoLancamento.values();
+		private static final EstiloLancamento[] ESTILOS = EstiloLancamento.values();
+
+		private final AtomicLong total = new AtomicLong();
+		private final LongAdder entradas = new LongAdder();
+		private final LongAdder saidas = new LongAdder();
+		private final AtomicBoolean alterado = new AtomicBoolean();
+		private volatile boolean fechado;
+
+		// resumo por tipo e estilo, na posição de indice(tipo, estilo)
+		private final LongAdder[] quantidades = adders();
+		private final LongAdder[] valores = adders();
+		// posições que precisam ir para caixa_resumo, inclusive as que voltaram a
+		// zero com um movimento desfeito. Escritas antes de marcar o saldo como
+		// alterado e lidas depois de desmarcá-lo na gravação
+		private final boolean[] movimentados = new boolean[quantidades.length];
+
+		static int indice(TipoLancamento tipo, EstiloLancamento estilo) {
+			return tipo.ordinal() * ESTILOS.length + estilo.ordinal();
+		}
+
+		private static LongAdder[] adders() {
+			LongAdder[] adders = new LongAdder[TIPOS.length * ESTILOS.length];
+			for (int i = 0; i < adders.length; i++)
+				adders[i] = new LongAdder();
+
+			return adders;
+		}
+
+		/* soma dos lançamentos já gravados de um tipo e estilo, as saídas negativas */
+		void carrega(TipoLancamento tipo, EstiloLancamento estilo, long quantidade, long centavos) {
+			total.addAndGet(centavos);
+			if (EstiloLancamento.SAIDA.equals(estilo))
+				saidas.add(-centavos);
+			else
+				entradas.add(centavos);
+
+			int indice = indice(tipo, estilo);
+			quantidades[indice].add(quantidade);
+			valores[indice].add(centavos);
+			// regravado no fechamento, caso a aplicação tenha parado sem gravar
+			movimentados[indice] = true;
+		}
+
+		void resume(int indice, long quantidade, long centavos) {
+			quantidades[indice].add(quantidade);
+			valores[indice].add(centavos);
+			movimentados[indice] = true;
+			alterado.set(true);
+		}
+
+		List<ResumoCaixaDTO> resumo() {
+			List<ResumoCaixaDTO> resumo = new ArrayList<>();
+			for (int i = 0; i < quantidades.length; i++) {
+				long quantidade = quantidades[i].sum();
+				if (quantidade > 0)
+					resumo.add(new ResumoCaixaDTO(TIPOS[i / ESTILOS.length], ESTILOS[i % ESTILOS.length], quantidade,
+							Dinheiro.deCentavos(valores[i].sum())));
+			}
+
+			return resumo;
+		}
+
+		List<Object[]> linhasResumo(Long caixa) {
+			List<Object[]> linhas = new ArrayList<>();
+			for (int i = 0; i < quantidades.length; i++) {
+				if (movimentados[i])
+					linhas.add(new Object[] { caixa, TIPOS[i / ESTILOS.length].name(), ESTILOS[i % ESTILOS.length].name(),
+							quantidades[i].sum(), Dinheiro.deCentavos(valores[i].sum()).valor() });
+			}
+
+			return linhas;
+		}
+
+		void credita(long centavos) {
+			total.addAndGet(centavos);
+			entradas.add(centavos);
+			alterado.set(true);
+		}
+
+		/* centavos negativos, falha se o saldo ficar negativo */
+		boolean debita(long centavos) {
+			long atual;
+			do {
+				atual = total.get();
+				if (atual + centavos < 0)
+					return false;
+			} while (!total.compareAndSet(atual, atual + centavos));
+
+			saidas.add(-centavos);
+			alterado.set(true);
+			return true;
+		}
+
+		void estornaDebito(long centavos) {
+			total.addAndGet(-centavos);
+			saidas.add(centavos);
+			alterado.set(true);
+		}
+
+		/*
+		 * Retorna se havia alteração pendente de gravação, as alterações feitas
+		 * durante a gravação marcam o saldo de novo e vão na próxima
+		 */
+		boolean marcaGravado() {
+			return alterado.getAndSet(false);
+		}
+
+		Posicao posicao() {
+			return new Posicao(Dinheiro.deCentavos(total.get()), Dinheiro.deCentavos(entradas.sum()),
+					Dinheiro.deCentavos(saidas.sum()));
+		}
+
+	}
+
+}
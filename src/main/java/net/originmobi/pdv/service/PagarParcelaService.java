@@ -2,10 +2,13 @@ package net.originmobi.pdv.service;
 
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -13,6 +16,7 @@ import net.originmobi.pdv.filter.PagarParcelaFilter;
 import net.originmobi.pdv.model.Pagar;
 import net.originmobi.pdv.model.PagarParcela;
 import net.originmobi.pdv.repository.PagarParcelaRespository;
+import net.originmobi.pdv.service.IndiceBuscaService.Tipo;
 
 @Service
 public class PagarParcelaService {
@@ -20,6 +24,12 @@ public class PagarParcelaService {
 	@Autowired
 	private PagarParcelaRespository parcelas;
 
+	@Autowired
+	private DashboardService dashboard;
+
+	@Autowired
+	private IndiceBuscaService indice;
+
 	public void cadastrar(Double vltotal, Double vlrestante, int quitado, Timestamp cadastro, LocalDate vencimento,
 			Pagar pagar) {
 		try {
@@ -28,17 +38,35 @@ public class PagarParcelaService {
 			e.getStackTrace();
 			throw new RuntimeException();
 		}
+
+		if (quitado == 0)
+			dashboard.aPagar(vlrestante);
+	}
+
+	/*
+	 * Variação do valor das despesas em aberto após o pagamento de uma parcela
+	 */
+	public void atualizaDespesasAbertas(Double variacao) {
+		dashboard.aPagar(variacao);
 	}
 
 	public PagarParcela merger(PagarParcela parcela) {
 		return parcelas.save(parcela);
 	}
 
+	/*
+	 * Com o nome, os fornecedores são buscados no índice e a lista traz as
+	 * parcelas deles
+	 */
 	public Page<PagarParcela> lista(PagarParcelaFilter filter, Pageable pageable) {
 		if (filter.getNome() == null || filter.getNome().equals(""))
 			return parcelas.listaOrdenada(pageable);
-		else
-			return parcelas.listaOrdenada(filter.getNome(), pageable);
+
+		List<Long> fornecedores = indice.busca(Tipo.FORNECEDOR, filter.getNome());
+		if (fornecedores.isEmpty())
+			return new PageImpl<>(Collections.emptyList(), pageable, 0);
+
+		return parcelas.listaPorFornecedores(fornecedores, pageable);
 	}
 
 	public Optional<PagarParcela> busca(Long codigo) {
@@ -1,7 +1,5 @@
 package net.originmobi.pdv.service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -21,8 +19,8 @@ import net.originmobi.pdv.model.PagarParcela;
 import net.originmobi.pdv.model.PagarTipo;
 import net.originmobi.pdv.model.Usuario;
 import net.originmobi.pdv.repository.PagarRepository;
-import net.originmobi.pdv.singleton.Aplicacao;
 import net.originmobi.pdv.utilitarios.DataAtual;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Service
 public class PagarService {
@@ -33,18 +31,21 @@ public class PagarService {
     private final PagarParcelaService pagarParcelaServ;
     private final FornecedorService fornecedores;
     private final CaixaService caixas;
-    private final UsuarioService usuarios;
+    private final UsuarioAtualService usuarioAtual;
     private final CaixaLancamentoService lancamentos;
+    private final LivroCaixa livro;
 
     public PagarService(PagarRepository pagarRepo, PagarParcelaService pagarParcelaServ,
                         FornecedorService fornecedores, CaixaService caixas, 
-                        UsuarioService usuarios, CaixaLancamentoService lancamentos) {
+                        UsuarioAtualService usuarioAtual, CaixaLancamentoService lancamentos,
+                        LivroCaixa livro) {
         this.pagarRepo = pagarRepo;
         this.pagarParcelaServ = pagarParcelaServ;
         this.fornecedores = fornecedores;
         this.caixas = caixas;
-        this.usuarios = usuarios;
+        this.usuarioAtual = usuarioAtual;
         this.lancamentos = lancamentos;
+        this.livro = livro;
     }
 
     public List<Pagar> listar() {
@@ -86,31 +87,28 @@ public class PagarService {
         PagarParcela parcela = pagarParcelaServ.busca(codparcela)
                 .orElseThrow(() -> new RuntimeException("Parcela não encontrada"));
 
-        Double valorRestanteNaParcela = round(parcela.getValor_restante());
-        
-        if (vlPago > valorRestanteNaParcela) {
+        Dinheiro valorRestanteNaParcela = Dinheiro.de(parcela.getValor_restante());
+        Dinheiro pago = Dinheiro.de(vlPago);
+        Dinheiro desconto = Dinheiro.de(vldesc);
+        Dinheiro acrescimo = Dinheiro.de(vlacre);
+
+        if (pago.maiorQue(valorRestanteNaParcela)) {
             throw new RuntimeException("Valor de pagamento inválido. O valor pago excede o restante.");
         }
 
-        Double vlPagoAtual = parcela.getValor_pago() != null ? parcela.getValor_pago() : 0.0;
-        Double vlDescontoAtual = parcela.getValor_desconto() != null ? parcela.getValor_desconto() : 0.0;
-        Double vlAcrescimoAtual = parcela.getValor_acrescimo() != null ? parcela.getValor_acrescimo() : 0.0;
-
-        Double vlquitado = (vlPago + vlacre) + vlPagoAtual;
-        Double novoVlRestante = valorRestanteNaParcela - (vlPago + vldesc);
-        Double vlDesconto = vlDescontoAtual + vldesc;
-        Double vlAcrescimo = vlAcrescimoAtual + vlacre;
+        Dinheiro vlquitado = pago.mais(acrescimo).mais(Dinheiro.de(parcela.getValor_pago()));
+        Dinheiro novoVlRestante = valorRestanteNaParcela.menos(pago.mais(desconto)).positivoOuZero();
+        Dinheiro vlDesconto = Dinheiro.de(parcela.getValor_desconto()).mais(desconto);
+        Dinheiro vlAcrescimo = Dinheiro.de(parcela.getValor_acrescimo()).mais(acrescimo);
 
-        novoVlRestante = novoVlRestante < 0 ? 0.0 : round(novoVlRestante);
-
-        int quitado = novoVlRestante <= 0 ? 1 : 0;
+        int quitado = novoVlRestante.isZero() ? 1 : 0;
 
         DataAtual dataAtual = new DataAtual();
 
-        parcela.setValor_pago(vlquitado);
-        parcela.setValor_restante(novoVlRestante);
-        parcela.setValor_desconto(vlDesconto);
-        parcela.setValor_acrescimo(vlAcrescimo);
+        parcela.setValor_pago(vlquitado.valor());
+        parcela.setValor_restante(novoVlRestante.valor());
+        parcela.setValor_desconto(vlDesconto.valor());
+        parcela.setValor_acrescimo(vlAcrescimo.valor());
         parcela.setQuitado(quitado);
         parcela.setData_pagamento(dataAtual.dataAtualTimeStamp());
 
@@ -121,35 +119,36 @@ public class PagarService {
             throw new RuntimeException("Ocorreu um erro ao realizar o pagamento, chame o suporte", e);
         }
 
-        Aplicacao aplicacao = Aplicacao.getInstancia();
-        Usuario usuario = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+        pagarParcelaServ.atualizaDespesasAbertas(novoVlRestante.menos(valorRestanteNaParcela).valor());
+
+        Usuario usuario = usuarioAtual.usuario();
         
         Caixa caixa = caixas.busca(codCaixa)
                 .orElseThrow(() -> new RuntimeException("Caixa não encontrado"));
 
-        if ((vlPago + vlacre) > caixa.getValor_total()) {
+        Dinheiro saida = pago.mais(acrescimo);
+
+        // o saldo atual está no livro caixa, o valor_total gravado no caixa fica atrasado
+        if (saida.maiorQue(livro.saldo(caixa.getCodigo()))) {
             throw new RuntimeException("Saldo insuficiente para realizar este pagamento");
         }
 
         try {
             CaixaLancamento lancamento = new CaixaLancamento("Referente a pagamento de despesas", 
-                    vlPago + vlacre, TipoLancamento.PAGAMENTO, EstiloLancamento.SAIDA, caixa, usuario);
+                    saida.valor(), TipoLancamento.PAGAMENTO, EstiloLancamento.SAIDA, caixa, usuario);
 
             lancamento.setParcelaPagar(parcela);
             lancamentos.lancamento(lancamento);
             
         } catch (Exception e) {
+            // outra saída pode ter consumido o saldo depois da conferência acima
+            if (saida.maiorQue(livro.saldo(caixa.getCodigo())))
+                throw new RuntimeException("Saldo insuficiente para realizar este pagamento", e);
+
             logger.error("Erro ao realizar lançamento no caixa", e);
             throw new RuntimeException("Ocorreu um erro ao realizar o pagamento no caixa, chame o suporte", e);
         }
 
         return "Pagamento realizado com sucesso";
     }
-
-    private Double round(Double value) {
-        if (value == null) return 0.0;
-        return BigDecimal.valueOf(value)
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
-    }
 }
\ No newline at end of file
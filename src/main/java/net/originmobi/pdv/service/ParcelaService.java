@@ -2,18 +2,23 @@ package net.originmobi.pdv.service;
 
 import java.sql.Date;
 import java.sql.Timestamp;
-import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import net.originmobi.pdv.exceptions.ParcelaAlteradaException;
 import net.originmobi.pdv.filter.ClienteFilter;
 import net.originmobi.pdv.model.Parcela;
 import net.originmobi.pdv.model.Receber;
+import net.originmobi.pdv.repository.ParcelaBaixaRepository;
 import net.originmobi.pdv.repository.ParcelaRepository;
 import net.originmobi.pdv.utilitarios.DataAtual;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Service
 public class ParcelaService {
@@ -21,10 +26,25 @@ public class ParcelaService {
 	@Autowired
 	private ParcelaRepository parcelas;
 
+	@Autowired
+	private ParcelaBaixaRepository baixas;
+
+	@Autowired
+	private DashboardService dashboard;
+
+	@Autowired
+	private ExposicaoClienteService exposicao;
+
 	public void gerarParcela(Double total, Double desconto, Double acrescimo, Double recebido, Double restante,
 			Receber receber, int quitado, int sequencia, Timestamp cadastro, Date vencimento) {
 		parcelas.gerarparcela(total, desconto, acrescimo, recebido, restante, receber, quitado, sequencia, cadastro,
 				vencimento);
+
+		if (quitado == 0) {
+			dashboard.aReceber(restante);
+			exposicao.registra(Collections.singletonList(
+					ExposicaoClienteService.Movimento.geracao(receber, Dinheiro.de(restante), vencimento)));
+		}
 	}
 
 	public List<Parcela> lista() {
@@ -35,14 +55,26 @@ public class ParcelaService {
 			return parcelas.buscaReceberDaPessoaCodigo(filter.getCodigo(), filter.getPago());
 	}
 	
-	public String totalReceberCliente(ClienteFilter filter) {
-		return parcelas.somaTotaAReceberPessoaCodigo(filter.getCodigo(), filter.getPago());
+	/*
+	 * Valor restante das parcelas do filtro, as quitadas não têm restante e as
+	 * em aberto vêm da posição do cliente
+	 */
+	public Dinheiro totalReceberCliente(ClienteFilter filter) {
+		if (!Boolean.FALSE.equals(filter.getPago()))
+			return Dinheiro.ZERO;
+
+		return exposicao.exposicao(filter.getCodigo()).getAberto();
 	}
 
 	public Parcela busca(Long codigo) {
 		return parcelas.findByCodigoEquals(codigo);
 	}
 
+	/* parcelas com o receber e a pessoa, em uma única consulta */
+	public List<Parcela> busca(List<Long> codigos) {
+		return parcelas.buscaComPessoa(codigos);
+	}
+
 	public String receber(Long parcela, Double totalPago, Double acrescimo, Double desconto) {
 		DataAtual dataAtual = new DataAtual();
 
@@ -51,25 +83,94 @@ public class ParcelaService {
 		if (parcelaAtual.map(Parcela::getQuitado).get().equals(1))
 			return "Parcela " + parcela + " já esta quitada";
 
-		DecimalFormat df = new DecimalFormat("#.00");
-
-		Double vlRecebido = (totalPago + acrescimo) + parcelaAtual.map(Parcela::getValor_recebido).get();
-		Double vlRestante = (parcelaAtual.map(Parcela::getValor_restante).get() - (totalPago + desconto));
-		Double vlDesconto = (parcelaAtual.map(Parcela::getValor_desconto)).get() + desconto;
-		Double vlAcrescimo = (parcelaAtual.map(Parcela::getValor_acrescimo)).get() + acrescimo;
-
-		vlRestante = vlRestante < 0 ? 0.00 : vlRestante;
-		int quitado = Double.valueOf(df.format(vlRestante).replace(",", ".")) <= 0 ? 1 : 0;
+		Parcela atual = parcelaAtual.get();
+		Baixa baixa = new Baixa(atual, Dinheiro.de(totalPago), Dinheiro.de(acrescimo), Dinheiro.de(desconto));
 
 		try {
-			parcelas.receber(vlDesconto, vlAcrescimo, vlRecebido, vlRestante, quitado, dataAtual.dataAtualTimeStamp(),
-					parcela);
+			parcelas.receber(baixa.desconto.valor(), baixa.acrescimo.valor(), baixa.recebido.valor(),
+					baixa.restante.valor(), baixa.quitado, dataAtual.dataAtualTimeStamp(), parcela);
 		} catch (Exception e) {
 			e.getMessage();
 			throw new RuntimeException();
 		}
 
+		dashboard.aReceber(baixa.variacao().valor());
+		exposicao.registra(Collections.singletonList(
+				ExposicaoClienteService.Movimento.baixa(atual, baixa.variacao(), baixa.quitado == 1)));
+
 		return "ok";
 	}
 
+	/*
+	 * Baixa de várias parcelas de um recebimento, cada uma com o valor pago
+	 * nela. As parcelas já vêm carregadas e todas as alterações vão para o
+	 * banco em um único lote. Se alguma parcela mudou depois de lida, como em
+	 * outro recebimento ao mesmo tempo, a baixa falha e a transação do
+	 * recebimento é desfeita.
+	 */
+	public void receber(Map<Parcela, Dinheiro> pagamentos) {
+		if (pagamentos.isEmpty())
+			return;
+
+		Timestamp dataPagamento = new DataAtual().dataAtualTimeStamp();
+		List<Object[]> linhas = new ArrayList<>(pagamentos.size());
+		List<Parcela> ordem = new ArrayList<>(pagamentos.size());
+		List<ExposicaoClienteService.Movimento> movimentos = new ArrayList<>(pagamentos.size());
+		Dinheiro variacao = Dinheiro.ZERO;
+
+		for (Map.Entry<Parcela, Dinheiro> pagamento : pagamentos.entrySet()) {
+			Parcela parcela = pagamento.getKey();
+
+			if (parcela.getQuitado() == 1)
+				throw new RuntimeException("Parcela " + parcela.getCodigo() + " já esta quitada");
+
+			Baixa baixa = new Baixa(parcela, pagamento.getValue(), Dinheiro.ZERO, Dinheiro.ZERO);
+			linhas.add(new Object[] { baixa.desconto.valor(), baixa.acrescimo.valor(), baixa.recebido.valor(),
+					baixa.restante.valor(), baixa.quitado, dataPagamento, parcela.getCodigo(),
+					parcela.getValor_restante() });
+			ordem.add(parcela);
+
+			variacao = variacao.mais(baixa.variacao());
+			movimentos.add(ExposicaoClienteService.Movimento.baixa(parcela, baixa.variacao(), baixa.quitado == 1));
+		}
+
+		int[] alteradas = baixas.baixa(linhas);
+
+		for (int i = 0; i < alteradas.length; i++) {
+			if (alteradas[i] == 0)
+				throw new ParcelaAlteradaException(ordem.get(i).getCodigo());
+		}
+
+		dashboard.aReceber(variacao.valor());
+		exposicao.registra(movimentos);
+	}
+
+	/*
+	 * Valores da parcela depois de receber o pago, com o acréscimo e o desconto
+	 */
+	private static final class Baixa {
+
+		private final Dinheiro restanteAnterior;
+		private final Dinheiro desconto;
+		private final Dinheiro acrescimo;
+		private final Dinheiro recebido;
+		private final Dinheiro restante;
+		private final int quitado;
+
+		Baixa(Parcela atual, Dinheiro pago, Dinheiro acrescimoRecebido, Dinheiro descontoRecebido) {
+			restanteAnterior = Dinheiro.de(atual.getValor_restante());
+			recebido = pago.mais(acrescimoRecebido).mais(Dinheiro.de(atual.getValor_recebido()));
+			restante = restanteAnterior.menos(pago.mais(descontoRecebido)).positivoOuZero();
+			desconto = Dinheiro.de(atual.getValor_desconto()).mais(descontoRecebido);
+			acrescimo = Dinheiro.de(atual.getValor_acrescimo()).mais(acrescimoRecebido);
+			quitado = restante.isZero() ? 1 : 0;
+		}
+
+		/* quanto o total a receber muda com a baixa */
+		Dinheiro variacao() {
+			return restante.menos(restanteAnterior);
+		}
+
+	}
+
 }
@@ -21,6 +21,7 @@ import net.originmobi.pdv.model.Endereco;
 import net.originmobi.pdv.model.Pessoa;
 import net.originmobi.pdv.model.Telefone;
 import net.originmobi.pdv.repository.PessoaRepository;
+import net.originmobi.pdv.service.IndiceBuscaService.Tipo;
 
 @Service
 public class PessoaService {
@@ -37,6 +38,9 @@ public class PessoaService {
 	@Autowired
 	private TelefoneService telefones;
 
+	@Autowired
+	private IndiceBuscaService indice;
+
 	private LocalDate dataAtual = LocalDate.now();
 
 	public List<Pessoa> lista() {
@@ -51,9 +55,16 @@ public class PessoaService {
 		return pessoas.findById(codigo);
 	}
 
+	/*
+	 * Sem nome lista todas, com nome busca no índice pelo nome, apelido ou
+	 * CPF/CNPJ, as mais próximas primeiro
+	 */
 	public List<Pessoa> filter(PessoaFilter filter) {
-		String nome = filter.getNome() == null ? "%" : filter.getNome();
-		return pessoas.findByNomeContaining(nome);
+		if (filter.getNome() == null || filter.getNome().trim().isEmpty())
+			return pessoas.findByNomeContaining("%");
+
+		List<Long> codigos = indice.busca(Tipo.PESSOA, filter.getNome());
+		return IndiceBuscaService.naOrdem(codigos, pessoas.findAllById(codigos), Pessoa::getCodigo);
 	}
 
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
@@ -122,6 +133,8 @@ public class PessoaService {
 			throw new RuntimeException("Erro ao tentar cadastrar pessoa, chame o suporte");
 		}
 
+		indice.pessoa(pessoa.getCodigo(), nome, apelido, cpfcnpj);
+
 		return "Pessoa salva com sucesso";
 	}
 
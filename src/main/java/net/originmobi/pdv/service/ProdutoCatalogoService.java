@@ -0,0 +1,190 @@
+package net.originmobi.pdv.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import net.originmobi.pdv.dto.ProdutoCatalogoDTO;
+import net.originmobi.pdv.repository.ProdutoRepository;
+
+/*
+ * Mantém em memória uma cópia imutável dos produtos vendáveis para a tela de
+ * venda. A cópia é montada na primeira consulta e descartada sempre que um
+ * produto é cadastrado ou alterado pelo ProdutoService.
+ *
+ * Cada invalidação avança a geração, e uma cópia só vale para a geração em que
+ * a sua leitura começou. Uma cópia que estava sendo montada durante uma
+ * invalidação é descartada e montada de novo.
+ */
+@Service
+public class ProdutoCatalogoService {
+
+	public static final int LIMITE_PESQUISA = 50;
+
+	@Autowired
+	private ProdutoRepository produtos;
+
+	private final AtomicLong geracao = new AtomicLong();
+
+	private volatile Catalogo catalogo;
+
+	public ProdutoCatalogoDTO busca(long codigo) {
+		return catalogo().busca(codigo);
+	}
+
+	public List<ProdutoCatalogoDTO> pesquisa(String termo) {
+		return catalogo().pesquisa(termo, LIMITE_PESQUISA);
+	}
+
+	public void invalida() {
+		geracao.incrementAndGet();
+		catalogo = null;
+	}
+
+	private Catalogo catalogo() {
+		Catalogo atual = catalogo;
+		if (atual != null && atual.geracao == geracao.get())
+			return atual;
+
+		synchronized (this) {
+			while (true) {
+				atual = catalogo;
+				long lida = geracao.get();
+				if (atual != null && atual.geracao == lida)
+					return atual;
+
+				atual = new Catalogo(produtos.catalogoVendaveis(), lida);
+
+				// invalidada depois daqui, a cópia fica com a geração antiga e deixa de ser usada
+				if (geracao.get() == lida) {
+					catalogo = atual;
+					return atual;
+				}
+			}
+		}
+	}
+
+	static String normaliza(String texto) {
+		if (texto == null)
+			return "";
+
+		return Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase().trim();
+	}
+
+	/*
+	 * Os produtos ficam ordenados pelo código para a busca binária, e cada palavra
+	 * da descrição aponta para as posições dos produtos que a contém
+	 */
+	static final class Catalogo {
+
+		private final long geracao;
+		private final long[] codigos;
+		private final ProdutoCatalogoDTO[] itens;
+		private final String[] descricoes;
+		private final NavigableMap<String, int[]> palavras;
+
+		Catalogo(List<ProdutoCatalogoDTO> lista, long geracao) {
+			this.geracao = geracao;
+
+			ProdutoCatalogoDTO[] ordenados = lista.toArray(new ProdutoCatalogoDTO[0]);
+			Arrays.sort(ordenados, (a, b) -> Long.compare(a.getCodigo(), b.getCodigo()));
+
+			this.itens = ordenados;
+			this.codigos = new long[ordenados.length];
+			this.descricoes = new String[ordenados.length];
+
+			Map<String, List<Integer>> indice = new TreeMap<>();
+			for (int i = 0; i < ordenados.length; i++) {
+				codigos[i] = ordenados[i].getCodigo();
+				descricoes[i] = normaliza(ordenados[i].getDescricao());
+
+				for (String palavra : descricoes[i].split("\\s+")) {
+					if (!palavra.isEmpty())
+						indice.computeIfAbsent(palavra, p -> new ArrayList<>()).add(i);
+				}
+			}
+
+			TreeMap<String, int[]> palavras = new TreeMap<>();
+			indice.forEach((palavra, posicoes) -> palavras.put(palavra,
+					posicoes.stream().mapToInt(Integer::intValue).distinct().toArray()));
+			this.palavras = Collections.unmodifiableNavigableMap(palavras);
+		}
+
+		ProdutoCatalogoDTO busca(long codigo) {
+			int posicao = Arrays.binarySearch(codigos, codigo);
+			return posicao >= 0 ? itens[posicao] : null;
+		}
+
+		/*
+		 * Primeiro o produto com o código informado, depois os produtos em que todos
+		 * os termos iniciam uma palavra da descrição e, por fim, os que contém o texto
+		 * em qualquer parte da descrição
+		 */
+		List<ProdutoCatalogoDTO> pesquisa(String termo, int limite) {
+			String texto = normaliza(termo);
+
+			if (texto.isEmpty())
+				return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(itens, Math.min(limite, itens.length))));
+
+			Set<Integer> encontrados = new LinkedHashSet<>();
+
+			if (texto.chars().allMatch(Character::isDigit) && texto.length() < 19) {
+				int posicao = Arrays.binarySearch(codigos, Long.parseLong(texto));
+				if (posicao >= 0)
+					encontrados.add(posicao);
+			}
+
+			encontrados.addAll(porPrefixo(texto.split("\\s+")));
+
+			for (int i = 0; i < descricoes.length && encontrados.size() < limite; i++) {
+				if (descricoes[i].contains(texto))
+					encontrados.add(i);
+			}
+
+			List<ProdutoCatalogoDTO> resultado = new ArrayList<>();
+			for (Integer posicao : encontrados) {
+				if (resultado.size() == limite)
+					break;
+				resultado.add(itens[posicao]);
+			}
+
+			return resultado;
+		}
+
+		private Set<Integer> porPrefixo(String[] termos) {
+			Set<Integer> candidatos = null;
+
+			for (String termo : termos) {
+				Set<Integer> posicoes = new TreeSet<>();
+				for (int[] lista : palavras.subMap(termo, true, termo + Character.MAX_VALUE, true).values()) {
+					for (int posicao : lista)
+						posicoes.add(posicao);
+				}
+
+				if (candidatos == null)
+					candidatos = posicoes;
+				else
+					candidatos.retainAll(posicoes);
+
+				if (candidatos.isEmpty())
+					break;
+			}
+
+			return candidatos == null ? Collections.emptySet() : candidatos;
+		}
+
+	}
+
+}
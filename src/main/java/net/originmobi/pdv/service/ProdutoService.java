@@ -2,20 +2,27 @@ package net.originmobi.pdv.service;
 
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import net.originmobi.pdv.dto.EstoqueVendaDTO;
 import net.originmobi.pdv.enumerado.EntradaSaida;
 import net.originmobi.pdv.enumerado.produto.ProdutoControleEstoque;
 import net.originmobi.pdv.enumerado.produto.ProdutoSubstTributaria;
 import net.originmobi.pdv.filter.ProdutoFilter;
 import net.originmobi.pdv.model.Produto;
+import net.originmobi.pdv.repository.EstoqueRepository;
 import net.originmobi.pdv.repository.ProdutoRepository;
+import net.originmobi.pdv.service.IndiceBuscaService.Tipo;
 
 @Service
 public class ProdutoService {
@@ -24,7 +31,13 @@ public class ProdutoService {
 	private ProdutoRepository produtos;
 
 	@Autowired
-	private VendaProdutoService vendaProdutos;
+	private EstoqueRepository estoques;
+
+	@Autowired
+	private ProdutoCatalogoService catalogo;
+
+	@Autowired
+	private IndiceBuscaService indice;
 
 	private LocalDate dataAtual = LocalDate.now();
 
@@ -44,9 +57,19 @@ public class ProdutoService {
 		return produtos.findById(codigo);
 	}
 
+	/*
+	 * Sem descrição lista todos, com descrição busca no índice pela descrição ou
+	 * pelo NCM, os mais próximos primeiro
+	 */
 	public Page<Produto> filter(ProdutoFilter filter, Pageable pageable) {
-		String descricao = filter.getDescricao() == null ? "%" : filter.getDescricao();
-		return produtos.findByDescricaoContaining(descricao, pageable);
+		if (filter.getDescricao() == null || filter.getDescricao().trim().isEmpty())
+			return produtos.findByDescricaoContaining("%", pageable);
+
+		Page<Long> codigos = indice.busca(Tipo.PRODUTO, filter.getDescricao(), pageable);
+		List<Produto> encontrados = IndiceBuscaService.naOrdem(codigos.getContent(),
+				produtos.findAllById(codigos.getContent()), Produto::getCodigo);
+
+		return new PageImpl<>(encontrados, pageable, codigos.getTotalElements());
 	}
 
 	public String merger(Long codprod, Long codforne, Long codcategoria, Long codgrupo, int balanca, String descricao,
@@ -55,9 +78,11 @@ public class ProdutoService {
 
 		if (codprod == 0) {
 			try {
-				produtos.insere(codforne, codcategoria, codgrupo, balanca, descricao, valorCusto, valorVenda,
-						dataValidade, controleEstoque, situacao, unitario, subtribu.ordinal(), Date.valueOf(dataAtual),
-						ncm, cest, tributacao, modbc, vendavel);
+				Long codigo = produtos.insere(codforne, codcategoria, codgrupo, balanca, descricao, valorCusto,
+						valorVenda, dataValidade, controleEstoque, situacao, unitario, subtribu.ordinal(),
+						Date.valueOf(dataAtual), ncm, cest, tributacao, modbc, vendavel);
+				catalogo.invalida();
+				indice.produto(codigo, descricao, ncm);
 			} catch (Exception e) {
 				System.out.println(e.getMessage());
 				return "Erro a cadastrar produto, chame o suporte";
@@ -68,6 +93,8 @@ public class ProdutoService {
 				produtos.atualiza(codprod, codforne, codcategoria, codgrupo, balanca, descricao, valorCusto, valorVenda,
 						dataValidade, controleEstoque, situacao, unitario, subtribu.ordinal(), ncm, cest, tributacao,
 						modbc, vendavel);
+				catalogo.invalida();
+				indice.produto(codprod, descricao, ncm);
 
 				return "Produto atualizado com sucesso";
 			} catch (Exception e) {
@@ -80,34 +107,39 @@ public class ProdutoService {
 		return "Produdo cadastrado com sucesso";
 	}
 
-	@SuppressWarnings("static-access")
+	/*
+	 * Realiza a baixa de estoque de todos os produtos da venda em lote, o saldo é
+	 * conferido em memória e novamente na baixa para evitar estoque negativo
+	 * quando duas vendas disputam o mesmo produto
+	 */
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
 	public void movimentaEstoque(Long codvenda, EntradaSaida tipo) {
-		List<Object[]> resultado = vendaProdutos.buscaQtdProduto(codvenda);
+		List<EstoqueVendaDTO> resultado = estoques.saldosDaVenda(codvenda);
+		List<EstoqueVendaDTO> baixas = new ArrayList<>();
 
-		for (int i = 0; i < resultado.size(); i++) {
-			Long codprod = Long.decode(resultado.get(i)[0].toString());
-			int qtd = Integer.parseInt(resultado.get(i)[1].toString());
+		for (EstoqueVendaDTO item : resultado) {
+			if (!item.isControlaEstoque())
+				continue;
 
-			Produto produto = produtos.findByCodigoIn(codprod);
+			if (!item.temSaldo())
+				throw new RuntimeException(
+						"O produto de código " + item.getCodprod() + " não tem estoque suficiente, verifique");
 
-			if (produto.getControla_estoque().equals(ProdutoControleEstoque.SIM)) {
+			baixas.add(item);
+		}
 
-				// estoque atual do produto
-				int qtd_estoque = produtos.saldoEstoque(codprod);
-				String origem_operacao = "Venda " + codvenda.toString();
+		if (baixas.isEmpty())
+			return;
 
-				if (qtd <= qtd_estoque) {
-					produtos.movimentaEstoque(codprod, tipo.SAIDA.toString(), qtd, origem_operacao,
-							Date.valueOf(dataAtual));
-				} else {
-					throw new RuntimeException(
-							"O produto de código " + codprod + " não tem estoque suficiente, verifique");
-				}
-			} else {
-				System.out.println("Produto não controla estoque");
-			}
+		int[] atualizados = estoques.baixaEstoque(baixas);
+		for (int i = 0; i < atualizados.length; i++) {
+			if (atualizados[i] == 0)
+				throw new RuntimeException(
+						"O produto de código " + baixas.get(i).getCodprod() + " não tem estoque suficiente, verifique");
 		}
 
+		String origem_operacao = "Venda " + codvenda.toString();
+		estoques.registraMovimentacoes(baixas, EntradaSaida.SAIDA.toString(), origem_operacao, Date.valueOf(dataAtual));
 	}
 	
 	public void ajusteEstoque(Long codprod, int qtd, EntradaSaida tipo, String origem_operacao, Date data_movimentacao) {
@@ -117,6 +149,7 @@ public class ProdutoService {
 			throw new RuntimeException("O produto de código " + codprod + " não controla estoque, verifique");
 		
 		produtos.movimentaEstoque(codprod, tipo.toString(), qtd, origem_operacao, data_movimentacao);
+		produtos.baixaEstoque(codprod, qtd);
 		
 	}
 
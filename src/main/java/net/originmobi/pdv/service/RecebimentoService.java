@@ -1,7 +1,10 @@
 package net.originmobi.pdv.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,12 +12,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.ibm.icu.text.DecimalFormat;
-
 import net.originmobi.pdv.controller.TituloService;
 import net.originmobi.pdv.enumerado.TituloTipo;
 import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
 import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
+import net.originmobi.pdv.exceptions.ParcelaAlteradaException;
 import net.originmobi.pdv.model.Caixa;
 import net.originmobi.pdv.model.CaixaLancamento;
 import net.originmobi.pdv.model.Parcela;
@@ -26,6 +28,7 @@ import net.originmobi.pdv.repository.RecebimentoRepository;
 import net.originmobi.pdv.service.cartao.CartaoLancamentoService;
 import net.originmobi.pdv.singleton.Aplicacao;
 import net.originmobi.pdv.utilitarios.DataAtual;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Service
 public class RecebimentoService {
@@ -61,21 +64,33 @@ public class RecebimentoService {
 		List<Parcela> lista = new ArrayList<>();
 
 		DataAtual dataAtual = new DataAtual();
-		Double vlTotal = 0.0;
+		Dinheiro vlTotal = Dinheiro.ZERO;
+
+		List<Long> codigos = new ArrayList<>(arrayParcelas.length);
+		for (String codigo : arrayParcelas)
+			codigos.add(Long.decode(codigo));
+
+		// todas as parcelas com o receber e a pessoa em uma consulta
+		Map<Long, Parcela> selecionadas = new HashMap<>();
+		for (Parcela parcela : parcelas.busca(codigos))
+			selecionadas.put(parcela.getCodigo(), parcela);
 
-		for (int i = 0; i < arrayParcelas.length; i++) {
-			Parcela parcela = parcelas.busca(Long.decode(arrayParcelas[i]));
+		for (Long codigo : codigos) {
+			Parcela parcela = selecionadas.get(codigo);
+
+			if (parcela == null)
+				throw new RuntimeException("Parcela " + codigo + " não encontrada");
 
 			if (parcela.getQuitado() == 1)
 				throw new RuntimeException("Parcela " + parcela.getCodigo() + " já esta quitada, verifique.");
 
-			if (parcela.getReceber().getPessoa().getCodigo() != codpes)
+			if (!codpes.equals(parcela.getReceber().getPessoa().getCodigo()))
 				throw new RuntimeException("A parcela " + parcela.getCodigo() + " não pertence ao cliente selecionado");
 
 			try {
 				lista.add(parcela);
 
-				vlTotal = vlTotal + parcela.getValor_restante();
+				vlTotal = vlTotal.mais(Dinheiro.de(parcela.getValor_restante()));
 
 			} catch (Exception e) {
 				e.getMessage();
@@ -88,7 +103,7 @@ public class RecebimentoService {
 		if (!pessoa.isPresent())
 			throw new RuntimeException("Cliente não encontrado");
 
-		Recebimento recebimento = new Recebimento(vlTotal, dataAtual.dataAtualTimeStamp(), pessoa.get(), lista);
+		Recebimento recebimento = new Recebimento(vlTotal.valor(), dataAtual.dataAtualTimeStamp(), pessoa.get(), lista);
 
 		try {
 			recebimentos.save(recebimento);
@@ -114,11 +129,10 @@ public class RecebimentoService {
 		// vincula o titulo ao recebimento
 		recebimento.get().setTitulo(titulo.get());
 
-		DecimalFormat formata = new DecimalFormat("0.00");
-		Double vlrecebimento = Double
-				.valueOf(formata.format(recebimento.map(Recebimento::getValor_total).get()).replaceAll(",", "."));
+		Dinheiro vlrecebimento = Dinheiro.de(recebimento.map(Recebimento::getValor_total).get());
+		Dinheiro restante = Dinheiro.de(vlrecebido);
 
-		if (vlrecebido > vlrecebimento)
+		if (restante.maiorQue(vlrecebimento))
 			throw new RuntimeException("Valor de recebimento é superior aos títulos");
 
 		List<Parcela> listParcelas = receParcelas.parcelasDoReceber(codreceber);
@@ -126,34 +140,35 @@ public class RecebimentoService {
 		if (listParcelas.isEmpty())
 			throw new RuntimeException("Recebimento não possue parcelas");
 
-		if (vlrecebido <= 0.0)
+		if (!restante.isPositivo())
 			throw new RuntimeException("Valor de recebimento inválido");
 
 		// guarda o valor do lançamento de caixa
-		Double vllancamento = vlrecebido;
-
-		// verifica cada parcela que veio e realiza o seu recebimento individual
-		for (int i = 0; i < listParcelas.size(); i++) {
-
-			if (vlrecebido > 0) {
-				Double vlsobra = vlrecebido - listParcelas.get(i).getValor_restante();
-				vlsobra = vlsobra < 0 ? 0 : vlsobra;
+		Dinheiro vllancamento = restante;
 
-				Double vlquitado = vlsobra - vlrecebido;
-				vlquitado = vlquitado < 0 ? vlquitado * -1 : vlquitado;
+		// distribui o valor recebido entre as parcelas, na ordem de vencimento,
+		// e baixa todas de uma vez
+		Map<Parcela, Dinheiro> pagamentos = new LinkedHashMap<>();
+		for (Parcela parcela : listParcelas) {
+			if (!restante.isPositivo())
+				break;
 
-				vlrecebido = vlsobra;
+			// cada parcela recebe o que falta nela, limitado ao que ainda sobra do valor recebido
+			Dinheiro vlquitado = restante.minimo(Dinheiro.de(parcela.getValor_restante()));
 
-				Long parcela = listParcelas.get(i).getCodigo();
-
-				try {
-					parcelas.receber(parcela, vlquitado, 0.00, 0.00);
-				} catch (Exception e) {
-					e.getMessage();
-					throw new RuntimeException("Ocorreu um erro ao realizar o recebimento, chame o suporte");
-				}
+			if (vlquitado.isPositivo()) {
+				pagamentos.put(parcela, vlquitado);
+				restante = restante.menos(vlquitado);
 			}
+		}
 
+		try {
+			parcelas.receber(pagamentos);
+		} catch (ParcelaAlteradaException e) {
+			throw e;
+		} catch (Exception e) {
+			e.getMessage();
+			throw new RuntimeException("Ocorreu um erro ao realizar o recebimento, chame o suporte");
 		}
 
 		Aplicacao aplicacao = new Aplicacao();
@@ -164,12 +179,12 @@ public class RecebimentoService {
 
 		// verifica se é um lançamento do tipo cartão para lançar o cartao_lancamento
 		if (sigla.equals(TituloTipo.CARTDEB.toString()) || sigla.equals(TituloTipo.CARTCRED.toString())) {
-			cartaoLancamentos.lancamento(vllancamento, titulo);
+			cartaoLancamentos.lancamento(vllancamento.valor(), titulo);
 
 		} else {
 			Optional<Caixa> caixa = caixas.caixaAberto();
-			CaixaLancamento lancamento = new CaixaLancamento("Referente ao recebimento " + codreceber, vllancamento,
-					TipoLancamento.RECEBIMENTO, EstiloLancamento.ENTRADA, caixa.get(), usuario);
+			CaixaLancamento lancamento = new CaixaLancamento("Referente ao recebimento " + codreceber,
+					vllancamento.valor(), TipoLancamento.RECEBIMENTO, EstiloLancamento.ENTRADA, caixa.get(), usuario);
 
 			// vincula o recebimento ao caixa_lancamento
 			lancamento.setRecebimento(recebimento.get());
@@ -186,7 +201,7 @@ public class RecebimentoService {
 		try {
 			DataAtual dataAtual = new DataAtual();
 
-			recebimento.get().setValor_recebido(vllancamento);
+			recebimento.get().setValor_recebido(vllancamento.valor());
 			recebimento.get().setValor_acrescimo(vlacrescimo);
 			recebimento.get().setValor_desconto(vldesconto);
 			recebimento.get().setData_processamento(dataAtual.dataAtualTimeStamp());
@@ -0,0 +1,126 @@
+package net.originmobi.pdv.service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.originmobi.pdv.enumerado.EntradaSaida;
+import net.originmobi.pdv.model.Tributacao;
+import net.originmobi.pdv.model.TributacaoRegra;
+import net.originmobi.pdv.repository.TributacaoRegraRepository;
+
+/*
+ * Regras de cada tributação organizadas por tipo (entrada/saída) e UF. A tabela
+ * de uma tributação é montada na primeira vez que ela é usada em uma nota e
+ * descartada sempre que alguma regra é cadastrada, alterada ou removida.
+ *
+ * Quando mais de uma regra atende o mesmo tipo e UF vale a última da lista, como
+ * já acontecia na inclusão de itens da nota.
+ *
+ * As regras de uma tributação já cadastrada não vêm da entidade recebida, que a
+ * sessão de quem chamou pode ter carregado antes de uma alteração. Elas são
+ * lidas em uma transação nova, depois de anotada a versão, e a tabela só vale
+ * enquanto a versão não mudar.
+ */
+@Component
+public class TabelaTributacao {
+
+	@Autowired
+	private TributacaoRegraRepository repository;
+
+	@Autowired
+	private PlatformTransactionManager transacoes;
+
+	private TransactionTemplate novaTransacao;
+
+	private final Map<Long, Regras> tabelas = new ConcurrentHashMap<>();
+	private final AtomicLong versao = new AtomicLong();
+
+	@PostConstruct
+	public void inicia() {
+		novaTransacao = new TransactionTemplate(transacoes);
+		novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		novaTransacao.setReadOnly(true);
+	}
+
+	public Optional<TributacaoRegra> regra(Tributacao tributacao, String uf, EntradaSaida tipo) {
+		return Optional.ofNullable(regras(tributacao).porTipo.get(tipo).get(uf));
+	}
+
+	public boolean possuiRegra(Tributacao tributacao, EntradaSaida tipo) {
+		return regras(tributacao).tipos.get(tipo);
+	}
+
+	/* primeira regra cadastrada, usada para a origem da mercadoria */
+	public Optional<TributacaoRegra> primeira(Tributacao tributacao) {
+		return Optional.ofNullable(regras(tributacao).primeira);
+	}
+
+	public void invalida() {
+		versao.incrementAndGet();
+		tabelas.clear();
+	}
+
+	private Regras regras(Tributacao tributacao) {
+		Long codigo = tributacao.getCodigo();
+		if (codigo == null)
+			return new Regras(tributacao.getRegra(), -1);
+
+		long atual = versao.get();
+		Regras regras = tabelas.get(codigo);
+		if (regras != null && regras.versao == atual)
+			return regras;
+
+		// a transação nova começa depois da leitura da versão e enxerga toda alteração anterior a ela
+		regras = new Regras(novaTransacao.execute(status -> repository.findByTributacaoCodigoOrderByCodigo(codigo)),
+				atual);
+		tabelas.put(codigo, regras);
+
+		return regras;
+	}
+
+	private static final class Regras {
+
+		private final Map<EntradaSaida, Map<String, TributacaoRegra>> porTipo = new EnumMap<>(EntradaSaida.class);
+		private final Map<EntradaSaida, Boolean> tipos = new EnumMap<>(EntradaSaida.class);
+		private final TributacaoRegra primeira;
+		private final long versao;
+
+		Regras(List<TributacaoRegra> regras, long versao) {
+			this.versao = versao;
+			List<TributacaoRegra> lista = regras != null ? regras : Collections.emptyList();
+
+			for (EntradaSaida tipo : EntradaSaida.values()) {
+				porTipo.put(tipo, new HashMap<>());
+				tipos.put(tipo, false);
+			}
+
+			for (TributacaoRegra regra : lista) {
+				if (regra.getTipo() == null)
+					continue;
+
+				tipos.put(regra.getTipo(), true);
+
+				if (regra.getUf() != null)
+					porTipo.get(regra.getTipo()).put(regra.getUf().getSigla(), regra);
+			}
+
+			primeira = lista.isEmpty() ? null : lista.get(0);
+		}
+
+	}
+
+}
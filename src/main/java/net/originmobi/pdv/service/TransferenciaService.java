@@ -5,12 +5,14 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
+import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
 import net.originmobi.pdv.model.Caixa;
 import net.originmobi.pdv.model.Transferencia;
 import net.originmobi.pdv.model.Usuario;
 import net.originmobi.pdv.repository.TransferenciaRepository;
-import net.originmobi.pdv.singleton.Aplicacao;
 import net.originmobi.pdv.utilitarios.DataAtual;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Service
 public class TransferenciaService {
@@ -19,16 +21,18 @@ public class TransferenciaService {
 	private TransferenciaRepository transferencias;
 
 	@Autowired
-	private UsuarioService usuarios;
+	private UsuarioAtualService usuarioAtual;
 
 	@Autowired
 	private CaixaService caixas;
 
+	@Autowired
+	private LivroCaixa livro;
+
 	public String cadastrar(Double valor, Long origem, Long destino, String obs) {
-		Aplicacao aplicacao = Aplicacao.getInstancia();
 		DataAtual dataAtual = new DataAtual();
 
-		Usuario usuario = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+		Usuario usuario = usuarioAtual.usuario();
 
 		Optional<Caixa> caiOrigem = caixas.busca(origem);
 		Optional<Caixa> caiDestino = caixas.busca(destino);
@@ -42,9 +46,15 @@ public class TransferenciaService {
 		if (!caiDestino.isPresent() || caiDestino.map(Caixa::getData_fechamento).isPresent())
 			throw new RuntimeException("Conta destino não esta aberta, verifique");
 
-		if (caiOrigem.map(Caixa::getValor_total).get() < valor)
+		// os lançamentos da transferência são gerados por trigger, aqui só o saldo em memória é movimentado
+		Dinheiro vlTransferencia = Dinheiro.de(valor);
+		LivroCaixa.Movimento saida = livro.movimenta(origem, TipoLancamento.TRANSFERENCIA, EstiloLancamento.SAIDA, vlTransferencia.negativo());
+
+		if (saida == null)
 			throw new RuntimeException("Saldo insuficiente para realizar a transferência");
 
+		LivroCaixa.Movimento entrada = livro.movimenta(destino, TipoLancamento.TRANSFERENCIA, EstiloLancamento.ENTRADA, vlTransferencia);
+
 		Transferencia transferencia = new Transferencia(valor, dataAtual.dataAtualTimeStamp(), caiOrigem.get(),
 				caiDestino.get(), usuario, "Transferencia para o " + caiDestino.map(Caixa::getDescricao).get() + " "
 						+ caiDestino.map(Caixa::getCodigo).get());
@@ -52,6 +62,8 @@ public class TransferenciaService {
 		try {
 			transferencias.save(transferencia);
 		} catch (Exception e) {
+			saida.desfaz();
+			entrada.desfaz();
 			throw new RuntimeException("Erro ao realizar a transferencia, chame o suporte");
 		}
 
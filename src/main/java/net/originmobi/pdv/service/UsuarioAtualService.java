@@ -0,0 +1,92 @@
+package net.originmobi.pdv.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import net.originmobi.pdv.model.Usuario;
+
+/*
+ * Usuário autenticado da requisição atual. O nome vem sempre do SecurityContext
+ * da thread, o Usuario é buscado uma única vez por requisição e fica guardado nos
+ * atributos dela. Entre requisições os usuários ficam em um cache curto por nome,
+ * assim cada operação não precisa consultar o banco para saber quem a fez.
+ *
+ * Fora de uma requisição, como em tarefas agendadas, só o cache é usado.
+ */
+@Service
+public class UsuarioAtualService {
+
+	private static final String ATRIBUTO = UsuarioAtualService.class.getName() + ".usuario";
+
+	@Autowired
+	private UsuarioService usuarios;
+
+	@Value("${pdv.usuario.cache-segundos:60}")
+	private long cacheSegundos = 60;
+
+	private final Map<String, Entrada> cache = new ConcurrentHashMap<>();
+
+	public String username() {
+		Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+
+		if (autenticacao == null)
+			throw new RuntimeException("Nenhum usuário autenticado");
+
+		return autenticacao.getName();
+	}
+
+	public Usuario usuario() {
+		String username = username();
+		RequestAttributes requisicao = RequestContextHolder.getRequestAttributes();
+
+		if (requisicao != null) {
+			Object atual = requisicao.getAttribute(ATRIBUTO, RequestAttributes.SCOPE_REQUEST);
+			if (atual instanceof Usuario && username.equals(((Usuario) atual).getUser()))
+				return (Usuario) atual;
+		}
+
+		Usuario usuario = busca(username);
+
+		if (requisicao != null && usuario != null)
+			requisicao.setAttribute(ATRIBUTO, usuario, RequestAttributes.SCOPE_REQUEST);
+
+		return usuario;
+	}
+
+	private Usuario busca(String username) {
+		long agora = System.currentTimeMillis();
+
+		Entrada entrada = cache.get(username);
+		if (entrada != null && entrada.expiraEm > agora)
+			return entrada.usuario;
+
+		Usuario usuario = usuarios.buscaUsuario(username);
+
+		if (usuario != null)
+			cache.put(username, new Entrada(usuario, agora + TimeUnit.SECONDS.toMillis(cacheSegundos)));
+
+		return usuario;
+	}
+
+	private static final class Entrada {
+
+		private final Usuario usuario;
+		private final long expiraEm;
+
+		Entrada(Usuario usuario, long expiraEm) {
+			this.usuario = usuario;
+			this.expiraEm = expiraEm;
+		}
+
+	}
+
+}
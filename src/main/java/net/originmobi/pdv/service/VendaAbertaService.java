@@ -0,0 +1,242 @@
+package net.originmobi.pdv.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import net.originmobi.pdv.dto.ProdutoCatalogoDTO;
+import net.originmobi.pdv.model.VendaProduto;
+import net.originmobi.pdv.repository.VendaAbertaRepository;
+
+/*
+ * Mantém em memória os itens e o total dos produtos das vendas em aberto. O
+ * total deixa de ser atualizado por trigger a cada item e passa a ser gravado
+ * em venda.valor_produtos periodicamente, em lote, e no fechamento da venda.
+ *
+ * Os itens continuam gravados em venda_produtos no momento da inclusão, por isso
+ * uma venda que não está em memória é sempre recarregada a partir deles.
+ */
+@Service
+public class VendaAbertaService {
+
+	private static final long TEMPO_OCIOSO = TimeUnit.MINUTES.toMillis(30);
+
+	@Autowired
+	private VendaAbertaRepository repository;
+
+	@Autowired
+	private ProdutoCatalogoService catalogo;
+
+	@Autowired
+	private ProdutoService produtos;
+
+	private final Map<Long, VendaAberta> vendas = new ConcurrentHashMap<>();
+
+	public void adiciona(Long codvenda, VendaProduto item) {
+		if (item == null || item.getCodigo() == null)
+			return;
+
+		double valor = item.getValor_unitario() != null ? item.getValor_unitario()
+				: valorUnitario(item.getProduto(), item.getValor_balanca());
+		boolean balanca = item.getValor_balanca() != null && item.getValor_balanca() > 0;
+
+		carrega(codvenda).adiciona(item.getCodigo(), item.getProduto(), item.getQtd(), valor, balanca);
+	}
+
+	public void incrementa(Long codvenda, Long codigoItem, int qtd) {
+		carrega(codvenda).incrementa(codigoItem, qtd);
+	}
+
+	/*
+	 * Retorna o item da venda que já contém o produto, itens de balança não são
+	 * agrupados pois cada pesagem tem o seu valor
+	 */
+	public Long itemDoProduto(Long codvenda, Long codprod) {
+		return carrega(codvenda).itemDoProduto(codprod);
+	}
+
+	public double valorUnitario(Long codprod, Double vlBalanca) {
+		if (vlBalanca != null && vlBalanca > 0)
+			return vlBalanca;
+
+		ProdutoCatalogoDTO produto = catalogo.busca(codprod);
+
+		if (produto != null)
+			return produto.getValor_venda();
+
+		return produtos.busca(codprod).getValor_venda();
+	}
+
+	public void remove(Long codvenda, Long codigoItem) {
+		carrega(codvenda).remove(codigoItem);
+	}
+
+	public Double totalProdutos(Long codvenda) {
+		return carrega(codvenda).total();
+	}
+
+	/*
+	 * Grava o total da venda que está sendo fechada e a retira da memória
+	 */
+	public Double encerra(Long codvenda) {
+		VendaAberta venda = carrega(codvenda);
+		Double total = venda.total();
+
+		repository.encerra(codvenda, total);
+
+		vendas.remove(codvenda, venda);
+		return total;
+	}
+
+	@Scheduled(fixedDelayString = "${pdv.venda.gravacao-totais-ms:5000}")
+	public void gravaTotais() {
+		Map<Long, Double> totais = new LinkedHashMap<>();
+		long limite = System.currentTimeMillis() - TEMPO_OCIOSO;
+
+		vendas.forEach((codvenda, venda) -> {
+			if (venda.marcaGravado())
+				totais.put(codvenda, venda.total());
+		});
+
+		if (!totais.isEmpty())
+			repository.atualizaValorProdutos(totais);
+
+		vendas.forEach((codvenda, venda) -> venda.retiraSeOciosa(limite, () -> vendas.remove(codvenda, venda)));
+	}
+
+	/*
+	 * Retorna a venda em memória marcando o acesso, assim uma venda em uso não é
+	 * retirada entre a consulta de um item e a alteração dele. Se a venda foi
+	 * retirada depois de lida do mapa, ela é recarregada.
+	 */
+	private VendaAberta carrega(Long codvenda) {
+		while (true) {
+			VendaAberta venda = vendas.computeIfAbsent(codvenda, codigo -> {
+				VendaAberta nova = new VendaAberta();
+				for (Object[] item : repository.itensDaVenda(codigo))
+					nova.adiciona((Long) item[0], (Long) item[1], (Integer) item[2], (Double) item[3], (Boolean) item[4]);
+
+				nova.marcaGravado();
+				return nova;
+			});
+
+			if (venda.acessa())
+				return venda;
+		}
+	}
+
+	/*
+	 * Itens de uma venda indexados pelo código da linha em venda_produtos, assim
+	 * incluir ou remover o mesmo item mais de uma vez não altera o total
+	 */
+	static final class VendaAberta {
+
+		private final Map<Long, Item> itens = new HashMap<>();
+		private double total;
+		private boolean alterada;
+		private long ultimoAcesso = System.currentTimeMillis();
+		// retirada do mapa, não deve mais ser alterada
+		private boolean retirada;
+
+		synchronized void adiciona(Long codigoItem, Long codprod, int qtd, double valorUnitario, boolean balanca) {
+			ultimoAcesso = System.currentTimeMillis();
+
+			if (itens.containsKey(codigoItem))
+				return;
+
+			itens.put(codigoItem, new Item(codprod, qtd, valorUnitario, balanca));
+			total += qtd * valorUnitario;
+			alterada = true;
+		}
+
+		synchronized void incrementa(Long codigoItem, int qtd) {
+			ultimoAcesso = System.currentTimeMillis();
+			Item item = itens.get(codigoItem);
+
+			if (item == null)
+				return;
+
+			item.qtd += qtd;
+			total += qtd * item.valorUnitario;
+			alterada = true;
+		}
+
+		synchronized void remove(Long codigoItem) {
+			ultimoAcesso = System.currentTimeMillis();
+			Item item = itens.remove(codigoItem);
+
+			if (item == null)
+				return;
+
+			total -= item.qtd * item.valorUnitario;
+			alterada = true;
+		}
+
+		synchronized Long itemDoProduto(Long codprod) {
+			for (Map.Entry<Long, Item> item : itens.entrySet()) {
+				if (!item.getValue().balanca && item.getValue().codprod.equals(codprod))
+					return item.getKey();
+			}
+
+			return null;
+		}
+
+		synchronized Double total() {
+			return Math.round(total * 100) / 100.0;
+		}
+
+		/*
+		 * Retorna se havia alteração pendente de gravação
+		 */
+		synchronized boolean marcaGravado() {
+			boolean pendente = alterada;
+			alterada = false;
+			return pendente;
+		}
+
+		/* false se a venda já foi retirada da memória */
+		synchronized boolean acessa() {
+			if (retirada)
+				return false;
+
+			ultimoAcesso = System.currentTimeMillis();
+			return true;
+		}
+
+		/*
+		 * Retira a venda sem alteração pendente e sem acesso desde o limite, com a
+		 * venda travada para nenhum acesso acontecer no meio
+		 */
+		synchronized void retiraSeOciosa(long limite, Runnable retira) {
+			if (alterada || ultimoAcesso >= limite)
+				return;
+
+			retirada = true;
+			retira.run();
+		}
+
+	}
+
+	private static final class Item {
+
+		private final Long codprod;
+		private int qtd;
+		private final double valorUnitario;
+		private final boolean balanca;
+
+		Item(Long codprod, int qtd, double valorUnitario, boolean balanca) {
+			this.codprod = codprod;
+			this.qtd = qtd;
+			this.valorUnitario = valorUnitario;
+			this.balanca = balanca;
+		}
+
+	}
+
+}
@@ -0,0 +1,193 @@
+package net.originmobi.pdv.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import net.originmobi.pdv.repository.VendaExportacaoRepository;
+
+/*
+ * Exporta os itens das vendas de um período em CSV ou XLSX. As linhas são lidas
+ * do cursor e escritas na saída uma a uma, assim o consumo de memória não
+ * depende do tamanho do período.
+ */
+@Service
+public class VendaExportacaoService {
+
+	static final String[] COLUNAS = { "Venda", "Cadastro", "Finalizado", "Situação", "Cliente", "Pagamento",
+			"Valor produtos", "Desconto", "Acréscimo", "Valor total", "Cód. produto", "Produto", "Qtd",
+			"Valor unitário", "Valor item" };
+
+	/* colunas do select com valores em dinheiro e com datas */
+	private static final int[] DINHEIRO = { 7, 8, 9, 10, 14, 15 };
+	private static final int[] DATAS = { 2, 3 };
+
+	/* linhas mantidas em memória pelo SXSSF antes de irem para o arquivo temporário */
+	private static final int JANELA_XLSX = 100;
+
+	private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+	@Autowired
+	private VendaExportacaoRepository exportacao;
+
+	public void exportaCsv(LocalDate inicio, LocalDate fim, OutputStream saida) throws IOException {
+		validaPeriodo(inicio, fim);
+
+		Writer csv = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+
+		// BOM para o Excel reconhecer o arquivo como UTF-8
+		csv.write('\uFEFF');
+		csv.write(String.join(";", COLUNAS));
+		csv.write("\r\n");
+
+		try {
+			exportacao.itensDoPeriodo(dataInicial(inicio), dataFinal(fim), rs -> {
+				try {
+					for (int coluna = 1; coluna <= COLUNAS.length; coluna++) {
+						if (coluna > 1)
+							csv.write(';');
+						csv.write(textoCsv(rs, coluna));
+					}
+					csv.write("\r\n");
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		csv.flush();
+	}
+
+	public void exportaXlsx(LocalDate inicio, LocalDate fim, OutputStream saida) throws IOException {
+		validaPeriodo(inicio, fim);
+
+		SXSSFWorkbook planilha = new SXSSFWorkbook(JANELA_XLSX);
+
+		try {
+			CellStyle estiloData = planilha.createCellStyle();
+			estiloData.setDataFormat(planilha.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy hh:mm:ss"));
+
+			int ultimaLinha = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+			Sheet[] aba = { novaAba(planilha) };
+			int[] linha = { 1 };
+
+			exportacao.itensDoPeriodo(dataInicial(inicio), dataFinal(fim), rs -> {
+				// uma aba comporta pouco mais de um milhão de linhas
+				if (linha[0] > ultimaLinha) {
+					aba[0] = novaAba(planilha);
+					linha[0] = 1;
+				}
+
+				Row row = aba[0].createRow(linha[0]++);
+				for (int coluna = 1; coluna <= COLUNAS.length; coluna++)
+					preencheCelula(row.createCell(coluna - 1), rs, coluna, estiloData);
+			});
+
+			planilha.write(saida);
+			saida.flush();
+		} finally {
+			planilha.dispose();
+			planilha.close();
+		}
+	}
+
+	private void validaPeriodo(LocalDate inicio, LocalDate fim) {
+		if (inicio == null || fim == null)
+			throw new RuntimeException("Informe o período da exportação");
+
+		if (inicio.isAfter(fim))
+			throw new RuntimeException("Data inicial maior que a data final, verifique");
+	}
+
+	private Timestamp dataInicial(LocalDate inicio) {
+		return Timestamp.valueOf(inicio.atStartOfDay());
+	}
+
+	private Timestamp dataFinal(LocalDate fim) {
+		return Timestamp.valueOf(fim.plusDays(1).atStartOfDay());
+	}
+
+	private Sheet novaAba(SXSSFWorkbook planilha) {
+		Sheet aba = planilha.createSheet("Vendas " + (planilha.getNumberOfSheets() + 1));
+		Row cabecalho = aba.createRow(0);
+
+		for (int i = 0; i < COLUNAS.length; i++)
+			cabecalho.createCell(i).setCellValue(COLUNAS[i]);
+
+		return aba;
+	}
+
+	private static String textoCsv(ResultSet rs, int coluna) throws SQLException {
+		if (contem(DATAS, coluna)) {
+			Timestamp data = rs.getTimestamp(coluna);
+			return data == null ? "" : data.toLocalDateTime().format(FORMATO_DATA);
+		}
+
+		if (contem(DINHEIRO, coluna)) {
+			double valor = rs.getDouble(coluna);
+			return rs.wasNull() ? "" : String.format(Locale.ROOT, "%.2f", valor).replace('.', ',');
+		}
+
+		String texto = rs.getString(coluna);
+		if (texto == null)
+			return "";
+
+		if (texto.indexOf(';') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0)
+			return '"' + texto.replace("\"", "\"\"") + '"';
+
+		return texto;
+	}
+
+	private static void preencheCelula(Cell celula, ResultSet rs, int coluna, CellStyle estiloData)
+			throws SQLException {
+		if (contem(DATAS, coluna)) {
+			Timestamp data = rs.getTimestamp(coluna);
+			if (data != null) {
+				celula.setCellValue(data);
+				celula.setCellStyle(estiloData);
+			}
+			return;
+		}
+
+		if (contem(DINHEIRO, coluna) || coluna == 1 || coluna == 11 || coluna == 13) {
+			double valor = rs.getDouble(coluna);
+			if (!rs.wasNull())
+				celula.setCellValue(valor);
+			return;
+		}
+
+		String texto = rs.getString(coluna);
+		if (texto != null)
+			celula.setCellValue(texto);
+	}
+
+	private static boolean contem(int[] colunas, int coluna) {
+		for (int c : colunas) {
+			if (c == coluna)
+				return true;
+		}
+		return false;
+	}
+
+}
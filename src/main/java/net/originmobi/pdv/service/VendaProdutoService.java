@@ -17,8 +17,8 @@ public class VendaProdutoService {
 	@Autowired
 	private VendaProdutosRepository vendaProdutos;
 
-	public void salvar(VendaProduto vendaProduto) {
-		vendaProdutos.save(vendaProduto);
+	public VendaProduto salvar(VendaProduto vendaProduto) {
+		return vendaProdutos.save(vendaProduto);
 	}
 
 	public List<Object> listaProdutosVenda(Venda venda) {
@@ -41,6 +41,10 @@ public class VendaProdutoService {
 		vendaProdutos.delete(vendaProduto);
 	}
 
+	public void incrementaQtd(Long codigo, int qtd) {
+		vendaProdutos.incrementaQtd(codigo, qtd);
+	}
+
 	public void removeProduto(Long posicaoProd) {
 		vendaProdutos.removeProduto(posicaoProd);
 	}
@@ -31,8 +31,8 @@ import net.originmobi.pdv.model.Venda;
 import net.originmobi.pdv.model.VendaProduto;
 import net.originmobi.pdv.repository.VendaRepository;
 import net.originmobi.pdv.service.cartao.CartaoLancamentoService;
-import net.originmobi.pdv.singleton.Aplicacao;
 import net.originmobi.pdv.utilitarios.DataAtual;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Service
 public class VendaService {
@@ -41,7 +41,7 @@ public class VendaService {
 	private VendaRepository vendas;
 
 	@Autowired
-	private UsuarioService usuarios;
+	private UsuarioAtualService usuarioAtual;
 
 	@Autowired
 	private VendaProdutoService vendaProdutos;
@@ -70,12 +70,20 @@ public class VendaService {
 	@Autowired
 	private ProdutoService produtos;
 
+	@Autowired
+	private VendaAbertaService vendasAbertas;
+
+	@Autowired
+	private DashboardService dashboard;
+
+	@Autowired
+	private ExposicaoClienteService exposicao;
+
 	private Timestamp dataHoraAtual = new Timestamp(System.currentTimeMillis());
 
 	public Long abreVenda(Venda venda) {
 		if (venda.getCodigo() == null) {
-			Aplicacao aplicacao = Aplicacao.getInstancia();
-			Usuario usuario = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+			Usuario usuario = usuarioAtual.usuario();
 
 			venda.setData_cadastro(dataHoraAtual);
 			venda.setSituacao(VendaSituacao.ABERTA);
@@ -88,6 +96,9 @@ public class VendaService {
 				e.getStackTrace();
 			}
 
+			if (venda.getCodigo() != null)
+				dashboard.vendaAberta();
+
 		} else {
 
 			try {
@@ -112,15 +123,32 @@ public class VendaService {
 	}
 
 	public String addProduto(Long codVen, Long codPro, Double vlBalanca) {
+		return addProduto(codVen, codPro, vlBalanca, 1);
+	}
+
+	/*
+	 * Adiciona qtd unidades do produto à venda, as unidades de um produto que já
+	 * está na venda são somadas na mesma linha
+	 */
+	public String addProduto(Long codVen, Long codPro, Double vlBalanca, int qtd) {
 		String vendaSituacao = vendas.verificaSituacao(codVen);
 
 		if (vendaSituacao.equals(VendaSituacao.ABERTA.toString())) {
-			VendaProduto vendaProduto = null;
-
-			vendaProduto = new VendaProduto(codPro, codVen, vlBalanca);
+			if (qtd <= 0)
+				return "Quantidade inválida";
 
 			try {
-				vendaProdutos.salvar(vendaProduto);
+				boolean balanca = vlBalanca != null && vlBalanca > 0;
+				Long item = balanca ? null : vendasAbertas.itemDoProduto(codVen, codPro);
+
+				if (item != null) {
+					vendaProdutos.incrementaQtd(item, qtd);
+					vendasAbertas.incrementa(codVen, item, qtd);
+				} else {
+					VendaProduto vendaProduto = new VendaProduto(codPro, codVen, vlBalanca, qtd,
+							vendasAbertas.valorUnitario(codPro, vlBalanca));
+					vendasAbertas.adiciona(codVen, vendaProdutos.salvar(vendaProduto));
+				}
 			} catch (Exception e) {
 				e.getStackTrace();
 			}
@@ -138,9 +166,10 @@ public class VendaService {
             if (venda == null) {
                 return "Venda não encontrada";
             }
-			if (venda.getSituacao().equals(VendaSituacao.ABERTA))
+			if (venda.getSituacao().equals(VendaSituacao.ABERTA)) {
 				vendaProdutos.removeProduto(posicaoProd);
-			else
+				vendasAbertas.remove(codVenda, posicaoProd);
+			} else
 				return "Venda fechada";
 		} catch (Exception e) {
 			e.getStackTrace();
@@ -149,6 +178,10 @@ public class VendaService {
 		return "ok";
 	}
 
+	public Double totalProdutos(Long codVenda) {
+		return vendasAbertas.totalProdutos(codVenda);
+	}
+
 	public List<Venda> lista() {
 		return vendas.findAll();
 	}
@@ -160,7 +193,14 @@ public class VendaService {
 		if (!vendaIsAberta(venda))
 			throw new RuntimeException("venda fechada");
 
-		if (vlprodutos <= 0)
+		// o total mantido em memória prevalece sobre o valor enviado pela tela
+		Double totalProdutos = vendasAbertas.encerra(venda);
+		if (totalProdutos != null)
+			vlprodutos = totalProdutos;
+
+		Dinheiro totalVenda = Dinheiro.de(vlprodutos);
+
+		if (!totalVenda.isPositivo())
 			throw new RuntimeException("Venda sem valor, verifique");
 
 		DataAtual dataAtual = new DataAtual();
@@ -168,8 +208,11 @@ public class VendaService {
 
 		String[] formaPagar = formaPagamento.getFormaPagamento().replace("/", " ").split(" ");
 
+		Dinheiro vlDesconto = Dinheiro.de(desconto);
+		Dinheiro vlAcrescimo = Dinheiro.de(acrescimo);
+
 		// vlTotal é usado no lancamento
-		Double vlTotal = (vlprodutos + acrescimo) - desconto;
+		Dinheiro vlTotal = totalVenda.mais(vlAcrescimo).menos(vlDesconto);
 
 		int qtdVezes = formaPagar.length;
 
@@ -187,7 +230,7 @@ public class VendaService {
 		dadosVenda.setPagamentotipo(formaPagamento);
 
 		// gera um receber
-		Receber receber = new Receber("Recebimento referente a venda " + venda, vlTotal, dadosVenda.getPessoa(),
+		Receber receber = new Receber("Recebimento referente a venda " + venda, vlTotal.valor(), dadosVenda.getPessoa(),
 				dataAtual.dataAtualTimeStamp(), dadosVenda);
 
 		try {
@@ -197,8 +240,20 @@ public class VendaService {
 			throw new RuntimeException("Erro ao fechar a venda, chame o suporte");
 		}
 
-		Double desc = desconto / vlParcelas.length;
-		Double acre = acrescimo / vlParcelas.length;
+		// desconto e acréscimo rateados entre as parcelas, a soma das partes é igual ao total
+		Dinheiro[] desc = vlDesconto.rateia(vlParcelas.length);
+		Dinheiro[] acre = vlAcrescimo.rateia(vlParcelas.length);
+
+		// o valor a prazo não pode passar do limite de crédito do cliente
+		if (dadosVenda.getPessoa() != null) {
+			Dinheiro credito = Dinheiro.ZERO;
+			for (int i = 0; i < formaPagar.length; i++) {
+				if (!formaPagar[i].equals("00"))
+					credito = credito.mais(Dinheiro.de(vlParcelas[i]).mais(acre[i]).menos(desc[i]));
+			}
+
+			exposicao.verificaLimite(dadosVenda.getPessoa().getCodigo(), credito);
+		}
 
 		// verifica a forma de pagamento para realizar o lançamento apropriado
 		for (int i = 0; i < formaPagar.length; i++) {
@@ -213,16 +268,16 @@ public class VendaService {
 					if (!caixas.caixaIsAberto())
 						throw new RuntimeException("nenhum caixa aberto");
 
-					qtdVezes = avistaDinheiro(vlprodutos, vlParcelas, formaPagar, qtdVezes, i, desc, acre);
+					qtdVezes = avistaDinheiro(totalVenda, vlParcelas, formaPagar, qtdVezes, i, desc[i], acre[i]);
 				}
 
 				// se for no cartão de debito ou crédito
 				else if (titulo.get().getTipo().getSigla().equals(TituloTipo.CARTDEB.toString())
 						|| titulo.get().getTipo().getSigla().equals(TituloTipo.CARTCRED.toString())) {
 
-					Double vl_parcela = Double.valueOf(vlParcelas[i]);
+					Dinheiro vl_parcela = Dinheiro.de(vlParcelas[i]);
 
-					cartaoLancamento.lancamento(vl_parcela, titulo);
+					cartaoLancamento.lancamento(vl_parcela.valor(), titulo);
 				}
 
 			} else {
@@ -232,14 +287,13 @@ public class VendaService {
 					throw new RuntimeException("Venda sem cliente, verifique");
 
 				// no dinheiro
-				sequencia = aprazo(vlprodutos, vlParcelas, dataAtual, formaPagar, qtdVezes, sequencia, receber, i, desc,
-						acre);
+				sequencia = aprazo(totalVenda, vlParcelas, dataAtual, formaPagar, qtdVezes, sequencia, receber, i, desc[i],
+						acre[i]);
 			}
 
 			try {
-				Double vlFinal = (vlprodutos + acrescimo) - desconto;
 				// realiza o fechamento da venda
-				vendas.fechaVenda(venda, VendaSituacao.FECHADA, vlFinal, desconto, acrescimo,
+				vendas.fechaVenda(venda, VendaSituacao.FECHADA, vlTotal.valor(), vlDesconto.valor(), vlAcrescimo.valor(),
 						dataAtual.dataAtualTimeStamp(), formaPagamento);
 			} catch (Exception e) {
 				System.out.println(e);
@@ -251,6 +305,8 @@ public class VendaService {
 		// Responsável por realizar a movimentação de estoque
 		produtos.movimentaEstoque(venda, EntradaSaida.SAIDA);
 
+		dashboard.vendaFechada();
+
 		return "Venda finalizada com sucesso";
 	}
 
@@ -258,15 +314,15 @@ public class VendaService {
 	 * Responsável por realizar o lançamento quando a parcela da venda é a prazo
 	 * 
 	 */
-	private int aprazo(Double vlprodutos, String[] vlParcelas, DataAtual dataAtual, String[] formaPagar, int qtdVezes,
-			int sequencia, Receber receber, int i, Double acre, Double desc) {
+	private int aprazo(Dinheiro vlprodutos, String[] vlParcelas, DataAtual dataAtual, String[] formaPagar, int qtdVezes,
+			int sequencia, Receber receber, int i, Dinheiro acre, Dinheiro desc) {
 
 		if (vlParcelas[i].isEmpty()) {
 			throw new RuntimeException("valor de recebimento invalido");
 		}
 
 		try {
-			Double valor_parcela = (Double.valueOf(vlParcelas[i]) + acre) - desc;
+			Double valor_parcela = Dinheiro.de(vlParcelas[i]).mais(acre).menos(desc).valor();
 			parcelas.gerarParcela(valor_parcela, 0.00, 0.00, 0.0, valor_parcela, receber, 0, sequencia,
 					dataAtual.dataAtualTimeStamp(),
 					Date.valueOf(dataAtual.DataAtualIncrementa(Integer.parseInt(formaPagar[i]))));
@@ -285,8 +341,8 @@ public class VendaService {
 	 * no dinheiro
 	 * 
 	 */
-	private int avistaDinheiro(Double vlprodutos, String[] vlParcelas, String[] formaPagar, int qtdVezes, int i,
-			Double acre, Double desc) {
+	private int avistaDinheiro(Dinheiro vlprodutos, String[] vlParcelas, String[] formaPagar, int qtdVezes, int i,
+			Dinheiro acre, Dinheiro desc) {
 
 		// decremento ela para usa-la no a prazo, sem a sequencia do a
 		// vista
@@ -295,21 +351,20 @@ public class VendaService {
 		if (vlParcelas[i].isEmpty())
 			throw new RuntimeException("Parcela sem valor, verifique");
 
-		Double totalParcelas = 0.0;
+		Dinheiro totalParcelas = Dinheiro.ZERO;
 
 		// pega a soma de todas as parcelas para comparar com o valor recebido
 		for (int aux = 0; aux < vlParcelas.length; aux++)
-			totalParcelas += Double.valueOf(vlParcelas[i]);
+			totalParcelas = totalParcelas.mais(Dinheiro.de(vlParcelas[i]));
 
 		if (!totalParcelas.equals(vlprodutos))
 			throw new RuntimeException("Valor das parcelas diferente do valor total de produtos, verifique");
 
 		Optional<Caixa> caixa = caixas.caixaAberto();
 
-		Aplicacao aplicacao = Aplicacao.getInstancia();
-		Usuario usuario = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+		Usuario usuario = usuarioAtual.usuario();
 
-		Double valor_parcela = (Double.valueOf(vlParcelas[i]) + acre) - desc;
+		Double valor_parcela = Dinheiro.de(vlParcelas[i]).mais(acre).menos(desc).valor();
 		CaixaLancamento lancamento = new CaixaLancamento("Recebimento de venda á vista", valor_parcela,
 				TipoLancamento.RECEBIMENTO, EstiloLancamento.ENTRADA, caixa.get(), usuario);
 
@@ -322,6 +377,11 @@ public class VendaService {
 		return qtdVezes;
 	}
 
+	public boolean vendaIsFechada(Long codVenda) {
+		Venda venda = vendas.findByCodigoEquals(codVenda);
+		return venda != null && VendaSituacao.FECHADA.equals(venda.getSituacao());
+	}
+
 	private Boolean vendaIsAberta(Long codVenda) {
 		Venda venda = vendas.findByCodigoEquals(codVenda);
 		return venda.isAberta();
@@ -24,9 +24,9 @@ import net.originmobi.pdv.model.cartao.CartaoLancamento;
 import net.originmobi.pdv.model.cartao.MaquinaCartao;
 import net.originmobi.pdv.repository.cartao.CartaoLancamentoRepository;
 import net.originmobi.pdv.service.CaixaLancamentoService;
-import net.originmobi.pdv.service.UsuarioService;
-import net.originmobi.pdv.singleton.Aplicacao;
+import net.originmobi.pdv.service.UsuarioAtualService;
 import net.originmobi.pdv.utilitarios.DataAtual;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Service
 public class CartaoLancamentoService {
@@ -38,18 +38,13 @@ public class CartaoLancamentoService {
 	private CaixaLancamentoService caixaLancamentos;
 
 	@Autowired
-	private UsuarioService usuarios;
+	private UsuarioAtualService usuarioAtual;
 
 	private LocalDate dataAtual;
 
 	public void lancamento(Double vl_parcela, Optional<Titulo> titulo) {
+		Dinheiro valor = Dinheiro.de(vl_parcela);
 		Double taxa = 0.0;
-		Double vl_taxa = 0.0;
-		Double vl_liq_parcela = 0.0;
-
-		Double taxa_ante = 0.0;
-		Double vl_taxa_ante = 0.0;
-		Double vl_liq_ant = 0.0;
 
 		CartaoTipo tipo = null;
 		int dias = 0;
@@ -66,12 +61,13 @@ public class CartaoLancamentoService {
 			tipo = CartaoTipo.CREDITO;
 		}
 
-		vl_taxa = (vl_parcela * taxa) / 100;
-		vl_liq_parcela = vl_parcela - vl_taxa;
+		// as taxas são arredondadas no centavo e o líquido é o que sobra delas
+		Dinheiro vl_taxa = valor.percentual(taxa);
+		Dinheiro vl_liq_parcela = valor.menos(vl_taxa);
 
-		taxa_ante = titulo.get().getMaquina().getTaxa_antecipacao();
-		vl_taxa_ante = (vl_parcela * taxa_ante) / 100;
-		vl_liq_ant = vl_parcela - vl_taxa_ante;
+		Double taxa_ante = titulo.get().getMaquina().getTaxa_antecipacao();
+		Dinheiro vl_taxa_ante = valor.percentual(taxa_ante);
+		Dinheiro vl_liq_ant = valor.menos(vl_taxa_ante);
 
 		MaquinaCartao maquinaCartao = titulo.get().getMaquina();
 
@@ -79,7 +75,7 @@ public class CartaoLancamentoService {
 		dataAtual = LocalDate.now();
 		String data_recebimento = data.DataAtualIncrementa(dias);
 
-		CartaoLancamento lancamento = new CartaoLancamento(vl_parcela, taxa, vl_taxa, vl_liq_parcela, taxa_ante,
+		CartaoLancamento lancamento = new CartaoLancamento(valor, taxa, vl_taxa, vl_liq_parcela, taxa_ante,
 				vl_taxa_ante, vl_liq_ant, maquinaCartao, tipo, CartaoSituacao.APROCESSAR,
 				Date.valueOf(data_recebimento), Date.valueOf(dataAtual));
 
@@ -108,13 +104,12 @@ public class CartaoLancamentoService {
 		if (cartaoLancamento.getSituacao().equals(CartaoSituacao.ANTECIPADO))
 			throw new RuntimeException("Registro já foi antecipado");
 
-		Double valor = cartaoLancamento.getVlLiqParcela();
+		Double valor = cartaoLancamento.getVlLiqParcela().valor();
 		TipoLancamento tipo = TipoLancamento.RECEBIMENTO;
 		EstiloLancamento estilo = EstiloLancamento.ENTRADA;
 		Caixa banco = cartaoLancamento.getMaquina_cartao().getBanco();
 
-		Aplicacao aplicacao = Aplicacao.getInstancia();
-		Usuario usuario = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+		Usuario usuario = usuarioAtual.usuario();
 
 		CaixaLancamento lancamento = new CaixaLancamento("Referênte a processamento de cartão", valor, tipo, estilo,
 				banco, usuario);
@@ -141,13 +136,12 @@ public class CartaoLancamentoService {
 		if (cartaoLancamento.getSituacao().equals(CartaoSituacao.ANTECIPADO))
 			throw new RuntimeException("Registro já foi antecipado");
 
-		Double valor = cartaoLancamento.getVlLiqAntecipacao();
+		Double valor = cartaoLancamento.getVlLiqAntecipacao().valor();
 		TipoLancamento tipo = TipoLancamento.RECEBIMENTO;
 		EstiloLancamento estilo = EstiloLancamento.ENTRADA;
 		Caixa banco = cartaoLancamento.getMaquina_cartao().getBanco();
 
-		Aplicacao aplicacao = Aplicacao.getInstancia();
-		Usuario usuario = usuarios.buscaUsuario(aplicacao.getUsuarioAtual());
+		Usuario usuario = usuarioAtual.usuario();
 
 		CaixaLancamento lancamento = new CaixaLancamento(
 				"Referênte a antecipação de cartão código " + cartaoLancamento.getCodigo(), valor, tipo, estilo, banco,
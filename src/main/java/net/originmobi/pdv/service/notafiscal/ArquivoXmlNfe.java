@@ -0,0 +1,378 @@
+package net.originmobi.pdv.service.notafiscal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Arquivo dos XMLs das notas separado pelo mês de emissão (AAMM da chave de
+ * acesso). Cada mês tem os seus segmentos, onde os XMLs são acrescentados
+ * compactados com gzip, e um índice mapeado em memória com a posição de cada
+ * chave no segmento. O índice tem registros de tamanho fixo e é lido uma vez
+ * quando o mês é aberto, depois disso a busca de uma chave é feita em um mapa.
+ *
+ * Nada é apagado dos segmentos, remover uma nota apenas desativa o registro no
+ * índice. Uma chave gravada de novo passa a apontar para o registro mais recente.
+ */
+@Component
+public class ArquivoXmlNfe {
+
+	private static final String INDICE = "indice.idx";
+
+	private static final int CABECALHO = 64;
+	private static final int REGISTRO = 64;
+	private static final int TAMANHO_CHAVE = 44;
+	private static final int CAPACIDADE_INICIAL = 4096;
+
+	// posições dentro do registro
+	private static final int ATIVO = 44;
+	private static final int SEGMENTO = 48;
+	private static final int POSICAO = 52;
+	private static final int TAMANHO = 60;
+
+	@Value("${nfe.xml.path:/tmp/nfe}")
+	private String caminho = "/tmp/nfe";
+
+	@Value("${nfe.xml.segmento-mb:64}")
+	private int segmentoMb = 64;
+
+	private final Map<String, Mes> meses = new ConcurrentHashMap<>();
+
+	public void grava(String chave, byte[] xml) {
+		byte[] compactado = compacta(xml);
+		Mes mes = abre(mes(chave), true);
+
+		try {
+			synchronized (mes) {
+				mes.grava(chave, compactado, segmentoMb * 1024L * 1024L);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Erro ao salvar XML", e);
+		}
+	}
+
+	/* vazio também para uma chave fora do formato, que não pode ter sido gravada */
+	public Optional<byte[]> busca(String chave) {
+		if (!valida(chave))
+			return Optional.empty();
+
+		Mes mes = abre(mes(chave), false);
+		if (mes == null)
+			return Optional.empty();
+
+		try {
+			Registro registro;
+			synchronized (mes) {
+				registro = mes.registro(chave);
+			}
+
+			if (registro == null)
+				return Optional.empty();
+
+			return Optional.of(descompacta(mes.le(registro)));
+		} catch (IOException e) {
+			throw new RuntimeException("Erro ao ler o XML da nota " + chave, e);
+		}
+	}
+
+	public boolean remove(String chave) {
+		if (!valida(chave))
+			return false;
+
+		Mes mes = abre(mes(chave), false);
+		if (mes == null)
+			return false;
+
+		synchronized (mes) {
+			return mes.remove(chave);
+		}
+	}
+
+	/*
+	 * Escreve no zip o XML de cada nota ativa do mês, na ordem em que foram
+	 * gravadas, descompactando um XML por vez
+	 */
+	public int exporta(String aamm, ZipOutputStream zip) throws IOException {
+		Mes mes = abre(aamm, false);
+		if (mes == null)
+			return 0;
+
+		List<Registro> registros;
+		synchronized (mes) {
+			registros = mes.ativos();
+		}
+
+		byte[] buffer = new byte[8192];
+		for (Registro registro : registros) {
+			zip.putNextEntry(new ZipEntry(registro.chave + ".xml"));
+
+			try (InputStream xml = new GZIPInputStream(new ByteArrayInputStream(mes.le(registro)))) {
+				int lidos;
+				while ((lidos = xml.read(buffer)) != -1)
+					zip.write(buffer, 0, lidos);
+			}
+
+			zip.closeEntry();
+		}
+
+		return registros.size();
+	}
+
+	@PreDestroy
+	public void encerra() {
+		for (Mes mes : meses.values()) {
+			synchronized (mes) {
+				mes.fecha();
+			}
+		}
+		meses.clear();
+	}
+
+	/* AAMM de emissão, da 3ª à 6ª posição da chave */
+	private String mes(String chave) {
+		if (!valida(chave))
+			throw new RuntimeException("Chave de acesso inválida: " + chave);
+
+		return chave.substring(2, 6);
+	}
+
+	private boolean valida(String chave) {
+		return chave != null && chave.length() == TAMANHO_CHAVE && chave.matches("\\d+");
+	}
+
+	private Mes abre(String aamm, boolean cria) {
+		Mes mes = meses.get(aamm);
+		if (mes != null)
+			return mes;
+
+		Path diretorio = Paths.get(caminho).toAbsolutePath().resolve(aamm);
+		if (!cria && !Files.exists(diretorio.resolve(INDICE)))
+			return null;
+
+		return meses.computeIfAbsent(aamm, m -> {
+			try {
+				return new Mes(diretorio);
+			} catch (IOException e) {
+				throw new RuntimeException("Erro ao abrir o arquivo de XMLs de " + m, e);
+			}
+		});
+	}
+
+	private byte[] compacta(byte[] xml) {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream(xml.length / 4 + 64);
+
+		try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+			gzip.write(xml);
+		} catch (IOException e) {
+			throw new RuntimeException("Erro ao salvar XML", e);
+		}
+
+		return saida.toByteArray();
+	}
+
+	private byte[] descompacta(byte[] compactado) throws IOException {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream(compactado.length * 4);
+		byte[] buffer = new byte[8192];
+
+		try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compactado))) {
+			int lidos;
+			while ((lidos = gzip.read(buffer)) != -1)
+				saida.write(buffer, 0, lidos);
+		}
+
+		return saida.toByteArray();
+	}
+
+	private static final class Registro {
+
+		private final String chave;
+		private final int segmento;
+		private final long posicao;
+		private final int tamanho;
+
+		Registro(String chave, int segmento, long posicao, int tamanho) {
+			this.chave = chave;
+			this.segmento = segmento;
+			this.posicao = posicao;
+			this.tamanho = tamanho;
+		}
+
+	}
+
+	/*
+	 * Segmentos e índice de um mês. A gravação e o acesso ao índice são feitos
+	 * com o lock do mês, a leitura dos segmentos usa leitura posicional e não
+	 * precisa dele.
+	 */
+	private static final class Mes {
+
+		private final Path diretorio;
+		private final FileChannel canalIndice;
+		private final Map<String, Integer> posicoes = new HashMap<>();
+		private final Map<Integer, FileChannel> segmentos = new ConcurrentHashMap<>();
+
+		private MappedByteBuffer indice;
+		private int quantidade;
+
+		private int segmentoAtual;
+		private long tamanhoSegmento;
+
+		Mes(Path diretorio) throws IOException {
+			this.diretorio = Files.createDirectories(diretorio);
+
+			canalIndice = FileChannel.open(diretorio.resolve(INDICE), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			long tamanho = canalIndice.size();
+			int capacidade = tamanho > CABECALHO ? (int) ((tamanho - CABECALHO) / REGISTRO) : CAPACIDADE_INICIAL;
+			indice = canalIndice.map(FileChannel.MapMode.READ_WRITE, 0, CABECALHO + (long) capacidade * REGISTRO);
+
+			quantidade = indice.getInt(0);
+			for (int slot = 0; slot < quantidade; slot++) {
+				int base = CABECALHO + slot * REGISTRO;
+				String chave = chave(base);
+
+				if (indice.get(base + ATIVO) == 1)
+					posicoes.put(chave, slot);
+				else
+					posicoes.remove(chave);
+
+				segmentoAtual = Math.max(segmentoAtual, indice.getInt(base + SEGMENTO));
+			}
+
+			tamanhoSegmento = segmento(segmentoAtual).size();
+		}
+
+		void grava(String chave, byte[] compactado, long limiteSegmento) throws IOException {
+			if (tamanhoSegmento > 0 && tamanhoSegmento + compactado.length > limiteSegmento) {
+				segmentoAtual++;
+				tamanhoSegmento = 0;
+			}
+
+			FileChannel segmento = segmento(segmentoAtual);
+			long posicao = tamanhoSegmento;
+
+			ByteBuffer dados = ByteBuffer.wrap(compactado);
+			while (dados.hasRemaining())
+				segmento.write(dados, posicao + dados.position());
+			segmento.force(false);
+			tamanhoSegmento += compactado.length;
+
+			// o registro só é escrito depois que o XML está no disco
+			if ((long) CABECALHO + (long) (quantidade + 1) * REGISTRO > indice.capacity())
+				indice = canalIndice.map(FileChannel.MapMode.READ_WRITE, 0,
+						CABECALHO + (long) quantidade * 2 * REGISTRO);
+
+			int base = CABECALHO + quantidade * REGISTRO;
+			byte[] bytesChave = chave.getBytes(StandardCharsets.US_ASCII);
+			for (int i = 0; i < TAMANHO_CHAVE; i++)
+				indice.put(base + i, bytesChave[i]);
+			indice.put(base + ATIVO, (byte) 1);
+			indice.putInt(base + SEGMENTO, segmentoAtual);
+			indice.putLong(base + POSICAO, posicao);
+			indice.putInt(base + TAMANHO, compactado.length);
+
+			Integer anterior = posicoes.put(chave, quantidade);
+			if (anterior != null)
+				indice.put(CABECALHO + anterior * REGISTRO + ATIVO, (byte) 0);
+
+			quantidade++;
+			indice.putInt(0, quantidade);
+		}
+
+		Registro registro(String chave) {
+			Integer slot = posicoes.get(chave);
+			return slot == null ? null : registro(slot);
+		}
+
+		boolean remove(String chave) {
+			Integer slot = posicoes.remove(chave);
+			if (slot == null)
+				return false;
+
+			indice.put(CABECALHO + slot * REGISTRO + ATIVO, (byte) 0);
+			return true;
+		}
+
+		List<Registro> ativos() {
+			List<Registro> registros = new ArrayList<>(posicoes.size());
+			for (int slot = 0; slot < quantidade; slot++)
+				if (indice.get(CABECALHO + slot * REGISTRO + ATIVO) == 1)
+					registros.add(registro(slot));
+			return registros;
+		}
+
+		byte[] le(Registro registro) throws IOException {
+			ByteBuffer dados = ByteBuffer.allocate(registro.tamanho);
+			FileChannel segmento = segmento(registro.segmento);
+
+			while (dados.hasRemaining()) {
+				if (segmento.read(dados, registro.posicao + dados.position()) < 0)
+					throw new IOException("Segmento " + registro.segmento + " menor que o esperado");
+			}
+
+			return dados.array();
+		}
+
+		void fecha() {
+			try {
+				indice.force();
+				canalIndice.close();
+				for (FileChannel segmento : segmentos.values())
+					segmento.close();
+			} catch (IOException e) {
+				System.out.println("Erro ao fechar o arquivo de XMLs " + e);
+			}
+		}
+
+		private Registro registro(int slot) {
+			int base = CABECALHO + slot * REGISTRO;
+			return new Registro(chave(base), indice.getInt(base + SEGMENTO), indice.getLong(base + POSICAO),
+					indice.getInt(base + TAMANHO));
+		}
+
+		private String chave(int base) {
+			byte[] chave = new byte[TAMANHO_CHAVE];
+			for (int i = 0; i < TAMANHO_CHAVE; i++)
+				chave[i] = indice.get(base + i);
+			return new String(chave, StandardCharsets.US_ASCII);
+		}
+
+		private FileChannel segmento(int numero) {
+			return segmentos.computeIfAbsent(numero, n -> {
+				try {
+					return FileChannel.open(diretorio.resolve(String.format("xml-%05d.seg", n)),
+							StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				} catch (IOException e) {
+					throw new RuntimeException("Erro ao abrir o segmento " + n + " de " + diretorio, e);
+				}
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,148 @@
+package net.originmobi.pdv.service.notafiscal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.originmobi.pdv.enumerado.notafiscal.EmissaoSituacao;
+
+/*
+ * Lote de notas enviado para emissão, consultado pela tela até que todas as
+ * notas estejam emitidas ou com erro
+ */
+public class EmissaoLote {
+
+	private final String id;
+	private final Map<Long, Nota> notas = new LinkedHashMap<>();
+
+	private volatile long inicio;
+	private volatile long fim;
+	private volatile long finalizadoEm;
+
+	public EmissaoLote(String id, List<Long> codigos) {
+		this.id = id;
+
+		for (Long codigo : codigos)
+			notas.put(codigo, new Nota(codigo));
+	}
+
+	void inicia() {
+		inicio = System.nanoTime();
+	}
+
+	void conclui() {
+		fim = System.nanoTime();
+		finalizadoEm = System.currentTimeMillis();
+	}
+
+	boolean finalizadoAntesDe(long limite) {
+		return finalizadoEm > 0 && finalizadoEm < limite;
+	}
+
+	Nota nota(Long codigo) {
+		return notas.get(codigo);
+	}
+
+	List<Long> codigos() {
+		return new ArrayList<>(notas.keySet());
+	}
+
+	/* as notas que não entraram em nenhuma etapa não existem no banco */
+	void naoEncontradas() {
+		for (Nota nota : notas.values())
+			if (nota.situacao == EmissaoSituacao.PENDENTE)
+				nota.falha("Nota fiscal não encontrada");
+	}
+
+	void falhaPendentes(String mensagem) {
+		for (Nota nota : notas.values())
+			if (nota.situacao != EmissaoSituacao.EMITIDA && nota.situacao != EmissaoSituacao.ERRO)
+				nota.falha(mensagem);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Collection<Nota> getNotas() {
+		return Collections.unmodifiableCollection(notas.values());
+	}
+
+	public boolean isConcluido() {
+		return finalizadoEm > 0;
+	}
+
+	public long getEmitidas() {
+		return notas.values().stream().filter(n -> n.situacao == EmissaoSituacao.EMITIDA).count();
+	}
+
+	public long getErros() {
+		return notas.values().stream().filter(n -> n.situacao == EmissaoSituacao.ERRO).count();
+	}
+
+	/* notas emitidas por segundo desde o início do lote */
+	public double getNotasPorSegundo() {
+		if (inicio == 0)
+			return 0;
+
+		long ate = fim > 0 ? fim : System.nanoTime();
+		double segundos = (ate - inicio) / 1_000_000_000.0;
+		return segundos > 0 ? getEmitidas() / segundos : 0;
+	}
+
+	public static class Nota {
+
+		private final Long codigo;
+
+		private volatile EmissaoSituacao situacao = EmissaoSituacao.PENDENTE;
+		private volatile String chave;
+		private volatile String mensagem;
+
+		Nota(Long codigo) {
+			this.codigo = codigo;
+		}
+
+		void gerada(String chave) {
+			this.chave = chave;
+			this.situacao = EmissaoSituacao.GERADA;
+		}
+
+		void assinada() {
+			situacao = EmissaoSituacao.ASSINADA;
+		}
+
+		void emitida() {
+			situacao = EmissaoSituacao.EMITIDA;
+		}
+
+		void falha(String mensagem) {
+			this.mensagem = mensagem;
+			this.situacao = EmissaoSituacao.ERRO;
+		}
+
+		boolean falhou() {
+			return situacao == EmissaoSituacao.ERRO;
+		}
+
+		public Long getCodigo() {
+			return codigo;
+		}
+
+		public EmissaoSituacao getSituacao() {
+			return situacao;
+		}
+
+		public String getChave() {
+			return chave;
+		}
+
+		public String getMensagem() {
+			return mensagem;
+		}
+
+	}
+
+}
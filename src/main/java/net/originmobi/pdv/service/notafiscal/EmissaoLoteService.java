@@ -0,0 +1,249 @@
+package net.originmobi.pdv.service.notafiscal;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import net.originmobi.pdv.model.NotaFiscal;
+import net.originmobi.pdv.xml.nfe.AssinaXML;
+import net.originmobi.pdv.xml.nfe.EscritorXmlNfe;
+import net.originmobi.pdv.xml.nfe.GeraXmlNfe;
+
+/*
+ * Emissão de notas em lote. Cada nota passa por três etapas: gera o XML, assina
+ * e grava. Gerar e assinar usam a CPU e rodam em um pool do tamanho dos núcleos,
+ * gravar faz I/O e roda em um pool pequeno. As notas de uma mesma série são
+ * gravadas na ordem da numeração, mesmo que a assinatura de uma nota posterior
+ * termine antes. O número de notas em andamento é limitado, então as filas dos
+ * pools nunca passam desse limite e os XMLs não se acumulam na memória.
+ *
+ * Os lotes são processados um de cada vez, na ordem em que foram enviados.
+ */
+@Service
+public class EmissaoLoteService {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmissaoLoteService.class);
+
+	private static final long TEMPO_RETENCAO = TimeUnit.MINUTES.toMillis(30);
+
+	@Autowired
+	private NotaFiscalService notasFiscais;
+
+	@Autowired
+	private GeraXmlNfe geraXmlNfe;
+
+	@Autowired
+	private EscritorXmlNfe escritor;
+
+	@Autowired
+	private AssinaXML assina;
+
+	/* 0 usa a quantidade de núcleos da máquina */
+	@Value("${pdv.nfe.lote.threads:0}")
+	private int threads = 0;
+
+	@Value("${pdv.nfe.lote.threads-gravacao:2}")
+	private int threadsGravacao = 2;
+
+	@Value("${pdv.nfe.lote.em-andamento:64}")
+	private int limiteEmAndamento = 64;
+
+	private ExecutorService coordenador;
+	private ExecutorService processamento;
+	private ExecutorService gravacao;
+
+	private final Map<String, EmissaoLote> lotes = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void inicia() {
+		int nucleos = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+		coordenador = Executors.newSingleThreadExecutor(fabrica("nfe-lote"));
+		processamento = Executors.newFixedThreadPool(nucleos, fabrica("nfe-processa"));
+		gravacao = Executors.newFixedThreadPool(threadsGravacao, fabrica("nfe-grava"));
+	}
+
+	@PreDestroy
+	public void encerra() {
+		coordenador.shutdownNow();
+		processamento.shutdownNow();
+		gravacao.shutdownNow();
+	}
+
+	/*
+	 * Coloca as notas na fila de emissão e retorna o lote para acompanhamento
+	 */
+	public EmissaoLote envia(List<Long> codigos) {
+		if (codigos == null || codigos.isEmpty())
+			throw new RuntimeException("Selecione ao menos uma nota fiscal para emitir");
+
+		EmissaoLote lote = new EmissaoLote(UUID.randomUUID().toString(),
+				new ArrayList<>(new LinkedHashSet<>(codigos)));
+		lotes.put(lote.getId(), lote);
+
+		coordenador.execute(() -> processa(lote));
+		return lote;
+	}
+
+	public Optional<EmissaoLote> busca(String id) {
+		return Optional.ofNullable(lotes.get(id));
+	}
+
+	@Scheduled(fixedDelay = 60000)
+	public void removeFinalizados() {
+		long limite = System.currentTimeMillis() - TEMPO_RETENCAO;
+		lotes.values().removeIf(lote -> lote.finalizadoAntesDe(limite));
+	}
+
+	private void processa(EmissaoLote lote) {
+		lote.inicia();
+
+		try {
+			List<NotaFiscal> notas = new ArrayList<>(notasFiscais.buscaParaEmissao(lote.codigos()));
+			notas.sort(Comparator.comparingInt(NotaFiscal::getSerie).thenComparing(NotaFiscal::getNumero));
+
+			Semaphore emAndamento = new Semaphore(limiteEmAndamento);
+			Map<Integer, CompletableFuture<Void>> ultimaDaSerie = new HashMap<>();
+
+			for (NotaFiscal notaFiscal : notas) {
+				Etapa etapa = new Etapa(notaFiscal, lote.nota(notaFiscal.getCodigo()));
+				emAndamento.acquireUninterruptibly();
+
+				CompletableFuture<Etapa> assinada = CompletableFuture.supplyAsync(() -> gera(etapa), processamento)
+						.thenApplyAsync(this::assina, processamento);
+
+				// a nota só é gravada depois da anterior da mesma série
+				CompletableFuture<Void> anterior = ultimaDaSerie.getOrDefault(notaFiscal.getSerie(),
+						CompletableFuture.completedFuture(null));
+
+				CompletableFuture<Void> gravada = anterior.thenCombineAsync(assinada, (v, e) -> {
+					grava(e);
+					return null;
+				}, gravacao);
+
+				// libera a vaga mesmo que alguma etapa termine com exceção, e a falha fica
+				// só nesta nota, a próxima da série continua encadeada em um futuro concluído
+				ultimaDaSerie.put(notaFiscal.getSerie(), gravada.handle((v, erro) -> {
+					emAndamento.release();
+					if (erro != null)
+						etapa.situacao.falha(mensagem(erro));
+					return null;
+				}));
+			}
+
+			CompletableFuture.allOf(ultimaDaSerie.values().toArray(new CompletableFuture<?>[0])).join();
+
+			lote.naoEncontradas();
+		} catch (Exception e) {
+			lote.falhaPendentes(mensagem(e));
+		} finally {
+			lote.conclui();
+			logger.info("Lote {}: {} notas emitidas, {} com erro, {} notas/s", lote.getId(), lote.getEmitidas(),
+					lote.getErros(), String.format("%.1f", lote.getNotasPorSegundo()));
+		}
+	}
+
+	private Etapa gera(Etapa etapa) {
+		try {
+			// um só instante para a chave, o dhEmi e o mês em que o XML é arquivado
+			OffsetDateTime emissao = OffsetDateTime.now();
+			String chave = geraXmlNfe.geraChave(etapa.notaFiscal, emissao);
+			etapa.xml = escritor.escreve(etapa.notaFiscal, chave, emissao);
+			etapa.situacao.gerada(chave);
+		} catch (Exception e) {
+			etapa.situacao.falha(mensagem(e));
+		}
+		return etapa;
+	}
+
+	private Etapa assina(Etapa etapa) {
+		if (etapa.situacao.falhou())
+			return etapa;
+
+		try {
+			etapa.xml = assina.assina(etapa.xml);
+			etapa.situacao.assinada();
+		} catch (Exception e) {
+			etapa.situacao.falha(mensagem(e));
+		}
+		return etapa;
+	}
+
+	private void grava(Etapa etapa) {
+		if (etapa.situacao.falhou())
+			return;
+
+		NotaFiscal notaFiscal = etapa.notaFiscal;
+		String chave = etapa.situacao.getChave();
+
+		try {
+			if (notaFiscal.getChave_acesso() != null)
+				notasFiscais.removeXml(notaFiscal.getChave_acesso());
+
+			notasFiscais.salvaXML(etapa.xml, chave);
+			notasFiscais.registraEmissao(notaFiscal.getCodigo(), chave);
+			etapa.situacao.emitida();
+		} catch (Exception e) {
+			etapa.situacao.falha(mensagem(e));
+		} finally {
+			etapa.xml = null;
+		}
+	}
+
+	private String mensagem(Throwable e) {
+		Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		return causa.getMessage() != null ? causa.getMessage() : "Erro ao emitir a nota, chame o suporte";
+	}
+
+	private ThreadFactory fabrica(String nome) {
+		AtomicInteger sequencia = new AtomicInteger();
+
+		return tarefa -> {
+			Thread thread = new Thread(tarefa, nome + "-" + sequencia.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/*
+	 * Nota percorrendo as etapas, o XML passa de uma etapa para a seguinte
+	 */
+	private static final class Etapa {
+
+		private final NotaFiscal notaFiscal;
+		private final EmissaoLote.Nota situacao;
+		private byte[] xml;
+
+		Etapa(NotaFiscal notaFiscal, EmissaoLote.Nota situacao) {
+			this.notaFiscal = notaFiscal;
+			this.situacao = situacao;
+		}
+
+	}
+
+}
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import net.originmobi.pdv.model.NotaFiscalItemImposto;
 import net.originmobi.pdv.model.TributacaoRegra;
 import net.originmobi.pdv.repository.notafiscal.NotaFiscalItemImpostoRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @Service
 public class NotaFiscalItemImpostoService {
@@ -70,28 +71,25 @@ public class NotaFiscalItemImpostoService {
         dto.setCstCofins(regra.getCst_cofins().getCst());
         dto.setCstPis(regra.getCst_pis().getCst());
 
-        dto.setBcIcms(vlTotal);
+        // a base é a mesma para todos os impostos e cada valor é arredondado no centavo, como vai no XML
+        Dinheiro base = Dinheiro.de(vlTotal);
+
+        dto.setBcIcms(base.valor());
         dto.setAliqIcms(regra.getAliq_icms());
-        dto.setVlIcms((vlTotal * dto.getAliqIcms()) / 100);
+        dto.setVlIcms(base.percentual(dto.getAliqIcms()).valor());
 
-        dto.setBcPis(vlTotal);
+        dto.setBcPis(base.valor());
         dto.setPis(regra.getPis());
+        dto.setVlPis(base.percentual(dto.getPis()).valor());
 
-        Double calcVlPis = (dto.getBcPis() * dto.getPis()) / 100;
-        dto.setVlPis(calcVlPis);
-
-        dto.setBcCofins(vlTotal);
+        dto.setBcCofins(base.valor());
         dto.setAliqCofins(regra.getCofins());
-
-        Double calcVlCofins = (dto.getBcCofins() * dto.getAliqCofins()) / 100;
-        dto.setVlCofins(calcVlCofins);
+        dto.setVlCofins(base.percentual(dto.getAliqCofins()).valor());
 
         dto.setCstIpi(Integer.parseInt(regra.getCst_ipi().getCst()));
-        dto.setVbcIpi(vlTotal);
+        dto.setVbcIpi(base.valor());
         dto.setpIpi(regra.getAliq_ipi());
-
-        Double calcVIpi = (dto.getVbcIpi() * dto.getpIpi()) / 100;
-        dto.setvIpi(calcVIpi);
+        dto.setvIpi(base.percentual(dto.getpIpi()).valor());
 
         try {
             return merger(dto);
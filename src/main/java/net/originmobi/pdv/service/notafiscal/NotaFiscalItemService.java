@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import net.originmobi.pdv.dto.TotaisNotaDTO;
 import net.originmobi.pdv.enumerado.EntradaSaida;
 import net.originmobi.pdv.enumerado.notafiscal.NotaFiscalTipo;
 import net.originmobi.pdv.enumerado.produto.ProdutoSubstTributaria;
@@ -20,6 +21,7 @@ import net.originmobi.pdv.model.Tributacao;
 import net.originmobi.pdv.model.TributacaoRegra;
 import net.originmobi.pdv.repository.notafiscal.NotaFiscalItemRepository;
 import net.originmobi.pdv.service.ProdutoService;
+import net.originmobi.pdv.service.TabelaTributacao;
 
 @Service
 public class NotaFiscalItemService {
@@ -39,6 +41,9 @@ public class NotaFiscalItemService {
 	@Autowired
 	private NotaFiscalService notas;
 
+	@Autowired
+	private TabelaTributacao tabela;
+
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
 	public String insere(Long prod, Long codnota, int qtd, NotaFiscalTipo tipo) {
 		Optional<Produto> produto = produtos.buscaProduto(prod);
@@ -46,50 +51,37 @@ public class NotaFiscalItemService {
 
 		verificaRegraDeTributacao(tipo, produto);
 
-		Tributacao tributacao = produto.map(Produto::getTributacao).get();
+		Produto prodNota = produto.get();
+		NotaFiscal nota = notaFiscal.get();
+		Tributacao tributacao = prodNota.getTributacao();
 
 		Long codImposto = null;
 		Long codNotaItem = null;
-
-		// verifica se já tem o item
-		for (int i = 0; i < notaFiscal.map(NotaFiscal::getItens).get().size(); i++) {
-			if (notaFiscal.map(NotaFiscal::getItens).get().get(i).getCodProd().equals(prod)) {
-
-				qtd = qtd + notaFiscal.map(NotaFiscal::getItens).get().get(i).getQtd();
-				codImposto = notaFiscal.map(NotaFiscal::getItens).get().get(i).getImpostos().getCodigo();
-				codNotaItem = notaFiscal.map(NotaFiscal::getItens).get().get(i).getCodigo();
-			}
+		TotaisNotaDTO anterior = TotaisNotaDTO.ZERO;
+
+		// verifica se já tem o item, guardando os valores antes do recálculo
+		NotaFiscalItem itemExistente = itemDoProduto(nota, prod);
+		if (itemExistente != null) {
+			qtd = qtd + itemExistente.getQtd();
+			codImposto = itemExistente.getImpostos().getCodigo();
+			codNotaItem = itemExistente.getCodigo();
+			anterior = TotaisNotaDTO.doItem(itemExistente);
 		}
 
-		char origin = tributacao.getRegra().get(0).getCst_csosn().getCst_csosn().toString().charAt(0);
-		Double vlTotal = produto.map(Produto::getValor_venda).get() * qtd;
-		String uniTribu = produto.map(Produto::getUnidade).get();
-		int modBcIcms = produto.map(Produto::getModBcIcms).get().getTipo();
-		Double vlUnidade = produto.map(Produto::getValor_venda).get();
+		char origin = tabela.primeira(tributacao).get().getCst_csosn().getCst_csosn().charAt(0);
+		Double vlTotal = prodNota.getValor_venda() * qtd;
+		String uniTribu = prodNota.getUnidade();
+		int modBcIcms = prodNota.getModBcIcms().getTipo();
+		Double vlUnidade = prodNota.getValor_venda();
 
 		// pega uf do destinatário
-		String ufDestinatario = notaFiscal.map(NotaFiscal::getDestinatario).get().getEndereco().getCidade().getEstado()
-				.getSigla();
-
-		TributacaoRegra regra = null;
+		String ufDestinatario = nota.getDestinatario().getEndereco().getCidade().getEstado().getSigla();
 
 		// pega a regra da tributação do produto que é da mesma uf do destinatário e do
-		// mesmo
-		// estilo da nota
-		for (int i = 0; i < produto.map(Produto::getTributacao).get().getRegra().size(); i++) {
-			String ufRegra = produto.map(Produto::getTributacao).get().getRegra().get(i).getUf().getSigla();
-			String tipoRegra = produto.map(Produto::getTributacao).get().getRegra().get(i).getTipo().toString();
-			String tipoNota = notaFiscal.map(NotaFiscal::getTipo).get().toString();
-
-			if (ufRegra.equals(ufDestinatario)) {
-				if (tipoRegra.equals(tipoNota)) {
-					regra = produto.map(Produto::getTributacao).get().getRegra().get(i);
-				}
-			}
-		}
-
-		if (regra == null)
-			throw new RuntimeException("Nenhuma regra de tributação cadastrada para a UF do destinatário");
+		// mesmo estilo da nota
+		EntradaSaida tipoNota = EntradaSaida.valueOf(nota.getTipo().name());
+		TributacaoRegra regra = tabela.regra(tributacao, ufDestinatario, tipoNota).orElseThrow(
+				() -> new RuntimeException("Nenhuma regra de tributação cadastrada para a UF do destinatário"));
 
 		String cfop = regra.getCfop().getCfop();
 
@@ -97,8 +89,8 @@ public class NotaFiscalItemService {
 		NotaFiscalItemImposto imposto = impostos.calcula(codImposto, vlTotal, regra, origin, modBcIcms);
 
 		// cria item da nota com imposto vinculado
-		NotaFiscalItem item = new NotaFiscalItem(prod, qtd, vlTotal, uniTribu, qtd, vlUnidade, notaFiscal.get(),
-				imposto, cfop);
+		NotaFiscalItem item = new NotaFiscalItem(prod, qtd, vlTotal, uniTribu, qtd, vlUnidade, nota, imposto,
+				cfop);
 
 		// se for diferente de null, se trata de uma atualização
 		if (codNotaItem != null)
@@ -111,17 +103,26 @@ public class NotaFiscalItemService {
 			throw new RuntimeException("Erro ao salvar item na nota, chame o suporte");
 		}
 
-		// atualiza totais da nota
-		NotaFiscalTotais total = notaFiscal.get().getTotais();
-		Long codNota = notaFiscal.get().getCodigo();
-		totais.atualiza(codNota, total);
+		// atualiza totais da nota somente com a diferença do item
+		totais.aplica(nota.getTotais(), anterior, TotaisNotaDTO.doItem(item));
 
 		return "ok";
 	}
 
+	/* a nota tem no máximo um item de cada produto */
+	private NotaFiscalItem itemDoProduto(NotaFiscal nota, Long prod) {
+		if (nota.getItens() != null)
+			for (NotaFiscalItem item : nota.getItens())
+				if (item.getCodProd().equals(prod))
+					return item;
+
+		return null;
+	}
+
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
 	public void remove(Long notaitem, Long codnota) {
-		
+		TotaisNotaDTO anterior = itemServer.findById(notaitem).map(TotaisNotaDTO::doItem).orElse(null);
+
 		try {
 			itemServer.deleteById(notaitem);
 		} catch (Exception e) {
@@ -131,7 +132,12 @@ public class NotaFiscalItemService {
 		
 		Optional<NotaFiscal> notaFiscal = notas.busca(codnota);
 		NotaFiscalTotais total = notaFiscal.get().getTotais();
-		totais.atualiza(codnota, total);
+
+		// sem os valores do item removido soma a nota inteira de novo
+		if (anterior != null)
+			totais.aplica(total, anterior, TotaisNotaDTO.ZERO);
+		else
+			totais.atualiza(codnota, total);
 	}
 
 	private void verificaRegraDeTributacao(NotaFiscalTipo tipo, Optional<Produto> produto) {
@@ -153,23 +159,12 @@ public class NotaFiscalItemService {
 
 		// verifica se a tributação do produto possue regra para o estilo de nota
 		// selecionado
+		Tributacao tributacao = produto.get().getTributacao();
 		if (tipo.equals(NotaFiscalTipo.SAIDA)) {
-			int aux = 0;
-			for (int i = 0; i < produto.map(Produto::getTributacao).get().getRegra().size(); i++) {
-				if (produto.map(Produto::getTributacao).get().getRegra().get(i).getTipo().equals(EntradaSaida.SAIDA))
-					aux = aux + 1;
-			}
-
-			if (aux == 0)
+			if (!tabela.possuiRegra(tributacao, EntradaSaida.SAIDA))
 				throw new RuntimeException("Tributação sem regra de saída, verifique");
 		} else {
-			int aux = 0;
-			for (int i = 0; i < produto.map(Produto::getTributacao).get().getRegra().size(); i++) {
-				if (produto.map(Produto::getTributacao).get().getRegra().get(i).getTipo().equals(EntradaSaida.ENTRADA))
-					aux = aux + 1;
-			}
-
-			if (aux == 0)
+			if (!tabela.possuiRegra(tributacao, EntradaSaida.ENTRADA))
 				throw new RuntimeException("Tributação sem regra de entrada, verifique");
 		}
 	}
@@ -1,22 +1,28 @@
 package net.originmobi.pdv.service.notafiscal;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import net.originmobi.pdv.enumerado.notafiscal.NotaFiscalTipo;
 import net.originmobi.pdv.model.Empresa;
@@ -26,6 +32,7 @@ import net.originmobi.pdv.model.NotaFiscalFinalidade;
 import net.originmobi.pdv.model.NotaFiscalTotais;
 import net.originmobi.pdv.model.Pessoa;
 import net.originmobi.pdv.repository.notafiscal.NotaFiscalRepository;
+import net.originmobi.pdv.service.DashboardService;
 import net.originmobi.pdv.service.EmpresaService;
 import net.originmobi.pdv.service.PessoaService;
 import net.originmobi.pdv.xml.nfe.GeraXmlNfe;
@@ -33,6 +40,9 @@ import net.originmobi.pdv.xml.nfe.GeraXmlNfe;
 @Service
 public class NotaFiscalService {
 
+	private static final String MODO_ARQUIVO = "arquivo";
+	private static final String MODO_SEGMENTO = "segmento";
+
 	@Autowired
 	private NotaFiscalRepository notasFiscais;
 
@@ -48,9 +58,25 @@ public class NotaFiscalService {
 	@Autowired
 	private GeraXmlNfe geraXmlNfe;
 
+	@Autowired
+	private DashboardService dashboard;
+
+	@Autowired
+	private ArquivoXmlNfe arquivo;
+
+	@Autowired
+	private NumeracaoNotaFiscal numeracao;
+
 	@Value("${nfe.xml.path:/tmp/nfe}")
 	private String CAMINHO_XML;
 
+	/*
+	 * "segmento" guarda os XMLs no arquivo compactado por mês, "arquivo" mantém
+	 * um arquivo .xml por nota direto no diretório
+	 */
+	@Value("${nfe.xml.modo:arquivo}")
+	private String modo = MODO_ARQUIVO;
+
 	public List<NotaFiscal> lista() {
 		return notasFiscais.findAll();
 	}
@@ -91,15 +117,23 @@ public class NotaFiscalService {
 		}
 
 		// Cadastra nota
+		Long numeroNota = numeracao.proximo(serie);
+		NumeroReservado reservado = acompanha(serie, numeroNota);
 		try {
-			Long numeroNota = notasFiscais.buscaUltimaNota(serie);
 			NotaFiscal notaFiscal = new NotaFiscal(numeroNota, modelo, tipo, natureza, serie, empresa,
 					pessoa, tipoEmissao, verProc, frete, finalidade, totais, tipoAmbiente, cadastro);
 
 			NotaFiscal notaSalva = notasFiscais.save(notaFiscal);
+			dashboard.notaEmitida();
 			return notaSalva.getCodigo().toString();
 
 		} catch (Exception e) {
+			// o número já foi reservado, fica registrado para a inutilização
+			String motivo = "Erro ao cadastrar a nota: " + e.getMessage();
+			if (reservado != null)
+				reservado.motivo = motivo;
+			else
+				numeracao.registraLacuna(serie, numeroNota, motivo);
 			throw new RuntimeException("Erro ao cadastrar a nota, chame o suporte", e);
 		}
 	}
@@ -127,6 +161,15 @@ public class NotaFiscalService {
 	}
 
 	public void salvaXML(String xml, String chaveNfe) {
+		salvaXML(xml.getBytes(StandardCharsets.UTF_8), chaveNfe);
+	}
+
+	public void salvaXML(byte[] xml, String chaveNfe) {
+		if (segmentado()) {
+			arquivo.grava(chaveNfe, xml);
+			return;
+		}
+
 		try {
 			Path arquivoDestino = resolveArquivo(chaveNfe);
 
@@ -138,10 +181,7 @@ public class NotaFiscalService {
 				}
 			}
 
-			// Escreve arquivo (Try-with-resources fecha automaticamente)
-			try (PrintWriter out = new PrintWriter(new FileWriter(arquivoDestino.toFile()))) {
-				out.write(xml);
-			}
+			Files.write(arquivoDestino, xml);
 
 			System.out.println("Arquivo gravado com sucesso em " + arquivoDestino.toString());
 
@@ -153,6 +193,9 @@ public class NotaFiscalService {
 	}
 
 	public void removeXml(String chave_acesso) {
+		if (segmentado() && arquivo.remove(chave_acesso))
+			return;
+
 		try {
 			Path arquivo = resolveArquivo(chave_acesso);
 			System.out.println("XML para deletar " + arquivo.toString());
@@ -162,8 +205,63 @@ public class NotaFiscalService {
 		}
 	}
 
+	/*
+	 * XML da nota, as notas gravadas antes do arquivo por mês continuam sendo
+	 * lidas do diretório
+	 */
+	public Optional<byte[]> buscaXml(String chaveNfe) {
+		try {
+			if (segmentado()) {
+				Optional<byte[]> xml = arquivo.busca(chaveNfe);
+				if (xml.isPresent())
+					return xml;
+			}
+
+			Path arquivoXml = resolveArquivo(chaveNfe);
+			return Files.exists(arquivoXml) ? Optional.of(Files.readAllBytes(arquivoXml)) : Optional.empty();
+		} catch (IOException e) {
+			throw new RuntimeException("Erro ao ler o XML da nota " + chaveNfe, e);
+		}
+	}
+
+	/*
+	 * Exporta em um zip os XMLs das notas emitidas no mês informado (AAMM), para o
+	 * contador
+	 */
+	public void exportaXmlMes(String aamm, OutputStream saida) throws IOException {
+		if (aamm == null || !aamm.matches("\\d{4}"))
+			throw new RuntimeException("Informe o mês no formato AAMM");
+
+		ZipOutputStream zip = new ZipOutputStream(saida);
+
+		if (segmentado())
+			arquivo.exporta(aamm, zip);
+
+		// notas gravadas um arquivo por nota
+		Path diretorio = diretorioXml();
+		if (Files.isDirectory(diretorio)) {
+			try (DirectoryStream<Path> xmls = Files.newDirectoryStream(diretorio, "??" + aamm + "*.xml")) {
+				for (Path xml : xmls) {
+					zip.putNextEntry(new ZipEntry(xml.getFileName().toString()));
+					Files.copy(xml, zip);
+					zip.closeEntry();
+				}
+			}
+		}
+
+		zip.finish();
+	}
+
+	private boolean segmentado() {
+		return MODO_SEGMENTO.equalsIgnoreCase(modo);
+	}
+
 	// Método auxiliar para evitar duplicação de lógica de caminho
 	private Path resolveArquivo(String nomeArquivo) throws IOException {
+		return diretorioXml().resolve(nomeArquivo + ".xml");
+	}
+
+	private Path diretorioXml() throws IOException {
 
 		if (CAMINHO_XML == null) {
 			throw new IOException("Caminho do XML não configurado (null)");
@@ -176,7 +274,7 @@ public class NotaFiscalService {
 			String contexto = new File(".").getCanonicalPath();
 			diretorioBase = Paths.get(contexto, CAMINHO_XML);
 		}
-		return diretorioBase.resolve(nomeArquivo + ".xml");
+		return diretorioBase;
 	}
 
 	public Optional<NotaFiscal> busca(Long codnota) {
@@ -189,7 +287,56 @@ public class NotaFiscalService {
 		notasFiscais.save(notaFiscal);
 	}
 
+	/*
+	 * Carrega as notas com tudo o que o XML usa, a geração do lote acontece fora
+	 * da transação
+	 */
+	@Transactional(readOnly = true)
+	public List<NotaFiscal> buscaParaEmissao(Collection<Long> codigos) {
+		List<NotaFiscal> notas = notasFiscais.buscaComItens(codigos);
+		notas.forEach(nota -> nota.getDestinatario().getTelefone().size());
+		return notas;
+	}
+
+	public void registraEmissao(Long codigo, String chaveNfe) {
+		notasFiscais.atualizaChave(codigo, chaveNfe);
+	}
+
 	public int totalNotaFiscalEmitidas() {
 		return notasFiscais.totalNotaFiscalEmitidas();
 	}
+
+	/*
+	 * O número é reservado em uma transação própria, se a transação do cadastro
+	 * for desfeita, inclusive no commit, o número fica registrado como lacuna.
+	 * Retorna null fora de uma transação.
+	 */
+	private NumeroReservado acompanha(int serie, long numero) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+			return null;
+
+		NumeroReservado reservado = new NumeroReservado(serie, numero);
+		TransactionSynchronizationManager.registerSynchronization(reservado);
+		return reservado;
+	}
+
+	private final class NumeroReservado extends TransactionSynchronizationAdapter {
+
+		private final int serie;
+		private final long numero;
+		private String motivo = "Cadastro da nota desfeito";
+
+		NumeroReservado(int serie, long numero) {
+			this.serie = serie;
+			this.numero = numero;
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			// registraLacuna grava em uma transação nova, a do cadastro já terminou
+			if (status == STATUS_ROLLED_BACK)
+				numeracao.registraLacuna(serie, numero, motivo);
+		}
+
+	}
 }
\ No newline at end of file
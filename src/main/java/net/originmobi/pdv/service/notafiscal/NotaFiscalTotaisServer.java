@@ -4,7 +4,10 @@ import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import net.originmobi.pdv.dto.TotaisNotaDTO;
 import net.originmobi.pdv.model.NotaFiscalTotais;
 import net.originmobi.pdv.repository.notafiscal.NotaFiscalTotaisRepository;
 
@@ -22,25 +25,38 @@ public class NotaFiscalTotaisServer {
 		return totais.save(total);
 	}
 
+	/*
+	 * Aplica nos totais da nota a diferença entre os valores novos e os anteriores
+	 * do item alterado, sem somar de novo os demais itens. Um item incluído tem os
+	 * valores anteriores zerados e um item removido tem os novos zerados.
+	 */
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	public void aplica(NotaFiscalTotais total, TotaisNotaDTO anterior, TotaisNotaDTO novo) {
+		TotaisNotaDTO diferenca = novo.menos(anterior);
+
+		try {
+			totais.soma(total.getCodigo(), diferenca.getProdutos(), diferenca.getIcms(), diferenca.getPis(),
+					diferenca.getCofins(), diferenca.getIpi());
+		} catch (Exception e) {
+			System.out.println(e);
+			throw new RuntimeException("Erro ao salvar item na nota, chame o suporte");
+		}
+	}
+
+	/*
+	 * Soma todos os itens da nota e grava os totais, usado para conferir ou
+	 * corrigir os totais mantidos pela diferença dos itens
+	 */
 	public void atualiza(Long codNota, NotaFiscalTotais total) {
-		System.out.println("codnota " + codNota);
-		System.out.println("totais " + total.getCodigo());
-		String[] array = totais.calcula(codNota).split(",");
-		
-		Double totalProdutos = Double.valueOf(array[0]);
-		Double totalIcms = Double.valueOf(array[1]);
-		Double totalPis = Double.valueOf(array[2]);
-		Double totalCofins = Double.valueOf(array[3]);
-		Double totalIpi = Double.valueOf(array[4]);
-		Double totalNota = totalProdutos + totalIpi;
-
-		total.setV_bc(totalProdutos);
-		total.setV_prod(totalProdutos);
-		total.setV_icms(totalIcms);
-		total.setV_pis(totalPis);
-		total.setV_cofins(totalCofins);
-		total.setV_ipi(totalIpi);
-		total.setV_nf(totalNota);
+		TotaisNotaDTO calculado = totais.calcula(codNota);
+
+		total.setV_bc(calculado.getProdutos());
+		total.setV_prod(calculado.getProdutos());
+		total.setV_icms(calculado.getIcms());
+		total.setV_pis(calculado.getPis());
+		total.setV_cofins(calculado.getCofins());
+		total.setV_ipi(calculado.getIpi());
+		total.setV_nf(calculado.getNota());
 
 		try {
 			totais.save(total);
@@ -50,4 +66,17 @@ public class NotaFiscalTotaisServer {
 		}
 	}
 
+	/* os totais gravados batem com a soma dos itens, com tolerância de meio centavo */
+	public boolean confere(Long codNota, NotaFiscalTotais total) {
+		TotaisNotaDTO calculado = totais.calcula(codNota);
+
+		return igual(total.getV_prod(), calculado.getProdutos()) && igual(total.getV_icms(), calculado.getIcms())
+				&& igual(total.getV_pis(), calculado.getPis()) && igual(total.getV_cofins(), calculado.getCofins())
+				&& igual(total.getV_ipi(), calculado.getIpi()) && igual(total.getV_nf(), calculado.getNota());
+	}
+
+	private boolean igual(Double gravado, double calculado) {
+		return Math.abs((gravado != null ? gravado : 0.0) - calculado) < 0.005;
+	}
+
 }
@@ -0,0 +1,129 @@
+package net.originmobi.pdv.service.notafiscal;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.originmobi.pdv.model.NotaFiscalLacuna;
+import net.originmobi.pdv.model.NotaFiscalSequencia;
+import net.originmobi.pdv.repository.notafiscal.NotaFiscalLacunaRepository;
+import net.originmobi.pdv.repository.notafiscal.NotaFiscalSequenciaRepository;
+
+/*
+ * Numeração das notas por série. O próximo número fica em uma linha por série,
+ * reservada em uma transação própria e curta, com lock somente na linha da série,
+ * assim o cadastro de uma nota não espera o de outra terminar.
+ *
+ * Com pdv.nfe.numeracao.bloco maior que 1 os números são reservados em blocos e
+ * entregues da memória. Os números de um bloco que não forem usados até a
+ * aplicação parar, assim como os de notas que falharam ao cadastrar, ficam
+ * registrados como lacunas para a inutilização.
+ */
+@Service
+public class NumeracaoNotaFiscal {
+
+	private static final String NAO_USADO = "Número reservado e não usado até o encerramento da aplicação";
+
+	@Autowired
+	private NotaFiscalSequenciaRepository sequencias;
+
+	@Autowired
+	private NotaFiscalLacunaRepository lacunas;
+
+	@Autowired
+	private PlatformTransactionManager transacoes;
+
+	@Value("${pdv.nfe.numeracao.bloco:1}")
+	private int tamanhoBloco = 1;
+
+	private TransactionTemplate novaTransacao;
+
+	private final Map<Integer, Bloco> blocos = new ConcurrentHashMap<>();
+
+	// séries que já têm a linha da sequência
+	private final Set<Integer> criadas = ConcurrentHashMap.newKeySet();
+
+	@PostConstruct
+	public void inicia() {
+		novaTransacao = new TransactionTemplate(transacoes);
+		novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/*
+	 * Próximo número da série, nunca entregue duas vezes
+	 */
+	public long proximo(int serie) {
+		Bloco bloco = blocos.computeIfAbsent(serie, s -> new Bloco());
+
+		synchronized (bloco) {
+			if (bloco.proximo >= bloco.fim) {
+				bloco.proximo = reserva(serie, tamanhoBloco);
+				bloco.fim = bloco.proximo + tamanhoBloco;
+			}
+
+			return bloco.proximo++;
+		}
+	}
+
+	public void registraLacuna(int serie, long numero, String motivo) {
+		novaTransacao.execute(status -> lacunas
+				.save(new NotaFiscalLacuna(serie, numero, motivo, new Timestamp(System.currentTimeMillis()))));
+	}
+
+	public List<NotaFiscalLacuna> lacunas(int serie) {
+		return lacunas.findBySerieOrderByNumero(serie);
+	}
+
+	@PreDestroy
+	public void encerra() {
+		for (Map.Entry<Integer, Bloco> entrada : blocos.entrySet()) {
+			Bloco bloco = entrada.getValue();
+
+			synchronized (bloco) {
+				for (long numero = bloco.proximo; numero < bloco.fim; numero++)
+					registraLacuna(entrada.getKey(), numero, NAO_USADO);
+
+				bloco.proximo = bloco.fim;
+			}
+		}
+	}
+
+	private long reserva(int serie, int quantidade) {
+		// a linha é criada antes, na sua própria transação: o lock pedido sobre uma
+		// linha que não existe trava o intervalo do índice, e duas primeiras reservas
+		// da série inserindo nele na mesma transação entrariam em deadlock
+		if (!criadas.contains(serie)) {
+			novaTransacao.execute(status -> sequencias.criaSeNaoExistir(serie));
+			criadas.add(serie);
+		}
+
+		return novaTransacao.execute(status -> {
+			NotaFiscalSequencia sequencia = sequencias.bloqueia(serie)
+					.orElseThrow(() -> new RuntimeException("Erro ao numerar a nota, chame o suporte"));
+
+			long inicio = sequencia.getProximo();
+			sequencia.setProximo(inicio + quantidade);
+			return inicio;
+		});
+	}
+
+	private static final class Bloco {
+
+		private long proximo;
+		private long fim;
+
+	}
+
+}
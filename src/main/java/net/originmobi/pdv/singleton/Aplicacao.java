@@ -2,22 +2,18 @@ package net.originmobi.pdv.singleton;
 
 import org.springframework.security.core.context.SecurityContextHolder;
 
+/*
+ * Nome do usuário autenticado no momento em que a instância é criada. Não deve
+ * ser guardada entre requisições, para o Usuario use o UsuarioAtualService.
+ */
 public class Aplicacao {
 
-	private static Aplicacao aplicacao;
 	private String usuarioAtual;
 
 	public Aplicacao() {
 		usuarioAtual = SecurityContextHolder.getContext().getAuthentication().getName();
 	}
 
-	public static synchronized Aplicacao getInstancia() {
-		if (aplicacao == null) {
-			aplicacao = new Aplicacao();
-		}
-		return aplicacao;
-	}
-
 	public String getUsuarioAtual() {
 		return usuarioAtual;
 	}
@@ -0,0 +1,192 @@
+package net.originmobi.pdv.utilitarios;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+ * Valor monetário em centavos. As contas de venda, caixa e recebimento são
+ * feitas em long e o arredondamento para o centavo acontece só quando um valor
+ * entra (de um Double ou de um texto) ou quando é aplicado um percentual, assim
+ * as somas não acumulam a diferença do ponto flutuante.
+ */
+public final class Dinheiro implements Comparable<Dinheiro>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final Dinheiro ZERO = new Dinheiro(0);
+
+	private final long centavos;
+
+	private Dinheiro(long centavos) {
+		this.centavos = centavos;
+	}
+
+	public static Dinheiro deCentavos(long centavos) {
+		return centavos == 0 ? ZERO : new Dinheiro(centavos);
+	}
+
+	/* valores nulos, como os campos ainda não preenchidos das entidades, valem zero */
+	public static Dinheiro de(Double valor) {
+		if (valor == null)
+			return ZERO;
+
+		return deCentavos(arredonda(valor));
+	}
+
+	/* aceita tanto 1234.56 quanto 1.234,56 */
+	public static Dinheiro de(String valor) {
+		if (valor == null || valor.trim().isEmpty())
+			return ZERO;
+
+		String texto = valor.trim().replace("R$", "").trim();
+		if (texto.indexOf(',') >= 0)
+			texto = texto.replace(".", "").replace(',', '.');
+
+		try {
+			return deCentavos(new BigDecimal(texto).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+		} catch (ArithmeticException | NumberFormatException e) {
+			throw new RuntimeException("Valor inválido: " + valor);
+		}
+	}
+
+	public long getCentavos() {
+		return centavos;
+	}
+
+	public double valor() {
+		return centavos / 100.0;
+	}
+
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(centavos, 2);
+	}
+
+	public Dinheiro mais(Dinheiro outro) {
+		return deCentavos(Math.addExact(centavos, outro.centavos));
+	}
+
+	public Dinheiro menos(Dinheiro outro) {
+		return deCentavos(Math.subtractExact(centavos, outro.centavos));
+	}
+
+	public Dinheiro vezes(long quantidade) {
+		return deCentavos(Math.multiplyExact(centavos, quantidade));
+	}
+
+	/* aliquota em percentual, 18.0 para 18% */
+	public Dinheiro percentual(double aliquota) {
+		double resultado = centavos * aliquota / 100.0;
+		long arredondado = Math.round(resultado);
+
+		if (Math.abs(Math.abs(resultado - arredondado) - 0.5) < 1e-6)
+			arredondado = BigDecimal.valueOf(centavos).multiply(BigDecimal.valueOf(aliquota)).movePointLeft(2)
+					.setScale(0, RoundingMode.HALF_UP).longValueExact();
+
+		return deCentavos(arredondado);
+	}
+
+	/*
+	 * Divide o valor em partes que somam exatamente o total, os centavos que
+	 * sobram da divisão vão para as primeiras partes
+	 */
+	public Dinheiro[] rateia(int partes) {
+		if (partes <= 0)
+			throw new IllegalArgumentException("Quantidade de partes inválida: " + partes);
+
+		long base = centavos / partes;
+		long resto = centavos % partes;
+		long sinal = Long.signum(resto);
+
+		Dinheiro[] rateio = new Dinheiro[partes];
+		for (int i = 0; i < partes; i++)
+			rateio[i] = deCentavos(i < Math.abs(resto) ? base + sinal : base);
+
+		return rateio;
+	}
+
+	public Dinheiro negativo() {
+		return deCentavos(-centavos);
+	}
+
+	public Dinheiro minimo(Dinheiro outro) {
+		return centavos <= outro.centavos ? this : outro;
+	}
+
+	/* valores negativos viram zero */
+	public Dinheiro positivoOuZero() {
+		return centavos < 0 ? ZERO : this;
+	}
+
+	public boolean isZero() {
+		return centavos == 0;
+	}
+
+	public boolean isPositivo() {
+		return centavos > 0;
+	}
+
+	public boolean isNegativo() {
+		return centavos < 0;
+	}
+
+	public boolean maiorQue(Dinheiro outro) {
+		return centavos > outro.centavos;
+	}
+
+	public boolean menorQue(Dinheiro outro) {
+		return centavos < outro.centavos;
+	}
+
+	/* formato das telas, 1.234,56 */
+	public String formata() {
+		long absoluto = Math.abs(centavos);
+		StringBuilder reais = new StringBuilder(Long.toString(absoluto / 100));
+
+		for (int i = reais.length() - 3; i > 0; i -= 3)
+			reais.insert(i, '.');
+
+		long resto = absoluto % 100;
+		return (centavos < 0 ? "-" : "") + reais + (resto < 10 ? ",0" : ",") + resto;
+	}
+
+	@Override
+	public int compareTo(Dinheiro outro) {
+		return Long.compare(centavos, outro.centavos);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Dinheiro && ((Dinheiro) obj).centavos == centavos;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(centavos);
+	}
+
+	/* formato do XML e do JSON, 1234.56 */
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString();
+	}
+
+	/*
+	 * Arredonda para o centavo mais próximo, metade para cima. Só quando o valor
+	 * cai perto de meio centavo é que o arredondamento é feito sobre a
+	 * representação decimal do Double, para 1.005 virar 1.01 como na tela
+	 */
+	private static long arredonda(double valor) {
+		if (Double.isNaN(valor) || Double.isInfinite(valor))
+			throw new RuntimeException("Valor inválido: " + valor);
+
+		double emCentavos = valor * 100;
+		long arredondado = Math.round(emCentavos);
+
+		if (Math.abs(Math.abs(emCentavos - arredondado) - 0.5) < 1e-6)
+			arredondado = BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+		return arredondado;
+	}
+
+}
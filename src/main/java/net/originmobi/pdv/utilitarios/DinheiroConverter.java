@@ -0,0 +1,23 @@
+package net.originmobi.pdv.utilitarios;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/*
+ * Grava os campos do tipo Dinheiro nas colunas DOUBLE já existentes, a leitura
+ * arredonda para o centavo o que estiver gravado no banco
+ */
+@Converter(autoApply = true)
+public class DinheiroConverter implements AttributeConverter<Dinheiro, Double> {
+
+	@Override
+	public Double convertToDatabaseColumn(Dinheiro valor) {
+		return valor == null ? null : valor.valor();
+	}
+
+	@Override
+	public Dinheiro convertToEntityAttribute(Double valor) {
+		return valor == null ? null : Dinheiro.de(valor);
+	}
+
+}
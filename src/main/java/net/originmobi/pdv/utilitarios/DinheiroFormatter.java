@@ -0,0 +1,30 @@
+package net.originmobi.pdv.utilitarios;
+
+import java.text.ParseException;
+import java.util.Locale;
+
+import org.springframework.format.Formatter;
+import org.springframework.stereotype.Component;
+
+/*
+ * Formato usado pelo Thymeleaf com ${{...}} e no bind dos formulários, o
+ * Spring Boot registra os beans do tipo Formatter no ConversionService do MVC
+ */
+@Component
+public class DinheiroFormatter implements Formatter<Dinheiro> {
+
+	@Override
+	public String print(Dinheiro valor, Locale locale) {
+		return valor.formata();
+	}
+
+	@Override
+	public Dinheiro parse(String texto, Locale locale) throws ParseException {
+		try {
+			return Dinheiro.de(texto);
+		} catch (RuntimeException e) {
+			throw new ParseException(texto, 0);
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package net.originmobi.pdv.utilitarios;
+
+import java.io.IOException;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+/*
+ * Dinheiro no JSON é um número com duas casas, 1234.56
+ */
+@JsonComponent
+public class DinheiroJson {
+
+	public static class Serializer extends JsonSerializer<Dinheiro> {
+
+		@Override
+		public void serialize(Dinheiro valor, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+			gen.writeNumber(valor.toBigDecimal());
+		}
+
+	}
+
+	public static class Deserializer extends JsonDeserializer<Dinheiro> {
+
+		@Override
+		public Dinheiro deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+			if (p.getCurrentToken() == JsonToken.VALUE_STRING)
+				return Dinheiro.de(p.getText());
+
+			return Dinheiro.de(p.getDecimalValue().toPlainString());
+		}
+
+	}
+
+}
@@ -2,17 +2,19 @@ package net.originmobi.pdv.xml.nfe;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.InvalidAlgorithmParameterException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
 import java.security.KeyStore;
-import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
@@ -31,32 +33,45 @@ import javax.xml.crypto.dsig.keyinfo.KeyInfoFactory;
 import javax.xml.crypto.dsig.keyinfo.X509Data;
 import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
 import javax.xml.crypto.dsig.spec.TransformParameterSpec;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
+import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+/*
+ * Assina as notas do enviNFe. O certificado é lido uma única vez e só é lido
+ * de novo quando o arquivo em disco for substituído. As fábricas do XMLDSig, do
+ * DOM e do Transformer não podem ser usadas por duas threads ao mesmo tempo, por
+ * isso cada thread mantém as suas, junto com as partes fixas do SignedInfo.
+ */
+@Component
 public class AssinaXML {
 	private static final String NFE = "NFe";
 
-	private PrivateKey privateKey;
-	private KeyInfo keyInfo;
+	private static final String CAMINHO_CERTIFICADO = "certificado/certificado.pfx";
+	private static final Path ARQUIVO_CERTIFICADO = Paths.get("/app/certificado/certificado.pfx");
+	private static final String SENHA_CERTIFICADO = "spcbrasil";
 
-	public String assinaXML(String xml) {
+	private static final ThreadLocal<Contexto> CONTEXTOS = ThreadLocal.withInitial(Contexto::new);
 
-		String caminhoCertificado = "certificado/certificado.pfx";
-		String senhaCertificado = "spcbrasil";
+	private volatile Certificado certificado;
 
+	public String assinaXML(String xml) {
 		String xmlAssinado = "";
 		try {
-			xmlAssinado = assinarEnviNFe(xml, caminhoCertificado, senhaCertificado);
+			xmlAssinado = new String(assinarEnviNFe(xml.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
 			System.out.println(xmlAssinado);
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -66,54 +81,85 @@ public class AssinaXML {
 		return xmlAssinado;
 	}
 
-	private String assinarEnviNFe(String xmlEnviNFe, String caminhoCertificado, String senhaCertificado)
-			throws Exception {
-		Document document = documentFactory(xmlEnviNFe);
-		XMLSignatureFactory signatureFactory = XMLSignatureFactory.getInstance("DOM");
-		ArrayList<Transform> transformList = signatureFactory(signatureFactory);
-		loadCertificates(caminhoCertificado, senhaCertificado, signatureFactory);
+	/*
+	 * Assina o enviNFe recebido em UTF-8 e retorna o XML assinado também em
+	 * UTF-8, sem passar por String
+	 */
+	public byte[] assina(byte[] xml) {
+		try {
+			return assinarEnviNFe(xml);
+		} catch (Exception e) {
+			throw new RuntimeException("Erro ao assinar a nota fiscal, chame o suporte", e);
+		}
+	}
+
+	private byte[] assinarEnviNFe(byte[] xmlEnviNFe) throws Exception {
+		Certificado cert = certificado();
+		Contexto contexto = CONTEXTOS.get();
+
+		Document document = contexto.documento(xmlEnviNFe);
 
-		for (int i = 0; i < document.getDocumentElement().getElementsByTagName(NFE).getLength(); i++) {
-			assinarNFe(signatureFactory, transformList, privateKey, keyInfo, document, i);
+		NodeList notas = document.getDocumentElement().getElementsByTagName(NFE);
+		NodeList infNFes = document.getElementsByTagName("infNFe");
+
+		for (int i = 0; i < notas.getLength(); i++) {
+			assinarNFe(contexto, cert, (Element) notas.item(i), (Element) infNFes.item(i));
 		}
 
-		return outputXML(document);
+		return contexto.saida(document);
 	}
 
-	private Document documentFactory(String xml) throws SAXException, IOException, ParserConfigurationException {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
-		Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes()));
-		return document;
+	private void assinarNFe(Contexto contexto, Certificado cert, Element nfe, Element infNFe) throws Exception {
+		XMLSignatureFactory fac = contexto.fabrica;
+
+		String id = infNFe.getAttribute("Id");
+		infNFe.setIdAttribute("Id", true);
+
+		Reference ref = fac.newReference("#" + id, contexto.digestMethod, contexto.transformList, null, null);
+
+		SignedInfo si = fac.newSignedInfo(contexto.canonicalizationMethod, contexto.signatureMethod,
+				Collections.singletonList(ref));
+
+		XMLSignature signature = fac.newXMLSignature(si, cert.keyInfo);
+
+		DOMSignContext dsc = new DOMSignContext(cert.privateKey, nfe);
+		signature.sign(dsc);
 	}
 
-	private ArrayList<Transform> signatureFactory(XMLSignatureFactory signatureFactory)
-			throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
-		ArrayList<Transform> transformList = new ArrayList<Transform>();
-		TransformParameterSpec tps = null;
-		Transform envelopedTransform = signatureFactory.newTransform(Transform.ENVELOPED, tps);
-		Transform c14NTransform = signatureFactory.newTransform("http://www.w3.org/TR/2001/REC-xml-c14n-20010315", tps);
+	/*
+	 * Certificado carregado, relido apenas se o arquivo em disco mudar
+	 */
+	private Certificado certificado() throws Exception {
+		Certificado atual = certificado;
+
+		if (atual == null || atual.foiAlterado()) {
+			synchronized (this) {
+				atual = certificado;
+				if (atual == null || atual.foiAlterado()) {
+					atual = loadCertificates(CAMINHO_CERTIFICADO, SENHA_CERTIFICADO);
+					certificado = atual;
+				}
+			}
+		}
 
-		transformList.add(envelopedTransform);
-		transformList.add(c14NTransform);
-		return transformList;
+		return atual;
 	}
 
-	private void loadCertificates(String certificado, String senha, XMLSignatureFactory signatureFactory)
-			throws Exception {
+	private Certificado loadCertificates(String certificado, String senha) throws Exception {
 		InputStream entrada = null;
+		Path arquivo = null;
+		FileTime modificado = null;
 
 		// 1. Tenta carregar do Classpath (dentro do JAR/WAR)
 		entrada = getClass().getClassLoader().getResourceAsStream(certificado);
 
 		// 2. Se falhar, tenta carregar de um caminho fixo no Docker
 		// (/app/certificado/...)
-		if (entrada == null) {
-			File arquivoDocker = new File("/app/certificado/certificado.pfx");
-			if (arquivoDocker.exists()) {
-				System.out.println("Certificado encontrado no sistema de arquivos: " + arquivoDocker.getAbsolutePath());
-				entrada = new FileInputStream(arquivoDocker);
-			}
+		if (entrada == null && Files.exists(ARQUIVO_CERTIFICADO)) {
+			System.out.println("Certificado encontrado no sistema de arquivos: " + ARQUIVO_CERTIFICADO);
+			arquivo = ARQUIVO_CERTIFICADO;
+			modificado = Files.getLastModifiedTime(arquivo);
+			entrada = Files.newInputStream(arquivo);
 		}
 
 		// 3. Se ainda for nulo, lança erro
@@ -128,8 +174,7 @@ public class AssinaXML {
 		} catch (IOException e) {
 			throw new Exception("Senha incorreta ou certificado inválido.", e);
 		} finally {
-			if (entrada != null)
-				entrada.close();
+			entrada.close();
 		}
 
 		KeyStore.PrivateKeyEntry pkEntry = null;
@@ -139,7 +184,6 @@ public class AssinaXML {
 			if (ks.isKeyEntry(alias)) {
 				pkEntry = (KeyStore.PrivateKeyEntry) ks.getEntry(alias,
 						new KeyStore.PasswordProtection(senha.toCharArray()));
-				privateKey = pkEntry.getPrivateKey();
 				break;
 			}
 		}
@@ -151,46 +195,96 @@ public class AssinaXML {
 		X509Certificate cert = (X509Certificate) pkEntry.getCertificate();
 		System.out.println("Data Validade Certificado: " + cert.getNotAfter());
 
-		KeyInfoFactory keyInfoFactory = signatureFactory.getKeyInfoFactory();
-		List<X509Certificate> x509Content = new ArrayList<>();
-		x509Content.add(cert);
-		X509Data x509Data = keyInfoFactory.newX509Data(x509Content);
-		keyInfo = keyInfoFactory.newKeyInfo(Collections.singletonList(x509Data));
+		KeyInfoFactory keyInfoFactory = XMLSignatureFactory.getInstance("DOM").getKeyInfoFactory();
+		X509Data x509Data = keyInfoFactory.newX509Data(Collections.singletonList(cert));
+		KeyInfo keyInfo = keyInfoFactory.newKeyInfo(Collections.singletonList(x509Data));
+
+		return new Certificado(pkEntry.getPrivateKey(), keyInfo, arquivo, modificado);
 	}
 
-	private void assinarNFe(XMLSignatureFactory fac, ArrayList<Transform> transformList, PrivateKey privateKey,
-			KeyInfo ki, Document document, int indexNFe) throws Exception {
+	private static final class Certificado {
 
-		NodeList elements = document.getElementsByTagName("infNFe");
-		org.w3c.dom.Element el = (org.w3c.dom.Element) elements.item(indexNFe);
-		String id = el.getAttribute("Id");
-		el.setIdAttribute("Id", true);
+		private final PrivateKey privateKey;
+		private final KeyInfo keyInfo;
+		private final Path arquivo;
+		private final FileTime modificado;
 
-		Reference ref = fac.newReference("#" + id, fac.newDigestMethod(DigestMethod.SHA1, null), transformList, null,
-				null);
+		Certificado(PrivateKey privateKey, KeyInfo keyInfo, Path arquivo, FileTime modificado) {
+			this.privateKey = privateKey;
+			this.keyInfo = keyInfo;
+			this.arquivo = arquivo;
+			this.modificado = modificado;
+		}
 
-		SignedInfo si = fac.newSignedInfo(
-				fac.newCanonicalizationMethod(CanonicalizationMethod.INCLUSIVE, (C14NMethodParameterSpec) null),
-				fac.newSignatureMethod(SignatureMethod.RSA_SHA1, null), Collections.singletonList(ref));
+		/* o certificado do classpath não muda com a aplicação no ar */
+		boolean foiAlterado() {
+			if (arquivo == null)
+				return false;
 
-		XMLSignature signature = fac.newXMLSignature(si, ki);
+			try {
+				return !Files.getLastModifiedTime(arquivo).equals(modificado);
+			} catch (IOException e) {
+				// arquivo removido ou em cópia, segue com o certificado atual
+				return false;
+			}
+		}
 
-		DOMSignContext dsc = new DOMSignContext(privateKey,
-				document.getDocumentElement().getElementsByTagName(NFE).item(indexNFe));
-		signature.sign(dsc);
 	}
 
-	private String outputXML(Document doc) throws TransformerException {
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		TransformerFactory tf = TransformerFactory.newInstance();
-		Transformer trans = tf.newTransformer();
-		trans.transform(new DOMSource(doc), new StreamResult(os));
-		String xml = os.toString();
-		if ((xml != null) && (!"".equals(xml))) {
-			xml = xml.replaceAll("\\r\\n", "");
-			xml = xml.replaceAll(" standalone=\"no\"", "");
+	/*
+	 * Objetos de uma thread, criados uma vez e reaproveitados em todas as notas
+	 * que ela assinar
+	 */
+	private static final class Contexto {
+
+		private final XMLSignatureFactory fabrica = XMLSignatureFactory.getInstance("DOM");
+		private final DocumentBuilder builder;
+		private final Transformer transformer;
+
+		private final List<Transform> transformList;
+		private final DigestMethod digestMethod;
+		private final CanonicalizationMethod canonicalizationMethod;
+		private final SignatureMethod signatureMethod;
+
+		Contexto() {
+			try {
+				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+				factory.setNamespaceAware(true);
+				builder = factory.newDocumentBuilder();
+
+				transformer = TransformerFactory.newInstance().newTransformer();
+				transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+
+				TransformParameterSpec tps = null;
+				transformList = Collections.unmodifiableList(Arrays.asList(
+						fabrica.newTransform(Transform.ENVELOPED, tps),
+						fabrica.newTransform("http://www.w3.org/TR/2001/REC-xml-c14n-20010315", tps)));
+
+				digestMethod = fabrica.newDigestMethod(DigestMethod.SHA1, null);
+				canonicalizationMethod = fabrica.newCanonicalizationMethod(CanonicalizationMethod.INCLUSIVE,
+						(C14NMethodParameterSpec) null);
+				signatureMethod = fabrica.newSignatureMethod(SignatureMethod.RSA_SHA1, null);
+			} catch (ParserConfigurationException | TransformerConfigurationException | GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		Document documento(byte[] xml) throws SAXException, IOException {
+			builder.reset();
+			return builder.parse(new ByteArrayInputStream(xml));
 		}
-		return xml;
+
+		byte[] saida(Document doc) throws TransformerException {
+			// sem o atributo standalone="no" na declaração
+			doc.setXmlStandalone(true);
+
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			transformer.reset();
+			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+			transformer.transform(new DOMSource(doc), new StreamResult(os));
+			return os.toByteArray();
+		}
+
 	}
 
 }
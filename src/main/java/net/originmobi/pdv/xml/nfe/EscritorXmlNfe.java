@@ -0,0 +1,297 @@
+package net.originmobi.pdv.xml.nfe;
+
+import java.io.ByteArrayOutputStream;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.stereotype.Component;
+
+import net.originmobi.pdv.model.Empresa;
+import net.originmobi.pdv.model.Endereco;
+import net.originmobi.pdv.model.NotaFiscal;
+import net.originmobi.pdv.model.NotaFiscalItem;
+import net.originmobi.pdv.model.NotaFiscalItemImposto;
+import net.originmobi.pdv.model.NotaFiscalTotais;
+import net.originmobi.pdv.model.Pessoa;
+
+/*
+ * Escreve o enviNFe de uma nota direto em um buffer de bytes com StAX, sem
+ * montar uma árvore do documento antes. O resultado vai para o AssinaXML, que
+ * monta o único DOM necessário, o da assinatura.
+ */
+@Component
+public class EscritorXmlNfe {
+
+	private static final String NAMESPACE = "http://www.portalfiscal.inf.br/nfe";
+	private static final String VERSAO = "3.10";
+
+	/* tamanho aproximado do cabeçalho e de cada item, evita realocar o buffer */
+	private static final int TAMANHO_CABECALHO = 4096;
+	private static final int TAMANHO_ITEM = 1536;
+
+	// dhEmi e dhSaiEnt sempre com os segundos e o fuso
+	private static final DateTimeFormatter DATA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx");
+
+	private static final XMLOutputFactory FABRICA = XMLOutputFactory.newInstance();
+
+	/* DecimalFormat não pode ser compartilhado entre threads */
+	private static final ThreadLocal<DecimalFormat> DUAS_CASAS = ThreadLocal
+			.withInitial(() -> new DecimalFormat("#0.00", DecimalFormatSymbols.getInstance(Locale.ROOT)));
+	private static final ThreadLocal<DecimalFormat> DOIS_DIGITOS = ThreadLocal
+			.withInitial(() -> new DecimalFormat("00", DecimalFormatSymbols.getInstance(Locale.ROOT)));
+
+	/*
+	 * Retorna o XML em UTF-8, a chave informada já deve conter o cNF e o dígito
+	 * verificador nas suas últimas 9 posições e o AAMM da emissão informada
+	 */
+	public byte[] escreve(NotaFiscal notaFiscal, String chaveNfe, OffsetDateTime emissao) {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream(
+				TAMANHO_CABECALHO + TAMANHO_ITEM * notaFiscal.getItens().size());
+
+		try {
+			XMLStreamWriter xml = FABRICA.createXMLStreamWriter(saida, "UTF-8");
+
+			xml.writeStartDocument("UTF-8", "1.0");
+			xml.writeStartElement("enviNFe");
+			xml.writeDefaultNamespace(NAMESPACE);
+			xml.writeAttribute("versao", VERSAO);
+
+			campo(xml, "idLote", 1);
+			campo(xml, "indSinc", 0);
+
+			xml.writeStartElement("NFe");
+			xml.writeDefaultNamespace(NAMESPACE);
+
+			xml.writeStartElement("infNFe");
+			xml.writeAttribute("Id", "NFe" + chaveNfe);
+			xml.writeAttribute("versao", VERSAO);
+
+			ide(xml, notaFiscal, chaveNfe, emissao);
+			emit(xml, notaFiscal.getEmissor());
+			dest(xml, notaFiscal);
+
+			int tipoRegime = notaFiscal.getEmissor().getRegime_tributario().getTipoRegime();
+			List<NotaFiscalItem> itens = notaFiscal.getItens();
+
+			for (int i = 0; i < itens.size(); i++)
+				det(xml, itens.get(i), i + 1, tipoRegime);
+
+			total(xml, notaFiscal.getTotais(), tipoRegime);
+
+			xml.writeStartElement("transp");
+			campo(xml, "modFrete", notaFiscal.getFreteTipo().getTipo());
+			xml.writeEndElement();
+
+			xml.writeEndElement(); // fim infNFe
+			xml.writeEndElement(); // fim NFe
+			xml.writeEndElement(); // fim enviNFe
+			xml.writeEndDocument();
+
+			xml.flush();
+			xml.close();
+		} catch (XMLStreamException e) {
+			throw new RuntimeException("Erro ao gerar o XML da nota fiscal, chame o suporte", e);
+		}
+
+		return saida.toByteArray();
+	}
+
+	private void ide(XMLStreamWriter xml, NotaFiscal notaFiscal, String chaveNfe, OffsetDateTime emissao)
+			throws XMLStreamException {
+		Empresa emissor = notaFiscal.getEmissor();
+		int tamanho = chaveNfe.length();
+
+		xml.writeStartElement("ide");
+
+		campo(xml, "cUF", emissor.getEndereco().getCidade().getEstado().getCodigoUF());
+		campo(xml, "cNF", chaveNfe.substring(tamanho - 9, tamanho - 1));
+		campo(xml, "natOp", notaFiscal.getNatureza_operacao());
+		campo(xml, "indPag", 0);
+		campo(xml, "mod", notaFiscal.getModelo());
+		campo(xml, "serie", notaFiscal.getSerie());
+		campo(xml, "nNF", notaFiscal.getNumero());
+		String dataHora = emissao.format(DATA_HORA);
+		campo(xml, "dhEmi", dataHora);
+		campo(xml, "dhSaiEnt", dataHora);
+		campo(xml, "tpNF", notaFiscal.getTipo().ordinal());
+		campo(xml, "idDest", 1);
+		campo(xml, "cMunFG", emissor.getEndereco().getCidade().getCodigo_municipio());
+		campo(xml, "tpImp", 1);
+		campo(xml, "tpEmis", 1);
+		campo(xml, "cDV", chaveNfe.substring(tamanho - 1));
+		campo(xml, "tpAmb", notaFiscal.getTipo_ambiente());
+		campo(xml, "finNFe", notaFiscal.getFinalidade().getTipo());
+		campo(xml, "indFinal", 0); // 0 -- normal, 1 -- consumidor final
+		campo(xml, "indPres", 1);
+		campo(xml, "procEmi", 0);
+		campo(xml, "verProc", "0.0.1");
+
+		xml.writeEndElement();
+	}
+
+	private void emit(XMLStreamWriter xml, Empresa emissor) throws XMLStreamException {
+		xml.writeStartElement("emit");
+
+		campo(xml, "CNPJ", emissor.getCnpj().replaceAll("\\D", ""));
+		campo(xml, "xNome", emissor.getNome());
+		campo(xml, "xFant", emissor.getNome_fantasia());
+
+		xml.writeStartElement("enderEmit");
+		endereco(xml, emissor.getEndereco());
+		xml.writeEndElement();
+
+		campo(xml, "IE", emissor.getIe());
+		campo(xml, "CRT", emissor.getRegime_tributario().getTipoRegime());
+
+		xml.writeEndElement();
+	}
+
+	private void dest(XMLStreamWriter xml, NotaFiscal notaFiscal) throws XMLStreamException {
+		Pessoa destinatario = notaFiscal.getDestinatario();
+
+		xml.writeStartElement("dest");
+
+		campo(xml, "CPF", destinatario.getCpfcnpj().replaceAll("\\D", ""));
+
+		if (notaFiscal.getEmissor().getParametro().getAmbiente() == 2)
+			campo(xml, "xNome", "NF-E EMITIDA EM AMBIENTE DE HOMOLOGACAO - SEM VALOR FISCAL");
+		else
+			campo(xml, "xNome", destinatario.getNome());
+
+		xml.writeStartElement("enderDest");
+		endereco(xml, destinatario.getEndereco());
+		campo(xml, "fone", destinatario.getTelefone().get(0).getFone());
+		xml.writeEndElement();
+
+		campo(xml, "indIEDest", 2);
+
+		xml.writeEndElement();
+	}
+
+	private void endereco(XMLStreamWriter xml, Endereco endereco) throws XMLStreamException {
+		campo(xml, "xLgr", endereco.getRua());
+		campo(xml, "nro", endereco.getNumero());
+		campo(xml, "xCpl", endereco.getReferencia());
+		campo(xml, "xBairro", endereco.getBairro());
+		campo(xml, "cMun", endereco.getCidade().getCodigo_municipio());
+		campo(xml, "xMun", endereco.getCidade().getNome());
+		campo(xml, "UF", endereco.getCidade().getEstado().getSigla());
+		campo(xml, "CEP", endereco.getCep());
+		campo(xml, "cPais", endereco.getCidade().getEstado().getPais().getCodigo_pais());
+		campo(xml, "xPais", endereco.getCidade().getEstado().getPais().getNome());
+	}
+
+	private void det(XMLStreamWriter xml, NotaFiscalItem item, int nItem, int tipoRegime)
+			throws XMLStreamException {
+		NotaFiscalItemImposto impostos = item.getImpostos();
+
+		xml.writeStartElement("det");
+		xml.writeAttribute("nItem", String.valueOf(nItem));
+
+		xml.writeStartElement("prod");
+		campo(xml, "cProd", item.getCodigo());
+		campo(xml, "cEAN", "");
+		campo(xml, "xProd", "teste " + nItem);
+		campo(xml, "NCM", 21050010);
+		campo(xml, "CFOP", item.getCfop());
+		campo(xml, "uCom", item.getUnidade_tribu());
+		campo(xml, "qCom", item.getQtd());
+		campo(xml, "vUnCom", item.getV_uniTribu());
+		campo(xml, "vProd", valor(item.getVlTotal()));
+		campo(xml, "cEANTrib", "");
+		campo(xml, "uTrib", item.getUnidade_tribu());
+		campo(xml, "qTrib", item.getQtd_tribu());
+		campo(xml, "vUnTrib", item.getV_uniTribu());
+		campo(xml, "indTot", 1);
+		xml.writeEndElement();
+
+		xml.writeStartElement("imposto");
+
+		String cst = DOIS_DIGITOS.get().format(impostos.getCst());
+
+		xml.writeStartElement("ICMS");
+		xml.writeStartElement((tipoRegime == 1 ? "ICMSSN" : "ICMS") + cst);
+
+		campo(xml, "orig", impostos.getOrig());
+
+		if (tipoRegime == 1) {
+			campo(xml, "CSOSN", impostos.getCst());
+			campo(xml, "pCredSN", 2);
+			campo(xml, "vCredICMSSN", (item.getVlTotal() * 2) / 100);
+		} else {
+			campo(xml, "CST", cst);
+			campo(xml, "modBC", impostos.getMod_bc());
+			campo(xml, "vBC", valor(impostos.getV_bc()));
+			campo(xml, "pICMS", valor(impostos.getP_icms()));
+			campo(xml, "vICMS", valor(impostos.getV_icms()));
+		}
+
+		xml.writeEndElement(); // fim ICMS + CST
+		xml.writeEndElement(); // fim ICMS
+
+		xml.writeStartElement("PIS");
+		xml.writeStartElement("PISAliq");
+		campo(xml, "CST", DOIS_DIGITOS.get().format(impostos.getCst_pis()));
+		campo(xml, "vBC", valor(impostos.getVbc_pis()));
+		campo(xml, "pPIS", valor(impostos.getP_pis()));
+		campo(xml, "vPIS", valor(impostos.getV_pis()));
+		xml.writeEndElement();
+		xml.writeEndElement();
+
+		xml.writeStartElement("COFINS");
+		xml.writeStartElement("COFINSAliq");
+		campo(xml, "CST", DOIS_DIGITOS.get().format(impostos.getCst_cofins()));
+		campo(xml, "vBC", valor(impostos.getVbc_cofins()));
+		campo(xml, "pCOFINS", valor(impostos.getP_cofins()));
+		campo(xml, "vCOFINS", valor(impostos.getV_cofins()));
+		xml.writeEndElement();
+		xml.writeEndElement();
+
+		xml.writeEndElement(); // fim imposto
+		xml.writeEndElement(); // fim det
+	}
+
+	private void total(XMLStreamWriter xml, NotaFiscalTotais totais, int tipoRegime) throws XMLStreamException {
+		xml.writeStartElement("total");
+		xml.writeStartElement("ICMSTot");
+
+		campo(xml, "vBC", tipoRegime == 1 ? "0.00" : valor(totais.getV_bc()));
+		campo(xml, "vICMS", valor(totais.getV_icms()));
+		campo(xml, "vICMSDeson", "0.00");
+		campo(xml, "vBCST", "0.00");
+		campo(xml, "vST", "0.00");
+		campo(xml, "vProd", valor(totais.getV_prod()));
+		campo(xml, "vFrete", valor(totais.getV_frete()));
+		campo(xml, "vSeg", valor(totais.getV_seg()));
+		campo(xml, "vDesc", valor(totais.getV_desc()));
+		campo(xml, "vII", valor(totais.getV_ii()));
+		campo(xml, "vIPI", valor(totais.getV_ipi()));
+		campo(xml, "vPIS", valor(totais.getV_pis()));
+		campo(xml, "vCOFINS", valor(totais.getV_cofins()));
+		campo(xml, "vOutro", valor(totais.getV_outros()));
+		campo(xml, "vNF", valor(totais.getV_nf()));
+
+		xml.writeEndElement();
+		xml.writeEndElement();
+	}
+
+	private static void campo(XMLStreamWriter xml, String nome, Object valor) throws XMLStreamException {
+		xml.writeStartElement(nome);
+		if (valor != null)
+			xml.writeCharacters(valor.toString());
+		xml.writeEndElement();
+	}
+
+	private static String valor(Double valor) {
+		return valor == null ? null : DUAS_CASAS.get().format(valor);
+	}
+
+}
@@ -1,40 +1,40 @@
 package net.originmobi.pdv.xml.nfe;
 
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
-
+import net.originmobi.pdv.model.Empresa;
 import net.originmobi.pdv.model.NotaFiscal;
 import net.originmobi.pdv.service.notafiscal.NotaFiscalService;
 
 @Component
 public class GeraXmlNfe {
+
+	private static final DateTimeFormatter ANO_MES = DateTimeFormatter.ofPattern("yyMM");
 	
 	@Autowired
 	private NotaFiscalService nfServer;
 
+	@Autowired
+	private EscritorXmlNfe escritor;
+
+	@Autowired
+	private AssinaXML assina;
+
 	/*
 	 * Recebe uma notafiscal e retorna a chave de acesso da mesma
 	 */
 	public String gerarXML(NotaFiscal notaFiscal) {
-		XStream valor = new XStream(new DomDriver());
-		ConversorXmlNfe conversor = new ConversorXmlNfe();
-		AssinaXML assina = new AssinaXML();
-		
-		valor.registerConverter(conversor);
-		
-		valor.alias("enviNFe", NotaFiscal.class);
-		
-		String xml = valor.toXML(notaFiscal);
-		
-		xml = assina.assinaXML(xml);
-		
-		//pega a chave da nfe
-		String chaveNfe = conversor.retornaChaveNfe();
-		
-		nfServer = new NotaFiscalService();
+		OffsetDateTime emissao = OffsetDateTime.now();
+		String chaveNfe = geraChave(notaFiscal, emissao);
+
+		byte[] xml = escritor.escreve(notaFiscal, chaveNfe, emissao);
+
+		xml = assina.assina(xml);
 		
 		if(notaFiscal.getChave_acesso() != null) {
 			nfServer.removeXml(notaFiscal.getChave_acesso());
@@ -44,5 +44,30 @@ public class GeraXmlNfe {
 		
 		return chaveNfe;
 	}
-}
 
+	/*
+	 * Monta a chave de acesso com um cNF aleatório e o dígito verificador. O
+	 * AAMM vem do mesmo instante de emissão usado no dhEmi do XML, e é por ele
+	 * que o XML é arquivado.
+	 */
+	public String geraChave(NotaFiscal notaFiscal, OffsetDateTime emissao) {
+		Empresa emissor = notaFiscal.getEmissor();
+
+		String ufEmissor = emissor.getEndereco().getCidade().getEstado().getCodigoUF();
+		String cnpjEmissor = emissor.getCnpj().replaceAll("\\D", "");
+
+		// add zeros a esqueda na serie e no numero da nota
+		String serie = String.format("%03d", emissor.getParametro().getSerie_nfe());
+		String numeroNf = String.format("%09d", notaFiscal.getNumero());
+
+		// gera cNF
+		int cNF = 10000000 + ThreadLocalRandom.current().nextInt(89999999);
+
+		// ano e mês da emissão
+		String aamm = emissao.format(ANO_MES);
+
+		String chaveNfe = ufEmissor + aamm + cnpjEmissor + "55" + serie + numeroNf + 1 + cNF;
+
+		return chaveNfe + nfServer.geraDV(chaveNfe);
+	}
+}
@@ -0,0 +1,25 @@
+-- -----------------------------------------------------
+-- Foto diária do contas a receber por cliente: o valor a vencer, o vencido
+-- por faixa de atraso e a multa e os juros calculados na data de referência.
+-- Gravada pela rotina noturna, lida pelos relatórios e pela cobrança
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `pdv`.`receber_aging` (
+  `pessoa_codigo` INT(11) NOT NULL,
+  `data_referencia` DATE NOT NULL,
+  `valor_a_vencer` DOUBLE NOT NULL DEFAULT 0,
+  `vencido_30` DOUBLE NOT NULL DEFAULT 0,
+  `vencido_60` DOUBLE NOT NULL DEFAULT 0,
+  `vencido_90` DOUBLE NOT NULL DEFAULT 0,
+  `vencido_mais_90` DOUBLE NOT NULL DEFAULT 0,
+  `valor_multa` DOUBLE NOT NULL DEFAULT 0,
+  `valor_juros` DOUBLE NOT NULL DEFAULT 0,
+  `qtd_vencidas` INT NOT NULL DEFAULT 0,
+  `maior_atraso` INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (`pessoa_codigo`),
+  INDEX `idx_receber_aging_atraso` (`data_referencia`, `maior_atraso`),
+  CONSTRAINT `fk_receber_aging_pessoa`
+    FOREIGN KEY (`pessoa_codigo`)
+    REFERENCES `pdv`.`pessoa` (`codigo`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
@@ -0,0 +1,20 @@
+-- -----------------------------------------------------
+-- A foto do contas a receber passa a ser separada pela data de referência.
+-- A execução de uma noite grava as linhas da sua data sem tocar na foto
+-- anterior, e a data só passa a ser lida depois de gravada por inteiro
+-- -----------------------------------------------------
+ALTER TABLE `pdv`.`receber_aging`
+  ADD INDEX `idx_receber_aging_pessoa` (`pessoa_codigo`),
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`data_referencia`, `pessoa_codigo`);
+
+CREATE TABLE IF NOT EXISTS `pdv`.`receber_aging_referencia` (
+  `data_referencia` DATE NOT NULL,
+  `data_conclusao` DATETIME NOT NULL,
+  PRIMARY KEY (`data_referencia`))
+ENGINE = InnoDB;
+
+INSERT INTO `pdv`.`receber_aging_referencia` (`data_referencia`, `data_conclusao`)
+SELECT MAX(`data_referencia`), NOW()
+  FROM `pdv`.`receber_aging`
+HAVING MAX(`data_referencia`) IS NOT NULL;
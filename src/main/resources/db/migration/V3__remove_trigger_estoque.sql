@@ -0,0 +1,5 @@
+-- -----------------------------------------------------
+-- A baixa do saldo em produto_estoque passa a ser feita pela aplicação, em lote
+-- e com a conferência do saldo no próprio update (qtd >= ?)
+-- -----------------------------------------------------
+DROP TRIGGER IF EXISTS `pdv`.`atualiza_produto_estoque_AFTER_INSERT`;
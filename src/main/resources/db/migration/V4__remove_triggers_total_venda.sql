@@ -0,0 +1,6 @@
+-- -----------------------------------------------------
+-- O valor_produtos da venda em aberto passa a ser mantido pela aplicação e
+-- gravado em lote, sem ler e reescrever a linha da venda a cada item
+-- -----------------------------------------------------
+DROP TRIGGER IF EXISTS `pdv`.`tr_atualizaTotalProdutosVenda_AFTER_INSERT`;
+DROP TRIGGER IF EXISTS `pdv`.`atualizaTotalProdutos_BEFORE_DELETE`;
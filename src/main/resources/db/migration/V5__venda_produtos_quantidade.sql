@@ -0,0 +1,30 @@
+-- -----------------------------------------------------
+-- Cada linha de venda_produtos passa a ter a quantidade e o valor unitário,
+-- as unidades de um mesmo produto deixam de gerar uma linha cada
+-- -----------------------------------------------------
+ALTER TABLE `pdv`.`venda_produtos`
+  ADD COLUMN `qtd` INT NOT NULL DEFAULT 1 AFTER `venda_codigo`,
+  ADD COLUMN `valor_unitario` DOUBLE NULL AFTER `qtd`;
+
+UPDATE `pdv`.`venda_produtos` vp
+  JOIN `pdv`.`produto` p ON p.codigo = vp.produto_codigo
+   SET vp.valor_unitario = CASE WHEN vp.valor_balanca > 0 THEN vp.valor_balanca ELSE p.valor_venda END;
+
+-- agrupa as unidades de produtos que não são de balança na linha mais antiga
+CREATE TEMPORARY TABLE `pdv`.`venda_produtos_compacta` AS
+  SELECT venda_codigo, produto_codigo, MIN(codigo) AS codigo, COUNT(*) AS qtd
+    FROM `pdv`.`venda_produtos`
+   WHERE COALESCE(valor_balanca, 0) = 0
+   GROUP BY venda_codigo, produto_codigo
+  HAVING COUNT(*) > 1;
+
+UPDATE `pdv`.`venda_produtos` vp
+  JOIN `pdv`.`venda_produtos_compacta` c ON c.codigo = vp.codigo
+   SET vp.qtd = c.qtd;
+
+DELETE vp FROM `pdv`.`venda_produtos` vp
+  JOIN `pdv`.`venda_produtos_compacta` c
+    ON c.venda_codigo = vp.venda_codigo AND c.produto_codigo = vp.produto_codigo AND vp.codigo > c.codigo
+ WHERE COALESCE(vp.valor_balanca, 0) = 0;
+
+DROP TEMPORARY TABLE `pdv`.`venda_produtos_compacta`;
@@ -0,0 +1,27 @@
+-- -----------------------------------------------------
+-- Próximo número de nota de cada série, reservado com lock na linha da série
+-- em vez de max(numero) + 1 sobre todas as notas
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `pdv`.`nota_fiscal_sequencia` (
+  `serie` INT NOT NULL,
+  `proximo` BIGINT NOT NULL,
+  PRIMARY KEY (`serie`))
+ENGINE = InnoDB;
+
+INSERT INTO `pdv`.`nota_fiscal_sequencia` (serie, proximo)
+  SELECT serie, MAX(numero) + 1
+    FROM `pdv`.`nota_fiscal`
+   GROUP BY serie;
+
+-- -----------------------------------------------------
+-- Números reservados que não viraram nota, pendentes de inutilização
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `pdv`.`nota_fiscal_lacuna` (
+  `codigo` INT(11) NOT NULL AUTO_INCREMENT,
+  `serie` INT NOT NULL,
+  `numero` BIGINT NOT NULL,
+  `motivo` VARCHAR(255) NULL,
+  `data_cadastro` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`codigo`),
+  INDEX `nota_fiscal_lacuna_serie_idx` (`serie` ASC, `numero` ASC))
+ENGINE = InnoDB;
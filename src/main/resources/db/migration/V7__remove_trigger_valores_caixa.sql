@@ -0,0 +1,5 @@
+-- -----------------------------------------------------
+-- O saldo do caixa passa a ser mantido pela aplicação e gravado
+-- periodicamente, sem ler e reescrever a linha do caixa a cada lançamento
+-- -----------------------------------------------------
+DROP TRIGGER IF EXISTS `pdv`.`tr_atualizaValoresCaixa_AFTER_INSERT`;
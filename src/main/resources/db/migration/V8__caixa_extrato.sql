@@ -0,0 +1,24 @@
+-- -----------------------------------------------------
+-- Extrato do caixa paginado por (data_cadastro, codigo) e resumo dos
+-- lançamentos por tipo e estilo, sem carregar todos os lançamentos do caixa
+-- -----------------------------------------------------
+CREATE INDEX `idx_caixa_lancamento_extrato` ON `pdv`.`caixa_lancamento` (`caixa_codigo`, `data_cadastro`, `codigo`);
+
+CREATE TABLE IF NOT EXISTS `pdv`.`caixa_resumo` (
+  `caixa_codigo` INT(11) NOT NULL,
+  `tipo` VARCHAR(45) NOT NULL,
+  `estilo` VARCHAR(10) NOT NULL,
+  `quantidade` BIGINT NOT NULL DEFAULT 0,
+  `valor` DOUBLE NOT NULL DEFAULT 0,
+  PRIMARY KEY (`caixa_codigo`, `tipo`, `estilo`),
+  CONSTRAINT `fk_caixa_resumo_caixa`
+    FOREIGN KEY (`caixa_codigo`)
+    REFERENCES `pdv`.`caixa` (`codigo`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
+INSERT INTO `pdv`.`caixa_resumo` (`caixa_codigo`, `tipo`, `estilo`, `quantidade`, `valor`)
+SELECT cl.caixa_codigo, cl.tipo, cl.estilo, COUNT(*), ROUND(SUM(cl.valor), 2)
+  FROM `pdv`.`caixa_lancamento` cl
+ GROUP BY cl.caixa_codigo, cl.tipo, cl.estilo;
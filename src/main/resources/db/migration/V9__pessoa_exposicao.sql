@@ -0,0 +1,32 @@
+-- -----------------------------------------------------
+-- Posição de cada cliente no contas a receber, atualizada junto com as
+-- parcelas, para a tela do cliente e a conferência do limite de crédito não
+-- somarem todo o histórico do cliente
+-- -----------------------------------------------------
+CREATE INDEX `idx_parcela_receber_aberta` ON `pdv`.`parcela` (`receber_codigo`, `quitado`, `data_vencimento`);
+
+CREATE TABLE IF NOT EXISTS `pdv`.`pessoa_exposicao` (
+  `pessoa_codigo` INT(11) NOT NULL,
+  `valor_aberto` DOUBLE NOT NULL DEFAULT 0,
+  `valor_vencido` DOUBLE NOT NULL DEFAULT 0,
+  `qtd_abertas` INT NOT NULL DEFAULT 0,
+  `vencimento_antigo` DATE NULL,
+  PRIMARY KEY (`pessoa_codigo`),
+  CONSTRAINT `fk_pessoa_exposicao_pessoa`
+    FOREIGN KEY (`pessoa_codigo`)
+    REFERENCES `pdv`.`pessoa` (`codigo`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
+INSERT INTO `pdv`.`pessoa_exposicao` (`pessoa_codigo`, `valor_aberto`, `valor_vencido`, `qtd_abertas`, `vencimento_antigo`)
+SELECT r.pessoa_codigo,
+       ROUND(SUM(p.valor_restante), 2),
+       ROUND(SUM(CASE WHEN p.data_vencimento < CURDATE() THEN p.valor_restante ELSE 0 END), 2),
+       COUNT(*),
+       DATE(MIN(p.data_vencimento))
+  FROM `pdv`.`parcela` p
+  JOIN `pdv`.`receber` r ON r.codigo = p.receber_codigo
+ WHERE p.quitado = 0
+   AND r.pessoa_codigo IS NOT NULL
+ GROUP BY r.pessoa_codigo;
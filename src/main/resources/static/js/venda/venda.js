@@ -20,8 +20,10 @@ $(function() {
 					valor = prompt("Informe o valor");
 				} 
 
+				var qtd = $("#qtdProduto").val() || 1;
+
 				var linkNovo = link + "=" + codigopro.toString()
-						+ "&valorBalanca=" + valor;
+						+ "&valorBalanca=" + valor + "&qtd=" + qtd;
 
 				var response = $.ajax({
 					url : linkNovo,
@@ -34,6 +36,7 @@ $(function() {
 					
 					success : function(e) {
 						$(".carrega").empty();
+						$("#qtdProduto").val(1);
 						
 						$("#tabProdutoVenda").load(" #tabProdutoVenda");
 						$("#total_produtos").load(" #total_produtos");
@@ -288,6 +291,45 @@ $(function() {
 		// $('input[name="valor_pago"]').val("");
 	});
 
+	// responsável por carregar os produtos da venda conforme a pesquisa
+	var pesquisaProduto;
+
+	function carregaProdutos(descricao) {
+		var select = $("#codigoProduto");
+
+		$.getJSON(select.attr("data-url"), {
+			descricao : descricao
+		}, function(produtos) {
+			select.find("option").not(":selected").remove();
+
+			$.each(produtos, function(i, produto) {
+				if (produto.codigo == select.val())
+					return;
+
+				$("<option>").val(produto.codigo).attr("data-balanca",
+						produto.balanca).text(
+						"COD: " + produto.codigo + " - " + produto.descricao
+								+ " - R$" + produto.valor_venda).appendTo(
+						select);
+			});
+
+			select.selectpicker("refresh");
+		});
+	}
+
+	if ($("#codigoProduto").length) {
+		carregaProdutos("");
+
+		$(".formdavenda").on("keyup", ".bs-searchbox input", function() {
+			var descricao = $(this).val();
+
+			clearTimeout(pesquisaProduto);
+			pesquisaProduto = setTimeout(function() {
+				carregaProdutos(descricao);
+			}, 300);
+		});
+	}
+
 	$(function() {
 		var status = $("#statusPedido").val();
 
@@ -0,0 +1,103 @@
+package net.originmobi.pdv.relatorios;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import net.originmobi.pdv.enumerado.RelatorioSituacao;
+
+@ExtendWith(MockitoExtension.class)
+class RelatorioFilaServiceTest {
+
+    private static final byte[] PDF = { 1, 2, 3 };
+
+    @Mock
+    private RelatorioService relatorios;
+
+    @InjectMocks
+    private RelatorioFilaService fila;
+
+    @BeforeEach
+    void setUp() {
+        fila.inicia();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fila.encerra();
+    }
+
+    @Test
+    void envia_deveGerarOPdfForaDaThreadDoPedido() throws Exception {
+        Map<String, Object> parametros = Collections.singletonMap("codcaixa", 1);
+        when(relatorios.gera(eq("caixa.jrxml"), anyMap())).thenReturn(PDF);
+
+        RelatorioJob job = fila.envia("caixa.jrxml", parametros, false);
+
+        aguarda(job);
+        assertEquals(RelatorioSituacao.CONCLUIDO, job.getSituacao());
+        assertArrayEquals(PDF, fila.busca(job.getId()).get().getPdf());
+    }
+
+    @Test
+    void envia_relatorioDefinitivoDeveSerReaproveitado() throws Exception {
+        Map<String, Object> parametros = Collections.singletonMap("codvenda", 7);
+        when(relatorios.gera(eq("comanda.jrxml"), anyMap())).thenReturn(PDF);
+
+        aguarda(fila.envia("comanda.jrxml", parametros, true));
+        RelatorioJob segundo = fila.envia("comanda.jrxml", parametros, true);
+
+        assertTrue(segundo.isConcluido());
+        verify(relatorios, times(1)).gera(eq("comanda.jrxml"), anyMap());
+    }
+
+    @Test
+    void envia_erroNaGeracaoDeveFicarNoPedido() throws Exception {
+        when(relatorios.gera(eq("controle.jrxml"), anyMap())).thenThrow(new RuntimeException("falhou"));
+
+        RelatorioJob job = fila.envia("controle.jrxml", Collections.singletonMap("codvenda", 1), true);
+
+        aguarda(job);
+        assertEquals(RelatorioSituacao.ERRO, job.getSituacao());
+        assertEquals("falhou", job.getMensagem());
+    }
+
+    @Test
+    void cachePdf_deveDescartarOMenosUsadoAoPassarDoLimite() {
+        RelatorioFilaService.CachePdf cache = new RelatorioFilaService.CachePdf(5);
+
+        cache.guarda("a", new byte[2]);
+        cache.guarda("b", new byte[2]);
+        cache.busca("a");
+        cache.guarda("c", new byte[2]);
+
+        assertNotNull(cache.busca("a"));
+        assertNull(cache.busca("b"));
+        assertNotNull(cache.busca("c"));
+    }
+
+    private void aguarda(RelatorioJob job) throws InterruptedException {
+        for (int i = 0; i < 100 && (job.getSituacao() == RelatorioSituacao.PENDENTE
+                || job.getSituacao() == RelatorioSituacao.EXECUTANDO); i++)
+            Thread.sleep(20);
+    }
+
+}
@@ -0,0 +1,63 @@
+package net.originmobi.pdv.relatorios;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import net.sf.jasperreports.engine.JasperReport;
+
+@ExtendWith(MockitoExtension.class)
+class RelatorioServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private HttpServletResponse resposta;
+
+    @InjectMocks
+    private RelatorioService relatorios;
+
+    @Test
+    void compila_deveManterOsRelatoriosCompiladosEmCache() {
+        relatorios.compila();
+
+        for (String nome : RelatorioService.RELATORIOS) {
+            JasperReport compilado = relatorios.relatorio(nome);
+
+            assertNotNull(compilado);
+            assertSame(compilado, relatorios.relatorio(nome));
+        }
+    }
+
+    @Test
+    void relatorio_inexistenteDeveLancarExcecao() {
+        assertThrows(RuntimeException.class, () -> relatorios.relatorio("naoexiste.jrxml"));
+    }
+
+    @Test
+    void gerar_semConexaoNaoDeveEnviarPdf() throws Exception {
+        when(dataSource.getConnection()).thenThrow(new SQLException("sem conexão"));
+
+        assertThrows(RuntimeException.class,
+            () -> relatorios.gerar("comanda.jrxml", resposta, new HashMap<>()));
+
+        verify(resposta, never()).getOutputStream();
+    }
+
+}
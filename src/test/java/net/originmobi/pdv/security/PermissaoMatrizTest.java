@@ -0,0 +1,75 @@
+package net.originmobi.pdv.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+
+import net.originmobi.pdv.repository.PermissoesRespository;
+
+@ExtendWith(MockitoExtension.class)
+class PermissaoMatrizTest {
+
+    @Mock
+    private PermissoesRespository permissoes;
+
+    @InjectMocks
+    private PermissaoMatriz matriz;
+
+    @Test
+    void autoridades_deveUnirOsGruposComUmaUnicaConsulta() {
+        when(permissoes.permissoesPorGrupo()).thenReturn(Arrays.asList(
+                new Object[] { 1L, "ENTRAR_NO_SISTEMA" },
+                new Object[] { 1L, "GERAR_VENDA" },
+                new Object[] { 2L, "ENTRAR_NO_SISTEMA" },
+                new Object[] { 2L, "FECHAR_CAIXA" }));
+
+        Set<String> nomes = nomes(matriz.autoridades(Arrays.asList(1L, 2L, 3L)));
+
+        assertEquals(3, nomes.size());
+        assertTrue(nomes.contains("ROLE_GERAR_VENDA"));
+        assertTrue(nomes.contains("ROLE_FECHAR_CAIXA"));
+        assertTrue(matriz.autoridades(3L).isEmpty());
+        verify(permissoes, times(1)).permissoesPorGrupo();
+    }
+
+    @Test
+    void recarrega_deveRefletirAlteracoesNasPermissoes() {
+        when(permissoes.permissoesPorGrupo())
+                .thenReturn(Collections.singletonList(new Object[] { 1L, "GERAR_VENDA" }))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(1, matriz.autoridades(1L).size());
+
+        matriz.recarrega();
+
+        assertTrue(matriz.autoridades(1L).isEmpty());
+    }
+
+    @Test
+    void autoridades_conjuntoDoGrupoNaoPodeSerAlterado() {
+        when(permissoes.permissoesPorGrupo())
+                .thenReturn(Collections.singletonList(new Object[] { 1L, "GERAR_VENDA" }));
+
+        assertThrows(UnsupportedOperationException.class, () -> matriz.autoridades(1L).clear());
+    }
+
+    private Set<String> nomes(Set<GrantedAuthority> autoridades) {
+        return autoridades.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+
+}
@@ -0,0 +1,164 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import net.originmobi.pdv.repository.ReceberAgingRepository;
+import net.originmobi.pdv.repository.ReceberAgingRepository.LeitorParcela;
+
+@ExtendWith(MockitoExtension.class)
+class AgingReceberServiceTest {
+
+    private static final LocalDate REFERENCIA = LocalDate.of(2024, 3, 31);
+
+    @Mock
+    private ReceberAgingRepository repository;
+
+    @InjectMocks
+    private AgingReceberService service;
+
+    @AfterEach
+    void encerra() {
+        service.encerra();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void atualiza_deveSepararOVencidoPorFaixaECalcularMultaEJuros() {
+        ReflectionTestUtils.setField(service, "clientesPorTarefa", 2);
+        service.inicia();
+
+        parcelas(leitor -> {
+            leitor.parcela(1L, 100.0, dia(-5));
+            leitor.parcela(1L, 50.0, dia(10));
+            leitor.parcela(2L, 200.0, dia(45));
+            leitor.parcela(3L, 10.0, dia(120));
+            leitor.parcela(3L, 30.0, dia(75));
+        });
+
+        assertEquals(3, service.atualiza(REFERENCIA));
+
+        ArgumentCaptor<List<Object[]>> lotes = ArgumentCaptor.forClass(List.class);
+        InOrder ordem = inOrder(repository);
+        ordem.verify(repository).descartaIncompleta(Date.valueOf(REFERENCIA));
+        ordem.verify(repository, times(2)).grava(lotes.capture());
+        ordem.verify(repository).conclui(Date.valueOf(REFERENCIA));
+        ordem.verify(repository).removeAnteriores(Date.valueOf(REFERENCIA));
+
+        List<Object[]> linhas = new ArrayList<>();
+        lotes.getAllValues().forEach(linhas::addAll);
+        linhas.sort(Comparator.comparing(linha -> (Long) linha[0]));
+
+        Date referencia = Date.valueOf(REFERENCIA);
+        assertArrayEquals(new Object[] { 1L, referencia, 100.0, 50.0, 0.0, 0.0, 0.0, 1.0, 0.17, 1, 10 },
+                linhas.get(0));
+        assertArrayEquals(new Object[] { 2L, referencia, 0.0, 0.0, 200.0, 0.0, 0.0, 4.0, 3.0, 1, 45 },
+                linhas.get(1));
+        assertArrayEquals(new Object[] { 3L, referencia, 0.0, 0.0, 0.0, 30.0, 10.0, 0.8, 1.15, 2, 120 },
+                linhas.get(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void atualiza_naoDeveCobrarMultaEJurosDentroDaCarencia() {
+        ReflectionTestUtils.setField(service, "carencia", 15);
+        service.inicia();
+
+        parcelas(leitor -> {
+            leitor.parcela(1L, 50.0, dia(10));
+            leitor.parcela(1L, 50.0, dia(30));
+        });
+
+        service.atualiza(REFERENCIA);
+
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(repository).grava(lote.capture());
+
+        assertArrayEquals(new Object[] { 1L, Date.valueOf(REFERENCIA), 0.0, 100.0, 0.0, 0.0, 0.0, 1.0, 0.5, 2, 30 },
+                lote.getValue().get(0));
+    }
+
+    @Test
+    void atualiza_falhaEmUmBlocoDeveDescartarAFotoDaDataEManterAAnterior() {
+        ReflectionTestUtils.setField(service, "clientesPorTarefa", 1);
+        service.inicia();
+
+        parcelas(leitor -> {
+            leitor.parcela(1L, 100.0, dia(5));
+            leitor.parcela(2L, 200.0, dia(45));
+        });
+        doAnswer(invocacao -> null).doThrow(new RuntimeException("Erro ao gravar o aging")).when(repository)
+                .grava(any());
+
+        assertThrows(RuntimeException.class, () -> service.atualiza(REFERENCIA));
+
+        verify(repository, times(2)).grava(any());
+        verify(repository, times(2)).descartaIncompleta(Date.valueOf(REFERENCIA));
+        verify(repository, never()).conclui(any());
+        verify(repository, never()).removeAnteriores(any());
+    }
+
+    @Test
+    void atualiza_dataJaConcluidaNaoDeveRefazerAFoto() {
+        service.inicia();
+        when(repository.concluida(Date.valueOf(REFERENCIA))).thenReturn(true);
+
+        assertEquals(-1, service.atualiza(REFERENCIA));
+
+        verify(repository, never()).descartaIncompleta(any());
+        verify(repository, never()).parcelasAbertas(any());
+        verify(repository, never()).conclui(any());
+    }
+
+    @Test
+    void busca_clienteForaDaFotoRetornaNull() {
+        service.inicia();
+
+        assertNull(service.busca(null));
+        assertNull(service.busca(7L));
+    }
+
+    private void parcelas(LeitorSimulado simulado) {
+        doAnswer(invocacao -> {
+            simulado.le(invocacao.getArgument(0));
+            return null;
+        }).when(repository).parcelasAbertas(any());
+    }
+
+    /* vencimento a tantos dias antes da referência, negativo para a vencer */
+    private Date dia(int atraso) {
+        return Date.valueOf(REFERENCIA.minusDays(atraso));
+    }
+
+    private interface LeitorSimulado {
+
+        void le(LeitorParcela leitor);
+
+    }
+
+}
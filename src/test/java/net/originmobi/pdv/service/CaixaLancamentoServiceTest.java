@@ -0,0 +1,120 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import net.originmobi.pdv.dto.ExtratoCaixaDTO;
+import net.originmobi.pdv.dto.ExtratoLancamentoDTO;
+import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
+import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
+import net.originmobi.pdv.model.Caixa;
+import net.originmobi.pdv.model.CaixaLancamento;
+import net.originmobi.pdv.model.Usuario;
+import net.originmobi.pdv.repository.CaixaLancamentoRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+@ExtendWith(MockitoExtension.class)
+class CaixaLancamentoServiceTest {
+
+    @Mock
+    private CaixaLancamentoRepository caixaLancamento;
+
+    @Mock
+    private LivroCaixa livro;
+
+    @InjectMocks
+    private CaixaLancamentoService service;
+
+    private Caixa caixa;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "tamanhoPagina", 2);
+
+        caixa = new Caixa();
+        caixa.setCodigo(1L);
+    }
+
+    @Test
+    void extrato_primeiraPaginaDeveCalcularOSaldoEIndicarAProxima() {
+        when(caixaLancamento.extrato(eq(1L), eq(new Timestamp(0)), eq(0L), eq(PageRequest.of(0, 3))))
+                .thenReturn(lancamentos(100.0, -30.0, 10.0));
+        when(livro.resumo(1L)).thenReturn(Collections.emptyList());
+
+        ExtratoCaixaDTO extrato = service.extrato(caixa, null, null, null);
+
+        assertEquals(2, extrato.getLancamentos().size());
+        assertEquals(Dinheiro.de(100.0), extrato.getLancamentos().get(0).getSaldo());
+        assertEquals(Dinheiro.de(70.0), extrato.getSaldoFinal());
+        assertTrue(extrato.isPossuiProxima());
+        assertEquals(2L, extrato.getProximoLancamento());
+        assertEquals(2000L, extrato.getProximaData());
+        assertEquals(7000L, extrato.getProximoSaldo());
+    }
+
+    @Test
+    void extrato_paginaSeguinteDeveContinuarDoSaldoAnterior() {
+        Caixa fechado = new Caixa();
+        fechado.setCodigo(1L);
+        fechado.setData_fechamento(new Timestamp(5000));
+
+        when(caixaLancamento.extrato(eq(1L), eq(new Timestamp(2000)), eq(2L), any()))
+                .thenReturn(lancamentos(10.0));
+        when(livro.resumoGravado(1L)).thenReturn(Collections.emptyList());
+
+        ExtratoCaixaDTO extrato = service.extrato(fechado, new Timestamp(2000), 2L, Dinheiro.de(70.0));
+
+        assertEquals(Dinheiro.de(70.0), extrato.getSaldoAnterior());
+        assertEquals(Dinheiro.de(80.0), extrato.getSaldoFinal());
+        assertFalse(extrato.isPossuiProxima());
+        assertNull(extrato.getProximoLancamento());
+        verify(livro, never()).resumo(1L);
+    }
+
+    @Test
+    void lancamento_saidaSemSaldoDeveInterromperSemGravar() {
+        CaixaLancamento lancamento = new CaixaLancamento("Sangria", 50.0, TipoLancamento.SANGRIA,
+                EstiloLancamento.SAIDA, caixa, new Usuario());
+        when(livro.movimenta(eq(1L), eq(TipoLancamento.SANGRIA), eq(EstiloLancamento.SAIDA), any()))
+                .thenReturn(null);
+
+        RuntimeException erro = assertThrows(RuntimeException.class, () -> service.lancamento(lancamento));
+
+        assertEquals("Saldo insuficiente para realizar esta operação", erro.getMessage());
+        verify(caixaLancamento, never()).save(any());
+    }
+
+    private List<ExtratoLancamentoDTO> lancamentos(double... valores) {
+        List<ExtratoLancamentoDTO> lancamentos = new ArrayList<>();
+        for (int i = 0; i < valores.length; i++) {
+            boolean saida = valores[i] < 0;
+            lancamentos.add(new ExtratoLancamentoDTO((long) i + 1, "Lançamento", valores[i],
+                    saida ? TipoLancamento.SANGRIA : TipoLancamento.SUPRIMENTO,
+                    saida ? EstiloLancamento.SAIDA : EstiloLancamento.ENTRADA, new Timestamp((i + 1) * 1000L)));
+        }
+        return lancamentos;
+    }
+
+}
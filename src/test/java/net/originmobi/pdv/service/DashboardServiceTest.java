@@ -0,0 +1,83 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import net.originmobi.pdv.repository.PagarParcelaRespository;
+import net.originmobi.pdv.repository.ReceberRepository;
+import net.originmobi.pdv.repository.VendaRepository;
+import net.originmobi.pdv.repository.notafiscal.NotaFiscalRepository;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private VendaRepository vendas;
+
+    @Mock
+    private ReceberRepository receber;
+
+    @Mock
+    private PagarParcelaRespository pagar;
+
+    @Mock
+    private NotaFiscalRepository notas;
+
+    @InjectMocks
+    private DashboardService dashboard;
+
+    @BeforeEach
+    void setUp() {
+        when(vendas.qtdVendasEmAberto()).thenReturn(3);
+        when(receber.valorAReceber()).thenReturn(1234.5);
+        when(pagar.valorAPagar()).thenReturn(0.0);
+        when(notas.totalNotaFiscalEmitidas()).thenReturn(10);
+
+        dashboard.reconcilia();
+    }
+
+    @Test
+    void reconcilia_deveCarregarOsIndicadoresNoFormatoDoBanco() {
+        assertEquals(3, dashboard.qtdVendasAbertas());
+        assertEquals("1.234,50", dashboard.totalAReceber());
+        assertEquals("0,00", dashboard.totalAPagar());
+        assertEquals(10, dashboard.qtdNotasEmitidas());
+    }
+
+    @Test
+    void atualizacoes_devemAlterarOsIndicadoresSemConsultarOBanco() {
+        dashboard.vendaAberta();
+        dashboard.vendaAberta();
+        dashboard.vendaFechada();
+        dashboard.aReceber(100.1);
+        dashboard.aReceber(-34.6);
+        dashboard.aPagar(50.0);
+        dashboard.notaEmitida();
+
+        assertEquals(4, dashboard.qtdVendasAbertas());
+        assertEquals("1.300,00", dashboard.totalAReceber());
+        assertEquals("50,00", dashboard.totalAPagar());
+        assertEquals(11, dashboard.qtdNotasEmitidas());
+    }
+
+    @Test
+    void reconcilia_deveCorrigirDiferencaComOBanco() {
+        dashboard.vendaAberta();
+        dashboard.aPagar(10.0);
+
+        when(vendas.qtdVendasEmAberto()).thenReturn(2);
+        when(pagar.valorAPagar()).thenReturn(5.25);
+        dashboard.reconcilia();
+
+        assertEquals(2, dashboard.qtdVendasAbertas());
+        assertEquals("5,25", dashboard.totalAPagar());
+    }
+
+}
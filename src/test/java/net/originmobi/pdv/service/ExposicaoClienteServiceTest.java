@@ -0,0 +1,111 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import net.originmobi.pdv.model.Parcela;
+import net.originmobi.pdv.model.Pessoa;
+import net.originmobi.pdv.model.Receber;
+import net.originmobi.pdv.repository.PessoaExposicaoRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+@ExtendWith(MockitoExtension.class)
+class ExposicaoClienteServiceTest {
+
+    @Mock
+    private PessoaExposicaoRepository repository;
+
+    @InjectMocks
+    private ExposicaoClienteService service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void registra_deveSomarAsParcelasDoMesmoClienteEmUmaLinha() {
+        Receber receber = receber(3L);
+        Date vencida = Date.valueOf(LocalDate.now().minusDays(10));
+        Date aVencer = Date.valueOf(LocalDate.now().plusDays(20));
+
+        service.registra(Arrays.asList(
+                ExposicaoClienteService.Movimento.baixa(parcela(receber, vencida), Dinheiro.de(-30.0), true),
+                ExposicaoClienteService.Movimento.baixa(parcela(receber, aVencer), Dinheiro.de(-5.5), false),
+                ExposicaoClienteService.Movimento.geracao(null, Dinheiro.de(10.0), aVencer)));
+
+        ArgumentCaptor<List<Object[]>> linhas = ArgumentCaptor.forClass(List.class);
+        verify(repository).movimenta(linhas.capture());
+
+        assertEquals(1, linhas.getValue().size());
+        assertArrayEquals(new Object[] { 3L, -35.5, -30.0, -1, null }, linhas.getValue().get(0));
+        verify(repository).recalculaVencimentoAntigo(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void registra_parcelaGeradaDeveLevarOVencimentoSemRecalcular() {
+        Date vencimento = Date.valueOf(LocalDate.now().plusDays(30));
+
+        service.registra(Arrays.asList(
+                ExposicaoClienteService.Movimento.geracao(receber(3L), Dinheiro.de(50.0), vencimento)));
+
+        ArgumentCaptor<List<Object[]>> linhas = ArgumentCaptor.forClass(List.class);
+        verify(repository).movimenta(linhas.capture());
+
+        assertArrayEquals(new Object[] { 3L, 50.0, 0.0, 1, vencimento }, linhas.getValue().get(0));
+        verify(repository, never()).recalculaVencimentoAntigo(anyList());
+    }
+
+    @Test
+    void verificaLimite_deveRecusarCompraAcimaDoLimite() {
+        ReflectionTestUtils.setField(service, "limiteCredito", 500.0);
+        when(repository.travaAberto(3L)).thenReturn(450.0);
+
+        service.verificaLimite(3L, Dinheiro.de(50.0));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> service.verificaLimite(3L, Dinheiro.de(50.01)));
+
+        assertEquals("Limite de crédito do cliente excedido, disponível R$ 50,00", ex.getMessage());
+        verify(repository, never()).busca(3L);
+    }
+
+    @Test
+    void verificaLimite_semLimiteNaoDeveTravarOCliente() {
+        service.verificaLimite(3L, Dinheiro.de(1000.0));
+
+        verify(repository, never()).travaAberto(3L);
+    }
+
+    private Receber receber(Long pessoa) {
+        Pessoa cliente = new Pessoa();
+        cliente.setCodigo(pessoa);
+
+        Receber receber = new Receber();
+        receber.setPessoa(cliente);
+        return receber;
+    }
+
+    private Parcela parcela(Receber receber, Date vencimento) {
+        Parcela parcela = new Parcela();
+        parcela.setReceber(receber);
+        parcela.setData_vencimento(vencimento);
+        return parcela;
+    }
+
+}
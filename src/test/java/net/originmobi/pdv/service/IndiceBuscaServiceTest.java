@@ -0,0 +1,127 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import net.originmobi.pdv.repository.IndiceBuscaRepository;
+import net.originmobi.pdv.repository.IndiceBuscaRepository.LeitorCadastro;
+import net.originmobi.pdv.service.IndiceBuscaService.Tipo;
+
+@ExtendWith(MockitoExtension.class)
+class IndiceBuscaServiceTest {
+
+    @TempDir
+    Path pasta;
+
+    @Mock
+    private IndiceBuscaRepository repository;
+
+    @InjectMocks
+    private IndiceBuscaService indice;
+
+    @BeforeEach
+    void inicia() throws Exception {
+        ReflectionTestUtils.setField(indice, "pasta", pasta.toString());
+        indice.inicia();
+
+        indice.produto(1L, "Açúcar Cristal 1kg", "1701.14.00");
+        indice.produto(2L, "Biscoito Maizena", "1905.31.00");
+        indice.produto(3L, "Biscoito Recheado Chocolate", "1905.31.00");
+        indice.pessoa(10L, "José da Conceição", "Zé", "123.456.789-00");
+        indice.fornecedor(20L, "Distribuidora Conceição");
+    }
+
+    @AfterEach
+    void encerra() throws Exception {
+        indice.encerra();
+    }
+
+    @Test
+    void busca_deveIgnorarAcentosEMaiusculas() {
+        assertEquals(Collections.singletonList(1L), indice.busca(Tipo.PRODUTO, "ACUCAR"));
+        assertEquals(Collections.singletonList(10L), indice.busca(Tipo.PESSOA, "jose conceicao"));
+    }
+
+    @Test
+    void busca_deveEncontrarPeloComecoDaPalavra() {
+        assertEquals(new HashSet<>(Arrays.asList(2L, 3L)), new HashSet<>(indice.busca(Tipo.PRODUTO, "bisc")));
+        assertEquals(Collections.singletonList(3L), indice.busca(Tipo.PRODUTO, "bisc choc"));
+    }
+
+    @Test
+    void busca_deveTolerarErroDeDigitacao() {
+        assertEquals(Collections.singletonList(2L), indice.busca(Tipo.PRODUTO, "maisena"));
+    }
+
+    @Test
+    void busca_deveEncontrarPeloDocumentoEPeloApelido() {
+        assertEquals(Collections.singletonList(10L), indice.busca(Tipo.PESSOA, "123.456"));
+        assertEquals(Collections.singletonList(10L), indice.busca(Tipo.PESSOA, "ze"));
+        assertEquals(2, indice.busca(Tipo.PRODUTO, "19053100").size());
+    }
+
+    @Test
+    void busca_deveSepararOsTiposDeCadastro() {
+        assertEquals(Collections.singletonList(20L), indice.busca(Tipo.FORNECEDOR, "conceicao"));
+        assertTrue(indice.busca(Tipo.FORNECEDOR, "").isEmpty());
+    }
+
+    @Test
+    void busca_devePaginarComOTotalDeEncontrados() {
+        Page<Long> pagina = indice.busca(Tipo.PRODUTO, "biscoito", PageRequest.of(1, 1));
+
+        assertEquals(2, pagina.getTotalElements());
+        assertEquals(1, pagina.getContent().size());
+    }
+
+    @Test
+    void busca_semPaginacaoDeveRetornarTodosOsEncontrados() {
+        ReflectionTestUtils.setField(indice, "tamanhoPagina", 2);
+        for (long codigo = 100; codigo < 105; codigo++)
+            indice.fornecedor(codigo, "Conceição Atacado " + codigo);
+
+        assertEquals(6, indice.busca(Tipo.FORNECEDOR, "conceicao").size());
+    }
+
+    @Test
+    void atualizacao_deveSubstituirODocumentoDoCadastro() {
+        indice.produto(2L, "Bolacha Maizena", "1905.31.00");
+
+        assertEquals(Collections.singletonList(3L), indice.busca(Tipo.PRODUTO, "biscoito"));
+        assertEquals(Collections.singletonList(2L), indice.busca(Tipo.PRODUTO, "bolacha"));
+    }
+
+    @Test
+    void reconstroi_deveRemoverOsCadastrosQueNaoExistemMais() throws Exception {
+        doAnswer(invocacao -> {
+            LeitorCadastro leitor = invocacao.getArgument(0);
+            leitor.cadastro(3L, "Biscoito Recheado Chocolate", null, "1905.31.00");
+            return null;
+        }).when(repository).produtos(any());
+
+        assertEquals(1, indice.reconstroi());
+
+        assertEquals(Collections.singletonList(3L), indice.busca(Tipo.PRODUTO, "biscoito"));
+        assertTrue(indice.busca(Tipo.PESSOA, "jose").isEmpty());
+    }
+
+}
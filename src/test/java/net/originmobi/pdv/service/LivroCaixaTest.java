@@ -0,0 +1,194 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.originmobi.pdv.dto.ResumoCaixaDTO;
+import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
+import net.originmobi.pdv.enumerado.caixa.TipoLancamento;
+import net.originmobi.pdv.repository.CaixaSaldoRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+@ExtendWith(MockitoExtension.class)
+class LivroCaixaTest {
+
+    @Mock
+    private CaixaSaldoRepository repository;
+
+    @InjectMocks
+    private LivroCaixa livro;
+
+    @Test
+    void movimenta_deveCarregarOSaldoUmaVezERecusarSaidaMaiorQueOSaldo() {
+        when(repository.resumoLancamentos(1L)).thenReturn(linhas(entrada(150.0), saida(-50.0)));
+
+        assertNotNull(livro.movimenta(1L, TipoLancamento.SUPRIMENTO, EstiloLancamento.ENTRADA, Dinheiro.de(20.0)));
+        assertNotNull(livro.movimenta(1L, TipoLancamento.SANGRIA, EstiloLancamento.SAIDA, Dinheiro.de(-120.0)));
+        assertNull(livro.movimenta(1L, TipoLancamento.SANGRIA, EstiloLancamento.SAIDA, Dinheiro.de(-0.01)));
+
+        assertEquals(Dinheiro.ZERO, livro.saldo(1L));
+        verify(repository, times(1)).resumoLancamentos(1L);
+    }
+
+    @Test
+    void movimenta_saidasConcorrentesNaoDevemDeixarOSaldoNegativo() throws Exception {
+        when(repository.resumoLancamentos(1L)).thenReturn(linhas(entrada(100.0)));
+        livro.saldo(1L);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger aceitas = new AtomicInteger();
+
+        for (int i = 0; i < 50; i++) {
+            executor.submit(() -> {
+                largada.await();
+                if (livro.movimenta(1L, TipoLancamento.SANGRIA, EstiloLancamento.SAIDA, Dinheiro.de(10.0)) != null)
+                    aceitas.incrementAndGet();
+                return null;
+            });
+        }
+
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10, aceitas.get());
+        assertEquals(Dinheiro.ZERO, livro.saldo(1L));
+    }
+
+    @Test
+    void movimenta_deveSerDesfeitoQuandoATransacaoNaoForConfirmada() {
+        when(repository.resumoLancamentos(1L)).thenReturn(linhas(entrada(100.0)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            LivroCaixa.Movimento movimento = livro.movimenta(1L, TipoLancamento.SANGRIA, EstiloLancamento.SAIDA, Dinheiro.de(-30.0));
+            assertEquals(Dinheiro.de(70.0), livro.saldo(1L));
+
+            for (TransactionSynchronization sincronizacao : TransactionSynchronizationManager.getSynchronizations())
+                sincronizacao.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            // desfazer de novo não altera o saldo
+            movimento.desfaz();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(Dinheiro.de(100.0), livro.saldo(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gravaSaldos_deveGravarSoOsCaixasAlteradosEmLote() {
+        when(repository.resumoLancamentos(1L)).thenReturn(linhas(entrada(100.0)));
+        when(repository.resumoLancamentos(2L)).thenReturn(linhas(entrada(50.0)));
+
+        livro.movimenta(1L, TipoLancamento.SANGRIA, EstiloLancamento.SAIDA, Dinheiro.de(-25.5));
+        livro.saldo(2L);
+
+        livro.gravaSaldos();
+        livro.gravaSaldos();
+
+        ArgumentCaptor<List<Object[]>> linhas = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(1)).atualizaSaldos(linhas.capture());
+
+        assertEquals(1, linhas.getValue().size());
+        assertArrayEquals(new Object[] { 74.5, 100.0, 25.5, 1L }, linhas.getValue().get(0));
+
+        ArgumentCaptor<List<Object[]>> resumos = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(1)).atualizaResumos(resumos.capture());
+
+        // o resumo carregado vai junto, o caixa pode ter parado sem gravá-lo
+        assertEquals(2, resumos.getValue().size());
+        assertArrayEquals(new Object[] { 1L, "SUPRIMENTO", "ENTRADA", 1L, 100.0 }, resumos.getValue().get(0));
+        assertArrayEquals(new Object[] { 1L, "SANGRIA", "SAIDA", 1L, -25.5 }, resumos.getValue().get(1));
+    }
+
+    @Test
+    void resumo_deveSomarPorTipoEEstiloEDesfazerJuntoComOSaldo() {
+        when(repository.resumoLancamentos(1L)).thenReturn(linhas(entrada(100.0)));
+
+        livro.movimenta(1L, TipoLancamento.SUPRIMENTO, EstiloLancamento.ENTRADA, Dinheiro.de(20.0));
+        livro.movimenta(1L, TipoLancamento.SANGRIA, EstiloLancamento.SAIDA, Dinheiro.de(30.0));
+        livro.movimenta(1L, TipoLancamento.SANGRIA, EstiloLancamento.SAIDA, Dinheiro.de(10.0)).desfaz();
+
+        List<ResumoCaixaDTO> resumo = livro.resumo(1L);
+
+        assertEquals(2, resumo.size());
+        assertEquals(TipoLancamento.SUPRIMENTO, resumo.get(0).getTipo());
+        assertEquals(2, resumo.get(0).getQuantidade());
+        assertEquals(Dinheiro.de(120.0), resumo.get(0).getValor());
+        assertEquals(TipoLancamento.SANGRIA, resumo.get(1).getTipo());
+        assertEquals(1, resumo.get(1).getQuantidade());
+        assertEquals(Dinheiro.de(-30.0), resumo.get(1).getValor());
+        assertEquals(Dinheiro.de(90.0), livro.saldo(1L));
+    }
+
+    @Test
+    void resumoGravado_deveSomarOsLancamentosQuandoNaoHouverResumoGravado() {
+        when(repository.resumoGravado(1L)).thenReturn(Collections.emptyList());
+        when(repository.resumoLancamentos(1L)).thenReturn(linhas(entrada(100.0)));
+
+        List<ResumoCaixaDTO> resumo = livro.resumoGravado(1L);
+
+        assertEquals(1, resumo.size());
+        assertEquals(Dinheiro.de(100.0), resumo.get(0).getValor());
+    }
+
+    @Test
+    void fecha_deveGravarORetornarOSaldoETirarOCaixaDaMemoria() {
+        when(repository.resumoLancamentos(1L)).thenReturn(linhas(entrada(100.0), saida(-20.0)));
+
+        LivroCaixa.Posicao posicao = livro.fecha(1L);
+
+        assertEquals(Dinheiro.de(80.0), posicao.getTotal());
+        assertEquals(Dinheiro.de(100.0), posicao.getEntradas());
+        assertEquals(Dinheiro.de(20.0), posicao.getSaidas());
+        verify(repository).atualizaSaldos(anyList());
+
+        livro.gravaSaldos();
+        livro.saldo(1L);
+
+        verify(repository, times(2)).resumoLancamentos(1L);
+        verify(repository, never()).resumoLancamentos(2L);
+    }
+
+    private static List<Object[]> linhas(Object[]... linhas) {
+        return Arrays.asList(linhas);
+    }
+
+    private static Object[] entrada(double valor) {
+        return new Object[] { "SUPRIMENTO", "ENTRADA", 1L, valor };
+    }
+
+    private static Object[] saida(double valor) {
+        return new Object[] { "SANGRIA", "SAIDA", 1L, valor };
+    }
+
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -30,6 +31,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import net.originmobi.pdv.enumerado.notafiscal.NotaFiscalTipo;
 import net.originmobi.pdv.model.Empresa;
@@ -40,6 +43,7 @@ import net.originmobi.pdv.model.Pessoa;
 import net.originmobi.pdv.repository.notafiscal.NotaFiscalRepository;
 import net.originmobi.pdv.service.notafiscal.NotaFiscalService;
 import net.originmobi.pdv.service.notafiscal.NotaFiscalTotaisServer;
+import net.originmobi.pdv.service.notafiscal.NumeracaoNotaFiscal;
 import net.originmobi.pdv.xml.nfe.GeraXmlNfe;
 
 @ExtendWith(MockitoExtension.class)
@@ -55,6 +59,10 @@ class NotaFiscalServiceTest {
     private PessoaService pessoas;
     @Mock
     private GeraXmlNfe geraXmlNfe;
+    @Mock
+    private DashboardService dashboard;
+    @Mock
+    private NumeracaoNotaFiscal numeracao;
 
     @InjectMocks
     private NotaFiscalService service;
@@ -123,7 +131,7 @@ class NotaFiscalServiceTest {
         // argumentos são passados corretamente)
         when(empresas.verificaEmpresaCadastrada()).thenReturn(Optional.of(empresa));
         when(pessoas.buscaPessoa(eq(codDestinatario))).thenReturn(Optional.of(pessoa));
-        when(notasFiscais.buscaUltimaNota(1)).thenReturn(100L);
+        when(numeracao.proximo(1)).thenReturn(100L);
 
         // Mock do save
         when(notasFiscais.save(any(NotaFiscal.class))).thenAnswer(inv -> {
@@ -148,7 +156,7 @@ class NotaFiscalServiceTest {
         verify(notasFiscais).save(notaFiscalCaptor.capture());
         NotaFiscal notaSalva = notaFiscalCaptor.getValue();
 
-        // Mata mutante: Verifica se o número foi pego do buscaUltimaNota
+        // Mata mutante: Verifica se o número foi pego da numeração da série
         assertEquals(100L, notaSalva.getNumero());
 
         // Mata mutante: Verifica se os parametros de entrada foram usados
@@ -212,13 +220,65 @@ class NotaFiscalServiceTest {
     void cadastrar_ErroSalvarNota() {
         when(empresas.verificaEmpresaCadastrada()).thenReturn(Optional.of(empresaValida(1, 1)));
         when(pessoas.buscaPessoa(anyLong())).thenReturn(Optional.of(new Pessoa()));
-        when(notasFiscais.buscaUltimaNota(anyInt())).thenReturn(1L);
+        when(numeracao.proximo(anyInt())).thenReturn(1L);
 
         when(notasFiscais.save(any())).thenThrow(new RuntimeException("DB Error"));
 
         RuntimeException ex = assertThrows(RuntimeException.class,
                 () -> service.cadastrar(1L, "Venda", NotaFiscalTipo.SAIDA));
         assertEquals("Erro ao cadastrar a nota, chame o suporte", ex.getMessage());
+        verify(numeracao).registraLacuna(eq(1), eq(1L), anyString());
+    }
+
+    @Test
+    @DisplayName("Cadastrar: Transação desfeita depois do cadastro deve registrar o número como lacuna")
+    void cadastrar_TransacaoDesfeitaDeveRegistrarLacuna() {
+        when(empresas.verificaEmpresaCadastrada()).thenReturn(Optional.of(empresaValida(1, 1)));
+        when(pessoas.buscaPessoa(anyLong())).thenReturn(Optional.of(new Pessoa()));
+        when(numeracao.proximo(anyInt())).thenReturn(7L);
+        when(notasFiscais.save(any())).thenAnswer(inv -> {
+            NotaFiscal nf = inv.getArgument(0);
+            nf.setCodigo(70L);
+            return nf;
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals("70", service.cadastrar(1L, "Venda", NotaFiscalTipo.SAIDA));
+            verify(numeracao, never()).registraLacuna(anyInt(), anyLong(), anyString());
+
+            List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+            sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(numeracao).registraLacuna(eq(1), eq(7L), anyString());
+    }
+
+    @Test
+    @DisplayName("Cadastrar: Transação confirmada não deve registrar lacuna")
+    void cadastrar_TransacaoConfirmadaNaoDeveRegistrarLacuna() {
+        when(empresas.verificaEmpresaCadastrada()).thenReturn(Optional.of(empresaValida(1, 1)));
+        when(pessoas.buscaPessoa(anyLong())).thenReturn(Optional.of(new Pessoa()));
+        when(numeracao.proximo(anyInt())).thenReturn(7L);
+        when(notasFiscais.save(any())).thenAnswer(inv -> {
+            NotaFiscal nf = inv.getArgument(0);
+            nf.setCodigo(70L);
+            return nf;
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.cadastrar(1L, "Venda", NotaFiscalTipo.SAIDA);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(numeracao, never()).registraLacuna(anyInt(), anyLong(), anyString());
     }
 
     // --- TESTES DO GERA DV ---
@@ -18,8 +18,6 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import net.originmobi.pdv.enumerado.caixa.EstiloLancamento;
@@ -32,7 +30,7 @@ import net.originmobi.pdv.model.PagarParcela;
 import net.originmobi.pdv.model.PagarTipo;
 import net.originmobi.pdv.model.Usuario;
 import net.originmobi.pdv.repository.PagarRepository;
-import net.originmobi.pdv.singleton.Aplicacao;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @ExtendWith(MockitoExtension.class)
 public class PagarServiceTest {
@@ -53,17 +51,19 @@ public class PagarServiceTest {
     private CaixaService caixas;
 
     @Mock
-    private UsuarioService usuarios;
+    private UsuarioAtualService usuarioAtual;
 
     @Mock
     private CaixaLancamentoService lancamentos;
 
+    @Mock
+    private LivroCaixa livro;
+
     @Mock private Fornecedor fornecedorMock;
     @Mock private PagarTipo pagarTipoMock;
     @Mock private PagarParcela parcelaMock;
     @Mock private Caixa caixaMock;
     @Mock private Usuario usuarioMock;
-    @Mock private Aplicacao aplicacaoMock;
     
     @Captor
     private ArgumentCaptor<CaixaLancamento> lancamentoCaptor;
@@ -157,17 +157,15 @@ public class PagarServiceTest {
         setupMocksBasicosQuitar(codParcela, 100.0, 1000.0);
         when(parcelaMock.getValor_pago()).thenReturn(10.0);
         
-        try (MockedStatic<Aplicacao> appStatic = Mockito.mockStatic(Aplicacao.class)) {
-            configurarMockAplicacao(appStatic);
-            
-            service.quitar(codParcela, 50.0, 5.0, 2.0, 1L);
-            
-            verify(parcelaMock).setValor_pago(62.0); 
-            verify(parcelaMock).setValor_restante(45.0); 
-            verify(parcelaMock).setValor_desconto(5.0);
-            verify(parcelaMock).setValor_acrescimo(2.0);
-            verify(pagarParcelaServ).merger(parcelaMock);
-        }
+        configurarUsuarioAtual();
+        
+        service.quitar(codParcela, 50.0, 5.0, 2.0, 1L);
+        
+        verify(parcelaMock).setValor_pago(62.0); 
+        verify(parcelaMock).setValor_restante(45.0); 
+        verify(parcelaMock).setValor_desconto(5.0);
+        verify(parcelaMock).setValor_acrescimo(2.0);
+        verify(pagarParcelaServ).merger(parcelaMock);
     }
 
     @Test
@@ -176,15 +174,13 @@ public class PagarServiceTest {
         Long codParcela = 10L;
         setupMocksBasicosQuitar(codParcela, 100.0, 1000.0);
         
-        try (MockedStatic<Aplicacao> appStatic = Mockito.mockStatic(Aplicacao.class)) {
-            configurarMockAplicacao(appStatic);
-            
-            service.quitar(codParcela, 90.0, 20.0, 0.0, 1L);
-            
-            verify(parcelaMock).setValor_restante(0.0); 
-            verify(parcelaMock).setQuitado(1);
-            verify(pagarParcelaServ).merger(parcelaMock);
-        }
+        configurarUsuarioAtual();
+        
+        service.quitar(codParcela, 90.0, 20.0, 0.0, 1L);
+        
+        verify(parcelaMock).setValor_restante(0.0); 
+        verify(parcelaMock).setQuitado(1);
+        verify(pagarParcelaServ).merger(parcelaMock);
     }
 
     @Test
@@ -193,14 +189,12 @@ public class PagarServiceTest {
         Long codParcela = 10L;
         setupMocksBasicosQuitar(codParcela, 100.0, 500.0);
         
-        try (MockedStatic<Aplicacao> appStatic = Mockito.mockStatic(Aplicacao.class)) {
-            configurarMockAplicacao(appStatic);
-            
-            service.quitar(codParcela, 100.0, 0.0, 0.0, 1L);
-            
-            verify(parcelaMock).setQuitado(1);
-            verify(pagarParcelaServ).merger(parcelaMock);
-        }
+        configurarUsuarioAtual();
+        
+        service.quitar(codParcela, 100.0, 0.0, 0.0, 1L);
+        
+        verify(parcelaMock).setQuitado(1);
+        verify(pagarParcelaServ).merger(parcelaMock);
     }
     
     @Test
@@ -209,14 +203,12 @@ public class PagarServiceTest {
         Long codParcela = 10L;
         setupMocksBasicosQuitar(codParcela, 100.0, 500.0);
         
-        try (MockedStatic<Aplicacao> appStatic = Mockito.mockStatic(Aplicacao.class)) {
-            configurarMockAplicacao(appStatic);
-            
-            service.quitar(codParcela, 50.0, 0.0, 0.0, 1L);
-            
-            verify(parcelaMock).setQuitado(0);
-            verify(pagarParcelaServ).merger(parcelaMock);
-        }
+        configurarUsuarioAtual();
+        
+        service.quitar(codParcela, 50.0, 0.0, 0.0, 1L);
+        
+        verify(parcelaMock).setQuitado(0);
+        verify(pagarParcelaServ).merger(parcelaMock);
     }
 
     @Test
@@ -225,25 +217,23 @@ public class PagarServiceTest {
         Long codParcela = 10L;
         setupMocksBasicosQuitar(codParcela, 100.0, 500.0);
         
-        try (MockedStatic<Aplicacao> appStatic = Mockito.mockStatic(Aplicacao.class)) {
-            configurarMockAplicacao(appStatic);
-            
-            service.quitar(codParcela, 100.0, 0.0, 0.0, 1L);
-            
-            verify(lancamentos).lancamento(lancamentoCaptor.capture());
-            CaixaLancamento lancamentoGerado = lancamentoCaptor.getValue();
-            
-            assertEquals(TipoLancamento.PAGAMENTO, lancamentoGerado.getTipo());
-            assertEquals(EstiloLancamento.SAIDA, lancamentoGerado.getEstilo());
-            
-            try {
-                Field fieldParcela = CaixaLancamento.class.getDeclaredField("parcelaPagar"); 
-                fieldParcela.setAccessible(true);
-                PagarParcela parcelaVinculada = (PagarParcela) fieldParcela.get(lancamentoGerado);
-                assertEquals(parcelaMock, parcelaVinculada);
-            } catch (NoSuchFieldException e) {
-                System.out.println("Aviso: Campo parcelaPagar não encontrado para validação via reflection.");
-            }
+        configurarUsuarioAtual();
+        
+        service.quitar(codParcela, 100.0, 0.0, 0.0, 1L);
+        
+        verify(lancamentos).lancamento(lancamentoCaptor.capture());
+        CaixaLancamento lancamentoGerado = lancamentoCaptor.getValue();
+        
+        assertEquals(TipoLancamento.PAGAMENTO, lancamentoGerado.getTipo());
+        assertEquals(EstiloLancamento.SAIDA, lancamentoGerado.getEstilo());
+        
+        try {
+            Field fieldParcela = CaixaLancamento.class.getDeclaredField("parcelaPagar"); 
+            fieldParcela.setAccessible(true);
+            PagarParcela parcelaVinculada = (PagarParcela) fieldParcela.get(lancamentoGerado);
+            assertEquals(parcelaMock, parcelaVinculada);
+        } catch (NoSuchFieldException e) {
+            System.out.println("Aviso: Campo parcelaPagar não encontrado para validação via reflection.");
         }
     }
 
@@ -274,21 +264,19 @@ public class PagarServiceTest {
         lenient().when(parcelaMock.getValor_desconto()).thenReturn(0.0);
         lenient().when(parcelaMock.getValor_acrescimo()).thenReturn(0.0);
 
-        try (MockedStatic<Aplicacao> appStatic = Mockito.mockStatic(Aplicacao.class)) {
-            configurarMockAplicacao(appStatic);
-            
-            when(caixas.busca(codCaixa)).thenReturn(Optional.of(caixaMock));
-            when(caixaMock.getValor_total()).thenReturn(50.0); 
-
-            RuntimeException ex = assertThrows(RuntimeException.class, () -> {
-                service.quitar(codParcela, 100.0, 0.0, 0.0, codCaixa);
-            });
-            
-            assertEquals("Saldo insuficiente para realizar este pagamento", ex.getMessage());
-            
-            verify(pagarParcelaServ).merger(parcelaMock); 
-            verify(lancamentos, never()).lancamento(any());
-        }
+        configurarUsuarioAtual();
+        
+        when(caixas.busca(codCaixa)).thenReturn(Optional.of(caixaMock));
+        when(livro.saldo(any())).thenReturn(Dinheiro.de(50.0));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> {
+            service.quitar(codParcela, 100.0, 0.0, 0.0, codCaixa);
+        });
+        
+        assertEquals("Saldo insuficiente para realizar este pagamento", ex.getMessage());
+        
+        verify(pagarParcelaServ).merger(parcelaMock); 
+        verify(lancamentos, never()).lancamento(any());
     }
     
     @Test
@@ -299,17 +287,34 @@ public class PagarServiceTest {
         
         doThrow(new RuntimeException("Erro lancamento")).when(lancamentos).lancamento(any());
         
-        try (MockedStatic<Aplicacao> appStatic = Mockito.mockStatic(Aplicacao.class)) {
-            configurarMockAplicacao(appStatic);
-            
-            RuntimeException ex = assertThrows(RuntimeException.class, () -> {
-                service.quitar(codParcela, 100.0, 0.0, 0.0, 1L);
-            });
-            
-            assertEquals("Ocorreu um erro ao realizar o pagamento no caixa, chame o suporte", ex.getMessage());
-            
-            verify(pagarParcelaServ).merger(parcelaMock);
-        }
+        configurarUsuarioAtual();
+        
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> {
+            service.quitar(codParcela, 100.0, 0.0, 0.0, 1L);
+        });
+        
+        assertEquals("Ocorreu um erro ao realizar o pagamento no caixa, chame o suporte", ex.getMessage());
+        
+        verify(pagarParcelaServ).merger(parcelaMock);
+    }
+
+    @Test
+    @DisplayName("Quitar: Deve falhar se o caixa rejeitar a saída por falta de saldo")
+    void deveFalharQuandoLancamentoRejeitaPorSaldo() {
+        Long codParcela = 10L;
+        setupMocksBasicosQuitar(codParcela, 100.0, 500.0);
+        // outra saída consumiu o saldo entre a conferência e o lançamento
+        when(livro.saldo(any())).thenReturn(Dinheiro.de(500.0), Dinheiro.de(20.0));
+        doThrow(new RuntimeException("Saldo insuficiente para realizar esta operação")).when(lancamentos)
+                .lancamento(any());
+
+        configurarUsuarioAtual();
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> {
+            service.quitar(codParcela, 100.0, 0.0, 0.0, 1L);
+        });
+
+        assertEquals("Saldo insuficiente para realizar este pagamento", ex.getMessage());
     }
     
     private void setupMocksBasicosQuitar(Long codParcela, Double valorRestanteParcela, Double saldoCaixa) {
@@ -321,12 +326,10 @@ public class PagarServiceTest {
         lenient().when(parcelaMock.getValor_acrescimo()).thenReturn(0.0);
 
         when(caixas.busca(anyLong())).thenReturn(Optional.of(caixaMock));
-        lenient().when(caixaMock.getValor_total()).thenReturn(saldoCaixa);
+        lenient().when(livro.saldo(any())).thenReturn(Dinheiro.de(saldoCaixa));
     }
 
-    private void configurarMockAplicacao(MockedStatic<Aplicacao> appStatic) {
-        appStatic.when(Aplicacao::getInstancia).thenReturn(aplicacaoMock);
-        when(aplicacaoMock.getUsuarioAtual()).thenReturn("user_teste");
-        lenient().when(usuarios.buscaUsuario("user_teste")).thenReturn(usuarioMock);
+    private void configurarUsuarioAtual() {
+        when(usuarioAtual.usuario()).thenReturn(usuarioMock);
     }
 }
\ No newline at end of file
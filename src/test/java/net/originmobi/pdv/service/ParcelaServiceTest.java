@@ -0,0 +1,122 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import net.originmobi.pdv.dto.ExposicaoClienteDTO;
+import net.originmobi.pdv.exceptions.ParcelaAlteradaException;
+import net.originmobi.pdv.filter.ClienteFilter;
+import net.originmobi.pdv.model.Parcela;
+import net.originmobi.pdv.repository.ParcelaBaixaRepository;
+import net.originmobi.pdv.repository.ParcelaRepository;
+import net.originmobi.pdv.utilitarios.Dinheiro;
+
+@ExtendWith(MockitoExtension.class)
+class ParcelaServiceTest {
+
+    @Mock
+    private ParcelaRepository parcelas;
+
+    @Mock
+    private ParcelaBaixaRepository baixas;
+
+    @Mock
+    private DashboardService dashboard;
+
+    @Mock
+    private ExposicaoClienteService exposicao;
+
+    @InjectMocks
+    private ParcelaService service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void receber_deveBaixarTodasAsParcelasEmUmUnicoLote() {
+        Parcela p1 = parcela(1L, 50.0, 10.0);
+        Parcela p2 = parcela(2L, 50.0, 0.0);
+
+        Map<Parcela, Dinheiro> pagamentos = new LinkedHashMap<>();
+        pagamentos.put(p1, Dinheiro.de(50.0));
+        pagamentos.put(p2, Dinheiro.de(20.1));
+
+        when(baixas.baixa(anyList())).thenReturn(new int[] { 1, 1 });
+
+        service.receber(pagamentos);
+
+        ArgumentCaptor<List<Object[]>> linhas = ArgumentCaptor.forClass(List.class);
+        verify(baixas).baixa(linhas.capture());
+
+        Object[] quitada = linhas.getValue().get(0);
+        assertEquals(60.0, quitada[2]);
+        assertEquals(0.0, quitada[3]);
+        assertEquals(1, quitada[4]);
+        assertEquals(1L, quitada[6]);
+        assertEquals(50.0, quitada[7]);
+
+        Object[] parcial = linhas.getValue().get(1);
+        assertEquals(20.1, parcial[2]);
+        assertEquals(29.9, parcial[3]);
+        assertEquals(0, parcial[4]);
+
+        verify(dashboard).aReceber(-70.1);
+        verify(exposicao).registra(anyList());
+    }
+
+    @Test
+    void totalReceberCliente_deveVirDaPosicaoDoClienteSoParaAsParcelasEmAberto() {
+        when(exposicao.exposicao(7L)).thenReturn(new ExposicaoClienteDTO(Dinheiro.de(120.5), Dinheiro.ZERO, 2, null));
+
+        ClienteFilter abertas = new ClienteFilter();
+        abertas.setCodigo(7L);
+        abertas.setPago(false);
+
+        ClienteFilter pagas = new ClienteFilter();
+        pagas.setCodigo(7L);
+        pagas.setPago(true);
+
+        assertEquals(Dinheiro.de(120.5), service.totalReceberCliente(abertas));
+        assertEquals(Dinheiro.ZERO, service.totalReceberCliente(pagas));
+    }
+
+    @Test
+    void receber_deveFalharQuandoAParcelaFoiAlteradaDepoisDeLida() {
+        Map<Parcela, Dinheiro> pagamentos = new LinkedHashMap<>();
+        pagamentos.put(parcela(1L, 50.0, 0.0), Dinheiro.de(10.0));
+        pagamentos.put(parcela(2L, 50.0, 0.0), Dinheiro.de(10.0));
+
+        when(baixas.baixa(anyList())).thenReturn(new int[] { 1, 0 });
+
+        ParcelaAlteradaException ex = assertThrows(ParcelaAlteradaException.class, () -> service.receber(pagamentos));
+
+        assertEquals("A parcela 2 foi alterada por outro usuário, atualize e tente novamente", ex.getMessage());
+        verify(dashboard, never()).aReceber(anyDouble());
+        verify(exposicao, never()).registra(anyList());
+    }
+
+    private Parcela parcela(Long codigo, double restante, double recebido) {
+        Parcela parcela = new Parcela();
+        parcela.setCodigo(codigo);
+        parcela.setValor_restante(restante);
+        parcela.setValor_recebido(recebido);
+        parcela.setValor_desconto(0.0);
+        parcela.setValor_acrescimo(0.0);
+        return parcela;
+    }
+
+}
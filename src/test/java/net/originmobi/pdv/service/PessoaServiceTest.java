@@ -48,6 +48,9 @@ class PessoaServiceTest {
     @Mock
     private TelefoneService telefoneService;
 
+    @Mock
+    private IndiceBuscaService indice;
+
     @Mock
     private RedirectAttributes redirectAttributes;
 
@@ -102,15 +105,21 @@ class PessoaServiceTest {
     }
 
     @Test
-    @DisplayName("Filter: Nome Preenchido deve buscar pelo nome")
+    @DisplayName("Filter: Nome Preenchido deve buscar no índice, na ordem da busca")
     void testFilterNomeInformado() {
         PessoaFilter filter = new PessoaFilter();
         filter.setNome("Ana");
-        when(repository.findByNomeContaining("Ana")).thenReturn(Collections.emptyList());
-        
-        service.filter(filter);
-        
-        verify(repository).findByNomeContaining("Ana");
+        Pessoa ana = new Pessoa();
+        ana.setCodigo(2L);
+        Pessoa mariana = new Pessoa();
+        mariana.setCodigo(5L);
+        when(indice.busca(IndiceBuscaService.Tipo.PESSOA, "Ana")).thenReturn(Arrays.asList(2L, 5L, 9L));
+        when(repository.findAllById(Arrays.asList(2L, 5L, 9L))).thenReturn(Arrays.asList(mariana, ana));
+
+        List<Pessoa> result = service.filter(filter);
+
+        assertEquals(Arrays.asList(ana, mariana), result);
+        verify(repository, never()).findByNomeContaining(anyString());
     }
 
     @Test
@@ -0,0 +1,95 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import net.originmobi.pdv.dto.ProdutoCatalogoDTO;
+import net.originmobi.pdv.enumerado.produto.ProdutoBalanca;
+import net.originmobi.pdv.repository.ProdutoRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ProdutoCatalogoServiceTest {
+
+    @Mock
+    private ProdutoRepository produtos;
+
+    @InjectMocks
+    private ProdutoCatalogoService catalogo;
+
+    @BeforeEach
+    void setUp() {
+        when(produtos.catalogoVendaveis()).thenReturn(Arrays.asList(
+            new ProdutoCatalogoDTO(30L, "Picolé de Limão", 3.5, ProdutoBalanca.NAO),
+            new ProdutoCatalogoDTO(10L, "Biscoito Cream Cracker", 4.0, ProdutoBalanca.NAO),
+            new ProdutoCatalogoDTO(20L, "Queijo Mussarela", 39.9, ProdutoBalanca.SIM)
+        ));
+    }
+
+    @Test
+    void busca_deveEncontrarProdutoPeloCodigo() {
+        assertEquals("Queijo Mussarela", catalogo.busca(20L).getDescricao());
+        assertNull(catalogo.busca(99L));
+    }
+
+    @Test
+    void pesquisa_deveIgnorarAcentosEMaiusculas() {
+        List<ProdutoCatalogoDTO> resultado = catalogo.pesquisa("PICOLE lim");
+
+        assertEquals(1, resultado.size());
+        assertEquals(Long.valueOf(30L), resultado.get(0).getCodigo());
+    }
+
+    @Test
+    void pesquisa_devePriorizarCodigoEDepoisTrechoDaDescricao() {
+        List<ProdutoCatalogoDTO> porCodigo = catalogo.pesquisa("10");
+        List<ProdutoCatalogoDTO> porTrecho = catalogo.pesquisa("racker");
+
+        assertEquals(Long.valueOf(10L), porCodigo.get(0).getCodigo());
+        assertEquals(Long.valueOf(10L), porTrecho.get(0).getCodigo());
+    }
+
+    @Test
+    void pesquisa_semTermoDeveRetornarProdutosOrdenadosPorCodigo() {
+        List<ProdutoCatalogoDTO> resultado = catalogo.pesquisa(null);
+
+        assertEquals(3, resultado.size());
+        assertEquals(Long.valueOf(10L), resultado.get(0).getCodigo());
+    }
+
+    @Test
+    void invalida_deveRecarregarOsProdutosNaProximaConsulta() {
+        catalogo.pesquisa("queijo");
+        catalogo.pesquisa("biscoito");
+        catalogo.invalida();
+        catalogo.pesquisa("queijo");
+
+        verify(produtos, times(2)).catalogoVendaveis();
+    }
+
+    @Test
+    void invalida_duranteAMontagemDeveDescartarACopiaLida() {
+        when(produtos.catalogoVendaveis()).thenAnswer(i -> {
+            // o produto foi alterado enquanto os vendáveis eram lidos
+            catalogo.invalida();
+            return Arrays.asList(new ProdutoCatalogoDTO(20L, "Queijo Mussarela", 39.9, ProdutoBalanca.SIM));
+        }).thenReturn(Arrays.asList(new ProdutoCatalogoDTO(20L, "Queijo Prato", 42.9, ProdutoBalanca.SIM)));
+
+        assertEquals("Queijo Prato", catalogo.busca(20L).getDescricao());
+        assertEquals("Queijo Prato", catalogo.busca(20L).getDescricao());
+        verify(produtos, times(2)).catalogoVendaveis();
+    }
+
+}
@@ -18,6 +18,7 @@ import java.util.Collections;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import net.originmobi.pdv.filter.ProdutoFilter;
 
@@ -34,10 +35,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import net.originmobi.pdv.dto.EstoqueVendaDTO;
 import net.originmobi.pdv.enumerado.EntradaSaida;
 import net.originmobi.pdv.enumerado.produto.ProdutoControleEstoque;
 import net.originmobi.pdv.enumerado.produto.ProdutoSubstTributaria;
 import net.originmobi.pdv.model.Produto;
+import net.originmobi.pdv.repository.EstoqueRepository;
 import net.originmobi.pdv.repository.ProdutoRepository;
 
 
@@ -49,9 +52,17 @@ public class ProdutoServiceTest {
     @Mock
     private ProdutoRepository produtos;
 
-    // Simula o serviço de VendaProduto
+    // Simula a movimentação de estoque em lote
     @Mock
-    private VendaProdutoService vendaProdutos;
+    private EstoqueRepository estoques;
+
+    // Simula o catálogo de produtos da tela de venda
+    @Mock
+    private ProdutoCatalogoService catalogo;
+
+    // Simula o índice de busca por texto
+    @Mock
+    private IndiceBuscaService indice;
 
     private Date dataValidadeExemplo;
 
@@ -83,29 +94,24 @@ public class ProdutoServiceTest {
     Long codVendaTeste = 50L;
     Long codProdutoTeste = 10L;
     int qtdVendida = 5;
-    int qtdEstoque = 20;
-
+    int qtdEstoque = 20; // Saldo > Qtd vendida
 
-    List<Object[]> produtosVendidos = Collections.singletonList(
-        new Object[]{codProdutoTeste, qtdVendida}
+    List<EstoqueVendaDTO> produtosVendidos = Collections.singletonList(
+        new EstoqueVendaDTO(codProdutoTeste, qtdVendida, true, qtdEstoque)
     );
-    when(vendaProdutos.buscaQtdProduto(codVendaTeste)).thenReturn(produtosVendidos);
-
-    Produto produto = new Produto();
-    produto.setControla_estoque(ProdutoControleEstoque.SIM);
-    when(produtos.findByCodigoIn(codProdutoTeste)).thenReturn(produto);
-
-    when(produtos.saldoEstoque(codProdutoTeste)).thenReturn(qtdEstoque); // Saldo > Qtd vendida
+    when(estoques.saldosDaVenda(codVendaTeste)).thenReturn(produtosVendidos);
+    when(estoques.baixaEstoque(produtosVendidos)).thenReturn(new int[]{1});
 
     service.movimentaEstoque(codVendaTeste, EntradaSaida.SAIDA);
 
-    verify(produtos, times(1)).movimentaEstoque(
-        eq(codProdutoTeste), 
+    verify(estoques, times(1)).baixaEstoque(produtosVendidos);
+    verify(estoques, times(1)).registraMovimentacoes(
+        eq(produtosVendidos), 
         eq(EntradaSaida.SAIDA.toString()), 
-        eq(qtdVendida), 
-        anyString(), 
+        eq("Venda " + codVendaTeste), 
         any(java.sql.Date.class)
     );
+    verify(produtos, never()).findByCodigoIn(anyLong());
     }
 
     //Simular o saldo insuficiente para o produto vendido
@@ -116,22 +122,37 @@ public class ProdutoServiceTest {
         int qtdVendida = 10;
         int qtdEstoque = 5; 
 
-        List<Object[]> produtosVendidos = Collections.singletonList(
-            new Object[]{codProdutoTeste, qtdVendida}
+        List<EstoqueVendaDTO> produtosVendidos = Collections.singletonList(
+            new EstoqueVendaDTO(codProdutoTeste, qtdVendida, true, qtdEstoque)
         );
-        when(vendaProdutos.buscaQtdProduto(codVendaTeste)).thenReturn(produtosVendidos);
+        when(estoques.saldosDaVenda(codVendaTeste)).thenReturn(produtosVendidos);
 
-        Produto produto = new Produto();
-        produto.setControla_estoque(ProdutoControleEstoque.SIM);
-        when(produtos.findByCodigoIn(codProdutoTeste)).thenReturn(produto);
+        assertThrows(RuntimeException.class, () -> {
+            service.movimentaEstoque(codVendaTeste, EntradaSaida.SAIDA);
+        });
+
+        verify(estoques, never()).baixaEstoque(any());
+        verify(estoques, never()).registraMovimentacoes(any(), any(), any(), any());
+    }
 
-        when(produtos.saldoEstoque(codProdutoTeste)).thenReturn(qtdEstoque); 
+    //Simular o saldo consumido por outra venda entre a leitura e a baixa
+    @Test
+    void movimentaEstoque_deveLancarExcecaoQuandoBaixaNaoAtualizarSaldo() {
+        Long codVendaTeste = 53L;
 
-        assertThrows(RuntimeException.class, () -> {
+        List<EstoqueVendaDTO> produtosVendidos = Arrays.asList(
+            new EstoqueVendaDTO(13L, 2, true, 10),
+            new EstoqueVendaDTO(14L, 1, true, 1)
+        );
+        when(estoques.saldosDaVenda(codVendaTeste)).thenReturn(produtosVendidos);
+        when(estoques.baixaEstoque(produtosVendidos)).thenReturn(new int[]{1, 0});
+
+        RuntimeException erro = assertThrows(RuntimeException.class, () -> {
             service.movimentaEstoque(codVendaTeste, EntradaSaida.SAIDA);
         });
 
-        verify(produtos, never()).movimentaEstoque(any(), any(), anyInt(), any(), any());
+        assertTrue(erro.getMessage().contains("14"));
+        verify(estoques, never()).registraMovimentacoes(any(), any(), any(), any());
     }
 
     //Simular o produto que não controla estoque
@@ -141,18 +162,15 @@ public class ProdutoServiceTest {
         Long codProdutoTeste = 12L;
         int qtdVendida = 10;
         
-        List<Object[]> produtosVendidos = Collections.singletonList(
-            new Object[]{codProdutoTeste, qtdVendida}
+        List<EstoqueVendaDTO> produtosVendidos = Collections.singletonList(
+            new EstoqueVendaDTO(codProdutoTeste, qtdVendida, false, 0)
         );
-        when(vendaProdutos.buscaQtdProduto(codVendaTeste)).thenReturn(produtosVendidos);
-
-        Produto produto = new Produto();
-        produto.setControla_estoque(ProdutoControleEstoque.NAO); 
-        when(produtos.findByCodigoIn(codProdutoTeste)).thenReturn(produto);
+        when(estoques.saldosDaVenda(codVendaTeste)).thenReturn(produtosVendidos);
 
         service.movimentaEstoque(codVendaTeste, EntradaSaida.SAIDA);
 
-        verify(produtos, never()).movimentaEstoque(any(), any(), anyInt(), any(), any());
+        verify(estoques, never()).baixaEstoque(any());
+        verify(estoques, never()).registraMovimentacoes(any(), any(), any(), any());
     }
 
     //testes ajusteEstoque
@@ -179,6 +197,7 @@ public class ProdutoServiceTest {
             eq(qtdAjuste), 
             eq("Ajuste Manual"), 
             any(java.sql.Date.class));
+        verify(produtos, times(1)).baixaEstoque(codProdutoTeste, qtdAjuste);
     }
 
     //testar ajuste de estoque para produto que não controla estoque
@@ -207,6 +226,13 @@ public class ProdutoServiceTest {
 
     @Test
     void merger_QuandoCodprodEhZero_DeveInserirNovoProdutoComSucesso() {
+        when(produtos.insere(
+            anyLong(), anyLong(), anyLong(), anyInt(), anyString(), 
+            anyDouble(), anyDouble(), any(java.util.Date.class), anyString(), 
+            anyString(), anyString(), anyInt(), any(java.sql.Date.class), 
+            anyString(), anyString(), anyLong(), anyLong(), anyString()
+        )).thenReturn(55L);
+
         String resultado = service.merger( 
             0L, 
             1L, 2L, 3L, 0, "Novo Produto Teste", 
@@ -224,6 +250,10 @@ public class ProdutoServiceTest {
         
         verify(produtos, never()).atualiza(any(), any(), any(), any(), anyInt(), any(), any(), any(), any(), any(), any(), any(), anyInt(), any(), any(), any(), any(), any());
 
+        verify(catalogo, times(1)).invalida();
+        // o produto é indexado pelo código gerado no insert
+        verify(indice).produto(55L, "Novo Produto Teste", "12345678");
+
         assertEquals("Produdo cadastrado com sucesso", resultado);
     }
 
@@ -255,6 +285,8 @@ public class ProdutoServiceTest {
             anyString(), anyString(), anyLong(), anyLong(), anyString()
         );
 
+        verify(catalogo, times(1)).invalida();
+
         assertEquals("Produto atualizado com sucesso", resultado);
     }
 
@@ -285,6 +317,8 @@ public class ProdutoServiceTest {
         
         verify(produtos, never()).atualiza(any(), any(), any(), any(), anyInt(), any(), any(), any(), any(), any(), any(), any(), anyInt(), any(), any(), any(), any(), any());
 
+        verify(catalogo, never()).invalida();
+
         assertEquals("Erro a cadastrar produto, chame o suporte", resultado);
     }
 
@@ -361,25 +395,26 @@ public class ProdutoServiceTest {
     }
 
     //Teste filter
-    //teste para filtrar produtos por descrição contendo um termo específico
+    //teste para filtrar produtos pela descrição no índice de busca, na ordem de relevância
     @Test
-    void filter_deveFiltrarPorDescricaoContendo() {
+    void filter_deveBuscarADescricaoNoIndice() {
         String termoBusca = "Biscoito";
         ProdutoFilter filter = new ProdutoFilter();
         filter.setDescricao(termoBusca);
         
-        Pageable pageableMock = mock(Pageable.class);
+        Pageable pagina = PageRequest.of(0, 20);
         
-        Produto p1 = new Produto(); p1.setDescricao("Biscoito Cream Cracker");
-        Produto p2 = new Produto(); p2.setDescricao("Biscoito Maizena");
-        List<Produto> listaMock = Arrays.asList(p1, p2);
-        Page<Produto> paginaMock = new PageImpl<>(listaMock, pageableMock, listaMock.size());
+        Produto p1 = new Produto(); p1.setCodigo(7L); p1.setDescricao("Biscoito Cream Cracker");
+        Produto p2 = new Produto(); p2.setCodigo(3L); p2.setDescricao("Biscoito Maizena");
+        List<Long> codigos = Arrays.asList(7L, 3L);
 
-        when(produtos.findByDescricaoContaining(eq(termoBusca), eq(pageableMock))).thenReturn(paginaMock);
+        when(indice.busca(IndiceBuscaService.Tipo.PRODUTO, termoBusca, pagina))
+                .thenReturn(new PageImpl<>(codigos, pagina, 2));
+        when(produtos.findAllById(codigos)).thenReturn(Arrays.asList(p2, p1));
 
-        Page<Produto> resultado = service.filter(filter, pageableMock);
+        Page<Produto> resultado = service.filter(filter, pagina);
 
-        verify(produtos, times(1)).findByDescricaoContaining(eq(termoBusca), eq(pageableMock));
+        verify(produtos, never()).findByDescricaoContaining(anyString(), any());
         
         assertEquals(2, resultado.getTotalElements());
         assertEquals("Biscoito Cream Cracker", resultado.getContent().get(0).getDescricao());
@@ -450,11 +485,12 @@ void listaProdutosVendaveis_deveRetornarProdutosVendaveis() {
     void movimentaEstoque_naoDeveFazerNadaQuandoListaEstiverVazia() {
         Long codVenda = 90L;
 
-        when(vendaProdutos.buscaQtdProduto(codVenda)).thenReturn(Collections.emptyList());
+        when(estoques.saldosDaVenda(codVenda)).thenReturn(Collections.emptyList());
 
         service.movimentaEstoque(codVenda, EntradaSaida.SAIDA);
 
-        verify(produtos, never()).movimentaEstoque(any(), any(), anyInt(), any(), any());
+        verify(estoques, never()).baixaEstoque(any());
+        verify(estoques, never()).registraMovimentacoes(any(), any(), any(), any());
     }
 
 
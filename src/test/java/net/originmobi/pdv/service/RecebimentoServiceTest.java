@@ -4,7 +4,9 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.DisplayName;
@@ -21,7 +23,6 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.never;
@@ -30,6 +31,7 @@ import static org.mockito.Mockito.when;
 
 import net.originmobi.pdv.controller.TituloService;
 import net.originmobi.pdv.enumerado.TituloTipo;
+import net.originmobi.pdv.exceptions.ParcelaAlteradaException;
 import net.originmobi.pdv.model.Caixa;
 import net.originmobi.pdv.model.CaixaLancamento;
 import net.originmobi.pdv.model.Parcela;
@@ -41,6 +43,7 @@ import net.originmobi.pdv.model.Usuario;
 import net.originmobi.pdv.repository.RecebimentoRepository;
 import net.originmobi.pdv.service.cartao.CartaoLancamentoService;
 import net.originmobi.pdv.singleton.Aplicacao;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @ExtendWith(MockitoExtension.class)
 class RecebimentoServiceTest {
@@ -75,6 +78,17 @@ class RecebimentoServiceTest {
     @Mock
     private CartaoLancamentoService cartaoLancamentos;
 
+    // valor pago em cada parcela na baixa em lote, pelo código da parcela
+    @SuppressWarnings("unchecked")
+    private Map<Long, Double> pagamentos() {
+        ArgumentCaptor<Map<Parcela, Dinheiro>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(parcelas).receber(captor.capture());
+
+        Map<Long, Double> pagamentos = new HashMap<>();
+        captor.getValue().forEach((parcela, valor) -> pagamentos.put(parcela.getCodigo(), valor.valor()));
+        return pagamentos;
+    }
+
     private net.originmobi.pdv.model.TituloTipo criarTituloTipoModel(String sigla) {
         net.originmobi.pdv.model.TituloTipo tipo = new net.originmobi.pdv.model.TituloTipo();
         tipo.setSigla(sigla);
@@ -107,8 +121,7 @@ class RecebimentoServiceTest {
         r2.setPessoa(pessoaMock);
         p2.setReceber(r2);
 
-        when(parcelas.busca(10L)).thenReturn(p1);
-        when(parcelas.busca(20L)).thenReturn(p2);
+        when(parcelas.busca(Arrays.asList(10L, 20L))).thenReturn(Arrays.asList(p1, p2));
         when(pessoas.buscaPessoa(codPessoa)).thenReturn(Optional.of(pessoaMock));
 
         when(recebimentos.save(any(Recebimento.class))).thenAnswer(invocation -> {
@@ -136,7 +149,7 @@ class RecebimentoServiceTest {
         p1.setCodigo(10L);
         p1.setQuitado(1);
 
-        when(parcelas.busca(10L)).thenReturn(p1);
+        when(parcelas.busca(Arrays.asList(10L))).thenReturn(Arrays.asList(p1));
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> {
             service.abrirRecebimento(codPessoa, arrayParcelas);
@@ -162,7 +175,7 @@ class RecebimentoServiceTest {
         receber.setPessoa(outraPessoa);
         p1.setReceber(receber);
 
-        when(parcelas.busca(10L)).thenReturn(p1);
+        when(parcelas.busca(Arrays.asList(10L))).thenReturn(Arrays.asList(p1));
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> {
             service.abrirRecebimento(codPessoa, arrayParcelas);
@@ -207,7 +220,7 @@ class RecebimentoServiceTest {
             assertEquals("Recebimento realizado com sucesso", resultado);
         }
 
-        verify(parcelas).receber(10L, 100.00, 0.0, 0.0);
+        assertEquals(100.00, pagamentos().get(10L));
         verify(lancamentos).lancamento(any(CaixaLancamento.class));
         verify(cartaoLancamentos, never()).lancamento(anyDouble(), any(Optional.class));
         verify(recebimentos).save(recebimento);
@@ -249,6 +262,38 @@ class RecebimentoServiceTest {
         verify(lancamentos, never()).lancamento(any(CaixaLancamento.class));
     }
 
+    @Test
+    @DisplayName("Deve informar a parcela alterada por outro usuário durante o recebimento")
+    void deveInformarParcelaAlteradaPorOutroUsuario() {
+        Long codReceber = 100L;
+        Long codTitulo = 5L;
+
+        Recebimento recebimento = new Recebimento();
+        recebimento.setCodigo(codReceber);
+        recebimento.setValor_total(100.00);
+
+        Titulo titulo = new Titulo();
+        titulo.setCodigo(codTitulo);
+        titulo.setTipo(criarTituloTipoModel("DINHEIRO"));
+
+        Parcela parcela = new Parcela();
+        parcela.setCodigo(10L);
+        parcela.setValor_restante(100.00);
+
+        when(recebimentos.findById(codReceber)).thenReturn(Optional.of(recebimento));
+        when(titulos.busca(codTitulo)).thenReturn(Optional.of(titulo));
+        when(receParcelas.parcelasDoReceber(codReceber)).thenReturn(Arrays.asList(parcela));
+        doThrow(new ParcelaAlteradaException(10L)).when(parcelas).receber(any());
+
+        ParcelaAlteradaException ex = assertThrows(ParcelaAlteradaException.class, () -> {
+            service.receber(codReceber, 100.00, 0.0, 0.0, codTitulo);
+        });
+
+        assertEquals("A parcela 10 foi alterada por outro usuário, atualize e tente novamente", ex.getMessage());
+        verify(lancamentos, never()).lancamento(any(CaixaLancamento.class));
+        verify(recebimentos, never()).save(recebimento);
+    }
+
     @Test
     @DisplayName("Deve lançar erro se recebimento já estiver fechado")
     void deveLancarErroRecebimentoFechado() {
@@ -318,7 +363,7 @@ class RecebimentoServiceTest {
         p1.getReceber().setPessoa(new Pessoa());
         p1.getReceber().getPessoa().setCodigo(codPessoa);
 
-        when(parcelas.busca(10L)).thenReturn(p1);
+        when(parcelas.busca(Arrays.asList(10L))).thenReturn(Arrays.asList(p1));
         when(pessoas.buscaPessoa(codPessoa)).thenReturn(Optional.empty());
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> {
@@ -343,7 +388,7 @@ class RecebimentoServiceTest {
         p1.setReceber(new Receber());
         p1.getReceber().setPessoa(pessoa);
 
-        when(parcelas.busca(10L)).thenReturn(p1);
+        when(parcelas.busca(Arrays.asList(10L))).thenReturn(Arrays.asList(p1));
         when(pessoas.buscaPessoa(codPessoa)).thenReturn(Optional.of(pessoa));
         when(recebimentos.save(any(Recebimento.class))).thenThrow(new RuntimeException("Erro SQL"));
 
@@ -442,9 +487,9 @@ class RecebimentoServiceTest {
             service.receber(codReceber, 60.00, 0.0, 0.0, 5L);
         }
 
-        verify(parcelas).receber(eq(1L), eq(50.00), anyDouble(), anyDouble());
+        assertEquals(50.00, pagamentos().get(1L));
 
-        verify(parcelas).receber(eq(2L), eq(10.00), anyDouble(), anyDouble());
+        assertEquals(10.00, pagamentos().get(2L));
     }
 
     @Test
@@ -551,9 +596,9 @@ class RecebimentoServiceTest {
             service.receber(codReceber, 150.00, 0.0, 0.0, 5L);
         }
 
-        verify(parcelas).receber(eq(1L), eq(50.00), anyDouble(), anyDouble());
-        verify(parcelas).receber(eq(2L), eq(50.00), anyDouble(), anyDouble());
-        verify(parcelas).receber(eq(3L), eq(50.00), anyDouble(), anyDouble());
+        assertEquals(50.00, pagamentos().get(1L));
+        assertEquals(50.00, pagamentos().get(2L));
+        assertEquals(50.00, pagamentos().get(3L));
     }
 
     @Test
@@ -720,8 +765,8 @@ class RecebimentoServiceTest {
             service.receber(codReceber, 150.00, 0.0, 0.0, 5L);
         }
 
-        verify(parcelas).receber(eq(1L), eq(100.00), anyDouble(), anyDouble());
-        verify(parcelas).receber(eq(2L), eq(50.00), anyDouble(), anyDouble());
+        assertEquals(100.00, pagamentos().get(1L));
+        assertEquals(50.00, pagamentos().get(2L));
     }
 
     @Test
@@ -868,9 +913,7 @@ class RecebimentoServiceTest {
         r3.setPessoa(pessoaMock);
         p3.setReceber(r3);
 
-        when(parcelas.busca(10L)).thenReturn(p1);
-        when(parcelas.busca(20L)).thenReturn(p2);
-        when(parcelas.busca(30L)).thenReturn(p3);
+        when(parcelas.busca(Arrays.asList(10L, 20L, 30L))).thenReturn(Arrays.asList(p1, p2, p3));
         when(pessoas.buscaPessoa(codPessoa)).thenReturn(Optional.of(pessoaMock));
 
         when(recebimentos.save(any(Recebimento.class))).thenAnswer(invocation -> {
@@ -952,11 +995,10 @@ class RecebimentoServiceTest {
             service.receber(codReceber, 30.00, 0.0, 0.0, 5L);
         }
 
-        ArgumentCaptor<Double> valorCaptor = ArgumentCaptor.forClass(Double.class);
-        verify(parcelas).receber(eq(1L), valorCaptor.capture(), anyDouble(), anyDouble());
+        Double valor = pagamentos().get(1L);
 
-        assertTrue(valorCaptor.getValue() >= 0);
-        assertEquals(30.00, valorCaptor.getValue(), 0.01);
+        assertTrue(valor >= 0);
+        assertEquals(30.00, valor, 0.01);
     }
 
     @Test
@@ -993,8 +1035,8 @@ class RecebimentoServiceTest {
             service.receber(codReceber, 80.00, 0.0, 0.0, 5L);
         }
 
-        verify(parcelas).receber(eq(1L), eq(80.00), anyDouble(), anyDouble());
-        verify(parcelas, never()).receber(eq(2L), anyDouble(), anyDouble(), anyDouble());
+        assertEquals(80.00, pagamentos().get(1L));
+        assertFalse(pagamentos().containsKey(2L));
     }
 
     @Test
@@ -1035,9 +1077,9 @@ class RecebimentoServiceTest {
             service.receber(codReceber, 60.00, 0.0, 0.0, 5L);
         }
 
-        verify(parcelas).receber(eq(1L), eq(30.00), anyDouble(), anyDouble());
-        verify(parcelas).receber(eq(2L), eq(30.00), anyDouble(), anyDouble());
-        verify(parcelas, never()).receber(eq(3L), anyDouble(), anyDouble(), anyDouble());
+        assertEquals(30.00, pagamentos().get(1L));
+        assertEquals(30.00, pagamentos().get(2L));
+        assertFalse(pagamentos().containsKey(3L));
     }
 
     @Test
@@ -1074,8 +1116,8 @@ class RecebimentoServiceTest {
             service.receber(codReceber, 70.00, 0.0, 0.0, 5L);
         }
 
-        verify(parcelas).receber(eq(1L), eq(40.00), anyDouble(), anyDouble());
-        verify(parcelas).receber(eq(2L), eq(30.00), anyDouble(), anyDouble());
+        assertEquals(40.00, pagamentos().get(1L));
+        assertEquals(30.00, pagamentos().get(2L));
     }
 
     @Test
@@ -1108,6 +1150,6 @@ class RecebimentoServiceTest {
             service.receber(codReceber, 25.00, 0.0, 0.0, 5L);
         }
 
-        verify(parcelas).receber(eq(1L), eq(25.00), anyDouble(), anyDouble());
+        assertEquals(25.00, pagamentos().get(1L));
     }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import net.originmobi.pdv.enumerado.EntradaSaida;
+import net.originmobi.pdv.model.Estado;
+import net.originmobi.pdv.model.Tributacao;
+import net.originmobi.pdv.model.TributacaoRegra;
+import net.originmobi.pdv.repository.TributacaoRegraRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TabelaTributacaoTest {
+
+    @Mock
+    private TributacaoRegraRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transacoes;
+
+    @InjectMocks
+    private TabelaTributacao tabela;
+
+    @BeforeEach
+    void setUp() {
+        tabela.inicia();
+    }
+
+    @Test
+    void regra_deveEncontrarPorUfETipo() {
+        TributacaoRegra saidaSP = regra("SP", EntradaSaida.SAIDA);
+        TributacaoRegra entradaSP = regra("SP", EntradaSaida.ENTRADA);
+        TributacaoRegra saidaRJ = regra("RJ", EntradaSaida.SAIDA);
+        Tributacao tributacao = tributacao(1L, saidaSP, entradaSP, saidaRJ);
+
+        assertSame(saidaSP, tabela.regra(tributacao, "SP", EntradaSaida.SAIDA).get());
+        assertSame(entradaSP, tabela.regra(tributacao, "SP", EntradaSaida.ENTRADA).get());
+        assertSame(saidaRJ, tabela.regra(tributacao, "RJ", EntradaSaida.SAIDA).get());
+        assertFalse(tabela.regra(tributacao, "RJ", EntradaSaida.ENTRADA).isPresent());
+        assertSame(saidaSP, tabela.primeira(tributacao).get());
+    }
+
+    @Test
+    void regra_ultimaRegraDaMesmaUfETipoDeveValer() {
+        TributacaoRegra ultima = regra("SP", EntradaSaida.SAIDA);
+        Tributacao tributacao = tributacao(1L, regra("SP", EntradaSaida.SAIDA), ultima);
+
+        assertSame(ultima, tabela.regra(tributacao, "SP", EntradaSaida.SAIDA).get());
+    }
+
+    @Test
+    void invalida_deveMontarATabelaDeNovo() {
+        Tributacao tributacao = tributacao(1L, regra("SP", EntradaSaida.SAIDA));
+        assertFalse(tabela.possuiRegra(tributacao, EntradaSaida.ENTRADA));
+
+        cadastradas(1L, regra("SP", EntradaSaida.SAIDA), regra("SP", EntradaSaida.ENTRADA));
+        assertFalse(tabela.possuiRegra(tributacao, EntradaSaida.ENTRADA));
+
+        tabela.invalida();
+        assertTrue(tabela.possuiRegra(tributacao, EntradaSaida.ENTRADA));
+    }
+
+    @Test
+    void regra_deveUsarAsRegrasGravadasENaoAsCarregadasNaEntidade() {
+        Tributacao tributacao = tributacao(1L, regra("SP", EntradaSaida.SAIDA));
+        // a sessão de quem chamou carregou as regras antes de a saída ser cadastrada
+        tributacao.getRegra().remove(0);
+
+        assertTrue(tabela.possuiRegra(tributacao, EntradaSaida.SAIDA));
+    }
+
+    @Test
+    void invalida_duranteAMontagemNaoDeveGuardarATabela() {
+        Tributacao tributacao = tributacao(1L);
+        when(repository.findByTributacaoCodigoOrderByCodigo(1L)).thenAnswer(i -> {
+            tabela.invalida();
+            return new ArrayList<>();
+        }).thenReturn(new ArrayList<>(Arrays.asList(regra("SP", EntradaSaida.ENTRADA))));
+
+        assertFalse(tabela.possuiRegra(tributacao, EntradaSaida.ENTRADA));
+        assertTrue(tabela.possuiRegra(tributacao, EntradaSaida.ENTRADA));
+        assertTrue(tabela.possuiRegra(tributacao, EntradaSaida.ENTRADA));
+        verify(repository, times(2)).findByTributacaoCodigoOrderByCodigo(1L);
+    }
+
+    @Test
+    void possuiRegra_tributacaoSemRegrasNaoDeveTerNenhumTipo() {
+        Tributacao tributacao = new Tributacao();
+        tributacao.setCodigo(2L);
+
+        assertFalse(tabela.possuiRegra(tributacao, EntradaSaida.SAIDA));
+        assertFalse(tabela.primeira(tributacao).isPresent());
+    }
+
+    private Tributacao tributacao(Long codigo, TributacaoRegra... regras) {
+        Tributacao tributacao = new Tributacao();
+        tributacao.setCodigo(codigo);
+        tributacao.setRegra(new ArrayList<>(Arrays.asList(regras)));
+        cadastradas(codigo, regras);
+        return tributacao;
+    }
+
+    /* regras gravadas da tributação, lidas pela tabela */
+    private void cadastradas(Long codigo, TributacaoRegra... regras) {
+        when(repository.findByTributacaoCodigoOrderByCodigo(codigo)).thenReturn(new ArrayList<>(Arrays.asList(regras)));
+    }
+
+    private TributacaoRegra regra(String uf, EntradaSaida tipo) {
+        Estado estado = new Estado();
+        estado.setSigla(uf);
+
+        TributacaoRegra regra = new TributacaoRegra();
+        regra.setUf(estado);
+        regra.setTipo(tipo);
+        return regra;
+    }
+
+}
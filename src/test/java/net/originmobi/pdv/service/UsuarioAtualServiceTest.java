@@ -0,0 +1,83 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import net.originmobi.pdv.model.Usuario;
+
+@ExtendWith(MockitoExtension.class)
+class UsuarioAtualServiceTest {
+
+    @Mock
+    private UsuarioService usuarios;
+
+    @InjectMocks
+    private UsuarioAtualService usuarioAtual;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void usuario_deveSeguirOUsuarioAutenticadoDaThread() {
+        Usuario caixa1 = usuario("caixa1");
+        Usuario caixa2 = usuario("caixa2");
+        when(usuarios.buscaUsuario("caixa1")).thenReturn(caixa1);
+        when(usuarios.buscaUsuario("caixa2")).thenReturn(caixa2);
+
+        autentica("caixa1");
+        assertSame(caixa1, usuarioAtual.usuario());
+
+        autentica("caixa2");
+        assertSame(caixa2, usuarioAtual.usuario());
+    }
+
+    @Test
+    void usuario_deveConsultarOBancoUmaVezDentroDoPrazoDoCache() {
+        Usuario gerente = usuario("gerente");
+        when(usuarios.buscaUsuario("gerente")).thenReturn(gerente);
+        autentica("gerente");
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertSame(gerente, usuarioAtual.usuario());
+        assertSame(gerente, usuarioAtual.usuario());
+
+        RequestContextHolder.resetRequestAttributes();
+        assertSame(gerente, usuarioAtual.usuario());
+
+        verify(usuarios, times(1)).buscaUsuario("gerente");
+    }
+
+    @Test
+    void username_semAutenticacaoDeveFalhar() {
+        assertThrows(RuntimeException.class, () -> usuarioAtual.username());
+    }
+
+    private void autentica(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, "senha"));
+    }
+
+    private Usuario usuario(String username) {
+        Usuario usuario = new Usuario();
+        usuario.setUser(username);
+        return usuario;
+    }
+
+}
@@ -0,0 +1,102 @@
+package net.originmobi.pdv.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import net.originmobi.pdv.repository.VendaExportacaoRepository;
+
+@ExtendWith(MockitoExtension.class)
+class VendaExportacaoServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2024, 1, 1);
+    private static final LocalDate FIM = LocalDate.of(2024, 12, 31);
+
+    @Mock
+    private VendaExportacaoRepository exportacao;
+
+    @InjectMocks
+    private VendaExportacaoService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        Timestamp cadastro = Timestamp.valueOf(LocalDateTime.of(2024, 3, 5, 10, 30, 0));
+
+        lenient().when(rs.getString(anyInt())).thenReturn("x");
+        lenient().when(rs.getString(5)).thenReturn("Cliente; Teste");
+        lenient().when(rs.getString(12)).thenReturn("Picolé");
+        lenient().when(rs.getTimestamp(2)).thenReturn(cadastro);
+        lenient().when(rs.getTimestamp(3)).thenReturn(null);
+        lenient().when(rs.getDouble(anyInt())).thenReturn(1234.5);
+
+        lenient().doAnswer(invocation -> {
+            RowCallbackHandler linha = invocation.getArgument(2);
+            linha.processRow(rs);
+            return null;
+        }).when(exportacao).itensDoPeriodo(eq(Timestamp.valueOf(INICIO.atStartOfDay())),
+                eq(Timestamp.valueOf(FIM.plusDays(1).atStartOfDay())), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void exportaCsv_deveEscreverCabecalhoELinhasDoPeriodo() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        service.exportaCsv(INICIO, FIM, saida);
+
+        String[] linhas = new String(saida.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, linhas.length);
+        assertTrue(linhas[0].startsWith("\uFEFFVenda;Cadastro"));
+
+        String[] colunas = linhas[1].split(";(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+        assertEquals(VendaExportacaoService.COLUNAS.length, colunas.length);
+        assertEquals("05/03/2024 10:30:00", colunas[1]);
+        assertEquals("", colunas[2]);
+        assertEquals("\"Cliente; Teste\"", colunas[4]);
+        assertEquals("1234,50", colunas[9]);
+        assertEquals("Picolé", colunas[11]);
+    }
+
+    @Test
+    void exportaXlsx_deveGerarArquivoOpenXml() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        service.exportaXlsx(INICIO, FIM, saida);
+
+        byte[] arquivo = saida.toByteArray();
+        assertTrue(arquivo.length > 0);
+        assertEquals('P', arquivo[0]);
+        assertEquals('K', arquivo[1]);
+    }
+
+    @Test
+    void exporta_periodoInvalidoNaoDeveConsultarOBanco() {
+        assertThrows(RuntimeException.class, () -> service.exportaCsv(FIM, INICIO, new ByteArrayOutputStream()));
+        assertThrows(RuntimeException.class, () -> service.exportaXlsx(null, FIM, new ByteArrayOutputStream()));
+
+        verifyNoInteractions(exportacao);
+    }
+
+}
@@ -28,7 +28,7 @@ import net.originmobi.pdv.filter.VendaFilter;
 import net.originmobi.pdv.model.*;
 import net.originmobi.pdv.repository.VendaRepository;
 import net.originmobi.pdv.service.cartao.CartaoLancamentoService;
-import net.originmobi.pdv.singleton.Aplicacao;
+import net.originmobi.pdv.utilitarios.Dinheiro;
 
 @ExtendWith(MockitoExtension.class)
 class VendaServiceTest {
@@ -37,7 +37,7 @@ class VendaServiceTest {
     private VendaService service;
 
     @Mock private VendaRepository vendas;
-    @Mock private UsuarioService usuarios;
+    @Mock private UsuarioAtualService usuarioAtual;
     @Mock private VendaProdutoService vendaProdutos;
     @Mock private PagamentoTipoService formaPagamentos;
     @Mock private CaixaService caixas;
@@ -47,9 +47,12 @@ class VendaServiceTest {
     @Mock private TituloService tituloService;
     @Mock private CartaoLancamentoService cartaoLancamento;
     @Mock private ProdutoService produtos;
+    @Mock private VendaAbertaService vendasAbertas;
+    @Mock private DashboardService dashboard;
+    @Mock private ExposicaoClienteService exposicao;
 
     @Test
-    @DisplayName("Deve abrir uma NOVA venda (código null) mockando a classe estática Aplicacao")
+    @DisplayName("Deve abrir uma NOVA venda (código null) com o usuário atual")
     void deveAbrirNovaVenda() {
         Venda venda = new Venda();
         venda.setCodigo(null);
@@ -57,20 +60,14 @@ class VendaServiceTest {
         Usuario usuarioMock = new Usuario();
         usuarioMock.setUser("Admin");
 
-        try (MockedStatic<Aplicacao> aplicacaoStatic = Mockito.mockStatic(Aplicacao.class)) {
-            Aplicacao appInstancia = mock(Aplicacao.class);
-            aplicacaoStatic.when(Aplicacao::getInstancia).thenReturn(appInstancia);
-            when(appInstancia.getUsuarioAtual()).thenReturn("admin");
+        when(usuarioAtual.usuario()).thenReturn(usuarioMock);
 
-            when(usuarios.buscaUsuario("admin")).thenReturn(usuarioMock);
-
-            service.abreVenda(venda);
+        service.abreVenda(venda);
 
-            verify(vendas).save(venda);
-            assertEquals(VendaSituacao.ABERTA, venda.getSituacao());
-            assertEquals(0.00, venda.getValor_produtos());
-            assertEquals(usuarioMock, venda.getUsuario());
-        }
+        verify(vendas).save(venda);
+        assertEquals(VendaSituacao.ABERTA, venda.getSituacao());
+        assertEquals(0.00, venda.getValor_produtos());
+        assertEquals(usuarioMock, venda.getUsuario());
     }
 
     @Test
@@ -79,20 +76,15 @@ class VendaServiceTest {
         Venda venda = new Venda();
         venda.setCodigo(null);
 
-        try (MockedStatic<Aplicacao> appMock = Mockito.mockStatic(Aplicacao.class)) {
-            Aplicacao app = mock(Aplicacao.class);
-            appMock.when(Aplicacao::getInstancia).thenReturn(app);
-            when(app.getUsuarioAtual()).thenReturn("admin");
-            when(usuarios.buscaUsuario("admin")).thenReturn(new Usuario());
+        when(usuarioAtual.usuario()).thenReturn(new Usuario());
 
-            doThrow(new RuntimeException("Erro de conexão")).when(vendas).save(any(Venda.class));
+        doThrow(new RuntimeException("Erro de conexão")).when(vendas).save(any(Venda.class));
 
-            Long resultado = service.abreVenda(venda);
+        Long resultado = service.abreVenda(venda);
 
-            assertNull(resultado);
+        assertNull(resultado);
 
-            verify(vendas).save(venda);
-        }
+        verify(vendas).save(venda);
     }
 
     @Test
@@ -192,6 +184,59 @@ class VendaServiceTest {
         verify(vendaProdutos).salvar(any(VendaProduto.class));
     }
 
+    @Test
+    void deveAtualizarTotalEmMemoriaAoAdicionarERemoverProduto() {
+        VendaProduto salvo = new VendaProduto(100L, 1L, 0.0);
+        salvo.setCodigo(7L);
+
+        when(vendas.verificaSituacao(1L)).thenReturn("ABERTA");
+        when(vendaProdutos.salvar(any(VendaProduto.class))).thenReturn(salvo);
+
+        Venda venda = new Venda();
+        venda.setSituacao(VendaSituacao.ABERTA);
+        when(vendas.findByCodigoEquals(1L)).thenReturn(venda);
+
+        service.addProduto(1L, 100L, 0.0);
+        service.removeProduto(7L, 1L);
+
+        verify(vendasAbertas).adiciona(1L, salvo);
+        verify(vendasAbertas).remove(1L, 7L);
+    }
+
+    @Test
+    void deveSomarQuantidadeNaLinhaDoProdutoJaExistente() {
+        when(vendas.verificaSituacao(1L)).thenReturn("ABERTA");
+        when(vendasAbertas.itemDoProduto(1L, 100L)).thenReturn(7L);
+
+        String resultado = service.addProduto(1L, 100L, 0.0, 3);
+
+        assertEquals("ok", resultado);
+        verify(vendaProdutos).incrementaQtd(7L, 3);
+        verify(vendasAbertas).incrementa(1L, 7L, 3);
+        verify(vendaProdutos, never()).salvar(any());
+    }
+
+    @Test
+    void deveGravarQuantidadeEValorUnitarioNaNovaLinha() {
+        when(vendas.verificaSituacao(1L)).thenReturn("ABERTA");
+        when(vendasAbertas.valorUnitario(100L, 0.0)).thenReturn(2.5);
+
+        service.addProduto(1L, 100L, 0.0, 200);
+
+        ArgumentCaptor<VendaProduto> captor = ArgumentCaptor.forClass(VendaProduto.class);
+        verify(vendaProdutos).salvar(captor.capture());
+        assertEquals(200, captor.getValue().getQtd());
+        assertEquals(2.5, captor.getValue().getValor_unitario());
+    }
+
+    @Test
+    void naoDeveAdicionarQuantidadeInvalida() {
+        when(vendas.verificaSituacao(1L)).thenReturn("ABERTA");
+
+        assertEquals("Quantidade inválida", service.addProduto(1L, 100L, 0.0, 0));
+        verify(vendaProdutos, never()).salvar(any());
+    }
+
     @Test
     void naoDeveAdicionarProdutoQuandoVendaFechada() {
         when(vendas.verificaSituacao(1L)).thenReturn("FECHADA");
@@ -344,43 +389,38 @@ class VendaServiceTest {
         Caixa caixa = new Caixa();
         when(caixas.caixaAberto()).thenReturn(Optional.of(caixa));
 
-        try (MockedStatic<Aplicacao> aplicacaoStatic = Mockito.mockStatic(Aplicacao.class)) {
-            Aplicacao appInstancia = mock(Aplicacao.class);
-            aplicacaoStatic.when(Aplicacao::getInstancia).thenReturn(appInstancia);
-            when(appInstancia.getUsuarioAtual()).thenReturn("user_test");
-            when(usuarios.buscaUsuario("user_test")).thenReturn(new Usuario());
-
-            String resultado = service.fechaVenda(
-                    codVenda,
-                    1L,
-                    100.0,
-                    10.0,
-                    4.0,
-                    new String[]{"100"},
-                    new String[]{"10"}
-            );
-
-            assertEquals("Venda finalizada com sucesso", resultado);
-
-            verify(receberService).cadastrar(any(Receber.class));
-            verify(lancamentos).lancamento(any(CaixaLancamento.class));
-            verify(cartaoLancamento, never()).lancamento(anyDouble(), any());
-            verify(produtos).movimentaEstoque(codVenda, EntradaSaida.SAIDA);
-
-            ArgumentCaptor<Double> capVlFinal = ArgumentCaptor.forClass(Double.class);
-
-            verify(vendas).fechaVenda(
-                    eq(1L),
-                    eq(VendaSituacao.FECHADA),
-                    capVlFinal.capture(),
-                    anyDouble(),
-                    anyDouble(),
-                    any(Timestamp.class),
-                    any(PagamentoTipo.class)
-            );
-
-            assertEquals(100.0 - 10.0 + 4.0, capVlFinal.getValue());
-        }
+        when(usuarioAtual.usuario()).thenReturn(new Usuario());
+
+        String resultado = service.fechaVenda(
+                codVenda,
+                1L,
+                100.0,
+                10.0,
+                4.0,
+                new String[]{"100"},
+                new String[]{"10"}
+        );
+
+        assertEquals("Venda finalizada com sucesso", resultado);
+
+        verify(receberService).cadastrar(any(Receber.class));
+        verify(lancamentos).lancamento(any(CaixaLancamento.class));
+        verify(cartaoLancamento, never()).lancamento(anyDouble(), any());
+        verify(produtos).movimentaEstoque(codVenda, EntradaSaida.SAIDA);
+
+        ArgumentCaptor<Double> capVlFinal = ArgumentCaptor.forClass(Double.class);
+
+        verify(vendas).fechaVenda(
+                eq(1L),
+                eq(VendaSituacao.FECHADA),
+                capVlFinal.capture(),
+                anyDouble(),
+                anyDouble(),
+                any(Timestamp.class),
+                any(PagamentoTipo.class)
+        );
+
+        assertEquals(100.0 - 10.0 + 4.0, capVlFinal.getValue());
     }
 
     @Test
@@ -407,14 +447,9 @@ class VendaServiceTest {
         when(caixas.caixaIsAberto()).thenReturn(true);
         when(caixas.caixaAberto()).thenReturn(Optional.of(new Caixa()));
 
-        try (MockedStatic<Aplicacao> aplicacaoStatic = Mockito.mockStatic(Aplicacao.class)) {
-            Aplicacao appInstancia = mock(Aplicacao.class);
-            aplicacaoStatic.when(Aplicacao::getInstancia).thenReturn(appInstancia);
-            when(appInstancia.getUsuarioAtual()).thenReturn("user_test");
-            when(usuarios.buscaUsuario("user_test")).thenReturn(new Usuario());
+        when(usuarioAtual.usuario()).thenReturn(new Usuario());
 
-            service.fechaVenda(codVenda, 1L, valorProdutos, desconto, acrescimo, new String[]{"100"}, new String[]{"1"});
-        }
+        service.fechaVenda(codVenda, 1L, valorProdutos, desconto, acrescimo, new String[]{"100"}, new String[]{"1"});
 
         verify(vendas).fechaVenda(eq(codVenda), eq(VendaSituacao.FECHADA), eq(totalEsperado), eq(0.0), eq(0.0), any(), any());
     }
@@ -764,6 +799,31 @@ class VendaServiceTest {
         assertEquals("valor de recebimento invalido", ex.getMessage());
     }
 
+    @Test
+    @DisplayName("Erro: Pagamento A Prazo acima do limite de crédito do cliente")
+    void deveFalharAprazoAcimaDoLimiteDeCredito() {
+        Pessoa pessoa = new Pessoa();
+        pessoa.setCodigo(5L);
+        Venda venda = criarVendaMock(true);
+        venda.setPessoa(pessoa);
+        when(vendas.findByCodigoEquals(1L)).thenReturn(venda);
+
+        PagamentoTipo pagTipo = new PagamentoTipo();
+        pagTipo.setFormaPagamento("30");
+        when(formaPagamentos.busca(anyLong())).thenReturn(pagTipo);
+
+        doThrow(new RuntimeException("Limite de crédito do cliente excedido, disponível R$ 50,00"))
+                .when(exposicao).verificaLimite(5L, Dinheiro.de(94.0));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                service.fechaVenda(1L, 1L, 100.0, 10.0, 4.0, new String[]{"100"}, new String[]{"1"})
+        );
+
+        assertEquals("Limite de crédito do cliente excedido, disponível R$ 50,00", ex.getMessage());
+        verify(parcelas, never()).gerarParcela(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble(),
+                any(), anyInt(), anyInt(), any(), any());
+    }
+
     @Test
     @DisplayName("Erro: Falha ao gerar parcela (A Prazo)")
     void deveTratarErroGerarParcela() {
@@ -829,20 +889,15 @@ class VendaServiceTest {
         titulo.getTipo().setSigla("DIN");
         when(tituloService.busca(anyLong())).thenReturn(Optional.of(titulo));
 
-        try (MockedStatic<Aplicacao> appMock = Mockito.mockStatic(Aplicacao.class)) {
-            Aplicacao app = mock(Aplicacao.class);
-            appMock.when(Aplicacao::getInstancia).thenReturn(app);
-            when(app.getUsuarioAtual()).thenReturn("user");
-            when(usuarios.buscaUsuario("user")).thenReturn(new Usuario());
+        when(usuarioAtual.usuario()).thenReturn(new Usuario());
 
-            doThrow(new RuntimeException("Erro SQL")).when(lancamentos).lancamento(any(CaixaLancamento.class));
+        doThrow(new RuntimeException("Erro SQL")).when(lancamentos).lancamento(any(CaixaLancamento.class));
 
-            RuntimeException ex = assertThrows(RuntimeException.class, () ->
-                    service.fechaVenda(1L, 1L, 100.0, 10.0, 4.0, new String[]{"100"}, new String[]{"1"})
-            );
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                service.fechaVenda(1L, 1L, 100.0, 10.0, 4.0, new String[]{"100"}, new String[]{"1"})
+        );
 
-            assertEquals("Erro ao fechar a venda, chame o suporte", ex.getMessage());
-        }
+        assertEquals("Erro ao fechar a venda, chame o suporte", ex.getMessage());
     }
 
     @Test
@@ -927,6 +982,29 @@ class VendaServiceTest {
         assertEquals("Valor das parcelas diferente do valor total de produtos, verifique", exMaior.getMessage());
     }
 
+    @Test
+    @DisplayName("Deve usar o total mantido em memória no lugar do valor enviado pela tela")
+    void deveFecharVendaComTotalEmMemoria() {
+        Long codVenda = 1L;
+        Venda venda = criarVendaMock(true);
+        when(vendas.findByCodigoEquals(codVenda)).thenReturn(venda);
+        when(vendasAbertas.encerra(codVenda)).thenReturn(80.0);
+
+        PagamentoTipo pagTipo = new PagamentoTipo();
+        pagTipo.setFormaPagamento("00");
+        when(formaPagamentos.busca(anyLong())).thenReturn(pagTipo);
+
+        Titulo titulo = new Titulo();
+        TituloTipo tipoCart = new TituloTipo();
+        tipoCart.setSigla("CARTDEB");
+        titulo.setTipo(tipoCart);
+        when(tituloService.busca(anyLong())).thenReturn(Optional.of(titulo));
+
+        service.fechaVenda(codVenda, 1L, 100.0, 0.0, 0.0, new String[]{"80"}, new String[]{"20"});
+
+        verify(vendas).fechaVenda(eq(codVenda), eq(VendaSituacao.FECHADA), eq(80.0), eq(0.0), eq(0.0), any(), any());
+    }
+
     @Test
     @DisplayName("Deve retornar a quantidade de vendas em aberto")
     void deveRetornarQtdVendasEmAberto() {
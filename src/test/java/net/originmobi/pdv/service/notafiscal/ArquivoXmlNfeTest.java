@@ -0,0 +1,145 @@
+package net.originmobi.pdv.service.notafiscal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ArquivoXmlNfeTest {
+
+    private static final String CHAVE_MAIO = "11180512271266000158550010000000011994707452";
+    private static final String CHAVE_MAIO_2 = "11180512271266000158550010000000021994707453";
+    private static final String CHAVE_JUNHO = "11180612271266000158550010000000031994707454";
+
+    @TempDir
+    Path diretorio;
+
+    private ArquivoXmlNfe arquivo;
+
+    @BeforeEach
+    void setUp() {
+        arquivo = novoArquivo();
+    }
+
+    @AfterEach
+    void tearDown() {
+        arquivo.encerra();
+    }
+
+    @Test
+    void grava_deveSepararPorMesECompactar() throws Exception {
+        byte[] xml = xml("nota 1", 2000);
+
+        arquivo.grava(CHAVE_MAIO, xml);
+        arquivo.grava(CHAVE_JUNHO, xml("nota 3", 10));
+
+        assertArrayEquals(xml, arquivo.busca(CHAVE_MAIO).get());
+        assertTrue(Files.exists(diretorio.resolve("1805").resolve("indice.idx")));
+        assertTrue(Files.exists(diretorio.resolve("1806").resolve("xml-00000.seg")));
+        assertTrue(Files.size(diretorio.resolve("1805").resolve("xml-00000.seg")) < xml.length / 10);
+        assertFalse(Files.exists(diretorio.resolve(CHAVE_MAIO + ".xml")));
+    }
+
+    @Test
+    void busca_deveEncontrarAsNotasDepoisDeReabrir() {
+        arquivo.grava(CHAVE_MAIO, xml("primeira versão", 1));
+        arquivo.grava(CHAVE_MAIO_2, xml("nota 2", 1));
+        arquivo.grava(CHAVE_MAIO, xml("segunda versão", 1));
+        arquivo.remove(CHAVE_MAIO_2);
+        arquivo.encerra();
+
+        arquivo = novoArquivo();
+
+        assertArrayEquals(xml("segunda versão", 1), arquivo.busca(CHAVE_MAIO).get());
+        assertFalse(arquivo.busca(CHAVE_MAIO_2).isPresent());
+        assertFalse(arquivo.busca(CHAVE_JUNHO).isPresent());
+    }
+
+    @Test
+    void grava_deveAbrirNovoSegmentoAoPassarDoLimite() {
+        ReflectionTestUtils.setField(arquivo, "segmentoMb", 1);
+        byte[] grande = aleatorio(700 * 1024);
+
+        arquivo.grava(CHAVE_MAIO, grande);
+        arquivo.grava(CHAVE_MAIO_2, grande);
+
+        assertTrue(Files.exists(diretorio.resolve("1805").resolve("xml-00001.seg")));
+        assertArrayEquals(grande, arquivo.busca(CHAVE_MAIO).get());
+        assertArrayEquals(grande, arquivo.busca(CHAVE_MAIO_2).get());
+    }
+
+    @Test
+    void exporta_deveGerarZipSomenteComAsNotasAtivasDoMes() throws Exception {
+        arquivo.grava(CHAVE_MAIO, xml("nota 1", 1));
+        arquivo.grava(CHAVE_MAIO_2, xml("nota 2", 1));
+        arquivo.grava(CHAVE_JUNHO, xml("nota 3", 1));
+        arquivo.remove(CHAVE_MAIO);
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(saida)) {
+            assertEquals(1, arquivo.exporta("1805", zip));
+        }
+
+        List<String> nomes = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(saida.toByteArray()))) {
+            ZipEntry entrada;
+            while ((entrada = zip.getNextEntry()) != null)
+                nomes.add(entrada.getName());
+        }
+
+        assertEquals(1, nomes.size());
+        assertEquals(CHAVE_MAIO_2 + ".xml", nomes.get(0));
+    }
+
+    @Test
+    void grava_chaveInvalidaDeveLancarExcecao() {
+        assertThrows(RuntimeException.class, () -> arquivo.grava("123", xml("nota", 1)));
+    }
+
+    @Test
+    void busca_chaveInvalidaDeveRetornarVazio() {
+        assertFalse(arquivo.busca("123").isPresent());
+        assertFalse(arquivo.busca("1118051227126600015855001000000001199470745X").isPresent());
+        assertFalse(arquivo.remove("123"));
+    }
+
+    private ArquivoXmlNfe novoArquivo() {
+        ArquivoXmlNfe novo = new ArquivoXmlNfe();
+        ReflectionTestUtils.setField(novo, "caminho", diretorio.toString());
+        return novo;
+    }
+
+    private byte[] xml(String conteudo, int repeticoes) {
+        StringBuilder xml = new StringBuilder("<NFe>");
+        for (int i = 0; i < repeticoes; i++)
+            xml.append("<det>").append(conteudo).append("</det>");
+        return xml.append("</NFe>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] aleatorio(int tamanho) {
+        byte[] bytes = new byte[tamanho];
+        new Random(1).nextBytes(bytes);
+        return Base64.getEncoder().encode(bytes);
+    }
+
+}
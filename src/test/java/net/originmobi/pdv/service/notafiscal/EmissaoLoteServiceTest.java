@@ -0,0 +1,161 @@
+package net.originmobi.pdv.service.notafiscal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import net.originmobi.pdv.enumerado.notafiscal.EmissaoSituacao;
+import net.originmobi.pdv.model.NotaFiscal;
+import net.originmobi.pdv.xml.nfe.AssinaXML;
+import net.originmobi.pdv.xml.nfe.EscritorXmlNfe;
+import net.originmobi.pdv.xml.nfe.GeraXmlNfe;
+
+@ExtendWith(MockitoExtension.class)
+class EmissaoLoteServiceTest {
+
+    @Mock
+    private NotaFiscalService notasFiscais;
+    @Mock
+    private GeraXmlNfe geraXmlNfe;
+    @Mock
+    private EscritorXmlNfe escritor;
+    @Mock
+    private AssinaXML assina;
+
+    @InjectMocks
+    private EmissaoLoteService emissao;
+
+    @BeforeEach
+    void setUp() {
+        emissao.inicia();
+    }
+
+    @AfterEach
+    void tearDown() {
+        emissao.encerra();
+    }
+
+    @Test
+    void envia_deveGravarCadaSerieNaOrdemDaNumeracao() throws Exception {
+        List<NotaFiscal> notas = Arrays.asList(nota(13L, 1, 3L), nota(11L, 1, 1L), nota(21L, 2, 1L),
+                nota(12L, 1, 2L));
+        when(notasFiscais.buscaParaEmissao(anyCollection())).thenReturn(notas);
+        when(geraXmlNfe.geraChave(any(), any())).thenAnswer(i -> "chave" + ((NotaFiscal) i.getArgument(0)).getCodigo());
+        when(escritor.escreve(any(), anyString(), any())).thenAnswer(i -> ((String) i.getArgument(1)).getBytes());
+        when(assina.assina(any())).thenAnswer(i -> {
+            // a primeira nota da série 1 é a última a ficar assinada
+            if (new String((byte[]) i.getArgument(0)).equals("chave11"))
+                Thread.sleep(200);
+            return i.getArgument(0);
+        });
+
+        List<Long> gravadas = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(i -> gravadas.add(i.getArgument(0))).when(notasFiscais).registraEmissao(anyLong(), anyString());
+
+        EmissaoLote lote = emissao.envia(Arrays.asList(11L, 12L, 13L, 21L));
+
+        aguarda(lote);
+        assertEquals(4, lote.getEmitidas());
+        assertEquals(0, lote.getErros());
+
+        List<Long> serie1 = new ArrayList<>(gravadas);
+        serie1.remove(21L);
+        assertEquals(Arrays.asList(11L, 12L, 13L), serie1);
+        assertTrue(lote.getNotasPorSegundo() > 0);
+        verify(notasFiscais).salvaXML(any(byte[].class), eq("chave12"));
+    }
+
+    @Test
+    void envia_erroEmUmaNotaNaoDeveInterromperAsDemais() throws Exception {
+        NotaFiscal jaEmitida = nota(2L, 1, 2L);
+        jaEmitida.setChave_acesso("antiga");
+        when(notasFiscais.buscaParaEmissao(anyCollection())).thenReturn(Arrays.asList(nota(1L, 1, 1L), jaEmitida));
+        when(geraXmlNfe.geraChave(any(), any())).thenAnswer(i -> "chave" + ((NotaFiscal) i.getArgument(0)).getCodigo());
+        when(escritor.escreve(any(), anyString(), any())).thenAnswer(i -> ((String) i.getArgument(1)).getBytes());
+        when(assina.assina(any())).thenAnswer(i -> {
+            if (new String((byte[]) i.getArgument(0)).equals("chave1"))
+                throw new RuntimeException("Erro ao assinar a nota fiscal, chame o suporte");
+            return i.getArgument(0);
+        });
+
+        EmissaoLote lote = emissao.envia(Arrays.asList(1L, 2L, 3L));
+
+        aguarda(lote);
+        assertEquals(EmissaoSituacao.ERRO, lote.nota(1L).getSituacao());
+        assertEquals("Erro ao assinar a nota fiscal, chame o suporte", lote.nota(1L).getMensagem());
+        assertEquals(EmissaoSituacao.EMITIDA, lote.nota(2L).getSituacao());
+        assertEquals(EmissaoSituacao.ERRO, lote.nota(3L).getSituacao());
+        assertEquals("Nota fiscal não encontrada", lote.nota(3L).getMensagem());
+
+        verify(notasFiscais).removeXml("antiga");
+        verify(notasFiscais).registraEmissao(2L, "chave2");
+        verify(notasFiscais, never()).registraEmissao(eq(1L), anyString());
+    }
+
+    @Test
+    void envia_excecaoForaDasEtapasDeveLiberarAVagaESeguirComASerie() throws Exception {
+        ReflectionTestUtils.setField(emissao, "limiteEmAndamento", 1);
+        when(notasFiscais.buscaParaEmissao(anyCollection()))
+                .thenReturn(Arrays.asList(nota(1L, 1, 1L), nota(2L, 1, 2L), nota(3L, 1, 3L)));
+        when(geraXmlNfe.geraChave(any(), any())).thenAnswer(i -> "chave" + ((NotaFiscal) i.getArgument(0)).getCodigo());
+        when(escritor.escreve(any(), anyString(), any())).thenAnswer(i -> ((String) i.getArgument(1)).getBytes());
+        when(assina.assina(any())).thenAnswer(i -> {
+            // um Error não é tratado pela etapa e termina o futuro com exceção
+            if (new String((byte[]) i.getArgument(0)).equals("chave1"))
+                throw new LinkageError("Provedor de assinatura indisponível");
+            return i.getArgument(0);
+        });
+
+        EmissaoLote lote = emissao.envia(Arrays.asList(1L, 2L, 3L));
+
+        aguarda(lote);
+        assertEquals(EmissaoSituacao.ERRO, lote.nota(1L).getSituacao());
+        assertEquals("Provedor de assinatura indisponível", lote.nota(1L).getMensagem());
+        assertEquals(EmissaoSituacao.EMITIDA, lote.nota(2L).getSituacao());
+        assertEquals(EmissaoSituacao.EMITIDA, lote.nota(3L).getSituacao());
+    }
+
+    @Test
+    void envia_semNotasDeveLancarExcecao() {
+        assertThrows(RuntimeException.class, () -> emissao.envia(Collections.emptyList()));
+    }
+
+    private NotaFiscal nota(Long codigo, int serie, Long numero) {
+        NotaFiscal nota = new NotaFiscal();
+        nota.setCodigo(codigo);
+        nota.setSerie(serie);
+        nota.setNumero(numero);
+        return nota;
+    }
+
+    private void aguarda(EmissaoLote lote) throws InterruptedException {
+        for (int i = 0; i < 250 && !lote.isConcluido(); i++)
+            Thread.sleep(20);
+
+        assertTrue(lote.isConcluido());
+    }
+
+}
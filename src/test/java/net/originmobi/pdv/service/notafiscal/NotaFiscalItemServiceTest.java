@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyChar;
@@ -37,6 +38,7 @@ import net.originmobi.pdv.model.NotaFiscalItem;
 import net.originmobi.pdv.model.NotaFiscalItemImposto;
 import net.originmobi.pdv.model.NotaFiscalTotais;
 import net.originmobi.pdv.service.ProdutoService;
+import net.originmobi.pdv.service.TabelaTributacao;
 import net.originmobi.pdv.repository.notafiscal.NotaFiscalItemRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -59,6 +61,9 @@ class NotaFiscalItemServiceTest {
 
     @Mock
     private NotaFiscalTotaisServer totais;
+
+    @Spy
+    private TabelaTributacao tabela = new TabelaTributacao();
     
     //testa se falha se o produto nao for encontrado
     @Test
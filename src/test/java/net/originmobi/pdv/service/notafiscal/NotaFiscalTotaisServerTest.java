@@ -0,0 +1,92 @@
+package net.originmobi.pdv.service.notafiscal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import net.originmobi.pdv.dto.TotaisNotaDTO;
+import net.originmobi.pdv.model.NotaFiscalTotais;
+import net.originmobi.pdv.repository.notafiscal.NotaFiscalTotaisRepository;
+
+@ExtendWith(MockitoExtension.class)
+class NotaFiscalTotaisServerTest {
+
+    @Mock
+    private NotaFiscalTotaisRepository totais;
+
+    @InjectMocks
+    private NotaFiscalTotaisServer server;
+
+    @Test
+    void aplica_deveSomarSomenteADiferencaDoItem() {
+        NotaFiscalTotais total = totais(7L);
+        TotaisNotaDTO anterior = new TotaisNotaDTO(20.0, 3.6, 0.33, 1.52, 1.0);
+        TotaisNotaDTO novo = new TotaisNotaDTO(30.0, 5.4, 0.5, 2.28, 1.5);
+
+        server.aplica(total, anterior, novo);
+
+        ArgumentCaptor<Double> valores = ArgumentCaptor.forClass(Double.class);
+        verify(totais).soma(eq(7L), valores.capture(), valores.capture(), valores.capture(), valores.capture(),
+                valores.capture());
+        assertEquals(10.0, valores.getAllValues().get(0), 0.0001);
+        assertEquals(1.8, valores.getAllValues().get(1), 0.0001);
+        assertEquals(0.17, valores.getAllValues().get(2), 0.0001);
+        assertEquals(0.76, valores.getAllValues().get(3), 0.0001);
+        assertEquals(0.5, valores.getAllValues().get(4), 0.0001);
+    }
+
+    @Test
+    void aplica_itemRemovidoDeveSubtrairOsValores() {
+        server.aplica(totais(7L), new TotaisNotaDTO(20.0, 3.6, null, null, 1.0), TotaisNotaDTO.ZERO);
+
+        verify(totais).soma(7L, -20.0, -3.6, 0.0, 0.0, -1.0);
+    }
+
+    @Test
+    void atualiza_deveRecalcularTodaANota() {
+        NotaFiscalTotais total = totais(7L);
+        when(totais.calcula(1L)).thenReturn(new TotaisNotaDTO(100.0, 18.0, 1.65, 7.6, 5.0));
+
+        server.atualiza(1L, total);
+
+        assertEquals(100.0, total.getV_prod(), 0.0001);
+        assertEquals(100.0, total.getV_bc(), 0.0001);
+        assertEquals(18.0, total.getV_icms(), 0.0001);
+        assertEquals(105.0, total.getV_nf(), 0.0001);
+        verify(totais).save(total);
+    }
+
+    @Test
+    void confere_deveCompararOsTotaisComASomaDosItens() {
+        NotaFiscalTotais total = totais(7L);
+        total.setV_prod(100.0);
+        total.setV_icms(18.0);
+        total.setV_pis(1.65);
+        total.setV_cofins(7.6);
+        total.setV_ipi(5.0);
+        total.setV_nf(105.001);
+        when(totais.calcula(1L)).thenReturn(new TotaisNotaDTO(100.0, 18.0, 1.65, 7.6, 5.0))
+                .thenReturn(new TotaisNotaDTO(110.0, 18.0, 1.65, 7.6, 5.0));
+
+        assertTrue(server.confere(1L, total));
+        assertFalse(server.confere(1L, total));
+    }
+
+    private NotaFiscalTotais totais(Long codigo) {
+        NotaFiscalTotais total = new NotaFiscalTotais(0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0,
+                0.0);
+        total.setCodigo(codigo);
+        return total;
+    }
+
+}
@@ -0,0 +1,119 @@
+package net.originmobi.pdv.service.notafiscal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import net.originmobi.pdv.model.NotaFiscalLacuna;
+import net.originmobi.pdv.model.NotaFiscalSequencia;
+import net.originmobi.pdv.repository.notafiscal.NotaFiscalLacunaRepository;
+import net.originmobi.pdv.repository.notafiscal.NotaFiscalSequenciaRepository;
+
+@ExtendWith(MockitoExtension.class)
+class NumeracaoNotaFiscalTest {
+
+    @Mock
+    private NotaFiscalSequenciaRepository sequencias;
+    @Mock
+    private NotaFiscalLacunaRepository lacunas;
+    @Mock
+    private PlatformTransactionManager transacoes;
+
+    @InjectMocks
+    private NumeracaoNotaFiscal numeracao;
+
+    @BeforeEach
+    void setUp() {
+        numeracao.inicia();
+    }
+
+    @Test
+    void proximo_deveContinuarASequenciaDaSerie() {
+        NotaFiscalSequencia sequencia = sequencia(1, 41L);
+        when(sequencias.bloqueia(1)).thenReturn(Optional.of(sequencia));
+
+        assertEquals(41L, numeracao.proximo(1));
+        assertEquals(42L, numeracao.proximo(1));
+        assertEquals(43L, sequencia.getProximo().longValue());
+    }
+
+    @Test
+    void proximo_primeiraNotaDaSerieDeveCriarASequenciaAntesDoLock() {
+        when(sequencias.bloqueia(2)).thenReturn(Optional.of(sequencia(2, 1L)));
+
+        assertEquals(1L, numeracao.proximo(2));
+        assertEquals(2L, numeracao.proximo(2));
+
+        // em transações separadas, a criação só uma vez por série
+        InOrder ordem = inOrder(sequencias, transacoes);
+        ordem.verify(sequencias).criaSeNaoExistir(2);
+        ordem.verify(transacoes).commit(any());
+        ordem.verify(sequencias).bloqueia(2);
+        verify(sequencias, times(1)).criaSeNaoExistir(2);
+    }
+
+    @Test
+    void proximo_comBlocoDeveReservarUmaVezParaVariosNumeros() {
+        ReflectionTestUtils.setField(numeracao, "tamanhoBloco", 3);
+        NotaFiscalSequencia sequencia = sequencia(1, 10L);
+        when(sequencias.bloqueia(1)).thenReturn(Optional.of(sequencia));
+
+        assertEquals(10L, numeracao.proximo(1));
+        assertEquals(11L, numeracao.proximo(1));
+        assertEquals(12L, numeracao.proximo(1));
+        assertEquals(13L, sequencia.getProximo().longValue());
+        verify(sequencias, times(1)).bloqueia(1);
+
+        assertEquals(13L, numeracao.proximo(1));
+        assertEquals(16L, sequencia.getProximo().longValue());
+    }
+
+    @Test
+    void encerra_numerosDoBlocoNaoUsadosDevemVirarLacunas() {
+        ReflectionTestUtils.setField(numeracao, "tamanhoBloco", 3);
+        when(sequencias.bloqueia(1)).thenReturn(Optional.of(sequencia(1, 10L)));
+
+        numeracao.proximo(1);
+        numeracao.encerra();
+
+        ArgumentCaptor<NotaFiscalLacuna> lacuna = ArgumentCaptor.forClass(NotaFiscalLacuna.class);
+        verify(lacunas, times(2)).save(lacuna.capture());
+
+        List<NotaFiscalLacuna> registradas = lacuna.getAllValues();
+        assertEquals(11L, registradas.get(0).getNumero().longValue());
+        assertEquals(12L, registradas.get(1).getNumero().longValue());
+        assertEquals(1, registradas.get(1).getSerie());
+    }
+
+    @Test
+    void registraLacuna_deveGravarONumeroDaSerie() {
+        numeracao.registraLacuna(1, 99L, "Erro ao cadastrar a nota");
+
+        verify(lacunas).save(any(NotaFiscalLacuna.class));
+    }
+
+    private NotaFiscalSequencia sequencia(int serie, Long proximo) {
+        NotaFiscalSequencia sequencia = new NotaFiscalSequencia();
+        sequencia.setSerie(serie);
+        sequencia.setProximo(proximo);
+        return sequencia;
+    }
+
+}
@@ -0,0 +1,86 @@
+package net.originmobi.pdv.utilitarios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class DinheiroTest {
+
+    @Test
+    void de_deveArredondarParaOCentavoMaisProximo() {
+        assertEquals(101, Dinheiro.de(1.005).getCentavos());
+        assertEquals(29, Dinheiro.de(0.285).getCentavos());
+        assertEquals(-101, Dinheiro.de(-1.005).getCentavos());
+        assertEquals(1234, Dinheiro.de(12.344).getCentavos());
+        assertSame(Dinheiro.ZERO, Dinheiro.de((Double) null));
+    }
+
+    @Test
+    void de_deveAceitarOsDoisFormatosDeTexto() {
+        assertEquals(123456, Dinheiro.de("1234.56").getCentavos());
+        assertEquals(123456, Dinheiro.de("1.234,56").getCentavos());
+        assertEquals(3000, Dinheiro.de("30").getCentavos());
+        assertEquals(990, Dinheiro.de("R$ 9,90").getCentavos());
+        assertThrows(RuntimeException.class, () -> Dinheiro.de("abc"));
+    }
+
+    @Test
+    void somas_naoDevemAcumularDiferenca() {
+        Dinheiro total = Dinheiro.ZERO;
+        double totalDouble = 0.0;
+
+        for (int i = 0; i < 1000; i++) {
+            total = total.mais(Dinheiro.de(0.1));
+            totalDouble += 0.1;
+        }
+
+        assertEquals(10000, total.getCentavos());
+        assertEquals(100.0, total.valor());
+        assertTrue(totalDouble != 100.0);
+    }
+
+    @Test
+    void rateia_partesDevemSomarOTotal() {
+        Dinheiro[] partes = Dinheiro.de(10.0).rateia(3);
+
+        assertEquals(Arrays.asList(Dinheiro.deCentavos(334), Dinheiro.deCentavos(333), Dinheiro.deCentavos(333)),
+                Arrays.asList(partes));
+
+        Dinheiro[] negativas = Dinheiro.deCentavos(-10).rateia(3);
+        assertEquals(-10, Arrays.stream(negativas).mapToLong(Dinheiro::getCentavos).sum());
+        assertThrows(IllegalArgumentException.class, () -> Dinheiro.ZERO.rateia(0));
+    }
+
+    @Test
+    void percentual_deveArredondarNoCentavo() {
+        assertEquals(Dinheiro.de(222.21), Dinheiro.de(1234.5).percentual(18.0));
+        assertEquals(Dinheiro.de(20.37), Dinheiro.de(1234.5).percentual(1.65));
+        assertEquals(Dinheiro.deCentavos(1), Dinheiro.deCentavos(10).percentual(5.0));
+    }
+
+    @Test
+    void comparacoes() {
+        Dinheiro dez = Dinheiro.de(10.0);
+        Dinheiro vinte = Dinheiro.de(20.0);
+
+        assertSame(dez, dez.minimo(vinte));
+        assertTrue(vinte.maiorQue(dez));
+        assertTrue(dez.menorQue(vinte));
+        assertSame(Dinheiro.ZERO, dez.menos(vinte).positivoOuZero());
+        assertTrue(dez.menos(vinte).isNegativo());
+    }
+
+    @Test
+    void formata_deveUsarOFormatoDasTelas() {
+        assertEquals("1.234.567,89", Dinheiro.deCentavos(123456789).formata());
+        assertEquals("0,05", Dinheiro.deCentavos(5).formata());
+        assertEquals("-12,30", Dinheiro.de(-12.3).formata());
+        assertEquals("1234.56", Dinheiro.de(1234.56).toString());
+    }
+
+}
@@ -0,0 +1,189 @@
+package net.originmobi.pdv.xml.nfe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import net.originmobi.pdv.enumerado.notafiscal.NotaFiscalTipo;
+import net.originmobi.pdv.model.Cidade;
+import net.originmobi.pdv.model.Empresa;
+import net.originmobi.pdv.model.EmpresaParametro;
+import net.originmobi.pdv.model.Endereco;
+import net.originmobi.pdv.model.Estado;
+import net.originmobi.pdv.model.FreteTipo;
+import net.originmobi.pdv.model.NotaFiscal;
+import net.originmobi.pdv.model.NotaFiscalFinalidade;
+import net.originmobi.pdv.model.NotaFiscalItem;
+import net.originmobi.pdv.model.NotaFiscalItemImposto;
+import net.originmobi.pdv.model.NotaFiscalTotais;
+import net.originmobi.pdv.model.Pais;
+import net.originmobi.pdv.model.Pessoa;
+import net.originmobi.pdv.model.RegimeTributario;
+import net.originmobi.pdv.model.Telefone;
+
+class EscritorXmlNfeTest {
+
+    private static final String NAMESPACE = "http://www.portalfiscal.inf.br/nfe";
+    private static final String CHAVE = "11180512271266000158550010000000011994707452";
+    private static final OffsetDateTime EMISSAO = OffsetDateTime.of(2018, 5, 3, 8, 10, 0, 0, ZoneOffset.ofHours(-4));
+
+    private final EscritorXmlNfe escritor = new EscritorXmlNfe();
+
+    @Test
+    void escreve_deveGerarEnviNFeComOsItensEOsTotais() throws Exception {
+        Document xml = le(escritor.escreve(nota(3, 2), CHAVE, EMISSAO));
+
+        Element raiz = xml.getDocumentElement();
+        assertEquals("enviNFe", raiz.getLocalName());
+        assertEquals(NAMESPACE, raiz.getNamespaceURI());
+
+        Element infNFe = (Element) xml.getElementsByTagNameNS(NAMESPACE, "infNFe").item(0);
+        assertEquals("NFe" + CHAVE, infNFe.getAttribute("Id"));
+        assertEquals("99470745", texto(xml, "cNF", 0));
+        assertEquals("2", texto(xml, "cDV", 0));
+        assertEquals("2018-05-03T08:10:00-04:00", texto(xml, "dhEmi", 0));
+        assertEquals("2018-05-03T08:10:00-04:00", texto(xml, "dhSaiEnt", 0));
+
+        assertEquals(2, xml.getElementsByTagNameNS(NAMESPACE, "det").getLength());
+        assertEquals("1234.50", texto(xml, "vProd", 0));
+        assertEquals("ICMS00", ((Element) xml.getElementsByTagNameNS(NAMESPACE, "ICMS").item(0))
+                .getElementsByTagName("*").item(0).getLocalName());
+        assertEquals("01", texto(xml, "CST", 1));
+        assertEquals("18.00", texto(xml, "pICMS", 0));
+        assertEquals("2469.00", texto(xml, "vNF", 0));
+        assertEquals("00000000", texto(xml, "CEP", 0));
+    }
+
+    @Test
+    void escreve_simplesNacionalDeveUsarICMSSNSemBaseDeCalculo() throws Exception {
+        Document xml = le(escritor.escreve(nota(1, 1), CHAVE, EMISSAO));
+
+        assertEquals(1, xml.getElementsByTagNameNS(NAMESPACE, "ICMSSN00").getLength());
+        assertEquals("24.69", texto(xml, "vCredICMSSN", 0));
+
+        Element icmsTot = (Element) xml.getElementsByTagNameNS(NAMESPACE, "ICMSTot").item(0);
+        assertEquals("0.00", icmsTot.getElementsByTagNameNS(NAMESPACE, "vBC").item(0).getTextContent());
+    }
+
+    private Document le(byte[] xml) throws Exception {
+        DocumentBuilderFactory fabrica = DocumentBuilderFactory.newInstance();
+        fabrica.setNamespaceAware(true);
+        return fabrica.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    private String texto(Document xml, String nome, int indice) {
+        return xml.getElementsByTagNameNS(NAMESPACE, nome).item(indice).getTextContent();
+    }
+
+    private NotaFiscal nota(int tipoRegime, int qtdItens) {
+        Pais pais = new Pais();
+        pais.setNome("Brasil");
+        pais.setCodigo_pais("1058");
+
+        Estado estado = new Estado();
+        estado.setSigla("RO");
+        estado.setCodigoUF("11");
+        estado.setPais(pais);
+
+        Cidade cidade = new Cidade();
+        cidade.setNome("Porto Velho");
+        cidade.setCodigo_municipio("1100205");
+        cidade.setEstado(estado);
+
+        Endereco endereco = new Endereco();
+        endereco.setRua("Rua A");
+        endereco.setNumero("10");
+        endereco.setBairro("Centro");
+        endereco.setCep("00000000");
+        endereco.setCidade(cidade);
+
+        RegimeTributario regime = new RegimeTributario();
+        regime.setTipoRegime(tipoRegime);
+
+        EmpresaParametro parametro = new EmpresaParametro();
+        parametro.setSerie_nfe(1);
+        parametro.setAmbiente(2);
+
+        Empresa emissor = new Empresa();
+        emissor.setNome("Empresa");
+        emissor.setNome_fantasia("Empresa");
+        emissor.setCnpj("12.271.266/0001-58");
+        emissor.setIe("123");
+        emissor.setRegime_tributario(regime);
+        emissor.setParametro(parametro);
+        emissor.setEndereco(endereco);
+
+        Telefone telefone = new Telefone();
+        telefone.setFone("69999999999");
+
+        Pessoa destinatario = new Pessoa();
+        destinatario.setNome("Cliente");
+        destinatario.setCpfcnpj("123.456.789-00");
+        destinatario.setEndereco(endereco);
+        destinatario.setTelefone(Collections.singletonList(telefone));
+
+        FreteTipo frete = new FreteTipo();
+        frete.setTipo(9);
+
+        NotaFiscalFinalidade finalidade = new NotaFiscalFinalidade();
+        finalidade.setTipo(1);
+
+        List<NotaFiscalItem> itens = new ArrayList<>();
+        for (int i = 0; i < qtdItens; i++) {
+            NotaFiscalItemImposto impostos = new NotaFiscalItemImposto();
+            impostos.setCst(i);
+            impostos.setV_bc(1234.5);
+            impostos.setP_icms(18.0);
+            impostos.setV_icms(222.21);
+            impostos.setCst_pis(1);
+            impostos.setVbc_pis(1234.5);
+            impostos.setP_pis(1.65);
+            impostos.setV_pis(20.37);
+            impostos.setCst_cofins(1);
+            impostos.setVbc_cofins(1234.5);
+            impostos.setP_cofins(7.6);
+            impostos.setV_cofins(93.82);
+
+            NotaFiscalItem item = new NotaFiscalItem();
+            item.setCodigo((long) i + 1);
+            item.setCfop("5102");
+            item.setUnidade_tribu("UN");
+            item.setQtd(1);
+            item.setQtd_tribu(1);
+            item.setV_uniTribu(1234.5);
+            item.setVlTotal(1234.5);
+            item.setImpostos(impostos);
+            itens.add(item);
+        }
+
+        NotaFiscalTotais totais = new NotaFiscalTotais(1234.5 * qtdItens, 0.0, 0.0, 1234.5 * qtdItens, 0.0, 0.0,
+                0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 1234.5 * qtdItens);
+
+        NotaFiscal nota = new NotaFiscal();
+        nota.setNumero(1L);
+        nota.setModelo(55);
+        nota.setSerie(1);
+        nota.setTipo(NotaFiscalTipo.SAIDA);
+        nota.setNatureza_operacao("Venda");
+        nota.setEmissor(emissor);
+        nota.setDestinatario(destinatario);
+        nota.setFreteTipo(frete);
+        nota.setFinalidade(finalidade);
+        nota.setTotais(totais);
+        nota.setItens(itens);
+        nota.setTipo_ambiente(2);
+        return nota;
+    }
+
+}